@@ -0,0 +1,75 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.benchmarks;
+
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+
+import java.io.File;
+
+/**
+ * Creates the plocal database used by a benchmark and drops it at the end of the trial. Databases are created under the
+ * directory set by the "buildDirectory" system property, "./target" by default.
+ */
+public class OBenchmarkDatabase {
+  private final String name;
+  private final OrientDB orientDB;
+  private final ODatabaseSession session;
+
+  public OBenchmarkDatabase(final String name) {
+    this.name = name;
+
+    final String buildDirectory = System.getProperty("buildDirectory", "./target");
+    orientDB = new OrientDB("embedded:" + new File(buildDirectory, "benchmarks").getAbsolutePath(),
+        OrientDBConfig.defaultConfig());
+    if (orientDB.exists(name))
+      orientDB.drop(name);
+    orientDB.create(name, ODatabaseType.PLOCAL);
+
+    session = orientDB.open(name, "admin", "admin");
+  }
+
+  /**
+   * Returns the session opened on the database. The session is bound to the thread which created it, benchmarks executed by
+   * many threads have to open their own sessions with {@link #openSession()}.
+   */
+  public ODatabaseSession getSession() {
+    return session;
+  }
+
+  public ODatabaseSession openSession() {
+    return orientDB.open(name, "admin", "admin");
+  }
+
+  public OAbstractPaginatedStorage getStorage() {
+    return (OAbstractPaginatedStorage) ((ODatabaseDocumentInternal) session).getStorage();
+  }
+
+  public void drop() {
+    session.activateOnCurrentThread();
+    session.close();
+    orientDB.drop(name);
+    orientDB.close();
+  }
+}
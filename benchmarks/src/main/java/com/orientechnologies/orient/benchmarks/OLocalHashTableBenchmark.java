@@ -0,0 +1,89 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.benchmarks;
+
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.OLinkSerializer;
+import com.orientechnologies.orient.core.storage.index.hashindex.local.OLocalHashTable;
+import com.orientechnologies.orient.core.storage.index.hashindex.local.OMurmurHash3HashFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point lookups of the hash table used by the hash indexes, for existing and missing keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OLocalHashTableBenchmark {
+  @Param({ "100000" })
+  public int keys;
+
+  private OBenchmarkDatabase                      database;
+  private OLocalHashTable<Integer, OIdentifiable> hashTable;
+
+  @Setup
+  public void setup() {
+    database = new OBenchmarkDatabase("hashTableBenchmark");
+
+    final OMurmurHash3HashFunction<Integer> hashFunction = new OMurmurHash3HashFunction<>();
+    hashFunction.setValueSerializer(OIntegerSerializer.INSTANCE);
+
+    hashTable = new OLocalHashTable<>("hashTableBenchmark", ".imc", ".tsc", ".obf", ".nbh", hashFunction, database.getStorage());
+    hashTable.create(OIntegerSerializer.INSTANCE, OLinkSerializer.INSTANCE, null, false);
+
+    for (int i = 0; i < keys; i++)
+      hashTable.put(i, new ORecordId(i % 32000, i));
+  }
+
+  @TearDown
+  public void tearDown() {
+    hashTable.delete();
+    database.drop();
+  }
+
+  @Benchmark
+  public OIdentifiable get() {
+    return hashTable.get(ThreadLocalRandom.current().nextInt(keys));
+  }
+
+  @Benchmark
+  public OIdentifiable getMissing() {
+    return hashTable.get(keys + ThreadLocalRandom.current().nextInt(keys));
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.benchmarks;
+
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.cache.OReadCache;
+import com.orientechnologies.orient.core.storage.cache.OWriteCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load and release of pages in the read cache (2Q cache for plocal storages). All the pages fit in the cache, so the benchmark
+ * measures the cost of the cache lookup and of the page locks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OReadCacheBenchmark {
+  @Param({ "1024", "16384" })
+  public int pages;
+
+  private OBenchmarkDatabase database;
+  private OReadCache         readCache;
+  private OWriteCache        writeCache;
+  private long               fileId;
+
+  @Setup
+  public void setup() throws IOException {
+    database = new OBenchmarkDatabase("readCacheBenchmark");
+    readCache = database.getStorage().getReadCache();
+    writeCache = database.getStorage().getWriteCache();
+
+    fileId = readCache.addFile("readCacheBenchmark.tst", writeCache);
+    for (int i = 0; i < pages; i++) {
+      final OCacheEntry cacheEntry = readCache.allocateNewPage(fileId, writeCache, false);
+      cacheEntry.markDirty();
+      readCache.releaseFromWrite(cacheEntry, writeCache);
+    }
+    writeCache.flush();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    readCache.deleteFile(fileId, writeCache);
+    database.drop();
+  }
+
+  @Benchmark
+  public long loadForRead() throws IOException {
+    final OCacheEntry cacheEntry = readCache
+        .loadForRead(fileId, ThreadLocalRandom.current().nextInt(pages), false, writeCache, 1, false);
+    try {
+      return cacheEntry.getPageIndex();
+    } finally {
+      readCache.releaseFromRead(cacheEntry, writeCache);
+    }
+  }
+
+  @Benchmark
+  public long loadForWrite() throws IOException {
+    final OCacheEntry cacheEntry = readCache
+        .loadForWrite(fileId, ThreadLocalRandom.current().nextInt(pages), false, writeCache, 1, false);
+    try {
+      return cacheEntry.getPageIndex();
+    } finally {
+      readCache.releaseFromWrite(cacheEntry, writeCache);
+    }
+  }
+}
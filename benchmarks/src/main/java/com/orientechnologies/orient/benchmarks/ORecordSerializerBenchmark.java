@@ -0,0 +1,96 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.benchmarks;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.BytesContainer;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerBinaryV0;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization and deserialization of a document with the most common field types by the binary record serializer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ORecordSerializerBenchmark {
+  private ORecordSerializerBinaryV0 serializer;
+  private ODocument                 document;
+  private byte[]                    serialized;
+
+  @Setup
+  public void setup() {
+    serializer = new ORecordSerializerBinaryV0();
+
+    final ODocument address = new ODocument();
+    address.field("street", "Piazza di Spagna");
+    address.field("number", 12);
+    address.field("city", "Rome");
+
+    document = new ODocument();
+    document.field("name", "Jay");
+    document.field("surname", "Miner");
+    document.field("age", 42);
+    document.field("salary", 12345.67d);
+    document.field("created", new Date(1500000000000L));
+    document.field("active", true);
+    document.field("id", 1234567890123L);
+    document.field("tags", Arrays.asList("amiga", "chipset", "hardware"));
+    document.field("scores", Arrays.asList(1, 2, 3, 5, 8, 13, 21));
+    document.field("friend", new ORecordId(10, 42));
+    document.field("address", address, OType.EMBEDDED);
+
+    final BytesContainer bytes = new BytesContainer();
+    serializer.serialize(document, bytes, false);
+    serialized = bytes.fitBytes();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    final BytesContainer bytes = new BytesContainer();
+    serializer.serialize(document, bytes, false);
+    return bytes.fitBytes();
+  }
+
+  @Benchmark
+  public ODocument deserialize() {
+    final ODocument result = new ODocument();
+    serializer.deserialize(result, new BytesContainer(serialized));
+    return result;
+  }
+}
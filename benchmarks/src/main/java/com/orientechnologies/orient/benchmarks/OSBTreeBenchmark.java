@@ -0,0 +1,105 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.benchmarks;
+
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.OLinkSerializer;
+import com.orientechnologies.orient.core.storage.index.sbtree.local.OSBTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point lookups, updates and range scans of a tree filled with sequential integer keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OSBTreeBenchmark {
+  @Param({ "100000" })
+  public int keys;
+
+  @Param({ "100" })
+  public int rangeSize;
+
+  private OBenchmarkDatabase                database;
+  private OSBTree<Integer, OIdentifiable> sbTree;
+
+  @Setup
+  public void setup() {
+    database = new OBenchmarkDatabase("sbTreeBenchmark");
+
+    sbTree = new OSBTree<>("sbTreeBenchmark", ".sbt", false, ".nbt", database.getStorage());
+    sbTree.create(OIntegerSerializer.INSTANCE, OLinkSerializer.INSTANCE, null, 1, false);
+
+    for (int i = 0; i < keys; i++)
+      sbTree.put(i, new ORecordId(i % 32000, i));
+  }
+
+  @TearDown
+  public void tearDown() {
+    sbTree.delete();
+    database.drop();
+  }
+
+  @Benchmark
+  public OIdentifiable get() {
+    return sbTree.get(ThreadLocalRandom.current().nextInt(keys));
+  }
+
+  @Benchmark
+  public void put() {
+    final int key = ThreadLocalRandom.current().nextInt(keys);
+    sbTree.put(key, new ORecordId(key % 32000, key));
+  }
+
+  @Benchmark
+  public int range() {
+    final int from = ThreadLocalRandom.current().nextInt(keys - rangeSize);
+    final OSBTree.OSBTreeCursor<Integer, OIdentifiable> cursor = sbTree
+        .iterateEntriesBetween(from, true, from + rangeSize, false, true);
+
+    int count = 0;
+    Map.Entry<Integer, OIdentifiable> entry = cursor.next(-1);
+    while (entry != null) {
+      count++;
+      entry = cursor.next(-1);
+    }
+    return count;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.benchmarks;
+
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.OElement;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end execution of SQL queries, from parsing to the consumption of the result set, covering the main execution plans:
+ * indexed lookup, filtered full scan, sort with limit, grouping and count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OSQLExecutorBenchmark {
+  private static final int CITIES = 100;
+
+  @Param({ "100000" })
+  public int records;
+
+  private OBenchmarkDatabase database;
+
+  /**
+   * Database sessions are bound to a thread, each benchmark thread opens its own.
+   */
+  @State(Scope.Thread)
+  public static class Session {
+    private ODatabaseSession session;
+
+    @Setup
+    public void setup(final OSQLExecutorBenchmark benchmark) {
+      session = benchmark.database.openSession();
+    }
+
+    @TearDown
+    public void tearDown() {
+      session.activateOnCurrentThread();
+      session.close();
+    }
+  }
+
+  @Setup
+  public void setup() {
+    database = new OBenchmarkDatabase("sqlBenchmark");
+
+    final ODatabaseSession session = database.getSession();
+    final OClass person = session.createClass("Person");
+    person.createProperty("name", OType.STRING).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+    person.createProperty("age", OType.INTEGER);
+    person.createProperty("city", OType.STRING);
+
+    session.begin();
+    for (int i = 0; i < records; i++) {
+      final OElement element = session.newElement("Person");
+      element.setProperty("name", "name" + i);
+      element.setProperty("age", i % 90);
+      element.setProperty("city", "city" + (i % CITIES));
+      element.save();
+
+      if (i % 1000 == 999) {
+        session.commit();
+        session.begin();
+      }
+    }
+    session.commit();
+  }
+
+  @TearDown
+  public void tearDown() {
+    database.drop();
+  }
+
+  @Benchmark
+  public long indexedLookup(final Session session) {
+    return consume(session.session.query("select from Person where name = ?", "name" + ThreadLocalRandom.current().nextInt(records)));
+  }
+
+  @Benchmark
+  public long filteredScan(final Session session) {
+    return consume(session.session
+        .query("select from Person where age > ? and city = ?", 80, "city" + ThreadLocalRandom.current().nextInt(CITIES)));
+  }
+
+  @Benchmark
+  public long orderByLimit(final Session session) {
+    return consume(session.session.query("select from Person order by age desc, name limit 10"));
+  }
+
+  @Benchmark
+  public long groupBy(final Session session) {
+    return consume(session.session.query("select city, count(*) as total, max(age) as maxAge from Person group by city"));
+  }
+
+  @Benchmark
+  public long count(final Session session) {
+    return consume(session.session.query("select count(*) from Person"));
+  }
+
+  private static long consume(final OResultSet resultSet) {
+    try {
+      long count = 0;
+      while (resultSet.hasNext()) {
+        resultSet.next();
+        count++;
+      }
+      return count;
+    } finally {
+      resultSet.close();
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.benchmarks;
+
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OLogSequenceNumber;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OOperationUnitId;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OUpdatePageRecord;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWALChangesTree;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWriteAheadLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of page update records appended to the write ahead log, with and without waiting for them to be on disk as on
+ * the commit of a transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OWriteAheadLogBenchmark {
+  @Param({ "64", "1024" })
+  public int changeSize;
+
+  private OBenchmarkDatabase database;
+  private OWriteAheadLog     writeAheadLog;
+
+  /**
+   * Record logged by a benchmark thread, the log assigns it a new LSN at each append.
+   */
+  @State(Scope.Thread)
+  public static class Record {
+    private OUpdatePageRecord record;
+
+    @Setup
+    public void setup(final OWriteAheadLogBenchmark benchmark) {
+      final byte[] change = new byte[benchmark.changeSize];
+      new Random(42).nextBytes(change);
+
+      final OWALChangesTree changes = new OWALChangesTree();
+      changes.setBinaryValue(null, change, 64);
+
+      record = new OUpdatePageRecord(0, 0, OOperationUnitId.generateId(), changes);
+    }
+  }
+
+  @Setup
+  public void setup() {
+    database = new OBenchmarkDatabase("walBenchmark");
+    writeAheadLog = database.getStorage().getWALInstance();
+  }
+
+  @TearDown
+  public void tearDown() {
+    database.drop();
+  }
+
+  @Benchmark
+  public OLogSequenceNumber log(final Record record) throws IOException {
+    return writeAheadLog.log(record.record);
+  }
+
+  @Benchmark
+  public OLogSequenceNumber logAndFlush(final Record record) throws IOException {
+    final OLogSequenceNumber lsn = writeAheadLog.log(record.record);
+    writeAheadLog.flush();
+    return lsn;
+  }
+}
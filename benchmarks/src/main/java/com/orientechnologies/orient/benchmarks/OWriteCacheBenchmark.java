@@ -0,0 +1,114 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.benchmarks;
+
+import com.orientechnologies.common.serialization.types.OLongSerializer;
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.cache.OReadCache;
+import com.orientechnologies.orient.core.storage.cache.OWriteCache;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurablePage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Store of modified pages in the write cache and flush of the dirty pages to disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OWriteCacheBenchmark {
+  // FIRST BYTE OF A PAGE AFTER THE SYSTEM HEADER (MAGIC NUMBER, CRC32 AND LSN)
+  private static final int DATA_OFFSET = ODurablePage.WAL_POSITION_OFFSET + OLongSerializer.LONG_SIZE;
+
+  @Param({ "4096" })
+  public int pages;
+
+  @Param({ "64" })
+  public int pagesPerFlush;
+
+  private OBenchmarkDatabase database;
+  private OReadCache         readCache;
+  private OWriteCache        writeCache;
+  private long               fileId;
+
+  @Setup
+  public void setup() throws IOException {
+    database = new OBenchmarkDatabase("writeCacheBenchmark");
+    readCache = database.getStorage().getReadCache();
+    writeCache = database.getStorage().getWriteCache();
+
+    fileId = readCache.addFile("writeCacheBenchmark.tst", writeCache);
+    for (int i = 0; i < pages; i++) {
+      final OCacheEntry cacheEntry = readCache.allocateNewPage(fileId, writeCache, false);
+      cacheEntry.markDirty();
+      readCache.releaseFromWrite(cacheEntry, writeCache);
+    }
+    writeCache.flush();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    readCache.deleteFile(fileId, writeCache);
+    database.drop();
+  }
+
+  @Benchmark
+  public void store() throws IOException {
+    updatePage(ThreadLocalRandom.current().nextInt(pages));
+  }
+
+  @Benchmark
+  public void storeAndFlush() throws IOException {
+    final int first = ThreadLocalRandom.current().nextInt(pages - pagesPerFlush + 1);
+    for (int i = 0; i < pagesPerFlush; i++)
+      updatePage(first + i);
+
+    writeCache.flush(fileId);
+  }
+
+  private void updatePage(final long pageIndex) throws IOException {
+    final OCacheEntry cacheEntry = readCache.loadForWrite(fileId, pageIndex, false, writeCache, 1, false);
+    try {
+      final ByteBuffer buffer = cacheEntry.getCachePointer().getSharedBuffer();
+      buffer.putLong(DATA_OFFSET, buffer.getLong(DATA_OFFSET) + 1);
+      cacheEntry.markDirty();
+    } finally {
+      readCache.releaseFromWrite(cacheEntry, writeCache);
+    }
+  }
+}
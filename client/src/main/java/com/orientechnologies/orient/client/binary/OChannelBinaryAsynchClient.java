@@ -43,7 +43,9 @@ import java.lang.reflect.InvocationTargetException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class OChannelBinaryAsynchClient extends OChannelBinary {
   private         int    socketTimeout;                                               // IN MS
@@ -53,6 +55,16 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
   private         int    currentSessionId;
   private         byte   currentMessage;
 
+  // PIPELINING: THE CHANNEL IS SHARED BY THE REQUESTS OF MANY SESSIONS AND THE RESPONSES ARE MATCHED BY SESSION ID
+  private volatile boolean       pipelined;
+  private final    AtomicInteger inFlight        = new AtomicInteger();
+  private final    Object        responseMonitor = new Object();
+  private          boolean       readingResponse;
+  private          boolean       pendingResponse;
+  private          byte          pendingStatus;
+  private          int           pendingSessionId;
+  private final    long          requestTimeout;
+
   public OChannelBinaryAsynchClient(final String remoteHost, final int remotePort, final String iDatabaseName,
       final OContextConfiguration iConfig, final int iProtocolVersion) throws IOException {
     super(OSocketFactory.instance(iConfig).createSocket(), iConfig);
@@ -62,6 +74,7 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
       if (iDatabaseName != null)
         serverURL += "/" + iDatabaseName;
       socketTimeout = iConfig.getValueAsInteger(OGlobalConfiguration.NETWORK_SOCKET_TIMEOUT);
+      requestTimeout = iConfig.getValueAsLong(OGlobalConfiguration.NETWORK_REQUEST_TIMEOUT);
 
       try {
         socket.connect(new InetSocketAddress(remoteHost, remotePort), getSocketTimeout());
@@ -155,26 +168,19 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
 
   public byte[] beginResponse(final int iRequesterId, final long iTimeout, final boolean token) throws IOException {
     try {
-      // WAIT FOR THE RESPONSE
-      if (iTimeout <= 0)
-        acquireReadLock();
+      if (pipelined)
+        waitForPipelinedResponse(iRequesterId, iTimeout > 0 ? iTimeout : requestTimeout);
+      else {
+        // WAIT FOR THE RESPONSE
+        if (iTimeout <= 0)
+          acquireReadLock();
+
+        if (!isConnected()) {
+          releaseReadLock();
+          throw new IOException("Channel is closed");
+        }
 
-      if (!isConnected()) {
-        releaseReadLock();
-        throw new IOException("Channel is closed");
-      }
-
-      try {
-        setWaitResponseTimeout();
-        currentStatus = readByte();
-        currentSessionId = readInt();
-
-        if (debug)
-          OLogManager.instance()
-              .debug(this, "%s - Read response: %d-%d", socket.getLocalAddress(), (int) currentStatus, currentSessionId);
-
-      } finally {
-        setReadResponseTimeout();
+        readResponseHeader();
       }
 
       assert (currentSessionId == iRequesterId);
@@ -199,6 +205,15 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
   }
 
   public void endResponse() throws IOException {
+    if (pipelined) {
+      // GIVE THE INPUT TO THE NEXT SESSION WAITING FOR ITS RESPONSE
+      synchronized (responseMonitor) {
+        readingResponse = false;
+        responseMonitor.notifyAll();
+      }
+      return;
+    }
+
     // WAKE UP ALL THE WAITING THREADS
     try {
       releaseReadLock();
@@ -221,6 +236,12 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
     } catch (Exception e) {
       // IGNORE IT
     }
+
+    if (pipelined)
+      synchronized (responseMonitor) {
+        // WAKE UP THE SESSIONS WAITING FOR A RESPONSE, THEY WILL FIND THE CHANNEL CLOSED
+        responseMonitor.notifyAll();
+      }
   }
 
   @Override
@@ -290,6 +311,95 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
     }
   }
 
+  private void readResponseHeader() throws IOException {
+    try {
+      setWaitResponseTimeout();
+      currentStatus = readByte();
+      currentSessionId = readInt();
+
+      if (debug)
+        OLogManager.instance()
+            .debug(this, "%s - Read response: %d-%d", socket.getLocalAddress(), (int) currentStatus, currentSessionId);
+
+    } finally {
+      setReadResponseTimeout();
+    }
+  }
+
+  /**
+   * Waits for the response of a session on a shared channel. Only one session at a time reads from the channel: when it reads
+   * the header of a response sent to another session, it parks the header and hands the input over to the owner of the response,
+   * so responses can be completed in any order. On exit the calling session owns the input until {@link #endResponse()}.
+   * <p>
+   * If the response does not arrive in time the channel is closed, because the response could still arrive later and nobody
+   * would read it, so the sessions waiting for the following responses would wait forever.
+   *
+   * @param iTimeout maximum time to wait in milliseconds, 0 to wait forever
+   */
+  private void waitForPipelinedResponse(final int iRequesterId, final long iTimeout) throws IOException {
+    final long deadline = System.currentTimeMillis() + iTimeout;
+
+    while (true) {
+      synchronized (responseMonitor) {
+        while (true) {
+          if (pendingResponse && pendingSessionId == iRequesterId) {
+            // THE HEADER OF THIS RESPONSE HAS BEEN READ BY ANOTHER SESSION, WHICH GAVE THE INPUT TO THIS ONE
+            pendingResponse = false;
+            currentStatus = pendingStatus;
+            currentSessionId = pendingSessionId;
+            return;
+          }
+
+          if (!isConnected())
+            throw new IOException("Channel is closed");
+
+          if (!readingResponse) {
+            readingResponse = true;
+            break;
+          }
+
+          long wait = 0;
+          if (iTimeout > 0) {
+            wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) {
+              close();
+              throw new SocketTimeoutException("Timeout on waiting the response of session " + iRequesterId);
+            }
+          }
+
+          try {
+            responseMonitor.wait(wait);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted on waiting the response of session " + iRequesterId);
+          }
+        }
+      }
+
+      try {
+        readResponseHeader();
+      } catch (IOException | RuntimeException e) {
+        // THE INPUT IS NOT IN A CONSISTENT STATE ANYMORE: CLOSE THE CHANNEL AND WAKE UP THE OTHER SESSIONS
+        close();
+        synchronized (responseMonitor) {
+          readingResponse = false;
+          responseMonitor.notifyAll();
+        }
+        throw e;
+      }
+
+      if (currentSessionId == iRequesterId)
+        return;
+
+      synchronized (responseMonitor) {
+        pendingResponse = true;
+        pendingStatus = currentStatus;
+        pendingSessionId = currentSessionId;
+        responseMonitor.notifyAll();
+      }
+    }
+  }
+
   private void setReadResponseTimeout() throws SocketException {
     final Socket s = socket;
     if (s != null && s.isConnected() && !s.isClosed())
@@ -348,6 +458,32 @@ public class OChannelBinaryAsynchClient extends OChannelBinary {
     writeBytes(nodeSession.getToken());
   }
 
+  /**
+   * Tells if the channel is shared by the requests of many sessions without waiting for the previous responses.
+   */
+  public boolean isPipelined() {
+    return pipelined;
+  }
+
+  public void setPipelined(final boolean pipelined) {
+    this.pipelined = pipelined;
+  }
+
+  /**
+   * Returns the number of requests sent on a shared channel and not completed yet.
+   */
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public int incrementInFlight() {
+    return inFlight.incrementAndGet();
+  }
+
+  public int decrementInFlight() {
+    return inFlight.updateAndGet(current -> current > 0 ? current - 1 : 0);
+  }
+
   public int getSocketTimeout() {
     return socketTimeout;
   }
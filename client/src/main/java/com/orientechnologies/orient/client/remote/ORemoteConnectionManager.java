@@ -57,26 +57,60 @@ public class ORemoteConnectionManager {
   }
 
   public OChannelBinaryAsynchClient acquire(String iServerURL, final OContextConfiguration clientConfiguration) {
+    iServerURL = normalizeURL(iServerURL);
+
+    long localTimeout = timeout;
+    if (clientConfiguration != null) {
+      final Object netLockTimeout = clientConfiguration.getValue(OGlobalConfiguration.NETWORK_LOCK_TIMEOUT);
+      if (netLockTimeout != null)
+        localTimeout = Integer.parseInt(netLockTimeout.toString());
+    }
+
+    final ORemoteConnectionPool pool = getOrCreatePool(iServerURL, clientConfiguration);
+
+    try {
+      // RETURN THE RESOURCE
+      OChannelBinaryAsynchClient ret = pool.acquire(iServerURL, localTimeout, clientConfiguration);
+      return ret;
+
+    } catch (RuntimeException e) {
+      // ERROR ON RETRIEVING THE INSTANCE FROM THE POOL
+      throw e;
+    } catch (Exception e) {
+      // ERROR ON RETRIEVING THE INSTANCE FROM THE POOL
+      OLogManager.instance().debug(this, "Error on retrieving the connection from pool: " + iServerURL, e);
+    }
+    return null;
+  }
+
+  /**
+   * Acquires a channel shared with the requests of other sessions. The channel is not locked: the caller has to lock it for
+   * writing the request and give it back with {@link #release(OChannelBinaryAsynchClient)} once the response has been read.
+   */
+  public OChannelBinaryAsynchClient acquirePipelined(String iServerURL, final OContextConfiguration clientConfiguration) {
+    iServerURL = normalizeURL(iServerURL);
+    return getOrCreatePool(iServerURL, clientConfiguration).acquirePipelined(iServerURL, clientConfiguration);
+  }
+
+  private static String normalizeURL(String iServerURL) {
     if (iServerURL.startsWith(OEngineRemote.PREFIX))
       iServerURL = iServerURL.substring(OEngineRemote.PREFIX.length());
 
     if (iServerURL.endsWith("/"))
       iServerURL = iServerURL.substring(0, iServerURL.length() - 1);
 
-    long localTimeout = timeout;
+    return iServerURL;
+  }
 
+  private ORemoteConnectionPool getOrCreatePool(final String iServerURL, final OContextConfiguration clientConfiguration) {
     ORemoteConnectionPool pool = connections.get(iServerURL);
     if (pool == null) {
-      int maxPool = clientConfiguration.getValueAsInteger(OGlobalConfiguration.CLIENT_CHANNEL_MAX_POOL);
+      int maxPool = OGlobalConfiguration.CLIENT_CHANNEL_MAX_POOL.getValueAsInteger();
 
       if (clientConfiguration != null) {
         final Object max = clientConfiguration.getValue(OGlobalConfiguration.CLIENT_CHANNEL_MAX_POOL);
         if (max != null)
           maxPool = Integer.parseInt(max.toString());
-
-        final Object netLockTimeout = clientConfiguration.getValue(OGlobalConfiguration.NETWORK_LOCK_TIMEOUT);
-        if (netLockTimeout != null)
-          localTimeout = Integer.parseInt(netLockTimeout.toString());
       }
 
       pool = new ORemoteConnectionPool(maxPool);
@@ -87,20 +121,7 @@ public class ORemoteConnectionManager {
         pool = prev;
       }
     }
-
-    try {
-      // RETURN THE RESOURCE
-      OChannelBinaryAsynchClient ret = pool.acquire(iServerURL, localTimeout, clientConfiguration);
-      return ret;
-
-    } catch (RuntimeException e) {
-      // ERROR ON RETRIEVING THE INSTANCE FROM THE POOL
-      throw e;
-    } catch (Exception e) {
-      // ERROR ON RETRIEVING THE INSTANCE FROM THE POOL
-      OLogManager.instance().debug(this, "Error on retrieving the connection from pool: " + iServerURL, e);
-    }
-    return null;
+    return pool;
   }
 
   public void release(final OChannelBinaryAsynchClient conn) {
@@ -109,7 +130,12 @@ public class ORemoteConnectionManager {
 
     final ORemoteConnectionPool pool = connections.get(conn.getServerURL());
     if (pool != null) {
-      if (!conn.isConnected()) {
+      if (conn.isPipelined()) {
+        // SHARED CHANNEL: IT STAYS OPEN FOR THE OTHER REQUESTS
+        pool.releasePipelined(conn);
+        if (!conn.isConnected())
+          pool.removePipelined(conn);
+      } else if (!conn.isConnected()) {
         OLogManager.instance().debug(this, "Network connection pool is receiving a closed connection to reuse: discard it");
         remove(conn);
       } else {
@@ -126,6 +152,12 @@ public class ORemoteConnectionManager {
     if (pool == null)
       throw new IllegalStateException("Connection cannot be released because the pool doesn't exist anymore");
 
+    if (conn.isPipelined()) {
+      // THE CHANNEL IS CLOSED FOR ALL THE SESSIONS SHARING IT, THEIR REQUESTS FAIL AND ARE RETRIED
+      pool.removePipelined(conn);
+      return;
+    }
+
     pool.getPool().remove(conn);
 
     try {
@@ -188,6 +220,7 @@ public class ORemoteConnectionManager {
 
   protected void closePool(ORemoteConnectionPool pool) {
     final List<OChannelBinaryAsynchClient> conns = new ArrayList<OChannelBinaryAsynchClient>(pool.getPool().getAllResources());
+    conns.addAll(pool.getPipelined());
     for (OChannelBinaryAsynchClient c : conns)
       try {
         // Unregister the listener that make the connection return to the closing pool.
@@ -7,14 +7,19 @@ import com.orientechnologies.common.io.OIOException;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.client.binary.OChannelBinaryAsynchClient;
 import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * Created by tglman on 01/10/15.
  */
 public class ORemoteConnectionPool implements OResourcePoolListener<String, OChannelBinaryAsynchClient> {
 
-  private OResourcePool<String, OChannelBinaryAsynchClient> pool;
+  private       OResourcePool<String, OChannelBinaryAsynchClient> pool;
+  private final List<OChannelBinaryAsynchClient>                  pipelined = new CopyOnWriteArrayList<OChannelBinaryAsynchClient>();
 
   public ORemoteConnectionPool(int iMaxResources) {
     pool = new OResourcePool<String, OChannelBinaryAsynchClient>(iMaxResources, this);
@@ -89,4 +94,49 @@ public class ORemoteConnectionPool implements OResourcePoolListener<String, OCha
       final OContextConfiguration clientConfiguration) {
     return pool.getResource(iServerURL, timeout, clientConfiguration);
   }
+
+  /**
+   * Returns a channel shared by the requests of many sessions, picking the one with less requests in flight. A new channel is
+   * opened when all the channels have reached the maximum number of requests in flight, up to the maximum size of the pool.
+   */
+  public synchronized OChannelBinaryAsynchClient acquirePipelined(final String iServerURL,
+      final OContextConfiguration clientConfiguration) {
+    final int maxInFlight = clientConfiguration.getValueAsInteger(OGlobalConfiguration.CLIENT_CHANNEL_PIPELINING_MAX_IN_FLIGHT);
+
+    OChannelBinaryAsynchClient selected = null;
+    for (OChannelBinaryAsynchClient channel : pipelined) {
+      if (!channel.isConnected()) {
+        removePipelined(channel);
+        continue;
+      }
+      if (selected == null || channel.getInFlight() < selected.getInFlight())
+        selected = channel;
+    }
+
+    if (selected == null || (selected.getInFlight() >= maxInFlight && pipelined.size() < pool.getMaxResources())) {
+      selected = createNetworkConnection(iServerURL, clientConfiguration);
+      selected.setPipelined(true);
+      pipelined.add(selected);
+    }
+
+    selected.incrementInFlight();
+    return selected;
+  }
+
+  public void releasePipelined(final OChannelBinaryAsynchClient channel) {
+    channel.decrementInFlight();
+  }
+
+  public void removePipelined(final OChannelBinaryAsynchClient channel) {
+    pipelined.remove(channel);
+    try {
+      channel.close();
+    } catch (Exception e) {
+      OLogManager.instance().debug(this, "Error on closing socket connection", e);
+    }
+  }
+
+  public List<OChannelBinaryAsynchClient> getPipelined() {
+    return pipelined;
+  }
 }
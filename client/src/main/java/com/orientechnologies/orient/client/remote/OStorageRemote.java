@@ -163,7 +163,7 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy, O
     else
       pMode = mode;
     request.setMode((byte) pMode);
-    return baseNetworkOperation((network, session) -> {
+    final OStorageRemoteOperation<T> operation = (network, session) -> {
       // Send The request
       try {
         network.beginRequest(request.getCommand(), session);
@@ -209,12 +209,15 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy, O
         connectionManager.release(network);
       }
       return ret;
-    }, errorMessage, retry);
+    };
+    if (pMode == 0 && isPipeliningEnabled())
+      return baseNetworkOperation(operation, errorMessage, retry, true);
+    return baseNetworkOperation(operation, errorMessage, retry);
   }
 
   public <T extends OBinaryResponse> T networkOperationRetryTimeout(final OBinaryRequest<T> request, final String errorMessage,
       int retry, int timeout) {
-    return baseNetworkOperation((network, session) -> {
+    final OStorageRemoteOperation<T> operation = (network, session) -> {
       try {
         network.beginRequest(request.getCommand(), session);
         request.write(network, session);
@@ -235,7 +238,10 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy, O
       }
       connectionManager.release(network);
       return response;
-    }, errorMessage, retry);
+    };
+    if (isPipeliningEnabled())
+      return baseNetworkOperation(operation, errorMessage, retry, true);
+    return baseNetworkOperation(operation, errorMessage, retry);
   }
 
   public <T extends OBinaryResponse> T networkOperationNoRetry(final OBinaryRequest<T> request, final String errorMessage) {
@@ -247,6 +253,15 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy, O
   }
 
   public <T> T baseNetworkOperation(final OStorageRemoteOperation<T> operation, final String errorMessage, int retry) {
+    return baseNetworkOperation(operation, errorMessage, retry, false);
+  }
+
+  /**
+   * Executes a network operation. When <code>pipelined</code> is true the operation is executed on a channel shared with the
+   * requests of other sessions, so the operation has to read the response before returning.
+   */
+  public <T> T baseNetworkOperation(final OStorageRemoteOperation<T> operation, final String errorMessage, int retry,
+      final boolean pipelined) {
     OStorageRemoteSession session = getCurrentSession();
     if (session.commandExecuting)
       throw new ODatabaseException(
@@ -262,7 +277,7 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy, O
 
       do {
         try {
-          network = getNetwork(serverUrl);
+          network = pipelined ? getPipelinedNetwork(serverUrl) : getNetwork(serverUrl);
         } catch (OException e) {
           serverUrl = useNewServerURL(serverUrl);
           if (serverUrl == null)
@@ -274,6 +289,16 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy, O
         // In case i do not have a token or i'm switching between server i've to execute a open operation.
         OStorageRemoteNodeSession nodeSession = session.getServerSession(network.getServerURL());
         if (nodeSession == null || !nodeSession.isValid()) {
+          if (network.isPipelined()) {
+            // RESPONSES ON A SHARED CHANNEL ARE MATCHED BY SESSION ID, WHICH THE OPEN DOES NOT HAVE YET: OPEN ON AN EXCLUSIVE
+            // CHANNEL AND ACQUIRE THE SHARED ONE AGAIN ONCE THE SESSION HAS ITS TOKEN
+            network.releaseWriteLock();
+            final OChannelBinaryAsynchClient exclusive = getNetwork(network.getServerURL());
+            connectionManager.release(network);
+            network = exclusive;
+            openRemoteDatabase(network);
+            continue;
+          }
           openRemoteDatabase(network);
           if (!network.tryLock())
             continue;
@@ -1322,6 +1347,9 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy, O
     openRemoteDatabase(currentURL);
   }
 
+  /**
+   * Opens the database on the passed in channel, the channel has to be an exclusive one, see {@link #getNetwork(String)}.
+   */
   public void openRemoteDatabase(OChannelBinaryAsynchClient network) throws IOException {
 
     OStorageRemoteSession session = getCurrentSession();
@@ -1696,6 +1724,31 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy, O
     return network;
   }
 
+  /**
+   * Returns a channel shared with the requests of other sessions, locked for writing the request.
+   */
+  public OChannelBinaryAsynchClient getPipelinedNetwork(final String iCurrentURL) {
+    final OChannelBinaryAsynchClient network;
+    try {
+      network = connectionManager.acquirePipelined(iCurrentURL, clientConfiguration);
+    } catch (OIOException cause) {
+      throw cause;
+    } catch (Exception cause) {
+      throw OException.wrapException(new OStorageException("Cannot open a connection to remote server: " + iCurrentURL), cause);
+    }
+    try {
+      network.acquireWriteLock();
+    } catch (RuntimeException e) {
+      connectionManager.release(network);
+      throw e;
+    }
+    return network;
+  }
+
+  private boolean isPipeliningEnabled() {
+    return clientConfiguration.getValueAsBoolean(OGlobalConfiguration.CLIENT_CHANNEL_PIPELINING);
+  }
+
   public void beginResponse(OChannelBinaryAsynchClient iNetwork, OStorageRemoteSession session) throws IOException {
     OStorageRemoteNodeSession nodeSession = session.getServerSession(iNetwork.getServerURL());
     byte[] newToken = iNetwork.beginResponse(nodeSession.getSessionId(), true);
@@ -0,0 +1,129 @@
+package com.orientechnologies.orient.client.binary;
+
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class OChannelBinaryAsynchClientPipelinedTest {
+  private ServerSocket               serverSocket;
+  private Socket                     accepted;
+  private DataOutputStream           serverOut;
+  private OChannelBinaryAsynchClient client;
+  private ExecutorService            executor;
+
+  @Before
+  public void before() throws Exception {
+    serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    executor = Executors.newFixedThreadPool(2);
+
+    final Future<Socket> acceptor = executor.submit(() -> {
+      final Socket socket = serverSocket.accept();
+      final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+      out.writeShort(OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION);
+      out.flush();
+      return socket;
+    });
+
+    client = new OChannelBinaryAsynchClient(InetAddress.getLoopbackAddress().getHostAddress(), serverSocket.getLocalPort(), null,
+        new OContextConfiguration(), OChannelBinaryProtocol.CURRENT_PROTOCOL_VERSION);
+    client.setPipelined(true);
+
+    accepted = acceptor.get(10, TimeUnit.SECONDS);
+    serverOut = new DataOutputStream(accepted.getOutputStream());
+  }
+
+  @After
+  public void after() throws Exception {
+    executor.shutdownNow();
+    client.close();
+    accepted.close();
+    serverSocket.close();
+  }
+
+  @Test
+  public void testResponsesOutOfOrder() throws Exception {
+    final Future<Integer> first = executor.submit(() -> readResponse(1));
+    final Future<Integer> second = executor.submit(() -> readResponse(2));
+
+    writeResponse(2, 200);
+    writeResponse(1, 100);
+
+    Assert.assertEquals(100, (int) first.get(10, TimeUnit.SECONDS));
+    Assert.assertEquals(200, (int) second.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testWaitingSessionsFailWhenChannelIsClosed() throws Exception {
+    final Future<Integer> first = executor.submit(() -> readResponse(1));
+    final Future<Integer> second = executor.submit(() -> readResponse(2));
+
+    accepted.close();
+
+    for (Future<Integer> future : new Future[] { first, second }) {
+      try {
+        future.get(10, TimeUnit.SECONDS);
+        Assert.fail();
+      } catch (ExecutionException e) {
+        Assert.assertTrue(e.getCause() instanceof IOException);
+      }
+    }
+  }
+
+  @Test
+  public void testTimeoutClosesChannel() throws Exception {
+    final Future<Integer> first = executor.submit(() -> readResponse(1, 0));
+    Thread.sleep(100);
+
+    // THE RESPONSE OF THE SECOND SESSION COULD ARRIVE AFTER THE TIMEOUT AND NOBODY WOULD READ IT
+    try {
+      readResponse(2, 200);
+      Assert.fail();
+    } catch (SocketTimeoutException e) {
+      Assert.assertFalse(client.isConnected());
+    }
+
+    try {
+      first.get(10, TimeUnit.SECONDS);
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+
+  private int readResponse(final int sessionId) throws IOException {
+    return readResponse(sessionId, 0);
+  }
+
+  private int readResponse(final int sessionId, final long timeout) throws IOException {
+    client.beginResponse(sessionId, timeout, true);
+    try {
+      return client.readInt();
+    } finally {
+      client.endResponse();
+    }
+  }
+
+  private void writeResponse(final int sessionId, final int payload) throws IOException {
+    serverOut.writeByte(OChannelBinaryProtocol.RESPONSE_STATUS_OK);
+    serverOut.writeInt(sessionId);
+    serverOut.writeInt(-1);
+    serverOut.writeByte(0);
+    serverOut.writeInt(payload);
+    serverOut.flush();
+  }
+}
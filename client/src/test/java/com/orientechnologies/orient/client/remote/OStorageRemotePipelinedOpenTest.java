@@ -0,0 +1,109 @@
+package com.orientechnologies.orient.client.remote;
+
+import com.orientechnologies.orient.client.binary.OChannelBinaryAsynchClient;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.storage.OStorage.STATUS;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class OStorageRemotePipelinedOpenTest {
+  private ORemoteConnectionManager   connectionManager;
+  private OChannelBinaryAsynchClient pipelined;
+  private OStorageRemote             storage;
+  private ExecutorService            executor;
+
+  private final ThreadLocal<OStorageRemoteSession> sessions = new ThreadLocal<OStorageRemoteSession>();
+
+  @Before
+  public void before() throws Exception {
+    connectionManager = Mockito.mock(ORemoteConnectionManager.class);
+
+    pipelined = Mockito.mock(OChannelBinaryAsynchClient.class);
+    Mockito.when(pipelined.isPipelined()).thenReturn(true);
+    Mockito.when(pipelined.getServerURL()).thenReturn("localhost");
+    Mockito.when(connectionManager.acquirePipelined(Mockito.anyString(), Mockito.any(OContextConfiguration.class)))
+        .thenReturn(pipelined);
+
+    // EVERY EXCLUSIVE CHANNEL ANSWERS THE OPEN WITH A TOKEN OF THE USER WHO SENT IT
+    Mockito.when(connectionManager.acquire(Mockito.anyString(), Mockito.any(OContextConfiguration.class)))
+        .thenAnswer(invocation -> exclusiveChannel((String) invocation.getArguments()[0]));
+
+    storage = new OStorageRemote("localhost/test", null, "rw", connectionManager, STATUS.OPEN) {
+      @Override
+      protected OStorageRemoteSession getCurrentSession() {
+        return sessions.get();
+      }
+    };
+
+    // THE PUSH THREAD WOULD CONNECT TO THE SERVER ONCE THE DATABASE IS OPEN
+    final Field pushThread = OStorageRemote.class.getDeclaredField("pushThread");
+    pushThread.setAccessible(true);
+    pushThread.set(storage, Mockito.mock(OStorageRemotePushThread.class));
+
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testConcurrentOpensOnPipelinedChannel() throws Exception {
+    final CyclicBarrier barrier = new CyclicBarrier(2);
+    final List<Future<String>> tokens = new ArrayList<Future<String>>();
+    for (final String user : new String[] { "admin", "reader" }) {
+      tokens.add(executor.submit(new Callable<String>() {
+        @Override
+        public String call() throws Exception {
+          final OStorageRemoteSession session = new OStorageRemoteSession(-1);
+          session.connectionUserName = user;
+          session.connectionUserPassword = user;
+          sessions.set(session);
+
+          barrier.await();
+          return storage.baseNetworkOperation((network, currentSession) -> {
+            Assert.assertSame(pipelined, network);
+            connectionManager.release(network);
+            return new String(currentSession.getServerSession(network.getServerURL()).getToken());
+          }, "Error on test operation", 1, true);
+        }
+      }));
+    }
+
+    Assert.assertEquals("admin", tokens.get(0).get(10, TimeUnit.SECONDS));
+    Assert.assertEquals("reader", tokens.get(1).get(10, TimeUnit.SECONDS));
+
+    Mockito.verify(pipelined, Mockito.never()).writeByte(OChannelBinaryProtocol.REQUEST_DB_OPEN);
+  }
+
+  private OChannelBinaryAsynchClient exclusiveChannel(final String serverURL) throws Exception {
+    final OChannelBinaryAsynchClient channel = Mockito.mock(OChannelBinaryAsynchClient.class);
+    Mockito.when(channel.getServerURL()).thenReturn(serverURL);
+    Mockito.when(channel.tryLock()).thenReturn(true);
+    Mockito.when(channel.readInt()).thenReturn(1);
+
+    // THE OPEN REQUEST WRITES DATABASE NAME, USER NAME AND PASSWORD
+    final List<String> written = new ArrayList<String>();
+    Mockito.when(channel.writeString(Mockito.anyString())).thenAnswer(invocation -> {
+      written.add((String) invocation.getArguments()[0]);
+      return channel;
+    });
+    Mockito.when(channel.readBytes()).thenAnswer(invocation -> written.get(1).getBytes());
+    return channel;
+  }
+}
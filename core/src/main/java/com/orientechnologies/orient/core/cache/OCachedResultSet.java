@@ -0,0 +1,384 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.cache;
+
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.OMetadataInternal;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.sql.executor.OExecutionPlan;
+import com.orientechnologies.orient.core.sql.executor.OInternalResultSet;
+import com.orientechnologies.orient.core.sql.executor.OResult;
+import com.orientechnologies.orient.core.sql.executor.OResultInternal;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+import com.orientechnologies.orient.core.sql.parser.OFromItem;
+import com.orientechnologies.orient.core.sql.parser.OSelectStatement;
+import com.orientechnologies.orient.core.sql.parser.OStatement;
+import com.orientechnologies.orient.core.sql.parser.SubQueryCollector;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable copy of results of a query executed by {@link OStatement}, which is stored in {@link OCommandCache}. Records are kept
+ * in serialized form and new instances of them are created each time the result set is read, so cached results are never shared
+ * between threads. Only results which are records or projections of simple values (strings, numbers, booleans, dates and record
+ * ids) are cached.
+ * <p>
+ * Results are cached only for SELECT statements with simple parameters. Involved clusters are the clusters of target class, like
+ * for legacy commands, results of other queries are invalidated by modification of any cluster.
+ */
+public final class OCachedResultSet {
+  private static final String KEY_PREFIX = "resultset:";
+
+  private final List<Item> items;
+  private final long       size;
+
+  private OCachedResultSet(List<Item> items) {
+    this.items = items;
+
+    long size = 0;
+    for (Item item : items)
+      size += item.size();
+    this.size = size;
+  }
+
+  /**
+   * Executes a query reusing its results from command cache if they are still valid, and caching them otherwise.
+   *
+   * @param args positional (<code>Object[]</code>) or named (<code>Map</code>) parameters of the query
+   */
+  public static OResultSet query(final ODatabaseDocumentInternal db, final OStatement statement, final String query,
+      final Object args) {
+    final OCommandCache cache = ((OMetadataInternal) db.getMetadata()).getCommandCache();
+    if (cache == null || !cache.isEnabled() || !(statement instanceof OSelectStatement) || db.getTransaction().isActive())
+      return execute(db, statement, args);
+
+    final String key = getKey(query, args);
+    if (key == null)
+      return execute(db, statement, args);
+
+    final Object cached = cache.get(db.getUser(), key, -1);
+    if (cached instanceof OCachedResultSet)
+      return ((OCachedResultSet) cached).toResultSet();
+
+    final long modificationCounter = cache.getModificationCounter();
+    final long begin = System.currentTimeMillis();
+
+    final OResultSet original = execute(db, statement, args);
+
+    final List<OResult> fetched = new ArrayList<OResult>();
+    while (fetched.size() <= cache.getMaxResultsetSize() && original.hasNext())
+      fetched.add(original.next());
+
+    if (fetched.size() > cache.getMaxResultsetSize())
+      // TOO BIG RESULTSET, RETURN THE ALREADY FETCHED RESULTS AND CONTINUE STREAMING
+      return new OPrefetchedResultSet(fetched, original);
+
+    final long executionTime = System.currentTimeMillis() - begin;
+    original.close();
+
+    final OInternalResultSet result = new OInternalResultSet();
+    for (OResult item : fetched)
+      result.add(item);
+
+    final OCachedResultSet snapshot = create(fetched);
+    if (snapshot != null)
+      cache.put(db.getUser(), key, snapshot, -1, getInvolvedClusters(db, (OSelectStatement) statement), executionTime,
+          modificationCounter);
+
+    return result;
+  }
+
+  /**
+   * @return estimated amount of memory in bytes taken by cached results.
+   */
+  public long getSize() {
+    return size;
+  }
+
+  public int getCount() {
+    return items.size();
+  }
+
+  /**
+   * @return new result set containing new instances of cached results.
+   */
+  public OResultSet toResultSet() {
+    final OInternalResultSet result = new OInternalResultSet();
+    for (Item item : items)
+      result.add(item.toResult());
+
+    return result;
+  }
+
+  /**
+   * @return copy of passed in results or <code>null</code> if some of them can not be cached.
+   */
+  static OCachedResultSet create(final List<OResult> results) {
+    final List<Item> items = new ArrayList<Item>(results.size());
+    for (OResult result : results) {
+      if (!result.getMetadataKeys().isEmpty())
+        return null;
+
+      final Item item;
+      if (result.isProjection())
+        item = ProjectionItem.create(result);
+      else
+        item = RecordItem.create(result);
+
+      if (item == null)
+        return null;
+
+      items.add(item);
+    }
+
+    return new OCachedResultSet(items);
+  }
+
+  private static OResultSet execute(final ODatabaseDocumentInternal db, final OStatement statement, final Object args) {
+    if (args instanceof Map)
+      return statement.execute(db, (Map) args);
+
+    return statement.execute(db, (Object[]) args);
+  }
+
+  /**
+   * @return key of cached results or <code>null</code> if parameters of the query are not simple values.
+   */
+  private static String getKey(final String query, final Object args) {
+    final StringBuilder key = new StringBuilder(KEY_PREFIX.length() + query.length() + 16);
+    key.append(KEY_PREFIX).append(query.length()).append(':').append(query);
+
+    if (args instanceof Map) {
+      // NAMED PARAMETERS ARE SORTED TO PRODUCE THE SAME KEY INDEPENDENTLY FROM THE ORDER OF THE MAP
+      final Map<String, Object> sorted = new TreeMap<String, Object>();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) args).entrySet())
+        sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+
+      for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+        appendValue(key, entry.getKey());
+        if (!appendValue(key, entry.getValue()))
+          return null;
+      }
+    } else if (args != null) {
+      for (Object arg : (Object[]) args)
+        if (!appendValue(key, arg))
+          return null;
+    }
+
+    return key.toString();
+  }
+
+  private static boolean appendValue(final StringBuilder key, final Object value) {
+    final String text;
+    if (value == null)
+      text = "";
+    else if (value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof ORID)
+      text = value.toString();
+    else if (value instanceof Date)
+      text = Long.toString(((Date) value).getTime());
+    else
+      return false;
+
+    // TYPE AND LENGTH OF THE VALUE KEEP KEYS OF DIFFERENT PARAMETERS DISTINCT
+    key.append('|').append(value == null ? "null" : value.getClass().getSimpleName()).append(':').append(text.length())
+        .append(':').append(text);
+    return true;
+  }
+
+  private static Set<String> getInvolvedClusters(final ODatabaseDocumentInternal db, final OSelectStatement statement) {
+    if (statement.getLetClause() != null || statement.getTarget() == null)
+      return null;
+
+    final SubQueryCollector subQueries = new SubQueryCollector();
+    if (statement.getWhereClause() != null)
+      statement.getWhereClause().copy().extractSubQueries(subQueries);
+    if (statement.getProjection() != null)
+      statement.getProjection().copy().extractSubQueries(subQueries);
+    if (!subQueries.getSubQueries().isEmpty())
+      return null;
+
+    final OFromItem target = statement.getTarget().getItem();
+    if (target == null || target.getIdentifier() == null || target.getModifier() != null)
+      return null;
+
+    final OClass cls = ((OMetadataInternal) db.getMetadata()).getImmutableSchemaSnapshot()
+        .getClass(target.getIdentifier().getStringValue());
+    if (cls == null)
+      return null;
+
+    final Set<String> clusters = new HashSet<String>();
+    for (int clusterId : cls.getPolymorphicClusterIds()) {
+      final String clusterName = db.getClusterNameById(clusterId);
+      if (clusterName != null)
+        clusters.add(clusterName);
+    }
+
+    return clusters;
+  }
+
+  private interface Item {
+    long size();
+
+    OResult toResult();
+  }
+
+  private static final class RecordItem implements Item {
+    private final ORID   rid;
+    private final int    version;
+    private final byte   recordType;
+    private final byte[] content;
+
+    private RecordItem(ORID rid, int version, byte recordType, byte[] content) {
+      this.rid = rid;
+      this.version = version;
+      this.recordType = recordType;
+      this.content = content;
+    }
+
+    private static RecordItem create(final OResult result) {
+      final Optional<ORecord> record = result.getRecord();
+      if (!record.isPresent())
+        return null;
+
+      final ORecord rec = record.get();
+      if (!rec.getIdentity().isPersistent() || rec.isDirty())
+        return null;
+
+      return new RecordItem(rec.getIdentity().copy(), rec.getVersion(), ORecordInternal.getRecordType(rec), rec.toStream());
+    }
+
+    @Override
+    public long size() {
+      return OCommandCacheSoftRefs.ENTRY_OVERHEAD + content.length;
+    }
+
+    @Override
+    public OResult toResult() {
+      final ORecord record = Orient.instance().getRecordFactoryManager().newInstance(recordType);
+      ORecordInternal.fill(record, rid.copy(), version, content, false);
+      return new OResultInternal(record);
+    }
+  }
+
+  private static final class ProjectionItem implements Item {
+    private final Map<String, Object> properties;
+    private final long                size;
+
+    private ProjectionItem(Map<String, Object> properties, long size) {
+      this.properties = properties;
+      this.size = size;
+    }
+
+    private static ProjectionItem create(final OResult result) {
+      final Map<String, Object> properties = new LinkedHashMap<String, Object>();
+      long size = OCommandCacheSoftRefs.ENTRY_OVERHEAD;
+
+      for (String name : result.getPropertyNames()) {
+        Object value = result.getProperty(name);
+        if (value instanceof Date)
+          value = new Date(((Date) value).getTime());
+        else if (value instanceof ORID)
+          value = ((ORID) value).copy();
+        else if (value != null && !(value instanceof String) && !(value instanceof Number) && !(value instanceof Boolean))
+          return null;
+
+        properties.put(name, value);
+        size += 32 + 2 * name.length() + (value instanceof String ? 2 * ((String) value).length() : 16);
+      }
+
+      return new ProjectionItem(properties, size);
+    }
+
+    @Override
+    public long size() {
+      return size;
+    }
+
+    @Override
+    public OResult toResult() {
+      final OResultInternal result = new OResultInternal();
+      for (Map.Entry<String, Object> entry : properties.entrySet()) {
+        Object value = entry.getValue();
+        if (value instanceof Date)
+          value = new Date(((Date) value).getTime());
+        else if (value instanceof ORID)
+          value = ((ORID) value).copy();
+
+        result.setProperty(entry.getKey(), value);
+      }
+
+      return result;
+    }
+  }
+
+  /**
+   * Result set which returns results fetched while trying to cache them and then continues to read the original result set.
+   */
+  private static final class OPrefetchedResultSet implements OResultSet {
+    private final List<OResult> fetched;
+    private final OResultSet    original;
+    private       int           next;
+
+    private OPrefetchedResultSet(List<OResult> fetched, OResultSet original) {
+      this.fetched = fetched;
+      this.original = original;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < fetched.size() || original.hasNext();
+    }
+
+    @Override
+    public OResult next() {
+      if (next < fetched.size())
+        return fetched.get(next++);
+
+      return original.next();
+    }
+
+    @Override
+    public void close() {
+      original.close();
+    }
+
+    @Override
+    public Optional<OExecutionPlan> getExecutionPlan() {
+      return original.getExecutionPlan();
+    }
+
+    @Override
+    public Map<String, Long> getQueryStats() {
+      return original.getQueryStats();
+    }
+  }
+}
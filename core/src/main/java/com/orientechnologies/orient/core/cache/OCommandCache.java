@@ -67,6 +67,24 @@ public interface OCommandCache {
    */
   void put(OSecurityUser iUser, String queryText, Object iResult, int iLimit, Set<String> iInvolvedClusters, long iExecutionTime);
 
+  /**
+   * Pushes result to cache unless involved clusters were modified after passed in value of modification counter was read. It
+   * prevents caching of results computed concurrently with a write.
+   *
+   * @param iModificationCounter value returned by {@link #getModificationCounter()} before execution of the query
+   */
+  default void put(OSecurityUser iUser, String queryText, Object iResult, int iLimit, Set<String> iInvolvedClusters,
+      long iExecutionTime, long iModificationCounter) {
+    put(iUser, queryText, iResult, iLimit, iInvolvedClusters, iExecutionTime);
+  }
+
+  /**
+   * Counter which is incremented on each invalidation of cached results.
+   */
+  default long getModificationCounter() {
+    return 0;
+  }
+
   /**
    * Removes result of query.
    **/
@@ -38,14 +38,27 @@ import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPagi
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Command cache implementation that uses Soft references to avoid overloading Java Heap.
+ * Command cache implementation which limits amount of memory taken by cached results and evicts least recently used results
+ * once the limit is reached. Results may also expire after configured time to live.
+ * <p>
+ * Results are not removed from the cache on each write. Instead every modification of a cluster increments modification
+ * counter and the cluster remembers value of the counter at its last modification. Cached result keeps value of the counter read
+ * before the query was executed and is considered stale if any of involved clusters (or any cluster at all if involved clusters
+ * are unknown or {@link STRATEGY#INVALIDATE_ALL} strategy is used) was modified after that. Stale results are removed when they
+ * are looked up or evicted.
  *
  * @author Luca Garulli (l.garulli--(at)--orientdb.com)
  */
@@ -55,9 +68,17 @@ public class OCommandCacheSoftRefs implements OCommandCache {
 
   ODocument configuration;
 
+  /**
+   * Estimated amount of memory taken by cache entry and by a single item of cached result set.
+   */
+  public static final int ENTRY_OVERHEAD = 128;
+
   public static class OCachedResult {
     Object      result;
     Set<String> involvedClusters;
+    long        modificationCounter;
+    long        created;
+    long        size;
 
     public OCachedResult(final Object result, final Set<String> involvedClusters) {
       this.involvedClusters = involvedClusters;
@@ -74,16 +95,18 @@ public class OCommandCacheSoftRefs implements OCommandCache {
     }
   }
 
-  private class OCommandCacheImplRefs extends OSoftRefsHashMap<String, OCachedResult> {
-  }
-
   private final String databaseName;
   private final String fileConfigPath;
-  private Set<String> clusters = new HashSet<String>();
   private volatile boolean enable;
-  private OCommandCacheImplRefs cache = new OCommandCacheImplRefs();
-  private int minExecutionTime;
-  private int maxResultsetSize;
+  private final LinkedHashMap<String, OCachedResult> cache = new LinkedHashMap<String, OCachedResult>(16, 0.75f, true);
+  private long usedMemory;
+  private int  minExecutionTime;
+  private int  maxResultsetSize;
+  private long maxMemory;
+  private long ttl;
+
+  private final AtomicLong                 modificationCounter  = new AtomicLong();
+  private final ConcurrentMap<String, Long> clusterModifications = new ConcurrentHashMap<String, Long>();
 
   private STRATEGY evictStrategy = STRATEGY.valueOf(OGlobalConfiguration.COMMAND_CACHE_EVICT_STRATEGY.getValueAsString());
 
@@ -97,6 +120,8 @@ public class OCommandCacheSoftRefs implements OCommandCache {
     enable = configuration.getValueAsBoolean(OGlobalConfiguration.COMMAND_CACHE_ENABLED);
     minExecutionTime = configuration.getValueAsInteger(OGlobalConfiguration.COMMAND_CACHE_MIN_EXECUTION_TIME);
     maxResultsetSize = configuration.getValueAsInteger(OGlobalConfiguration.COMMAND_CACHE_MAX_RESULSET_SIZE);
+    maxMemory = configuration.getValueAsLong(OGlobalConfiguration.COMMAND_CACHE_MAX_MEMORY) * 1024 * 1024;
+    ttl = configuration.getValueAsLong(OGlobalConfiguration.COMMAND_CACHE_TTL);
     initCache();
 
   }
@@ -107,6 +132,8 @@ public class OCommandCacheSoftRefs implements OCommandCache {
     configuration.field("evictStrategy", evictStrategy.toString());
     configuration.field("minExecutionTime", minExecutionTime);
     configuration.field("maxResultsetSize", maxResultsetSize);
+    configuration.field("maxMemory", maxMemory);
+    configuration.field("ttl", ttl);
     try {
       ODocument diskConfig = loadConfiguration();
       if (diskConfig != null) {
@@ -148,6 +175,18 @@ public class OCommandCacheSoftRefs implements OCommandCache {
     evictStrategy = STRATEGY.valueOf(evict);
     minExecutionTime = configuration.field("minExecutionTime");
     maxResultsetSize = configuration.field("maxResultsetSize");
+
+    // CONFIGURATION FILES WRITTEN BY PREVIOUS VERSIONS DO NOT CONTAIN THESE SETTINGS
+    final Number maxMemory = configuration.field("maxMemory");
+    if (maxMemory != null)
+      this.maxMemory = maxMemory.longValue();
+    final Number ttl = configuration.field("ttl");
+    if (ttl != null)
+      this.ttl = ttl.longValue();
+
+    synchronized (this) {
+      evict();
+    }
   }
 
   private boolean updateCfgOnDisk() throws IOException {
@@ -221,10 +260,7 @@ public class OCommandCacheSoftRefs implements OCommandCache {
   @Override
   public OCommandCacheSoftRefs disable() {
     enable = false;
-    synchronized (this) {
-      clusters.clear();
-      cache.clear();
-    }
+    clear();
     configuration.field("enabled", true);
 
     try {
@@ -248,6 +284,11 @@ public class OCommandCacheSoftRefs implements OCommandCache {
 
       result = cache.get(key);
 
+      if (result != null && !isValid(result)) {
+        removeEntry(key);
+        result = null;
+      }
+
       if (result != null) {
         // SERIALIZE ALL THE RECORDS IN LOCK TO AVOID CONCURRENT ACCESS. ONCE SERIALIZED CAN ARE THREAD-SAFE
         int resultsetSize = 1;
@@ -286,6 +327,17 @@ public class OCommandCacheSoftRefs implements OCommandCache {
   @Override
   public void put(final OSecurityUser iUser, final String queryText, final Object iResult, final int iLimit,
       Set<String> iInvolvedClusters, final long iExecutionTime) {
+    put(iUser, queryText, iResult, iLimit, iInvolvedClusters, iExecutionTime, modificationCounter.get());
+  }
+
+  @Override
+  public long getModificationCounter() {
+    return modificationCounter.get();
+  }
+
+  @Override
+  public void put(final OSecurityUser iUser, final String queryText, final Object iResult, final int iLimit,
+      Set<String> iInvolvedClusters, final long iExecutionTime, final long iModificationCounter) {
     if (queryText == null || iResult == null)
       // SKIP IT
       return;
@@ -306,20 +358,40 @@ public class OCommandCacheSoftRefs implements OCommandCache {
         return;
     }
 
-    if (evictStrategy != STRATEGY.PER_CLUSTER)
+    if (evictStrategy != STRATEGY.PER_CLUSTER || iInvolvedClusters == null || iInvolvedClusters.isEmpty())
       iInvolvedClusters = null;
+    else {
+      final Set<String> clusters = new HashSet<String>(iInvolvedClusters.size());
+      for (String cluster : iInvolvedClusters)
+        clusters.add(cluster.toLowerCase(Locale.ENGLISH));
+      iInvolvedClusters = clusters;
+    }
+
+    final OCachedResult value = new OCachedResult(iResult, iInvolvedClusters);
+    value.modificationCounter = iModificationCounter;
+    value.created = System.currentTimeMillis();
+    value.size = estimateSize(iResult);
+
+    if (value.size > maxMemory)
+      // TOO BIG TO FIT IN MEMORY LIMIT, SKIP IT
+      return;
+
+    if (!isValid(value))
+      // INVOLVED CLUSTERS WERE MODIFIED DURING THE EXECUTION
+      return;
 
     synchronized (this) {
       final String key = getKey(iUser, queryText, iLimit);
-      final OCachedResult value = new OCachedResult(iResult, iInvolvedClusters);
 
       if (OLogManager.instance().isDebugEnabled())
         OLogManager.instance().debug(this, "Storing resultset in cache size=%d", resultsetSize);
 
+      removeEntry(key);
+
       cache.put(key, value);
+      usedMemory += value.size;
 
-      if (iInvolvedClusters != null)
-        clusters.addAll(iInvolvedClusters);
+      evict();
     }
   }
 
@@ -330,15 +402,15 @@ public class OCommandCacheSoftRefs implements OCommandCache {
 
     synchronized (this) {
       final String key = getKey(iUser, queryText, iLimit);
-      cache.remove(key);
+      removeEntry(key);
     }
   }
 
   @Override
   public OCommandCacheSoftRefs clear() {
     synchronized (this) {
-      cache = new OCommandCacheImplRefs();
-      clusters.clear();
+      cache.clear();
+      usedMemory = 0;
     }
     return this;
   }
@@ -355,39 +427,43 @@ public class OCommandCacheSoftRefs implements OCommandCache {
     if (!enable)
       return;
 
-    synchronized (this) {
-      if (cache.size() == 0)
-        return;
-
-      if (evictStrategy == STRATEGY.INVALIDATE_ALL) {
-        if (OLogManager.instance().isDebugEnabled())
-          OLogManager.instance().debug(this, "Invalidate all cached results (%d)", size());
+    final long counter = modificationCounter.incrementAndGet();
+    if (iCluster != null)
+      clusterModifications.put(iCluster.toLowerCase(Locale.ENGLISH), counter);
 
-        clear();
-        return;
-      }
+    if (OLogManager.instance().isDebugEnabled())
+      OLogManager.instance().debug(this, "Invalidate cached results associated to the cluster '%s'", iCluster);
+  }
 
-      if (!clusters.remove(iCluster)) {
-        // NOT CONTAINED, AVOID COSTLY BROWSING OF RESULTS
-        if (OLogManager.instance().isDebugEnabled())
-          OLogManager.instance().debug(this, "No results found for '%s'", iCluster);
-        return;
-      }
+  /**
+   * @return Estimated amount of memory in bytes taken by cached results.
+   */
+  public synchronized long getUsedMemory() {
+    return usedMemory;
+  }
 
-      int evicted = 0;
-      for (Iterator<Map.Entry<String, OCachedResult>> it = cache.entrySet().iterator(); it.hasNext(); ) {
-        final OCachedResult cached = it.next().getValue();
-        if (cached != null) {
-          if (cached.involvedClusters == null || cached.involvedClusters.isEmpty() || cached.involvedClusters.contains(iCluster)) {
-            cached.clear();
-            it.remove();
-          }
-        }
-      }
+  public long getMaxMemory() {
+    return maxMemory;
+  }
 
-      if (evicted > 0 && OLogManager.instance().isDebugEnabled())
-        OLogManager.instance().debug(this, "Invalidate %d cached results associated to the cluster '%s'", evicted, iCluster);
+  public OCommandCacheSoftRefs setMaxMemory(final long maxMemory) {
+    this.maxMemory = maxMemory;
+    synchronized (this) {
+      evict();
     }
+    return this;
+  }
+
+  /**
+   * @return Time in milliseconds after which cached results expire, 0 if results never expire.
+   */
+  public long getTtl() {
+    return ttl;
+  }
+
+  public OCommandCacheSoftRefs setTtl(final long ttl) {
+    this.ttl = ttl;
+    return this;
   }
 
   public int getMinExecutionTime() {
@@ -428,8 +504,78 @@ public class OCommandCacheSoftRefs implements OCommandCache {
 
   public Set<Map.Entry<String, OCachedResult>> entrySet() {
     synchronized (this) {
-      return cache.entrySet();
+      return new LinkedHashMap<String, OCachedResult>(cache).entrySet();
+    }
+  }
+
+  private boolean isValid(final OCachedResult cached) {
+    if (ttl > 0 && System.currentTimeMillis() - cached.created > ttl)
+      return false;
+
+    if (cached.involvedClusters == null || evictStrategy == STRATEGY.INVALIDATE_ALL)
+      return modificationCounter.get() <= cached.modificationCounter;
+
+    for (String cluster : cached.involvedClusters) {
+      final Long modified = clusterModifications.get(cluster);
+      if (modified != null && modified > cached.modificationCounter)
+        return false;
     }
+
+    return true;
+  }
+
+  private void removeEntry(final String key) {
+    final OCachedResult removed = cache.remove(key);
+    if (removed != null) {
+      usedMemory -= removed.size;
+      removed.clear();
+    }
+  }
+
+  private void evict() {
+    if (usedMemory <= maxMemory)
+      return;
+
+    // REMOVE STALE RESULTS FIRST, THEN THE LEAST RECENTLY USED ONES
+    final List<String> stale = new ArrayList<String>();
+    for (Map.Entry<String, OCachedResult> entry : cache.entrySet())
+      if (!isValid(entry.getValue()))
+        stale.add(entry.getKey());
+
+    for (String key : stale)
+      removeEntry(key);
+
+    final Iterator<OCachedResult> iterator = cache.values().iterator();
+    while (usedMemory > maxMemory && iterator.hasNext()) {
+      final OCachedResult eldest = iterator.next();
+      iterator.remove();
+      usedMemory -= eldest.size;
+      eldest.clear();
+    }
+  }
+
+  private static long estimateSize(final Object result) {
+    if (result instanceof OCachedResultSet)
+      return ENTRY_OVERHEAD + ((OCachedResultSet) result).getSize();
+
+    if (!OMultiValue.isMultiValue(result))
+      return ENTRY_OVERHEAD + estimateItemSize(result);
+
+    long size = ENTRY_OVERHEAD;
+    for (Object item : OMultiValue.getMultiValueIterable(result))
+      size += estimateItemSize(item);
+
+    return size;
+  }
+
+  private static long estimateItemSize(final Object item) {
+    if (item instanceof ORecord)
+      return ENTRY_OVERHEAD + Math.max(((ORecord) item).getSize(), 0);
+
+    if (item instanceof String)
+      return ENTRY_OVERHEAD + 2 * ((String) item).length();
+
+    return ENTRY_OVERHEAD;
   }
 
 }
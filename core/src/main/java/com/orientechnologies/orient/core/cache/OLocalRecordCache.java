@@ -37,6 +37,9 @@ public class OLocalRecordCache extends OAbstractRecordCache {
   private String CACHE_HIT;
   private String CACHE_MISS;
 
+  private long hits;
+  private long misses;
+
   public OLocalRecordCache() {
     super(Orient.instance().getLocalRecordCache().newInstance(OGlobalConfiguration.CACHE_LOCAL_IMPL.getValueAsString()));
   }
@@ -79,11 +82,14 @@ public class OLocalRecordCache extends OAbstractRecordCache {
     ORecord record;
     record = underlying.get(rid);
 
-    if (record != null)
+    if (record != null) {
+      hits++;
       Orient.instance().getProfiler().updateCounter(CACHE_HIT, "Record found in Level1 Cache", 1L, "db.*.cache.level1.cache.found");
-    else
+    } else {
+      misses++;
       Orient.instance().getProfiler().updateCounter(CACHE_MISS, "Record not found in Level1 Cache", 1L,
           "db.*.cache.level1.cache.notFound");
+    }
 
     return record;
   }
@@ -107,6 +113,31 @@ public class OLocalRecordCache extends OAbstractRecordCache {
     super.clear();
   }
 
+  /**
+   * @return Number of records found in cache by {@link #findRecord(ORID)}.
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return Number of records not found in cache by {@link #findRecord(ORID)}.
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return Number of records evicted from cache because of its size limit, <code>-1</code> if the cache implementation does not
+   * limit its size.
+   */
+  public long getEvictions() {
+    if (underlying instanceof ORecordCacheLRU)
+      return ((ORecordCacheLRU) underlying).getEvictions();
+
+    return -1;
+  }
+
   /**
    * Invalidates the cache emptying all the records.
    */
@@ -0,0 +1,275 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.cache;
+
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.ORecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Record cache which keeps strong references to records and limits amount of memory taken by them, so content of the cache does
+ * not depend on activity of garbage collector.
+ * <p>
+ * Records are evicted using segmented LRU policy. New records are put into probation segment, records which are found in cache
+ * at least once are moved into protected segment which may take up to {@link #PROTECTED_RATIO} of the memory. Records are evicted
+ * from probation segment first, so records which are read only once, during scan of cluster for example, do not evict records
+ * which are accessed frequently.
+ * <p>
+ * Memory consumption of the record is estimated as size of its serialized content plus constant overhead of the cache entry. The
+ * limit is defined by {@link OGlobalConfiguration#CACHE_LOCAL_MAX_MEMORY}. Like other implementations of {@link ORecordCache}
+ * this class is not thread safe.
+ */
+public class ORecordCacheLRU implements ORecordCache {
+  /**
+   * Part of memory limit which may be taken by protected segment.
+   */
+  public static final double PROTECTED_RATIO = 0.8;
+
+  /**
+   * Estimated amount of memory taken by cache entry and empty record.
+   */
+  public static final int ENTRY_OVERHEAD = 128;
+
+  private final long maxMemory;
+  private final long maxProtectedMemory;
+
+  private final LinkedHashMap<ORID, Entry> probation        = new LinkedHashMap<ORID, Entry>();
+  private final LinkedHashMap<ORID, Entry> protectedSegment = new LinkedHashMap<ORID, Entry>(16, 0.75f, true);
+
+  private long probationMemory;
+  private long protectedMemory;
+
+  private long evictions;
+
+  private boolean enabled = true;
+
+  private String evictionsCounter;
+
+  public ORecordCacheLRU() {
+    this(OGlobalConfiguration.CACHE_LOCAL_MAX_MEMORY.getValueAsLong() * 1024 * 1024);
+  }
+
+  /**
+   * @param maxMemory Maximum amount of memory in bytes which may be taken by cached records.
+   */
+  public ORecordCacheLRU(long maxMemory) {
+    this.maxMemory = maxMemory;
+    this.maxProtectedMemory = (long) (maxMemory * PROTECTED_RATIO);
+  }
+
+  @Override
+  public void startup() {
+    final ODatabaseDocumentInternal db = ODatabaseRecordThreadLocal.instance().getIfDefined();
+    if (db != null)
+      evictionsCounter = "db." + db.getName() + ".cache.level1.cache.evicted";
+  }
+
+  @Override
+  public void shutdown() {
+    clear();
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public boolean enable() {
+    return enabled = true;
+  }
+
+  @Override
+  public boolean disable() {
+    return enabled = false;
+  }
+
+  @Override
+  public ORecord get(final ORID rid) {
+    if (!enabled)
+      return null;
+
+    Entry entry = protectedSegment.get(rid);
+    if (entry != null)
+      return entry.record;
+
+    entry = probation.remove(rid);
+    if (entry == null)
+      return null;
+
+    probationMemory -= entry.size;
+
+    protectedSegment.put(rid, entry);
+    protectedMemory += entry.size;
+
+    // demoted records get the last chance in probation segment
+    final Iterator<Map.Entry<ORID, Entry>> iterator = protectedSegment.entrySet().iterator();
+    while (protectedMemory > maxProtectedMemory && iterator.hasNext()) {
+      final Map.Entry<ORID, Entry> eldest = iterator.next();
+      iterator.remove();
+      protectedMemory -= eldest.getValue().size;
+
+      probation.put(eldest.getKey(), eldest.getValue());
+      probationMemory += eldest.getValue().size;
+    }
+
+    return entry.record;
+  }
+
+  @Override
+  public ORecord put(final ORecord record) {
+    if (!enabled)
+      return null;
+
+    final ORID rid = record.getIdentity();
+    final Entry entry = new Entry(record);
+
+    // record which does not fit into the cache would evict all other records
+    if (entry.size > maxMemory)
+      return remove(rid);
+
+    Entry previous = protectedSegment.get(rid);
+    if (previous != null) {
+      protectedSegment.put(rid, entry);
+      protectedMemory += entry.size - previous.size;
+    } else {
+      previous = probation.remove(rid);
+      if (previous != null)
+        probationMemory -= previous.size;
+
+      probation.put(rid, entry);
+      probationMemory += entry.size;
+    }
+
+    evict();
+
+    return previous != null ? previous.record : null;
+  }
+
+  @Override
+  public ORecord remove(final ORID rid) {
+    if (!enabled)
+      return null;
+
+    Entry entry = probation.remove(rid);
+    if (entry != null)
+      probationMemory -= entry.size;
+    else {
+      entry = protectedSegment.remove(rid);
+      if (entry != null)
+        protectedMemory -= entry.size;
+    }
+
+    return entry != null ? entry.record : null;
+  }
+
+  @Override
+  public void clear() {
+    probation.clear();
+    protectedSegment.clear();
+
+    probationMemory = 0;
+    protectedMemory = 0;
+  }
+
+  @Override
+  public int size() {
+    return probation.size() + protectedSegment.size();
+  }
+
+  @Override
+  public Collection<ORID> keys() {
+    final Collection<ORID> keys = new ArrayList<ORID>(size());
+    keys.addAll(probation.keySet());
+    keys.addAll(protectedSegment.keySet());
+    return keys;
+  }
+
+  /**
+   * @return Estimated amount of memory in bytes taken by cached records.
+   */
+  public long getUsedMemory() {
+    return probationMemory + protectedMemory;
+  }
+
+  public long getMaxMemory() {
+    return maxMemory;
+  }
+
+  /**
+   * @return Number of records removed from the cache because of memory limit.
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  private void evict() {
+    long evicted = 0;
+
+    evicted += evict(probation, true);
+    evicted += evict(protectedSegment, false);
+
+    if (evicted > 0) {
+      evictions += evicted;
+
+      if (evictionsCounter != null)
+        Orient.instance().getProfiler()
+            .updateCounter(evictionsCounter, "Records evicted from Level1 Cache", evicted, "db.*.cache.level1.cache.evicted");
+    }
+  }
+
+  private long evict(LinkedHashMap<ORID, Entry> segment, boolean isProbation) {
+    long evicted = 0;
+
+    final Iterator<Entry> iterator = segment.values().iterator();
+    while (probationMemory + protectedMemory > maxMemory && iterator.hasNext()) {
+      final Entry eldest = iterator.next();
+      iterator.remove();
+
+      if (isProbation)
+        probationMemory -= eldest.size;
+      else
+        protectedMemory -= eldest.size;
+
+      evicted++;
+    }
+
+    return evicted;
+  }
+
+  private static final class Entry {
+    private final ORecord record;
+    private final int     size;
+
+    private Entry(ORecord record) {
+      this.record = record;
+      this.size = Math.max(record.getSize(), 0) + ENTRY_OVERHEAD;
+    }
+  }
+}
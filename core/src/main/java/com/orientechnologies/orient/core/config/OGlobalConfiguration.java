@@ -26,6 +26,7 @@ import com.orientechnologies.common.profiler.OProfiler;
 import com.orientechnologies.common.util.OApi;
 import com.orientechnologies.orient.core.OConstants;
 import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.cache.ORecordCacheLRU;
 import com.orientechnologies.orient.core.cache.ORecordCacheWeakRefs;
 import com.orientechnologies.orient.core.engine.local.OEngineLocalPaginated;
 import com.orientechnologies.orient.core.index.OIndexDefinition;
@@ -133,6 +134,21 @@ public enum OGlobalConfiguration {
       + " if this percent is reached next pages will be left in unpinned state. You can not set value more than 50", Integer.class,
       20, false),
 
+  DISK_CACHE_READ_CACHE("storage.diskCache.readCache", "Implementation of read part of disk cache. Possible values : '2Q' and "
+      + "'CLOCK'. 'CLOCK' cache does not acquire cache-wide locks on page hits and scales better with many concurrent readers, "
+      + "but does not restore its state after storage reopen. Default is '2Q'", String.class, "2Q", false),
+
+  DISK_CACHE_READ_AHEAD_PAGES("storage.diskCache.readAheadPages",
+      "Amount of pages which are loaded into the read cache in background once sequential read of the file is detected. "
+          + "0 disables read ahead", Integer.class, 32, false),
+
+  DISK_CACHE_READ_AHEAD_THRESHOLD("storage.diskCache.readAheadThreshold",
+      "Amount of pages of the file which should be read one after another before read ahead of the file is started",
+      Integer.class, 4, false),
+
+  DISK_CACHE_READ_AHEAD_THREADS("storage.diskCache.readAheadThreads",
+      "Maximum amount of threads which load pages into the read cache in background", Integer.class, 2, false),
+
   DISK_CACHE_SIZE("storage.diskCache.bufferSize", "Size of disk buffer in megabytes, disk size may be changed at runtime, "
       + "but if does not enough to contain all pinned pages exception will be thrown", Integer.class, 4 * 1024,
       new OConfigurationChangeCallback() {
@@ -253,6 +269,19 @@ public enum OGlobalConfiguration {
 
   WAL_COMMIT_TIMEOUT("storage.wal.commitTimeout", "Maximum interval between WAL commits (in ms.)", Integer.class, 1000),
 
+  WAL_SYNC_ON_COMMIT("storage.wal.syncOnCommit",
+      "Indicates whether a transaction commit should wait till WAL records of the transaction are flushed to the disk",
+      Boolean.class, false),
+
+  WAL_GROUP_COMMIT_INTERVAL("storage.wal.groupCommitInterval",
+      "Maximum interval the WAL flush thread waits for other transactions before a flush requested by a synchronous commit"
+          + " is performed (in microseconds). Bigger values increase throughput of commits at the cost of their latency,"
+          + " 0 means that the WAL is flushed immediately", Integer.class, 200),
+
+  WAL_GROUP_COMMIT_MAX_BATCH("storage.wal.groupCommitMaxBatch",
+      "Maximum amount of synchronous commits which wait for the single flush of the WAL. Once this amount is reached, the WAL is"
+          + " flushed without waiting for the end of group commit interval", Integer.class, 64),
+
   WAL_SHUTDOWN_TIMEOUT("storage.wal.shutdownTimeout", "Maximum wait interval between events, when the background flush thread"
       + "receives a shutdown command and when the background flush will be stopped (in ms.)", Integer.class, 10000),
 
@@ -304,6 +333,10 @@ public enum OGlobalConfiguration {
   PAGINATED_STORAGE_LOWEST_FREELIST_BOUNDARY("storage.lowestFreeListBound",
       "The least amount of free space (in kb) in a page, which is tracked in paginated storage", Integer.class, 16),
 
+  STORAGE_CLUSTER_OPTIMISTIC_READS("storage.cluster.optimisticReads",
+      "Indicates whether records should be read from clusters without acquisition of locks, read is repeated under locks if the "
+          + "cluster is modified concurrently", Boolean.class, true),
+
   STORAGE_LOCK_TIMEOUT("storage.lockTimeout", "Maximum amount of time (in ms) to lock the storage", Integer.class, 0),
 
   STORAGE_RECORD_LOCK_TIMEOUT("storage.record.lockTimeout", "Maximum of time (in ms) to lock a shared record", Integer.class, 2000),
@@ -399,6 +432,26 @@ public enum OGlobalConfiguration {
 
   INDEX_CURSOR_PREFETCH_SIZE("index.cursor.prefetchSize", "Default prefetch size of index cursor", Integer.class, 10000),
 
+  INDEX_BULK_BUILD("index.bulkBuild",
+      "Build and rebuild unique and not unique indexes by scanning the clusters in parallel, sorting the extracted keys and inserting them in batches",
+      Boolean.class, true),
+
+  INDEX_BULK_BUILD_THREADS("index.bulkBuild.threads",
+      "Number of threads which scan the clusters during bulk build of an index. 0 means the number of available cores", Integer.class,
+      0),
+
+  INDEX_BULK_BUILD_SORT_BUFFER_SIZE("index.bulkBuild.sortBufferSize",
+      "Maximum number of key/record pairs kept in memory by each scanner thread during bulk build of an index. Past this size the pairs are sorted and moved to a temporary file",
+      Integer.class, 100000),
+
+  INDEX_BULK_BUILD_BATCH_SIZE("index.bulkBuild.batchSize",
+      "Number of sorted keys inserted into the index in a single atomic operation during bulk build of an index", Integer.class,
+      1000),
+
+  INDEX_BULK_BUILD_DIRECTORY("index.bulkBuild.directory",
+      "Directory for the temporary files with sorted keys written during bulk build of an index. If not set, the system temporary directory is used",
+      String.class, null),
+
   // SBTREE
   SBTREE_MAX_DEPTH("sbtree.maxDepth",
       "Maximum depth of sbtree, which will be traversed during key look up until it will be treated as broken (64 by default)",
@@ -411,6 +464,10 @@ public enum OGlobalConfiguration {
       "Maximum size of value which can be put in an SBTree without creation link to a standalone page in bytes (40960 by default)",
       Integer.class, 40960),
 
+  SBTREE_NORMALIZED_KEYS("sbtree.normalizedKeys",
+      "Store keys of newly created SBTree indexes in prefix compressed, byte comparable form if types of all indexed fields support it."
+          + " May be overridden by 'normalizedKeys' field of index metadata", Boolean.class, false),
+
   SBTREEBONSAI_BUCKET_SIZE("sbtreebonsai.bucketSize",
       "Size of bucket in OSBTreeBonsai (in kB). Contract: bucketSize < storagePageSize, storagePageSize % bucketSize == 0",
       Integer.class, 2),
@@ -448,6 +505,14 @@ public enum OGlobalConfiguration {
 
   FILE_DELETE_RETRY("file.deleteRetry", "Number of retries to delete a locked file", Integer.class, 50),
 
+  FILE_MMAP_READ("file.mmapRead",
+      "Read pages of data files from memory mapped segments of the files instead of positional reads, pages are still written "
+          + "through the file channel", Boolean.class, false),
+
+  FILE_MMAP_SEGMENT_SIZE("file.mmapSegmentSize",
+      "Size (in megabytes) of the segments of data files mapped into memory if file.mmapRead is enabled. Tail of the file "
+          + "which does not fill the whole segment is read through the file channel", Integer.class, 64),
+
   // SECURITY
   SECURITY_USER_PASSWORD_SALT_ITERATIONS("security.userPasswordSaltIterations",
       "Number of iterations to generate the salt or user password. Changing this setting does not affect stored passwords",
@@ -497,6 +562,18 @@ public enum OGlobalConfiguration {
   NETWORK_BINARY_DEBUG("network.binary.debug", "Debug mode: print all data incoming on the binary channel", Boolean.class, false,
       true),
 
+  NETWORK_BINARY_NIO_ENABLED("network.binary.nio.enabled",
+      "Serves the connections of the binary listeners with a selector and a pool of worker threads, instead of a thread per connection. Works only with the default socket factory",
+      Boolean.class, false),
+
+  NETWORK_BINARY_NIO_WORKERS("network.binary.nio.workers",
+      "Maximum number of threads that execute the binary requests when network.binary.nio.enabled is true. 0 means 8 threads per CPU core",
+      Integer.class, 0),
+
+  NETWORK_BINARY_NIO_VIRTUAL_THREADS("network.binary.nio.virtualThreads",
+      "Executes the binary requests on virtual threads, instead of a pool of worker threads, when the JVM supports them and network.binary.nio.enabled is true",
+      Boolean.class, false),
+
   // HTTP
 
   /**
@@ -621,6 +698,10 @@ public enum OGlobalConfiguration {
   // CACHE
   CACHE_LOCAL_IMPL("cache.local.impl", "Local Record cache implementation", String.class, ORecordCacheWeakRefs.class.getName()),
 
+  CACHE_LOCAL_MAX_MEMORY("cache.local.maxMemory",
+      "Maximum amount of memory (in megabytes) taken by records of Local Record cache of single database instance, used by '"
+          + ORecordCacheLRU.class.getName() + "' implementation. Memory is estimated by size of serialized records", Long.class, 8),
+
   // COMMAND
   COMMAND_TIMEOUT("command.timeout", "Default timeout for commands (in ms)", Long.class, 0, true),
 
@@ -635,6 +716,12 @@ public enum OGlobalConfiguration {
   COMMAND_CACHE_MAX_RESULSET_SIZE("command.cache.maxResultsetSize", "Maximum resultset time to consider caching result set",
       Integer.class, 500),
 
+  COMMAND_CACHE_MAX_MEMORY("command.cache.maxMemory", "Maximum amount of memory in megabytes taken by cached result sets",
+      Long.class, 64),
+
+  COMMAND_CACHE_TTL("command.cache.ttl", "Time in milliseconds after which cached result sets expire, 0 means no expiration",
+      Long.class, 0),
+
   // QUERY
   QUERY_PARALLEL_AUTO("query.parallelAuto", "Auto enable parallel query, if requirements are met", Boolean.class, false),
 
@@ -645,6 +732,26 @@ public enum OGlobalConfiguration {
       "Size of the queue that holds results on parallel execution. The queue is blocking, so in case the queue is full, the query threads will be in a wait state",
       Integer.class, 20000),
 
+  QUERY_PARALLEL_EXEC_ENABLED("query.parallelExec.enabled",
+      "Execute the sub-plans of a PARALLEL step (eg. multi-cluster, multi-index and subclass fetches) concurrently on a pool of threads. Disabled automatically inside a transaction",
+      Boolean.class, false),
+
+  QUERY_PARALLEL_EXEC_THREADS("query.parallelExec.threads",
+      "Maximum number of threads used by a single PARALLEL step of a query. 0 means the number of available cores", Integer.class,
+      0),
+
+  QUERY_SPILL_THRESHOLD("query.spill.threshold",
+      "Maximum number of results that a blocking query operation (eg. ORDER BY without LIMIT) keeps in memory. Past this threshold the results are moved to temporary files. (Use 0 to disable)",
+      Integer.class, 1000000),
+
+  QUERY_SPILL_DIRECTORY("query.spill.directory",
+      "Directory for the temporary files written by the query operations that spill their results to disk. If not set, the system temporary directory is used",
+      String.class, null),
+
+  QUERY_SPILL_OFF_HEAP_LIMIT("query.spill.offHeapLimit",
+      "Maximum amount of off-heap memory (in megabytes) that a query operation (eg. DISTINCT) can use to keep its intermediate keys. Past this limit the keys are moved to a temporary file",
+      Integer.class, 256),
+
   QUERY_SCAN_PREFETCH_PAGES("query.scanPrefetchPages",
       "Pages to prefetch during scan. Setting this value higher makes scans faster, because it reduces the number of I/O operations, though it consumes more memory. (Use 0 to disable)",
       Integer.class, 20),
@@ -662,6 +769,10 @@ public enum OGlobalConfiguration {
 
   QUERY_LIVE_SUPPORT("query.live.support", "Enable/Disable the support of live query. (Use false to disable)", Boolean.class, true),
 
+  QUERY_LIVE_DISPATCH_THREADS("query.live.dispatchThreads",
+      "Number of threads which notify subscribers of live queries about changes of records. All notifications of the same subscriber are done by the same thread. "
+          + "If value is 1 subscribers are notified by the thread which reads the queue of changes", Integer.class, 4),
+
   STATEMENT_CACHE_SIZE("statement.cacheSize", "Number of parsed SQL statements kept in cache", Integer.class, 100),
 
   // GRAPH
@@ -678,6 +789,21 @@ public enum OGlobalConfiguration {
   CLIENT_CHANNEL_MAX_POOL("client.channel.maxPool",
       "Maximum size of pool of network channels between client and server. A channel is a TCP/IP connection", Integer.class, 100),
 
+  /**
+   * Shares the network channels between the synchronous requests of different sessions, instead of locking a channel for each
+   * request until the response is read.
+   */
+  CLIENT_CHANNEL_PIPELINING("client.channel.pipelining",
+      "Sends the synchronous requests of different sessions on shared network channels without waiting for the previous responses. "
+          + "Responses are matched to the requests by session id", Boolean.class, false),
+
+  /**
+   * Number of requests in flight on a shared channel after which a new channel is opened, up to the maximum size of the pool.
+   */
+  CLIENT_CHANNEL_PIPELINING_MAX_IN_FLIGHT("client.channel.pipelining.maxInFlight",
+      "Number of requests in flight on a shared network channel after which a new channel is opened, up to the maximum size of the pool",
+      Integer.class, 16),
+
   /**
    * Maximum time, where the client should wait for a connection from the pool, when all connections busy.
    */
@@ -745,6 +871,12 @@ public enum OGlobalConfiguration {
   DISTRIBUTED_DEPLOYCHUNK_TASK_SYNCH_TIMEOUT("distributed.deployChunkTaskTimeout",
       "Maximum timeout (in ms) to wait for database chunk deployment", Long.class, 60000l, true),
 
+  DISTRIBUTED_DEPLOYCHUNK_TASK_PARALLEL("distributed.deployChunkTaskParallel",
+      "Number of database chunks requested in parallel during database deployment", Integer.class, 4, true),
+
+  DISTRIBUTED_DEPLOYCHUNK_TASK_RETRIES("distributed.deployChunkTaskRetries",
+      "Number of times a database chunk is requested again before database deployment fails", Integer.class, 3, true),
+
   DISTRIBUTED_DEPLOYDB_TASK_COMPRESSION("distributed.deployDbTaskCompression",
       "Compression level (between 0 and 9) to use in backup for database deployment", Integer.class, 7, true),
 
@@ -0,0 +1,182 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.db;
+
+import com.orientechnologies.orient.core.Orient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs tasks on the threads of the {@link Orient} executor, every task works on its own copy of the database. The copies are
+ * created on the thread of the caller, because {@link ODatabaseDocumentInternal#copy()} activates the copied database on the
+ * current thread, and are closed on the worker threads once the tasks are completed.
+ * <p>
+ * The first failure of the tasks is kept and stops the workers, tasks are expected to check {@link #isStopped()} between units
+ * of work. Workers are not interrupted, because an interrupt could close the underlying file channels of the storage.
+ */
+public final class ODatabaseWorkers {
+  /**
+   * Task executed by a worker, the passed in copy of the database is active on the worker thread.
+   */
+  public interface Task {
+    void execute(ODatabaseDocumentInternal database) throws Exception;
+  }
+
+  private final ODatabaseDocumentInternal  database;
+  private final List<Future<?>>            futures = new ArrayList<Future<?>>();
+  private final AtomicReference<Throwable> error   = new AtomicReference<Throwable>();
+  private volatile boolean stopped;
+
+  public ODatabaseWorkers(final ODatabaseDocumentInternal database) {
+    this.database = database;
+  }
+
+  /**
+   * Starts a worker which executes the task on a new copy of the database. Has to be called on the thread where the database is
+   * active.
+   */
+  public void start(final Task task) {
+    final ODatabaseDocumentInternal copy = database.copy();
+    try {
+      futures.add(Orient.instance().submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            copy.activateOnCurrentThread();
+            if (!stopped)
+              task.execute(copy);
+          } catch (Throwable e) {
+            error.compareAndSet(null, e);
+            stopped = true;
+          } finally {
+            copy.activateOnCurrentThread();
+            copy.close();
+          }
+        }
+      }));
+    } catch (RuntimeException e) {
+      copy.close();
+      database.activateOnCurrentThread();
+      throw e;
+    }
+  }
+
+  /**
+   * @return first failure of the tasks, or <code>null</code> if none of them failed.
+   */
+  public Throwable getError() {
+    return error.get();
+  }
+
+  public boolean isStopped() {
+    return stopped;
+  }
+
+  /**
+   * Signals the workers to stop, tasks which are not started yet are not executed.
+   */
+  public void stop() {
+    stopped = true;
+  }
+
+  /**
+   * Waits for the workers to complete their tasks, returns earlier if one of the tasks fails.
+   *
+   * @param progressInterval interval in milliseconds between calls of the progress callback.
+   * @param progress         called on the thread of the caller while the workers are running, it may throw to stop waiting.
+   */
+  public void await(final long progressInterval, final Runnable progress) throws InterruptedException {
+    for (Future<?> future : futures) {
+      while (error.get() == null) {
+        try {
+          future.get(progressInterval, TimeUnit.MILLISECONDS);
+          break;
+        } catch (TimeoutException ignore) {
+          if (progress != null)
+            progress.run();
+        } catch (ExecutionException ignore) {
+          // FAILURES ARE KEPT BY THE WORKERS
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Stops the workers and waits until all of them close their copies of the database, so the database can be closed or dropped
+   * once this method returns. The database of the caller is active on the current thread when the method returns.
+   */
+  public void stopAndWait() {
+    stop();
+
+    boolean interrupted = false;
+    for (Future<?> future : futures) {
+      while (true) {
+        try {
+          future.get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException ignore) {
+          // FAILURES ARE KEPT BY THE WORKERS
+          break;
+        }
+      }
+    }
+
+    database.activateOnCurrentThread();
+    if (interrupted)
+      Thread.currentThread().interrupt();
+  }
+
+  /**
+   * Stops the workers and waits for them at most the given time, for the callers which can not wait for a task that does not
+   * return.
+   *
+   * @return <code>false</code> if some of the workers are still running.
+   */
+  public boolean stopAndWait(final long timeout) {
+    stop();
+
+    final long deadline = System.currentTimeMillis() + timeout;
+    try {
+      for (Future<?> future : futures) {
+        try {
+          future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ignore) {
+          // FAILURES ARE KEPT BY THE WORKERS
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (TimeoutException e) {
+      return false;
+    }
+
+    return true;
+  }
+}
@@ -27,28 +27,35 @@ import com.orientechnologies.orient.core.OConstants;
 import com.orientechnologies.orient.core.command.OCommandOutputListener;
 import com.orientechnologies.orient.core.config.OStorageConfiguration;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.index.OIndex;
 import com.orientechnologies.orient.core.index.OIndexDefinition;
 import com.orientechnologies.orient.core.index.OIndexManager;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.index.ORuntimeKeyIndexDefinition;
 import com.orientechnologies.orient.core.iterator.ORecordIteratorCluster;
+import com.orientechnologies.orient.core.metadata.OMetadataDefault;
 import com.orientechnologies.orient.core.metadata.OMetadataInternal;
-import com.orientechnologies.orient.core.metadata.schema.OClass;
-import com.orientechnologies.orient.core.metadata.schema.OProperty;
-import com.orientechnologies.orient.core.metadata.schema.OSchema;
-import com.orientechnologies.orient.core.metadata.schema.OSchemaShared;
+import com.orientechnologies.orient.core.metadata.schema.*;
 import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.serializer.OJSONWriter;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.orient.core.storage.OPhysicalPosition;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+import com.orientechnologies.orient.core.storage.OStorage;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
@@ -64,6 +71,8 @@ public class ODatabaseExport extends ODatabaseImpExpAbstract {
   protected long        recordExported;
   protected int compressionLevel  = Deflater.BEST_SPEED;
   protected int compressionBuffer = 16384;              // 16Kb
+  protected boolean binaryRecords = false;
+  protected int     chunkSize     = ODatabaseRecordChunks.DEFAULT_CHUNK_SIZE;
 
   private final String tempFileName;
 
@@ -124,8 +133,12 @@ public class ODatabaseExport extends ODatabaseImpExpAbstract {
         exportClusters();
       if (includeSchema)
         exportSchema();
-      if (includeRecords)
-        exportRecords();
+      if (includeRecords) {
+        if (binaryRecords)
+          exportBinaryRecords();
+        else
+          exportRecords();
+      }
       if (includeIndexDefinitions)
         exportIndexDefinitions();
       if (includeManualIndexes)
@@ -258,6 +271,81 @@ public class ODatabaseExport extends ODatabaseImpExpAbstract {
     return totalExportedRecords;
   }
 
+  /**
+   * Exports records as they are stored by the storage. Every cluster is written in parallel with the others into its own chunks
+   * placed in a directory next to the export file, the export file itself contains only the list of chunks.
+   */
+  public long exportBinaryRecords() throws Exception {
+    if (tempFileName == null)
+      throw new ODatabaseExportException("Binary records can be exported only into a file");
+
+    listener.onMessage("\nExporting records in binary chunks using " + threads + " threads...");
+
+    final File exportFile = new File(fileName).getAbsoluteFile();
+    final String directoryName = exportFile.getName().substring(0, exportFile.getName().length() - ".gz".length()) + ".records";
+    final File directory = new File(exportFile.getParentFile(), directoryName);
+    if (directory.exists()) {
+      OFileUtils.deleteRecursively(directory);
+      OLogManager.instance().warn(this, "'%s' deleted while exporting", directory);
+    }
+    if (!directory.mkdirs())
+      throw new IOException("Cannot create directory '" + directory + "' for the records");
+
+    final long begin = System.currentTimeMillis();
+    final Set<ORID> brokenRids = Collections.synchronizedSet(new HashSet<ORID>());
+    final AtomicLong exported = new AtomicLong();
+    final List<ODocument> clusters = new ArrayList<ODocument>();
+    final List<ODatabaseRecordChunks.ClusterTask> tasks = new ArrayList<ODatabaseRecordChunks.ClusterTask>();
+
+    final int maxClusterId = getMaxClusterId();
+    for (int i = 0; i <= maxClusterId; ++i) {
+      final String clusterName = database.getClusterNameById(i);
+      // INTERNAL AND INDEX RECORDS ARE NOT IMPORTED ANYWAY
+      if (clusterName == null || clusterName.equalsIgnoreCase(OMetadataDefault.CLUSTER_INTERNAL_NAME) || clusterName
+          .equalsIgnoreCase(OMetadataDefault.CLUSTER_INDEX_NAME) || clusterName
+          .equalsIgnoreCase(OMetadataDefault.CLUSTER_MANUAL_INDEX_NAME) || !isClusterIncluded(clusterName))
+        continue;
+
+      final int clusterId = i;
+      final ODocument cluster = new ODocument();
+      cluster.field("name", clusterName);
+      cluster.field("id", clusterId);
+      clusters.add(cluster);
+
+      tasks.add(new ODatabaseRecordChunks.ClusterTask() {
+        @Override
+        public void execute(ODatabaseDocumentInternal database) throws Exception {
+          exportClusterChunks(database, clusterId, cluster, directory, brokenRids, exported);
+        }
+      });
+    }
+
+    ODatabaseRecordChunks.execute(database, tasks, threads, listener, exported);
+
+    for (ODocument cluster : clusters)
+      listener.onMessage(
+          "\n- Cluster '" + cluster.field("name") + "' (id=" + cluster.field("id") + ")...OK (records=" + cluster.field("records")
+              + ", chunks=" + cluster.<List<String>>field("chunks").size() + ")");
+
+    final List<String> brokenRidsList = new ArrayList<String>();
+    for (ORID rid : brokenRids)
+      brokenRidsList.add(rid.toString());
+
+    final ODocument manifest = new ODocument();
+    manifest.field("format", ODatabaseRecordChunks.FORMAT);
+    manifest.field("serializer", database.getSerializer().toString());
+    manifest.field("directory", directoryName);
+    manifest.field("clusters", clusters, OType.EMBEDDEDLIST);
+    manifest.field("brokenRids", brokenRidsList, OType.EMBEDDEDLIST);
+    writer.writeAttribute(1, true, "binaryRecords", manifest);
+
+    recordExported += exported.get();
+    listener.onMessage(String.format("\n\nDone. Exported %,d records in %,.2f secs, %d records were detected as broken\n",
+        exported.get(), ((float) (System.currentTimeMillis() - begin)) / 1000, brokenRids.size()));
+
+    return exported.get();
+  }
+
   public void close() {
     database.declareIntent(null);
 
@@ -291,12 +379,35 @@ public class ODatabaseExport extends ODatabaseImpExpAbstract {
     return totalCluster;
   }
 
+  public boolean isBinaryRecords() {
+    return binaryRecords;
+  }
+
+  public void setBinaryRecords(final boolean binaryRecords) {
+    this.binaryRecords = binaryRecords;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Sets the maximum amount of records stored in a single chunk of binary records.
+   */
+  public void setChunkSize(final int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
   @Override
   protected void parseSetting(final String option, final List<String> items) {
     if (option.equalsIgnoreCase("-compressionLevel"))
       compressionLevel = Integer.parseInt(items.get(0));
     else if (option.equalsIgnoreCase("-compressionBuffer"))
       compressionBuffer = Integer.parseInt(items.get(0));
+    else if (option.equalsIgnoreCase("-binaryRecords"))
+      binaryRecords = Boolean.parseBoolean(items.get(0));
+    else if (option.equalsIgnoreCase("-chunkSize"))
+      chunkSize = Integer.parseInt(items.get(0));
     else
       super.parseSetting(option, items);
   }
@@ -499,6 +610,8 @@ public class ODatabaseExport extends ODatabaseImpExpAbstract {
     writer.beginObject(1, true, "schema");
     OSchema s = ((OMetadataInternal) database.getMetadata()).getImmutableSchemaSnapshot();
     writer.writeAttribute(2, true, "version", s.getVersion());
+    if (includeRecords && binaryRecords && !s.getGlobalProperties().isEmpty())
+      exportGlobalProperties(s);
     writer.writeAttribute(2, false, "blob-clusters", database.getBlobClusterIds());
     if (!s.getClasses().isEmpty()) {
       writer.beginCollection(2, true, "classes");
@@ -592,6 +705,134 @@ public class ODatabaseExport extends ODatabaseImpExpAbstract {
     listener.onMessage("OK (" + s.getClasses().size() + " classes)");
   }
 
+  /**
+   * Binary records refer to the properties by their global ids, so the ids are preserved by the import of such records.
+   */
+  private void exportGlobalProperties(final OSchema schema) throws IOException {
+    writer.beginCollection(2, true, "globalProperties");
+    for (OGlobalProperty property : schema.getGlobalProperties()) {
+      if (property == null)
+        continue;
+
+      writer.beginObject(3, true, null);
+      writer.writeAttribute(0, false, "name", property.getName());
+      writer.writeAttribute(0, false, "global-id", property.getId());
+      writer.writeAttribute(0, false, "type", property.getType().name());
+      writer.endObject(0, false);
+    }
+    writer.endCollection(2, true);
+  }
+
+  private void exportClusterChunks(final ODatabaseDocumentInternal db, final int clusterId, final ODocument cluster,
+      final File directory, final Set<ORID> brokenRids, final AtomicLong exported) throws IOException {
+    final OStorage storage = db.getStorage();
+    final List<String> chunks = new ArrayList<String>();
+    long records = 0;
+
+    ODatabaseRecordChunks.ChunkWriter chunkWriter = null;
+    int chunkRecords = 0;
+    try {
+      OPhysicalPosition[] positions = storage.ceilingPhysicalPositions(clusterId, new OPhysicalPosition(0));
+      while (positions.length > 0) {
+        for (OPhysicalPosition position : positions) {
+          final ORecordId rid = new ORecordId(clusterId, position.clusterPosition);
+
+          final ORawBuffer buffer;
+          try {
+            buffer = storage.readRecord(rid, null, true, false, null).getResult();
+          } catch (RuntimeException e) {
+            OLogManager.instance().error(this, "\nError on exporting record %s, it seems corrupted", e, rid);
+            brokenRids.add(rid);
+            continue;
+          }
+
+          if (buffer == null || !isRecordIncluded(rid, buffer))
+            continue;
+
+          if (chunkWriter == null) {
+            final String chunk = clusterId + "-" + chunks.size() + ".gz";
+            chunkWriter = new ODatabaseRecordChunks.ChunkWriter(new File(directory, chunk), compressionLevel);
+            chunks.add(chunk);
+          }
+
+          final byte[] embeddedRidBags = buffer.recordType == ODocument.RECORD_TYPE ? embedTreeRidBags(rid, buffer) : null;
+          if (embeddedRidBags != null)
+            chunkWriter.write(position.clusterPosition, buffer.version, buffer.recordType, embeddedRidBags, true);
+          else
+            chunkWriter.write(position.clusterPosition, buffer.version, buffer.recordType, buffer.buffer, false);
+          records++;
+          exported.incrementAndGet();
+
+          if (++chunkRecords >= chunkSize) {
+            chunkWriter.close();
+            chunkWriter = null;
+            chunkRecords = 0;
+          }
+        }
+
+        positions = storage.higherPhysicalPositions(clusterId, positions[positions.length - 1]);
+      }
+    } finally {
+      if (chunkWriter != null)
+        chunkWriter.close();
+    }
+
+    cluster.field("records", records);
+    cluster.field("chunks", chunks, OType.EMBEDDEDLIST);
+  }
+
+  /**
+   * Tree-based ridbags keep their links in the files of the source database, which are not exported, so they are written as
+   * embedded ridbags holding all their links. The import converts them back.
+   *
+   * @return content of the record with embedded ridbags, or <code>null</code> if the record has no tree-based ridbags.
+   */
+  private byte[] embedTreeRidBags(final ORecordId rid, final ORawBuffer buffer) {
+    final ODocument document = new ODocument();
+    ORecordInternal.fill(document, rid, buffer.version, buffer.buffer, false);
+
+    boolean embedded = false;
+    for (String fieldName : document.fieldNames()) {
+      final Object value = document.rawField(fieldName);
+      if (value instanceof ORidBag && !((ORidBag) value).isEmbedded()) {
+        // THE BAG IS NEVER CONVERTED TO TREE-BASED ONE BEFORE IT IS IMPORTED
+        final ORidBag bag = new ORidBag(Integer.MAX_VALUE, -1);
+        for (Iterator<OIdentifiable> it = ((ORidBag) value).rawIterator(); it.hasNext(); )
+          bag.add(it.next());
+
+        document.field(fieldName, bag, OType.LINKBAG);
+        embedded = true;
+      }
+    }
+
+    return embedded ? document.toStream() : null;
+  }
+
+  private boolean isClusterIncluded(final String clusterName) {
+    if (includeClusters != null)
+      return includeClusters.contains(clusterName.toUpperCase(Locale.ENGLISH));
+
+    return excludeClusters == null || !excludeClusters.contains(clusterName.toUpperCase(Locale.ENGLISH));
+  }
+
+  private boolean isRecordIncluded(final ORecordId rid, final ORawBuffer buffer) {
+    if (includeClasses == null && excludeClasses == null)
+      return true;
+
+    if (buffer.recordType != ODocument.RECORD_TYPE)
+      return includeClasses == null || includeClasses.isEmpty();
+
+    // ONLY THE CLASS NAME IS DESERIALIZED
+    final ODocument document = new ODocument();
+    ORecordInternal.fill(document, rid, buffer.version, buffer.buffer, false);
+    final String className = document.getClassName() != null ? document.getClassName().toUpperCase(Locale.ENGLISH) : null;
+
+    if (includeClasses != null)
+      return includeClasses.contains(className);
+
+    return !excludeClasses.contains(className);
+  }
+
   private boolean exportRecord(long recordTot, long recordNum, ORecord rec, Set<ORID> brokenRids) throws IOException {
     if (rec != null)
       try {
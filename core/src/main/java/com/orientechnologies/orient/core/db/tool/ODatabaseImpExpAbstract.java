@@ -49,6 +49,7 @@ public abstract class ODatabaseImpExpAbstract extends ODatabaseTool {
   protected boolean                   includeManualIndexes      = true;
   protected boolean                   useLineFeedForRecords     = false;
   protected boolean                   preserveRids              = false;
+  protected int                       threads                   = Runtime.getRuntime().availableProcessors();
   protected OCommandOutputListener    listener;
 
   public ODatabaseImpExpAbstract(final ODatabaseDocumentInternal iDatabase, final String iFileName,
@@ -194,6 +195,17 @@ public abstract class ODatabaseImpExpAbstract extends ODatabaseTool {
     this.preserveRids = preserveRids;
   }
 
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Sets the amount of threads used to process clusters of binary records in parallel.
+   */
+  public void setThreads(final int threads) {
+    this.threads = threads;
+  }
+
   protected void parseSetting(final String option, final List<String> items) {
     if (option.equalsIgnoreCase("-excludeAll")) {
       includeInfo = false;
@@ -253,6 +265,9 @@ public abstract class ODatabaseImpExpAbstract extends ODatabaseTool {
     } else if (option.equalsIgnoreCase("-useLineFeedForRecords")) {
       useLineFeedForRecords = Boolean.parseBoolean(items.get(0));
 
+    } else if (option.equalsIgnoreCase("-threads")) {
+      threads = Integer.parseInt(items.get(0));
+
     }
   }
 }
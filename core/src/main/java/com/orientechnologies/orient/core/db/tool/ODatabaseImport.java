@@ -64,6 +64,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.text.ParseException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -92,6 +94,7 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
   private boolean migrateLinks       = true;
   private boolean merge              = false;
   private boolean rebuildIndexes     = true;
+  private boolean binaryRecordsImported;
 
   private Set<String>         indexesToRebuild    = new HashSet<String>();
   private Map<String, String> convertedClassNames = new HashMap<String, String>();
@@ -179,6 +182,8 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
           importSchema(clustersImported);
         else if (tag.equals("records"))
           importRecords();
+        else if (tag.equals("binaryRecords"))
+          importBinaryRecords();
         else if (tag.equals("indexes"))
           importIndexes();
         else if (tag.equals("manualIndexes"))
@@ -187,7 +192,8 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
           throw new ODatabaseImportException("Invalid format. Found unsupported tag '" + tag + "'");
       }
 
-      if (rebuildIndexes)
+      // BINARY RECORDS ARE WRITTEN WITHOUT INDEX MAINTENANCE
+      if (rebuildIndexes || binaryRecordsImported)
         rebuildIndexes();
 
       // This is needed to insure functions loaded into an open
@@ -541,9 +547,17 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
         String id = jsonReader.readString(OJSONReader.NEXT_IN_OBJECT);
         jsonReader.readNext(OJSONReader.FIELD_ASSIGNMENT).checkContent("\"type\"");
         String type = jsonReader.readString(OJSONReader.NEXT_IN_OBJECT);
-        // getDatabase().getMetadata().getSchema().createGlobalProperty(name, OType.valueOf(type), Integer.valueOf(id));
+        // BINARY RECORDS REFER TO THE PROPERTIES BY THEIR GLOBAL IDS
+        try {
+          database.getMetadata().getSchema().createGlobalProperty(name, OType.valueOf(type), Integer.valueOf(id));
+        } catch (OSchemaException e) {
+          throw OException.wrapException(new ODatabaseImportException(
+              "Global property '" + name + "' with id " + id + " conflicts with the properties of the database, "
+                  + "binary records can be imported only into a database without custom schema"), e);
+        }
         jsonReader.readNext(OJSONReader.NEXT_IN_ARRAY);
       } while (jsonReader.lastChar() == ',');
+      database.getMetadata().getSchema().save();
       jsonReader.readNext(OJSONReader.COMMA_SEPARATOR);
       jsonReader.readNext(OJSONReader.FIELD_ASSIGNMENT);
     }
@@ -1009,9 +1023,7 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
     return total;
   }
 
-  private long importRecords() throws Exception {
-    long total = 0;
-
+  private void createExportImportRIDsMap() {
     database.getMetadata().getIndexManager().dropIndex(EXPORT_IMPORT_MAP_NAME);
     OIndexFactory factory = OIndexes
         .getFactory(OClass.INDEX_TYPE.DICTIONARY_HASH_INDEX.toString(), OHashIndexFactory.HASH_INDEX_ALGORITHM);
@@ -1019,6 +1031,12 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
     exportImportHashTable = (OIndex<OIdentifiable>) database.getMetadata().getIndexManager()
         .createIndex(EXPORT_IMPORT_MAP_NAME, OClass.INDEX_TYPE.DICTIONARY_HASH_INDEX.toString(),
             new OSimpleKeyIndexDefinition(factory.getLastVersion(), OType.LINK), null, null, null);
+  }
+
+  private long importRecords() throws Exception {
+    long total = 0;
+
+    createExportImportRIDsMap();
 
     jsonReader.readNext(OJSONReader.BEGIN_COLLECTION);
 
@@ -1097,6 +1115,144 @@ public class ODatabaseImport extends ODatabaseImpExpAbstract {
     return total;
   }
 
+  /**
+   * Imports records exported by {@link ODatabaseExport#exportBinaryRecords()}. The content of records is passed to the storage as
+   * is, chunks of different clusters are imported in parallel. Indexes are not maintained during the import, they are rebuilt once
+   * the import is completed.
+   */
+  private long importBinaryRecords() throws Exception {
+    final ODocument manifest = new ODocument().fromJSON(jsonReader.readString(OJSONReader.END_OBJECT, true));
+    jsonReader.readNext(OJSONReader.NEXT_IN_OBJECT);
+
+    final String format = manifest.field("format");
+    if (!ODatabaseRecordChunks.FORMAT.equals(format))
+      throw new ODatabaseImportException("Unsupported format of records '" + format + "'");
+
+    final String serializer = manifest.field("serializer");
+    if (!database.getSerializer().toString().equals(serializer))
+      throw new ODatabaseImportException(
+          "Records were exported using serializer '" + serializer + "' but database uses '" + database.getSerializer() + "'");
+
+    final File directory = new File(new File(fileName).getAbsoluteFile().getParentFile(), (String) manifest.field("directory"));
+    if (!directory.isDirectory())
+      throw new ODatabaseImportException("Directory '" + directory + "' of exported records is not found");
+
+    createExportImportRIDsMap();
+
+    listener.onMessage("\n\nImporting binary records using " + threads + " threads...");
+
+    final long begin = System.currentTimeMillis();
+    final AtomicLong imported = new AtomicLong();
+    final AtomicLong remapped = new AtomicLong();
+    final Queue<ORID> embeddedRidBags = new ConcurrentLinkedQueue<ORID>();
+    final List<ODatabaseRecordChunks.ClusterTask> tasks = new ArrayList<ODatabaseRecordChunks.ClusterTask>();
+
+    for (ODocument cluster : manifest.<List<ODocument>>field("clusters")) {
+      final String clusterName = cluster.field("name");
+      if (!isBinaryClusterImported(clusterName))
+        continue;
+
+      final int sourceClusterId = cluster.<Integer>field("id");
+      final int clusterId = database.getClusterIdByName(clusterName);
+      if (clusterId == -1) {
+        listener.onMessage("\n- Cluster '" + clusterName + "' is absent in the database, its records are skipped");
+        continue;
+      }
+
+      final List<String> chunks = cluster.field("chunks");
+      tasks.add(new ODatabaseRecordChunks.ClusterTask() {
+        @Override
+        public void execute(ODatabaseDocumentInternal database) throws Exception {
+          importClusterChunks(database, directory, chunks, sourceClusterId, clusterId, imported, remapped, embeddedRidBags);
+        }
+      });
+    }
+
+    ODatabaseRecordChunks.execute(database, tasks, threads, listener, imported);
+    database.getLocalCache().clear();
+    binaryRecordsImported = true;
+
+    final Set<ORID> brokenRids = new HashSet<ORID>();
+    for (String rid : manifest.<List<String>>field("brokenRids"))
+      brokenRids.add(new ORecordId(rid));
+
+    // LINKS ARE CHANGED ONLY IF RECORDS ARE NOT PLACED AT THE SAME POSITIONS OR SOME OF THEM ARE LOST
+    if (migrateLinks && (remapped.get() > 0 || !brokenRids.isEmpty())) {
+      listener.onMessage(brokenRids.size() + " were detected as broken during database export, links on those records will be "
+          + "removed from result database");
+      migrateLinksInImportedDocuments(brokenRids);
+    }
+
+    if (!embeddedRidBags.isEmpty())
+      convertEmbeddedRidBags(embeddedRidBags);
+
+    listener.onMessage(String.format("\n\nDone. Imported %,d records in %,.2f secs, %,d of them were placed at new positions\n",
+        imported.get(), ((float) (System.currentTimeMillis() - begin)) / 1000, remapped.get()));
+
+    return imported.get();
+  }
+
+  private boolean isBinaryClusterImported(final String clusterName) {
+    if (clusterName.equalsIgnoreCase(OMetadataDefault.CLUSTER_INTERNAL_NAME) || clusterName
+        .equalsIgnoreCase(OMetadataDefault.CLUSTER_INDEX_NAME) || clusterName
+        .equalsIgnoreCase(OMetadataDefault.CLUSTER_MANUAL_INDEX_NAME) || clusterName.equalsIgnoreCase("ORIDs"))
+      return false;
+
+    if (includeClusters != null)
+      return includeClusters.contains(clusterName);
+
+    return excludeClusters == null || !excludeClusters.contains(clusterName);
+  }
+
+  private void importClusterChunks(final ODatabaseDocumentInternal db, final File directory, final List<String> chunks,
+      final int sourceClusterId, final int clusterId, final AtomicLong imported, final AtomicLong remapped,
+      final Queue<ORID> embeddedRidBags) throws IOException {
+    final OStorage storage = db.getStorage();
+    final OIndex<?> ridsMap = db.getMetadata().getIndexManager().getIndex(EXPORT_IMPORT_MAP_NAME);
+    final ODatabaseRecordChunks.Entry entry = new ODatabaseRecordChunks.Entry();
+
+    for (String chunk : chunks) {
+      final ODatabaseRecordChunks.ChunkReader reader = new ODatabaseRecordChunks.ChunkReader(new File(directory, chunk));
+      try {
+        while (reader.next(entry)) {
+          // STORAGE INCREMENTS VERSION OF THE CREATED RECORD
+          final OPhysicalPosition position = storage
+              .createRecord(new ORecordId(clusterId), entry.content, entry.version - 1, entry.recordType, 0, null).getResult();
+
+          if (clusterId != sourceClusterId || position.clusterPosition != entry.position) {
+            ridsMap.put(new ORecordId(sourceClusterId, entry.position), new ORecordId(clusterId, position.clusterPosition));
+            remapped.incrementAndGet();
+          }
+
+          if (entry.embeddedRidBags)
+            embeddedRidBags.add(new ORecordId(clusterId, position.clusterPosition));
+
+          imported.incrementAndGet();
+        }
+      } finally {
+        reader.close();
+      }
+    }
+  }
+
+  /**
+   * Tree-based ridbags are exported as embedded ones, saving the records which hold them converts the ridbags over the threshold
+   * back to tree-based ones.
+   */
+  private void convertEmbeddedRidBags(final Collection<ORID> rids) {
+    listener.onMessage(String.format("\n- Converting ridbags of %,d records to tree-based ones...", rids.size()));
+
+    for (ORID rid : rids) {
+      final ORecord record = database.load(rid);
+      if (record instanceof ODocument) {
+        record.setDirty();
+        record.save();
+      }
+    }
+
+    listener.onMessage("OK");
+  }
+
   private ORID importRecord() throws Exception {
     String value = jsonReader.readString(OJSONReader.END_OBJECT, true);
 
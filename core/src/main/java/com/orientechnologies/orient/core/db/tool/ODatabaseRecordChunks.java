@@ -0,0 +1,200 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.db.tool;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.orient.core.command.OCommandOutputListener;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseWorkers;
+import com.orientechnologies.orient.core.exception.ODatabaseException;
+
+import java.io.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary form of the records section of a database export. Records are stored as they are kept by the storage, every cluster is
+ * split in chunks of files compressed independently of each other, so clusters can be exported and imported in parallel.
+ * <p>
+ * Every chunk is a GZIP stream of entries made of cluster position, record version, record type, content length, content and a
+ * flag which tells that tree-based ridbags of the record were written as embedded ones, terminated by a negative position.
+ */
+final class ODatabaseRecordChunks {
+  static final String FORMAT             = "binary";
+  static final int    DEFAULT_CHUNK_SIZE = 100000;
+
+  private static final long END_OF_CHUNK      = -1;
+  private static final int  BUFFER_SIZE       = 16384;
+  private static final long PROGRESS_INTERVAL = 1000;
+
+  private ODatabaseRecordChunks() {
+  }
+
+  /**
+   * Task executed for a single cluster on a database instance bound to the worker thread.
+   */
+  interface ClusterTask {
+    void execute(ODatabaseDocumentInternal database) throws Exception;
+  }
+
+  /**
+   * Record read from a chunk.
+   */
+  static final class Entry {
+    long    position;
+    int     version;
+    byte    recordType;
+    byte[]  content;
+    boolean embeddedRidBags;
+  }
+
+  static final class ChunkWriter implements Closeable {
+    private final DataOutputStream out;
+
+    ChunkWriter(final File file, final int compressionLevel) throws IOException {
+      out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE) {
+        {
+          def.setLevel(compressionLevel);
+        }
+      });
+    }
+
+    void write(final long position, final int version, final byte recordType, final byte[] content,
+        final boolean embeddedRidBags) throws IOException {
+      out.writeLong(position);
+      out.writeInt(version);
+      out.writeByte(recordType);
+      out.writeInt(content.length);
+      out.write(content);
+      out.writeBoolean(embeddedRidBags);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        out.writeLong(END_OF_CHUNK);
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  static final class ChunkReader implements Closeable {
+    private final File            file;
+    private final DataInputStream in;
+
+    ChunkReader(final File file) throws IOException {
+      this.file = file;
+      in = new DataInputStream(new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE));
+    }
+
+    /**
+     * Reads next record of the chunk into the passed in entry.
+     *
+     * @return <code>false</code> if end of the chunk is reached.
+     */
+    boolean next(final Entry entry) throws IOException {
+      final long position;
+      try {
+        position = in.readLong();
+      } catch (EOFException e) {
+        throw new IOException("Chunk '" + file + "' is truncated", e);
+      }
+
+      if (position < 0)
+        return false;
+
+      entry.position = position;
+      entry.version = in.readInt();
+      entry.recordType = in.readByte();
+      entry.content = new byte[in.readInt()];
+      in.readFully(entry.content);
+      entry.embeddedRidBags = in.readBoolean();
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * Executes the tasks using up to the passed in amount of threads, every thread works on its own copy of the database. The first
+   * failure stops the tasks which are not started yet and is rethrown once all the running tasks are completed.
+   *
+   * @param processed counter of the processed records, it is reported to the listener while the tasks are executed.
+   */
+  static void execute(final ODatabaseDocumentInternal database, final List<ClusterTask> tasks, final int threads,
+      final OCommandOutputListener listener, final AtomicLong processed) throws Exception {
+    if (tasks.isEmpty())
+      return;
+
+    final ODatabaseWorkers workers = new ODatabaseWorkers(database);
+    final AtomicInteger nextTask = new AtomicInteger();
+    final int workersCount = Math.min(Math.max(threads, 1), tasks.size());
+
+    try {
+      for (int i = 0; i < workersCount; i++)
+        workers.start(new ODatabaseWorkers.Task() {
+          @Override
+          public void execute(final ODatabaseDocumentInternal localDatabase) throws Exception {
+            int taskIndex;
+            while (!workers.isStopped() && (taskIndex = nextTask.getAndIncrement()) < tasks.size())
+              tasks.get(taskIndex).execute(localDatabase);
+          }
+        });
+
+      workers.await(PROGRESS_INTERVAL, new Runnable() {
+        private long last = System.currentTimeMillis();
+        private long lastProcessed;
+
+        @Override
+        public void run() {
+          final long now = System.currentTimeMillis();
+          if (now - last >= ODatabaseImport.IMPORT_RECORD_DUMP_LAP_EVERY_MS) {
+            final long current = processed.get();
+            listener.onMessage(String.format("\n- Processed %,d records so far (%,.2f/sec)", current,
+                (float) (current - lastProcessed) * 1000 / (float) (now - last)));
+            last = now;
+            lastProcessed = current;
+          }
+        }
+      });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw e;
+    } finally {
+      // STOPS THE TASKS WHICH ARE NOT STARTED YET AND WAITS FOR THE RUNNING ONES
+      workers.stopAndWait();
+    }
+
+    final Throwable error = workers.getError();
+    if (error instanceof Exception)
+      throw (Exception) error;
+    if (error instanceof Error)
+      throw (Error) error;
+    if (error != null)
+      throw OException.wrapException(new ODatabaseException("Error on processing of clusters"), error);
+  }
+}
@@ -30,6 +30,8 @@ import com.orientechnologies.orient.core.engine.OEngineAbstract;
 import com.orientechnologies.orient.core.engine.OMemoryAndLocalPaginatedEnginesInitializer;
 import com.orientechnologies.orient.core.exception.ODatabaseException;
 import com.orientechnologies.orient.core.storage.OStorage;
+import com.orientechnologies.orient.core.storage.cache.OReadCache;
+import com.orientechnologies.orient.core.storage.cache.local.clock.OClockCache;
 import com.orientechnologies.orient.core.storage.cache.local.twoq.O2QCache;
 import com.orientechnologies.orient.core.storage.fs.OFileClassic;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
@@ -43,7 +45,7 @@ import java.util.Map;
 public class OEngineLocalPaginated extends OEngineAbstract {
   public static final String NAME = "plocal";
 
-  private volatile O2QCache readCache;
+  private volatile OReadCache readCache;
 
   protected final OClosableLinkedContainer<Long, OFileClassic> files = new OClosableLinkedContainer<Long, OFileClassic>(
       OGlobalConfiguration.OPEN_FILES_LIMIT.getValueAsInteger());
@@ -56,9 +58,15 @@ public class OEngineLocalPaginated extends OEngineAbstract {
     OMemoryAndLocalPaginatedEnginesInitializer.INSTANCE.initialize();
     super.startup();
 
-    readCache = new O2QCache(calculateReadCacheMaxMemory(OGlobalConfiguration.DISK_CACHE_SIZE.getValueAsLong() * 1024 * 1024),
-        OGlobalConfiguration.DISK_CACHE_PAGE_SIZE.getValueAsInteger() * 1024, true,
-        OGlobalConfiguration.DISK_CACHE_PINNED_PAGES.getValueAsInteger());
+    final long readCacheMaxMemory = calculateReadCacheMaxMemory(
+        OGlobalConfiguration.DISK_CACHE_SIZE.getValueAsLong() * 1024 * 1024);
+    final int pageSize = OGlobalConfiguration.DISK_CACHE_PAGE_SIZE.getValueAsInteger() * 1024;
+    final int percentOfPinnedPages = OGlobalConfiguration.DISK_CACHE_PINNED_PAGES.getValueAsInteger();
+
+    if (OClockCache.NAME.equalsIgnoreCase(OGlobalConfiguration.DISK_CACHE_READ_CACHE.getValueAsString()))
+      readCache = new OClockCache(readCacheMaxMemory, pageSize, true, percentOfPinnedPages);
+    else
+      readCache = new O2QCache(readCacheMaxMemory, pageSize, true, percentOfPinnedPages);
 
     try {
       if (OByteBufferPool.instance() != null)
@@ -74,7 +82,7 @@ public class OEngineLocalPaginated extends OEngineAbstract {
 
   /**
    * @param cacheSize Cache size in bytes.
-   * @see O2QCache#changeMaximumAmountOfMemory(long)
+   * @see OReadCache#changeMaximumAmountOfMemory(long)
    */
   public void changeCacheSize(final long cacheSize) {
     if (readCache != null)
@@ -100,7 +108,7 @@ public class OEngineLocalPaginated extends OEngineAbstract {
     return NAME;
   }
 
-  public O2QCache getReadCache() {
+  public OReadCache getReadCache() {
     return readCache;
   }
 
@@ -16,6 +16,7 @@
 package com.orientechnologies.orient.core.index;
 
 import com.orientechnologies.orient.core.exception.OConfigurationException;
+import com.orientechnologies.orient.core.storage.index.engine.OPartitionedSBTreeIndexEngine;
 import com.orientechnologies.orient.core.storage.index.engine.ORemoteIndexEngine;
 import com.orientechnologies.orient.core.storage.index.engine.OSBTreeIndexEngine;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
@@ -42,6 +43,12 @@ public class ODefaultIndexFactory implements OIndexFactory {
 
   public static final String SBTREE_ALGORITHM = "SBTREE";
 
+  /**
+   * SB-tree index split into several trees partitioned by hash of the key, which allows concurrent commits of transactions which
+   * change different keys of the same index. Amount of partitions is set by "partitions" field of index metadata.
+   */
+  public static final String PARTITIONED_SBTREE_ALGORITHM = "PARTITIONED_SBTREE";
+
   public static final String SBTREEBONSAI_VALUE_CONTAINER = "SBTREEBONSAISET";
   public static final String NONE_VALUE_CONTAINER         = "NONE";
 
@@ -60,6 +67,7 @@ public class ODefaultIndexFactory implements OIndexFactory {
   static {
     final Set<String> algorithms = new HashSet<String>();
     algorithms.add(SBTREE_ALGORITHM);
+    algorithms.add(PARTITIONED_SBTREE_ALGORITHM);
     ALGORITHMS = Collections.unmodifiableSet(algorithms);
   }
 
@@ -100,24 +108,24 @@ public class ODefaultIndexFactory implements OIndexFactory {
     if (version < 0)
       version = getLastVersion();
 
-    if (SBTREE_ALGORITHM.equals(algorithm))
-      return createSBTreeIndex(name, indexType, valueContainerAlgorithm, metadata,
+    if (SBTREE_ALGORITHM.equals(algorithm) || PARTITIONED_SBTREE_ALGORITHM.equals(algorithm))
+      return createSBTreeIndex(name, indexType, algorithm, valueContainerAlgorithm, metadata,
           (OAbstractPaginatedStorage) storage.getUnderlying(), version);
 
     throw new OConfigurationException("Unsupported type: " + indexType);
   }
 
-  private OIndexInternal<?> createSBTreeIndex(String name, String indexType, String valueContainerAlgorithm, ODocument metadata,
-      OAbstractPaginatedStorage storage, int version) {
+  private OIndexInternal<?> createSBTreeIndex(String name, String indexType, String algorithm, String valueContainerAlgorithm,
+      ODocument metadata, OAbstractPaginatedStorage storage, int version) {
 
     if (OClass.INDEX_TYPE.UNIQUE.toString().equals(indexType)) {
-      return new OIndexUnique(name, indexType, SBTREE_ALGORITHM, version, storage, valueContainerAlgorithm, metadata);
+      return new OIndexUnique(name, indexType, algorithm, version, storage, valueContainerAlgorithm, metadata);
     } else if (OClass.INDEX_TYPE.NOTUNIQUE.toString().equals(indexType)) {
-      return new OIndexNotUnique(name, indexType, SBTREE_ALGORITHM, version, storage, valueContainerAlgorithm, metadata);
+      return new OIndexNotUnique(name, indexType, algorithm, version, storage, valueContainerAlgorithm, metadata);
     } else if (OClass.INDEX_TYPE.FULLTEXT.toString().equals(indexType)) {
-      return new OIndexFullText(name, indexType, SBTREE_ALGORITHM, version, storage, valueContainerAlgorithm, metadata);
+      return new OIndexFullText(name, indexType, algorithm, version, storage, valueContainerAlgorithm, metadata);
     } else if (OClass.INDEX_TYPE.DICTIONARY.toString().equals(indexType)) {
-      return new OIndexDictionary(name, indexType, SBTREE_ALGORITHM, version, storage, valueContainerAlgorithm, metadata);
+      return new OIndexDictionary(name, indexType, algorithm, version, storage, valueContainerAlgorithm, metadata);
     }
 
     throw new OConfigurationException("Unsupported type: " + indexType);
@@ -136,10 +144,12 @@ public class ODefaultIndexFactory implements OIndexFactory {
 
     final String storageType = storage.getType();
     if (storageType.equals("memory") || storageType.equals("plocal"))
-      indexEngine = new OSBTreeIndexEngine(name, durableInNonTxMode, (OAbstractPaginatedStorage) storage, version);
+      indexEngine = createSBTreeIndexEngine(algorithm, name, durableInNonTxMode, (OAbstractPaginatedStorage) storage, version,
+          engineProperties);
     else if (storageType.equals("distributed"))
       // DISTRIBUTED CASE: HANDLE IT AS FOR LOCAL
-      indexEngine = new OSBTreeIndexEngine(name, durableInNonTxMode, (OAbstractPaginatedStorage) storage.getUnderlying(), version);
+      indexEngine = createSBTreeIndexEngine(algorithm, name, durableInNonTxMode,
+          (OAbstractPaginatedStorage) storage.getUnderlying(), version, engineProperties);
     else if (storageType.equals("remote"))
       indexEngine = new ORemoteIndexEngine(name);
     else
@@ -147,4 +157,12 @@ public class ODefaultIndexFactory implements OIndexFactory {
 
     return indexEngine;
   }
+
+  private static OIndexEngine createSBTreeIndexEngine(String algorithm, String name, Boolean durableInNonTxMode,
+      OAbstractPaginatedStorage storage, int version, Map<String, String> engineProperties) {
+    if (PARTITIONED_SBTREE_ALGORITHM.equals(algorithm))
+      return new OPartitionedSBTreeIndexEngine(name, durableInNonTxMode, storage, version, engineProperties);
+
+    return new OSBTreeIndexEngine(name, durableInNonTxMode, storage, version);
+  }
 }
@@ -27,6 +27,7 @@ import com.orientechnologies.common.exception.OException;
 import com.orientechnologies.common.listener.OProgressListener;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
@@ -80,6 +81,7 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
   private          String           algorithm;
   private volatile OIndexDefinition indexDefinition;
   private volatile boolean             rebuilding       = false;
+  private volatile OIndexBulkBuilder   bulkBuilder;
   private          Map<String, String> engineProperties = new HashMap<String, String>();
 
   public OIndexAbstract(String name, final String type, final String algorithm, final String valueContainerAlgorithm,
@@ -443,7 +445,12 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
               version, getEngineProperties(), clustersToIndex, metadata);
 
       onIndexEngineChange(indexId);
+
+      // WRITES ARE BLOCKED HERE, SO ALL THE CHANGES OF THE NEW INDEX ENGINE ARE TRACKED BY THE BULK BUILD
+      bulkBuilder = createBulkBuilder(iProgressListener);
     } catch (Exception e) {
+      bulkBuilder = null;
+
       try {
         if (indexId >= 0)
           storage.clearIndex(indexId);
@@ -496,11 +503,21 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
       if (iProgressListener != null)
         iProgressListener.onBegin(this, documentTotal, rebuild);
 
-      // INDEX ALL CLUSTERS
-      for (final String clusterName : clustersToIndex) {
-        final long[] metrics = indexCluster(clusterName, iProgressListener, documentNum, documentIndexed, documentTotal);
-        documentNum = metrics[0];
-        documentIndexed = metrics[1];
+      OIndexBulkBuilder builder = bulkBuilder;
+      if (builder == null) {
+        builder = createBulkBuilder(iProgressListener);
+        bulkBuilder = builder;
+      }
+
+      if (builder != null)
+        documentIndexed = builder.build(getDatabase(), clustersToIndex, documentTotal)[1];
+      else {
+        // INDEX ALL CLUSTERS
+        for (final String clusterName : clustersToIndex) {
+          final long[] metrics = indexCluster(clusterName, iProgressListener, documentNum, documentIndexed, documentTotal);
+          documentNum = metrics[0];
+          documentIndexed = metrics[1];
+        }
       }
 
       if (iProgressListener != null)
@@ -509,12 +526,21 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
       if (iProgressListener != null)
         iProgressListener.onCompletition(this, false);
       throw e;
+    } finally {
+      // BUILDER INSTALLED BY THE REBUILD IS REMOVED EVEN IF THE BUILD DID NOT START, OTHERWISE IT TRACKS CHANGES FOREVER
+      bulkBuilder = null;
     }
     return documentIndexed;
   }
 
   public boolean remove(Object key, final OIdentifiable value) {
-    return remove(key);
+    acquireSharedLock();
+    try {
+      onConcurrentChange(getCollatingValue(key), value);
+      return remove(key);
+    } finally {
+      releaseSharedLock();
+    }
   }
 
   public boolean remove(Object key) {
@@ -522,6 +548,7 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
 
     acquireSharedLock();
     try {
+      onConcurrentChange(key, null);
       while (true)
         try {
           return storage.removeKeyFromIndex(indexId, key);
@@ -832,6 +859,55 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
 
   protected abstract OBinarySerializer determineValueSerializer();
 
+  /**
+   * Puts the batch of sorted key/record pairs into the index engine, called by {@link OIndexBulkBuilder} only for indexes which
+   * implement {@link OIndexBulkBuildable}.
+   */
+  void putBulk(final List<OIndexBulkBuilder.Entry> entries) {
+    final OIndexBulkBuildable bulkBuildable = (OIndexBulkBuildable) this;
+    while (true)
+      try {
+        storage.callIndexEngine(true, false, indexId, new OIndexEngineCallback<Object>() {
+          @Override
+          public Object callEngine(OIndexEngine engine) {
+            bulkBuildable.putBulk(engine, entries);
+            return null;
+          }
+        });
+        break;
+      } catch (OInvalidIndexEngineIdException ignore) {
+        doReloadIndexEngine();
+      }
+  }
+
+  /**
+   * Should be called by the operations which change the index under the shared lock, so the bulk build which is in progress
+   * knows which of the pairs it extracted could be stale.
+   *
+   * @param key   collated key which is changed.
+   * @param value changed value, <code>null</code> if all values of the key are changed.
+   */
+  protected void onConcurrentChange(final Object key, final OIdentifiable value) {
+    final OIndexBulkBuilder builder = bulkBuilder;
+    if (builder != null)
+      builder.onConcurrentChange(key, value);
+  }
+
+  /**
+   * @return builder which fills the index in bulk, or <code>null</code> if the index has to be filled record by record.
+   */
+  private OIndexBulkBuilder createBulkBuilder(final OProgressListener progressListener) {
+    final ODatabaseDocumentInternal database = getDatabase();
+
+    // NESTED INTO ATOMIC OPERATION BATCHES CAN NOT BE ROLLED BACK SEPARATELY
+    if (!(this instanceof OIndexBulkBuildable) || indexDefinition == null || database == null || !database.getConfiguration()
+        .getValueAsBoolean(OGlobalConfiguration.INDEX_BULK_BUILD) || database.getTransaction().isActive()
+        || storage.getAtomicOperationsManager().getCurrentOperation() != null)
+      return null;
+
+    return new OIndexBulkBuilder(this, indexDefinition, progressListener, database.getConfiguration());
+  }
+
   protected void populateIndex(ODocument doc, Object fieldValue) {
     if (fieldValue instanceof Collection) {
       for (final Object fieldValueItem : (Collection<?>) fieldValue) {
@@ -0,0 +1,34 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.index;
+
+import java.util.List;
+
+/**
+ * Index which can be filled by {@link OIndexBulkBuilder}: the builder extracts the keys of the records by the index definition,
+ * sorts them and puts them into the index engine in batches.
+ */
+interface OIndexBulkBuildable {
+  /**
+   * Puts sorted key/record pairs into the index engine, pairs with the same key follow each other. Called inside of the atomic
+   * operation which covers the whole batch of pairs.
+   */
+  void putBulk(OIndexEngine engine, List<OIndexBulkBuilder.Entry> entries);
+}
@@ -0,0 +1,664 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.listener.OProgressListener;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseWorkers;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.exception.OTooBigIndexKeyException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.iterator.ORecordIteratorCluster;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OCompositeKeySerializer;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills an index with the keys of the records of its clusters in bulk.
+ * <p>
+ * Clusters are split in ranges of positions which are scanned in parallel by
+ * {@link OGlobalConfiguration#INDEX_BULK_BUILD_THREADS} threads, each of them extracts the key/record pairs of its records and
+ * keeps them in a buffer of {@link OGlobalConfiguration#INDEX_BULK_BUILD_SORT_BUFFER_SIZE} pairs, which is sorted and moved to a
+ * temporary file once it is full. Sorted runs are merged and the pairs are inserted in key order by batches of
+ * {@link OGlobalConfiguration#INDEX_BULK_BUILD_BATCH_SIZE} keys, each batch is a single atomic operation, so the index pages
+ * changed by the batch are written to the WAL once. If a batch fails it is rolled back and its pairs are inserted one by one,
+ * exactly as a not bulk build does, so errors are reported in the same way.
+ * <p>
+ * Writes to the index are allowed during the build. Pairs of records and keys which are changed concurrently are not inserted
+ * blindly, they are reconciled with the current content of the record once all batches are inserted.
+ */
+final class OIndexBulkBuilder {
+  private static final int  RANGES_PER_THREAD  = 4;
+  private static final int  BUFFER_SIZE        = 64 * 1024;
+  private static final int  RECONCILE_ATTEMPTS = 10;
+  private static final long PROGRESS_INTERVAL  = 1000;
+  private static final byte SINGLE_KEY         = 0;
+  private static final byte COMPOSITE_KEY      = 1;
+
+  private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry first, Entry second) {
+      final int result = compareKeys(first.key, second.key);
+      if (result != 0)
+        return result;
+
+      return first.rid.compareTo(second.rid);
+    }
+  };
+
+  private final OIndexAbstract<?> index;
+  private final OIndexDefinition  definition;
+  private final OProgressListener progressListener;
+  private final Thread            builderThread = Thread.currentThread();
+  private final int               threads;
+  private final int               sortBufferSize;
+  private final int               batchSize;
+  private final String            directory;
+
+  private final AtomicLong                  changes        = new AtomicLong();
+  private final ConcurrentMap<ORID, Long>   changedRecords = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Object, Long> changedKeys    = new ConcurrentHashMap<>();
+
+  private final AtomicLong documentNum     = new AtomicLong();
+  private final AtomicLong documentIndexed = new AtomicLong();
+
+  OIndexBulkBuilder(final OIndexAbstract<?> index, final OIndexDefinition definition, final OProgressListener progressListener,
+      final OContextConfiguration configuration) {
+    this.index = index;
+    this.definition = definition;
+    this.progressListener = progressListener;
+
+    final int threads = configuration.getValueAsInteger(OGlobalConfiguration.INDEX_BULK_BUILD_THREADS);
+    this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.sortBufferSize = Math.max(1, configuration.getValueAsInteger(OGlobalConfiguration.INDEX_BULK_BUILD_SORT_BUFFER_SIZE));
+    this.batchSize = Math.max(1, configuration.getValueAsInteger(OGlobalConfiguration.INDEX_BULK_BUILD_BATCH_SIZE));
+    this.directory = configuration.getValueAsString(OGlobalConfiguration.INDEX_BULK_BUILD_DIRECTORY);
+  }
+
+  /**
+   * Indexes records of the given clusters.
+   *
+   * @return amount of browsed and indexed records.
+   */
+  long[] build(final ODatabaseDocumentInternal db, final Collection<String> clusterNames, final long documentTotal) {
+    final List<Range> ranges = splitClusters(db, clusterNames);
+    final List<Worker> workers = new ArrayList<>();
+
+    try {
+      scan(db, ranges, workers, documentTotal);
+
+      final List<Run> runs = new ArrayList<>();
+      for (Worker worker : workers)
+        runs.addAll(worker.runs);
+
+      final List<Entry> pending = new ArrayList<>();
+      insert(db, runs, pending);
+      reconcile(db, pending);
+    } finally {
+      for (Worker worker : workers)
+        worker.deleteRuns();
+    }
+
+    return new long[] { documentNum.get(), documentIndexed.get() };
+  }
+
+  /**
+   * Records concurrent change of the index, so pairs of the same record or key extracted by the scan are reconciled with the
+   * current state of the record instead of blind insertion.
+   */
+  void onConcurrentChange(final Object key, final OIdentifiable value) {
+    if (Thread.currentThread() == builderThread)
+      return;
+
+    final long change = changes.incrementAndGet();
+    if (value != null) {
+      final ORID rid = value.getIdentity();
+      if (rid.isPersistent())
+        changedRecords.put(rid.copy(), change);
+    } else
+      changedKeys.put(key == null ? NullKey.INSTANCE : key, change);
+  }
+
+  private long lastChange(final Entry entry) {
+    long change = 0;
+
+    final Long recordChange = changedRecords.get(entry.rid);
+    if (recordChange != null)
+      change = recordChange;
+
+    final Long keyChange = changedKeys.get(entry.key == null ? NullKey.INSTANCE : entry.key);
+    if (keyChange != null && keyChange > change)
+      change = keyChange;
+
+    return change;
+  }
+
+  private List<Range> splitClusters(final ODatabaseDocumentInternal db, final Collection<String> clusterNames) {
+    final List<Range> ranges = new ArrayList<>();
+
+    for (String clusterName : clusterNames) {
+      final int clusterId = db.getClusterIdByName(clusterName);
+      if (clusterId < 0)
+        continue;
+
+      final long[] dataRange = db.getStorage().getClusterDataRange(clusterId);
+      if (dataRange[0] < 0 || dataRange[1] < dataRange[0])
+        continue;
+
+      final long size = dataRange[1] - dataRange[0] + 1;
+      final long step = Math.max(1, (size + threads * RANGES_PER_THREAD - 1) / (threads * RANGES_PER_THREAD));
+      for (long from = dataRange[0]; from <= dataRange[1]; from += step)
+        ranges.add(new Range(clusterId, from, Math.min(dataRange[1], from + step - 1)));
+    }
+
+    return ranges;
+  }
+
+  private void scan(final ODatabaseDocumentInternal db, final List<Range> ranges, final List<Worker> workers,
+      final long documentTotal) {
+    if (ranges.isEmpty())
+      return;
+
+    final ODatabaseWorkers databaseWorkers = new ODatabaseWorkers(db);
+    final AtomicInteger nextRange = new AtomicInteger();
+    final int workersCount = Math.min(threads, ranges.size());
+
+    try {
+      for (int i = 0; i < workersCount; i++) {
+        final Worker worker = new Worker(databaseWorkers, ranges, nextRange);
+        workers.add(worker);
+        databaseWorkers.start(worker);
+      }
+
+      databaseWorkers.await(PROGRESS_INTERVAL, new Runnable() {
+        private long lastProgress;
+
+        @Override
+        public void run() {
+          if (Thread.interrupted())
+            throw new OCommandExecutionException("The index rebuild has been interrupted");
+
+          final long num = documentNum.get();
+          if (progressListener != null && num != lastProgress) {
+            progressListener.onProgress(index, num, (float) (num * 100.0 / documentTotal));
+            lastProgress = num;
+          }
+        }
+      });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw OException.wrapException(new OCommandExecutionException("The index rebuild has been interrupted"), e);
+    } finally {
+      databaseWorkers.stopAndWait();
+    }
+
+    final Throwable error = databaseWorkers.getError();
+    if (error instanceof RuntimeException)
+      throw (RuntimeException) error;
+    if (error instanceof Error)
+      throw (Error) error;
+    if (error != null)
+      throw OException.wrapException(new OIndexException("Error on scanning of clusters of index " + index.getName()), error);
+
+    if (progressListener != null)
+      progressListener.onProgress(index, documentNum.get(), (float) (documentNum.get() * 100.0 / documentTotal));
+  }
+
+  /**
+   * Merges sorted runs and inserts pairs by batches, pairs which are changed concurrently are added to the pending list.
+   */
+  private void insert(final ODatabaseDocumentInternal db, final List<Run> runs, final List<Entry> pending) {
+    final PriorityQueue<Run> queue = new PriorityQueue<>(Math.max(1, runs.size()), new Comparator<Run>() {
+      @Override
+      public int compare(Run first, Run second) {
+        return ENTRY_COMPARATOR.compare(first.current, second.current);
+      }
+    });
+
+    try {
+      for (Run run : runs) {
+        if (run.next())
+          queue.add(run);
+        else
+          run.close();
+      }
+
+      final List<Entry> batch = new ArrayList<>(batchSize);
+      int keys = 0;
+      Object lastKey = null;
+
+      while (!queue.isEmpty()) {
+        final Run run = queue.poll();
+        final Entry entry = run.current;
+
+        if (run.next())
+          queue.add(run);
+        else
+          run.close();
+
+        if (lastChange(entry) > 0) {
+          pending.add(entry);
+          continue;
+        }
+
+        if (batch.isEmpty() || compareKeys(lastKey, entry.key) != 0) {
+          if (keys >= batchSize) {
+            insertBatch(batch, pending);
+            batch.clear();
+            keys = 0;
+          }
+
+          keys++;
+          lastKey = entry.key;
+        }
+
+        batch.add(entry);
+      }
+
+      if (!batch.isEmpty())
+        insertBatch(batch, pending);
+    } finally {
+      for (Run run : queue)
+        run.close();
+
+      db.activateOnCurrentThread();
+    }
+  }
+
+  private void insertBatch(final List<Entry> batch, final List<Entry> pending) {
+    if (Thread.interrupted())
+      throw new OCommandExecutionException("The index rebuild has been interrupted");
+
+    final long change = changes.get();
+    try {
+      index.putBulk(batch);
+    } catch (RuntimeException e) {
+      OLogManager.instance()
+          .debug(this, "Bulk insertion into index '%s' failed, keys of the batch are inserted one by one", e, index.getName());
+
+      for (Entry entry : batch)
+        insertSingle(entry);
+    }
+
+    if (changes.get() > change) {
+      for (Entry entry : batch) {
+        if (lastChange(entry) > change)
+          pending.add(entry);
+      }
+    }
+  }
+
+  private void insertSingle(final Entry entry) {
+    try {
+      index.put(entry.key, entry.rid);
+    } catch (OTooBigIndexKeyException e) {
+      OLogManager.instance().error(this,
+          "Exception during index rebuild. Exception was caused by following key/ value pair - key %s, value %s."
+              + " Rebuild will continue from this point", e, entry.key, entry.rid);
+    } catch (OIndexException e) {
+      OLogManager.instance().error(this,
+          "Exception during index rebuild. Exception was caused by following key/ value pair - key %s, value %s."
+              + " Rebuild will continue from this point", e, entry.key, entry.rid);
+    }
+  }
+
+  /**
+   * Brings pairs which were changed concurrently in line with the current content of their records. Pairs are checked again if
+   * they were changed during the check.
+   */
+  private void reconcile(final ODatabaseDocumentInternal db, List<Entry> pending) {
+    for (int attempt = 0; attempt < RECONCILE_ATTEMPTS && !pending.isEmpty(); attempt++) {
+      final long change = changes.get();
+
+      for (Entry entry : pending)
+        reconcile(db, entry);
+
+      final List<Entry> changed = new ArrayList<>();
+      for (Entry entry : pending) {
+        if (lastChange(entry) > change)
+          changed.add(entry);
+      }
+
+      pending = changed;
+    }
+
+    if (!pending.isEmpty())
+      OLogManager.instance()
+          .warn(this, "%d keys of index '%s' were changed during the whole rebuild, their entries may be stale", pending.size(),
+              index.getName());
+  }
+
+  private void reconcile(final ODatabaseDocumentInternal db, final Entry entry) {
+    // LOCAL CACHE OF THE DATABASE MAY CONTAIN THE VERSION OF THE RECORD WHICH WAS CHANGED CONCURRENTLY
+    final ORecord record = db.load(entry.rid, null, true);
+
+    boolean indexed = false;
+    if (record instanceof ODocument) {
+      final Object fieldValue = definition.getDocumentValueToIndex((ODocument) record);
+      if (fieldValue != null || !definition.isNullValuesIgnored()) {
+        if (fieldValue instanceof Collection) {
+          for (Object item : (Collection<?>) fieldValue)
+            indexed |= compareKeys(index.getCollatingValue(item), entry.key) == 0;
+        } else
+          indexed = compareKeys(index.getCollatingValue(fieldValue), entry.key) == 0;
+      }
+    }
+
+    if (indexed)
+      insertSingle(entry);
+    else if (index.isUnique()) {
+      final Object value = index.get(entry.key);
+      if (value instanceof OIdentifiable && ((OIdentifiable) value).getIdentity().equals(entry.rid))
+        index.remove(entry.key);
+    } else
+      index.remove(entry.key, entry.rid);
+  }
+
+  static int compareKeys(final Object first, final Object second) {
+    if (first == null)
+      return second == null ? 0 : -1;
+    if (second == null)
+      return 1;
+
+    return ODefaultComparator.INSTANCE.compare(first, second);
+  }
+
+  /**
+   * Key/record pair extracted from the cluster.
+   */
+  static final class Entry {
+    final Object key;
+    final ORID   rid;
+
+    Entry(final Object key, final ORID rid) {
+      this.key = key;
+      this.rid = rid;
+    }
+  }
+
+  private static final class Range {
+    private final int  clusterId;
+    private final long from;
+    private final long to;
+
+    private Range(final int clusterId, final long from, final long to) {
+      this.clusterId = clusterId;
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+  /**
+   * Placeholder of <code>null</code> key in the maps of concurrent changes.
+   */
+  private static final class NullKey {
+    private static final NullKey INSTANCE = new NullKey();
+  }
+
+  private final class Worker implements ODatabaseWorkers.Task {
+    private final ODatabaseWorkers workers;
+    private final List<Range>      ranges;
+    private final AtomicInteger    nextRange;
+
+    private final List<Run>   runs       = new ArrayList<>();
+    private final List<Entry> buffer     = new ArrayList<>();
+    private final List<Entry> unsortable = new ArrayList<>();
+
+    private Worker(final ODatabaseWorkers workers, final List<Range> ranges, final AtomicInteger nextRange) {
+      this.workers = workers;
+      this.ranges = ranges;
+      this.nextRange = nextRange;
+    }
+
+    @Override
+    public void execute(final ODatabaseDocumentInternal db) throws IOException {
+      int rangeIndex;
+      while (!workers.isStopped() && (rangeIndex = nextRange.getAndIncrement()) < ranges.size()) {
+        final Range range = ranges.get(rangeIndex);
+
+        try {
+          for (ORecord record : new ORecordIteratorCluster<ORecord>(db, db, range.clusterId, range.from, range.to)) {
+            if (workers.isStopped())
+              return;
+
+            if (record instanceof ODocument)
+              extract((ODocument) record);
+
+            documentNum.incrementAndGet();
+          }
+        } catch (NoSuchElementException ignore) {
+          // END OF RANGE REACHED, IGNORE IT
+        }
+      }
+
+      if (!buffer.isEmpty()) {
+        Collections.sort(buffer, ENTRY_COMPARATOR);
+        runs.add(new MemoryRun(buffer));
+      }
+
+      if (!unsortable.isEmpty()) {
+        Collections.sort(unsortable, ENTRY_COMPARATOR);
+        runs.add(new MemoryRun(unsortable));
+      }
+    }
+
+    private void extract(final ODocument document) throws IOException {
+      final Object fieldValue = definition.getDocumentValueToIndex(document);
+      if (fieldValue == null && definition.isNullValuesIgnored())
+        return;
+
+      final ORID rid = document.getIdentity().copy();
+      if (fieldValue instanceof Collection) {
+        for (Object item : (Collection<?>) fieldValue)
+          add(new Entry(index.getCollatingValue(item), rid));
+      } else
+        add(new Entry(index.getCollatingValue(fieldValue), rid));
+
+      documentIndexed.incrementAndGet();
+    }
+
+    private void add(final Entry entry) throws IOException {
+      buffer.add(entry);
+
+      if (buffer.size() >= sortBufferSize) {
+        Collections.sort(buffer, ENTRY_COMPARATOR);
+        runs.add(FileRun.write(buffer, directory, unsortable));
+        buffer.clear();
+      }
+    }
+
+    private void deleteRuns() {
+      for (Run run : runs)
+        run.delete();
+    }
+  }
+
+  /**
+   * Sorted sequence of pairs.
+   */
+  private static abstract class Run {
+    Entry current;
+
+    /**
+     * Moves to the next pair.
+     *
+     * @return <code>false</code> if there are no more pairs.
+     */
+    abstract boolean next();
+
+    void close() {
+    }
+
+    void delete() {
+      close();
+    }
+  }
+
+  private static final class MemoryRun extends Run {
+    private final Iterator<Entry> iterator;
+
+    private MemoryRun(final List<Entry> entries) {
+      this.iterator = entries.iterator();
+    }
+
+    @Override
+    boolean next() {
+      if (!iterator.hasNext())
+        return false;
+
+      current = iterator.next();
+      return true;
+    }
+  }
+
+  /**
+   * Sorted run written to the temporary file. Keys are serialized by {@link OCompositeKeySerializer}, single keys are wrapped into
+   * the composite key. Pairs whose keys can not be serialized are not written to the file, they are kept in memory instead.
+   */
+  private static final class FileRun extends Run {
+    private final File            file;
+    private final long            size;
+    private       DataInputStream in;
+    private       long            read;
+
+    private FileRun(final File file, final long size) {
+      this.file = file;
+      this.size = size;
+    }
+
+    private static FileRun write(final List<Entry> entries, final String directory, final List<Entry> unsortable)
+        throws IOException {
+      final File file = File.createTempFile("orientdb-index-", ".sort", directory == null ? null : new File(directory));
+      long size = 0;
+
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+        for (Entry entry : entries) {
+          final byte[] key = serializeKey(entry.key);
+          if (key == null) {
+            unsortable.add(entry);
+            continue;
+          }
+
+          out.writeInt(key.length);
+          out.write(key);
+          out.writeInt(entry.rid.getClusterId());
+          out.writeLong(entry.rid.getClusterPosition());
+          size++;
+        }
+      } catch (IOException | RuntimeException e) {
+        if (!file.delete())
+          OLogManager.instance().warn(FileRun.class, "Cannot delete temporary file %s", file);
+        throw e;
+      }
+
+      return new FileRun(file, size);
+    }
+
+    private static byte[] serializeKey(final Object key) {
+      try {
+        final OCompositeKey compositeKey;
+        final byte type;
+        if (key instanceof OCompositeKey) {
+          compositeKey = (OCompositeKey) key;
+          type = COMPOSITE_KEY;
+        } else {
+          compositeKey = new OCompositeKey(Collections.singletonList(key));
+          type = SINGLE_KEY;
+        }
+
+        final byte[] stream = new byte[1 + OCompositeKeySerializer.INSTANCE.getObjectSize(compositeKey)];
+        stream[0] = type;
+        OCompositeKeySerializer.INSTANCE.serializeNativeObject(compositeKey, stream, 1);
+
+        // KEYS WHICH DO NOT SURVIVE SERIALIZATION AS THEY ARE CAN NOT BE MERGED IN THE RIGHT ORDER
+        if (compareKeys(deserializeKey(stream), key) != 0)
+          return null;
+
+        return stream;
+      } catch (RuntimeException ignore) {
+        return null;
+      }
+    }
+
+    private static Object deserializeKey(final byte[] stream) {
+      final OCompositeKey compositeKey = OCompositeKeySerializer.INSTANCE.deserializeNativeObject(stream, 1);
+      if (stream[0] == COMPOSITE_KEY)
+        return compositeKey;
+
+      return compositeKey.getKeys().get(0);
+    }
+
+    @Override
+    boolean next() {
+      if (read >= size)
+        return false;
+
+      try {
+        if (in == null)
+          in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+
+        final byte[] key = new byte[in.readInt()];
+        in.readFully(key);
+        current = new Entry(deserializeKey(key), new ORecordId(in.readInt(), in.readLong()));
+        read++;
+
+        return true;
+      } catch (IOException e) {
+        throw OException.wrapException(new OIndexException("Error on reading of sorted keys from " + file), e);
+      }
+    }
+
+    @Override
+    void close() {
+      if (in == null)
+        return;
+
+      try {
+        in.close();
+      } catch (IOException e) {
+        OLogManager.instance().warn(this, "Error on closing of temporary file %s", e, file);
+      }
+      in = null;
+      read = size;
+    }
+
+    @Override
+    void delete() {
+      close();
+
+      if (file.exists() && !file.delete())
+        OLogManager.instance().warn(this, "Cannot delete temporary file %s", file);
+    }
+  }
+}
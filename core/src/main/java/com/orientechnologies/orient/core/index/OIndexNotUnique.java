@@ -1,58 +1,58 @@
-/*
- *
- *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
- *  *
- *  *  Licensed under the Apache License, Version 2.0 (the "License");
- *  *  you may not use this file except in compliance with the License.
- *  *  You may obtain a copy of the License at
- *  *
- *  *       http://www.apache.org/licenses/LICENSE-2.0
- *  *
- *  *  Unless required by applicable law or agreed to in writing, software
- *  *  distributed under the License is distributed on an "AS IS" BASIS,
- *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  *  See the License for the specific language governing permissions and
- *  *  limitations under the License.
- *  *
- *  * For more information: http://orientdb.com
- *
- */
-package com.orientechnologies.orient.core.index;
-
-import com.orientechnologies.orient.core.exception.OInvalidIndexEngineIdException;
-import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
-import com.orientechnologies.orient.core.tx.OTransactionIndexChangesPerKey;
-
-/**
- * Index implementation that allows multiple values for the same key.
- *
- * @author Luca Garulli (l.garulli--(at)--orientdb.com)
- */
-public class OIndexNotUnique extends OIndexMultiValues {
-
-  public OIndexNotUnique(String name, String typeId, String algorithm, int version, OAbstractPaginatedStorage storage,
-      String valueContainerAlgorithm, ODocument metadata) {
-    super(name, typeId, algorithm, version, storage, valueContainerAlgorithm, metadata);
-  }
-
-  public boolean canBeUsedInEqualityOperators() {
-    return true;
-  }
-
-  @Override
-  public boolean supportsOrderedIterations() {
-    while (true)
-      try {
-        return storage.hasIndexRangeQuerySupport(indexId);
-      } catch (OInvalidIndexEngineIdException ignore) {
-        doReloadIndexEngine();
-      }
-  }
-
-  @Override
-  protected Iterable<OTransactionIndexChangesPerKey.OTransactionIndexEntry> interpretTxKeyChanges(
-      OTransactionIndexChangesPerKey changes) {
-    return changes.interpret(OTransactionIndexChangesPerKey.Interpretation.NonUnique);
-  }
-}
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.orient.core.exception.OInvalidIndexEngineIdException;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import com.orientechnologies.orient.core.tx.OTransactionIndexChangesPerKey;
+
+/**
+ * Index implementation that allows multiple values for the same key.
+ *
+ * @author Luca Garulli (l.garulli--(at)--orientdb.com)
+ */
+public class OIndexNotUnique extends OIndexMultiValues implements OIndexBulkBuildable {
+
+  public OIndexNotUnique(String name, String typeId, String algorithm, int version, OAbstractPaginatedStorage storage,
+      String valueContainerAlgorithm, ODocument metadata) {
+    super(name, typeId, algorithm, version, storage, valueContainerAlgorithm, metadata);
+  }
+
+  public boolean canBeUsedInEqualityOperators() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsOrderedIterations() {
+    while (true)
+      try {
+        return storage.hasIndexRangeQuerySupport(indexId);
+      } catch (OInvalidIndexEngineIdException ignore) {
+        doReloadIndexEngine();
+      }
+  }
+
+  @Override
+  protected Iterable<OTransactionIndexChangesPerKey.OTransactionIndexEntry> interpretTxKeyChanges(
+      OTransactionIndexChangesPerKey changes) {
+    return changes.interpret(OTransactionIndexChangesPerKey.Interpretation.NonUnique);
+  }
+}
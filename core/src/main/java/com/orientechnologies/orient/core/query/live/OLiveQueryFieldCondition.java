@@ -0,0 +1,126 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.query.live;
+
+import java.util.Date;
+
+/**
+ * Condition on a single field of a record which has to be satisfied by the record to be passed to a live query listener. It is
+ * used to find candidate listeners of a change by {@link OLiveQueryQueueThreadV2}, so the condition is allowed to be looser than
+ * the real filter of the listener but never stricter.
+ * <p>
+ * Range conditions are always checked inclusively because bounds and field values are compared as <code>double</code> values.
+ */
+public final class OLiveQueryFieldCondition {
+  public enum Operator {
+    EQUALS, GREATER, LESS
+  }
+
+  private final String   field;
+  private final Operator operator;
+  private final Object   value;
+
+  private OLiveQueryFieldCondition(String field, Operator operator, Object value) {
+    this.field = field;
+    this.operator = operator;
+    this.value = value;
+  }
+
+  /**
+   * @return condition <code>field = value</code> or <code>null</code> if value of such type can not be indexed.
+   */
+  public static OLiveQueryFieldCondition equalTo(String field, Object value) {
+    final Object key = toEqualityKey(value);
+    if (key == null)
+      return null;
+
+    return new OLiveQueryFieldCondition(field, Operator.EQUALS, key);
+  }
+
+  /**
+   * @return condition <code>field &gt;= value</code> or <code>null</code> if value of such type can not be indexed.
+   */
+  public static OLiveQueryFieldCondition greaterThan(String field, Object value) {
+    final Double bound = toRangeKey(value);
+    if (bound == null)
+      return null;
+
+    return new OLiveQueryFieldCondition(field, Operator.GREATER, bound);
+  }
+
+  /**
+   * @return condition <code>field &lt;= value</code> or <code>null</code> if value of such type can not be indexed.
+   */
+  public static OLiveQueryFieldCondition lessThan(String field, Object value) {
+    final Double bound = toRangeKey(value);
+    if (bound == null)
+      return null;
+
+    return new OLiveQueryFieldCondition(field, Operator.LESS, bound);
+  }
+
+  public String getField() {
+    return field;
+  }
+
+  public Operator getOperator() {
+    return operator;
+  }
+
+  /**
+   * @return value converted by {@link #toEqualityKey(Object)} for equality conditions and by {@link #toRangeKey(Object)} for range
+   * conditions.
+   */
+  public Object getValue() {
+    return value;
+  }
+
+  /**
+   * Strings are kept as is and all integer numbers are converted to {@link Long}, so values which are equal for SQL
+   * <code>=</code> operator have equal keys. Values of other types are not indexed.
+   */
+  static Object toEqualityKey(Object value) {
+    if (value instanceof String)
+      return value;
+
+    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+      return ((Number) value).longValue();
+
+    return null;
+  }
+
+  /**
+   * Numbers and dates are converted to <code>double</code>, conversion keeps order of values but not their strict inequality.
+   */
+  static Double toRangeKey(Object value) {
+    if (value instanceof Number)
+      return ((Number) value).doubleValue();
+
+    if (value instanceof Date)
+      return (double) ((Date) value).getTime();
+
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return field + (operator == Operator.EQUALS ? " = " : operator == Operator.GREATER ? " >= " : " <= ") + value;
+  }
+}
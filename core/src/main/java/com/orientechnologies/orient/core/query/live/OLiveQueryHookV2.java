@@ -31,13 +31,18 @@ import com.orientechnologies.orient.core.db.ODatabaseListener;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.record.ORecordOperation;
 import com.orientechnologies.orient.core.hook.ODocumentHookAbstract;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.executor.OResult;
 import com.orientechnologies.orient.core.sql.executor.OResultInternal;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class OLiveQueryHookV2 extends ODocumentHookAbstract implements ODatabaseListener {
@@ -48,11 +53,30 @@ public class OLiveQueryHookV2 extends ODocumentHookAbstract implements ODatabase
     public    byte      type;
     protected ODocument originalDoc;
 
+    /**
+     * Lower case names of the class of the record and of all its superclasses, <code>null</code> if they are unknown.
+     */
+    Set<String> classNames;
+
     OLiveQueryOp(ODocument originalDoc, OResult before, OResult after, byte type) {
       this.originalDoc = originalDoc;
       this.type = type;
       this.before = before;
       this.after = after;
+      this.classNames = classNames(originalDoc);
+    }
+
+    private static Set<String> classNames(ODocument document) {
+      final OClass schemaClass = document.getSchemaClass();
+      if (schemaClass == null)
+        return Collections.emptySet();
+
+      final Set<String> result = new HashSet<String>();
+      result.add(schemaClass.getName().toLowerCase(Locale.ENGLISH));
+      for (OClass superClass : schemaClass.getAllSuperClasses())
+        result.add(superClass.getName().toLowerCase(Locale.ENGLISH));
+
+      return result;
     }
   }
 
@@ -29,4 +29,20 @@ public interface OLiveQueryListenerV2 {
   void onLiveResultEnd();
 
   int getToken();
+
+  /**
+   * @return name of the class which records are listened together with records of its subclasses, or <code>null</code> if
+   * listener has to receive changes of records of all classes
+   */
+  default String getClassName() {
+    return null;
+  }
+
+  /**
+   * @return condition which is satisfied by all records accepted by this listener, it is used to skip listener if it is
+   * definitely not interested in a change. <code>null</code> means there is no such condition.
+   */
+  default OLiveQueryFieldCondition getIndexedCondition() {
+    return null;
+  }
 }
@@ -20,59 +20,118 @@
 package com.orientechnologies.orient.core.query.live;
 
 import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.thread.OThreadPoolExecutorWithLogging;
+import com.orientechnologies.common.util.OUncaughtExceptionHandler;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Takes changes of records from the queue and passes them to live query subscribers. Only subscribers returned by {@link
+ * OLiveQuerySubscriptionIndex} for the changed record are notified.
+ * <p>
+ * If {@link OGlobalConfiguration#QUERY_LIVE_DISPATCH_THREADS} is bigger than one, subscribers are notified by the pool of
+ * single threaded dispatchers. All notifications of the same subscriber are done by the same dispatcher, so subscriber receives
+ * changes in the order they were made.
+ *
  * @author Luigi Dell'Aquila (l.dellaquila-(at)-orientdb.com)
  */
 public class OLiveQueryQueueThreadV2 extends Thread {
 
-  private final BlockingQueue<OLiveQueryHookV2.OLiveQueryOp>            queue;
+  private final BlockingQueue<OLiveQueryHookV2.OLiveQueryOp> queue;
   private final ConcurrentMap<Integer, OLiveQueryListenerV2> subscribers;
-  private boolean                                          stopped = false;
+  private final OLiveQuerySubscriptionIndex                  index;
+  private final ExecutorService[]                            dispatchers;
+  private boolean                                            stopped = false;
 
-  private OLiveQueryQueueThreadV2(BlockingQueue<OLiveQueryHookV2.OLiveQueryOp> queue, ConcurrentMap<Integer, OLiveQueryListenerV2> subscribers) {
+  private OLiveQueryQueueThreadV2(BlockingQueue<OLiveQueryHookV2.OLiveQueryOp> queue,
+      ConcurrentMap<Integer, OLiveQueryListenerV2> subscribers, OLiveQuerySubscriptionIndex index) {
     this.queue = queue;
     this.subscribers = subscribers;
+    this.index = index;
+    this.dispatchers = createDispatchers(OGlobalConfiguration.QUERY_LIVE_DISPATCH_THREADS.getValueAsInteger());
   }
 
   public OLiveQueryQueueThreadV2() {
-    this(new LinkedBlockingQueue<OLiveQueryHookV2.OLiveQueryOp>(), new ConcurrentHashMap<Integer, OLiveQueryListenerV2>());
+    this(new LinkedBlockingQueue<OLiveQueryHookV2.OLiveQueryOp>(), new ConcurrentHashMap<Integer, OLiveQueryListenerV2>(),
+        new OLiveQuerySubscriptionIndex());
     setName("LiveQueryQueueThreadV2");
     this.setDaemon(true);
   }
 
   public OLiveQueryQueueThreadV2 clone() {
-    return new OLiveQueryQueueThreadV2(this.queue, this.subscribers);
+    return new OLiveQueryQueueThreadV2(this.queue, this.subscribers, this.index);
   }
 
   @Override
   public void run() {
-    while (!stopped) {
-      OLiveQueryHookV2.OLiveQueryOp next = null;
-      try {
-        next = queue.take();
-      } catch (InterruptedException ignore) {
-        break;
+    try {
+      while (!stopped) {
+        OLiveQueryHookV2.OLiveQueryOp next = null;
+        try {
+          next = queue.take();
+        } catch (InterruptedException ignore) {
+          break;
+        }
+        if (next == null) {
+          continue;
+        }
+        dispatch(next);
       }
-      if (next == null) {
+    } finally {
+      for (ExecutorService dispatcher : dispatchers) {
+        dispatcher.shutdown();
+      }
+    }
+  }
+
+  private void dispatch(final OLiveQueryHookV2.OLiveQueryOp op) {
+    for (Integer id : index.candidates(op)) {
+      final OLiveQueryListenerV2 listener = subscribers.get(id);
+      if (listener == null) {
         continue;
       }
-      for (OLiveQueryListenerV2 listener : subscribers.values()) {
-        try {
-          listener.onLiveResult(next);
-        } catch (Exception e) {
-          OLogManager.instance().warn(this, "Error executing live query subscriber.", e);
-        }
 
+      if (dispatchers.length == 0) {
+        notify(listener, op);
+      } else {
+        dispatcher(id).execute(() -> notify(listener, op));
       }
     }
   }
 
+  private void notify(OLiveQueryListenerV2 listener, OLiveQueryHookV2.OLiveQueryOp op) {
+    try {
+      listener.onLiveResult(op);
+    } catch (Exception e) {
+      OLogManager.instance().warn(this, "Error executing live query subscriber.", e);
+    }
+  }
+
+  private ExecutorService dispatcher(Integer id) {
+    return dispatchers[(id.hashCode() & Integer.MAX_VALUE) % dispatchers.length];
+  }
+
+  private static ExecutorService[] createDispatchers(int threads) {
+    if (threads <= 1) {
+      return new ExecutorService[0];
+    }
+
+    final ExecutorService[] dispatchers = new ExecutorService[threads];
+    for (int i = 0; i < threads; i++) {
+      dispatchers[i] = new OThreadPoolExecutorWithLogging(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+          new DispatcherThreadFactory(i));
+    }
+    return dispatchers;
+  }
+
   public void stopExecution() {
     this.stopped = true;
     this.interrupt();
@@ -84,13 +143,24 @@ public class OLiveQueryQueueThreadV2 extends Thread {
 
   public Integer subscribe(Integer id, OLiveQueryListenerV2 iListener) {
     subscribers.put(id, iListener);
+    index.add(id, iListener.getClassName(), iListener.getIndexedCondition());
     return id;
   }
 
   public void unsubscribe(Integer id) {
-    OLiveQueryListenerV2 res = subscribers.remove(id);
+    final OLiveQueryListenerV2 res = subscribers.remove(id);
+    index.remove(id);
     if (res != null) {
-      res.onLiveResultEnd();
+      if (dispatchers.length == 0) {
+        res.onLiveResultEnd();
+      } else {
+        // end of results is delivered after results which are already passed to the dispatcher
+        try {
+          dispatcher(id).execute(res::onLiveResultEnd);
+        } catch (RejectedExecutionException ignore) {
+          res.onLiveResultEnd();
+        }
+      }
     }
   }
 
@@ -101,4 +171,23 @@ public class OLiveQueryQueueThreadV2 extends Thread {
   public boolean hasToken(Integer key) {
     return subscribers.containsKey(key);
   }
+
+  private static class DispatcherThreadFactory implements ThreadFactory {
+    private final int dispatcher;
+
+    private DispatcherThreadFactory(int dispatcher) {
+      this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      final Thread thread = new Thread(r);
+
+      thread.setDaemon(true);
+      thread.setName("LiveQueryDispatcherV2-" + dispatcher);
+      thread.setUncaughtExceptionHandler(new OUncaughtExceptionHandler());
+
+      return thread;
+    }
+  }
 }
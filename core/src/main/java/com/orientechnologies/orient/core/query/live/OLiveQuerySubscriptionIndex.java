@@ -0,0 +1,259 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.query.live;
+
+import com.orientechnologies.orient.core.db.record.ORecordOperation;
+import com.orientechnologies.orient.core.sql.executor.OResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of live query subscriptions by target class and by condition on a single field. It is used to find listeners which may
+ * be interested in a change, so only these listeners evaluate their filters against the changed record.
+ * <p>
+ * Returned set of candidates may contain listeners which are not interested in the change, but never misses a listener which
+ * is. If type of field value differs from type of indexed condition value all listeners with conditions on that field are
+ * returned, because SQL operators convert values of different types before comparison.
+ */
+final class OLiveQuerySubscriptionIndex {
+  private final Map<Integer, Subscription>      subscriptions = new HashMap<Integer, Subscription>();
+  private final Set<Integer>                    anyClass      = new HashSet<Integer>();
+  private final Map<String, ClassSubscriptions> classes       = new HashMap<String, ClassSubscriptions>();
+
+  synchronized void add(Integer id, String className, OLiveQueryFieldCondition condition) {
+    remove(id);
+
+    final Subscription subscription = new Subscription(className == null ? null : className.toLowerCase(Locale.ENGLISH),
+        condition);
+    subscriptions.put(id, subscription);
+
+    if (subscription.className == null) {
+      anyClass.add(id);
+      return;
+    }
+
+    ClassSubscriptions classSubscriptions = classes.get(subscription.className);
+    if (classSubscriptions == null) {
+      classSubscriptions = new ClassSubscriptions();
+      classes.put(subscription.className, classSubscriptions);
+    }
+
+    classSubscriptions.add(id, condition);
+  }
+
+  synchronized void remove(Integer id) {
+    final Subscription subscription = subscriptions.remove(id);
+    if (subscription == null)
+      return;
+
+    if (subscription.className == null) {
+      anyClass.remove(id);
+      return;
+    }
+
+    final ClassSubscriptions classSubscriptions = classes.get(subscription.className);
+    if (classSubscriptions.remove(id, subscription.condition))
+      classes.remove(subscription.className);
+  }
+
+  /**
+   * @return identifiers of subscriptions which may be interested in passed in operation.
+   */
+  synchronized List<Integer> candidates(OLiveQueryHookV2.OLiveQueryOp op) {
+    if (op.classNames == null)
+      return new ArrayList<Integer>(subscriptions.keySet());
+
+    final List<Integer> result = new ArrayList<Integer>(anyClass);
+    if (classes.isEmpty())
+      return result;
+
+    final OResult record = op.type == ORecordOperation.DELETED ? op.before : op.after;
+
+    for (String className : op.classNames) {
+      final ClassSubscriptions classSubscriptions = classes.get(className);
+      if (classSubscriptions != null)
+        classSubscriptions.collect(record, result);
+    }
+
+    return result;
+  }
+
+  private static final class Subscription {
+    private final String                   className;
+    private final OLiveQueryFieldCondition condition;
+
+    private Subscription(String className, OLiveQueryFieldCondition condition) {
+      this.className = className;
+      this.condition = condition;
+    }
+  }
+
+  private static final class ClassSubscriptions {
+    private final Set<Integer>                    unconditional = new HashSet<Integer>();
+    private final Map<String, FieldSubscriptions> fields        = new HashMap<String, FieldSubscriptions>();
+
+    private void add(Integer id, OLiveQueryFieldCondition condition) {
+      if (condition == null) {
+        unconditional.add(id);
+        return;
+      }
+
+      FieldSubscriptions fieldSubscriptions = fields.get(condition.getField());
+      if (fieldSubscriptions == null) {
+        fieldSubscriptions = new FieldSubscriptions();
+        fields.put(condition.getField(), fieldSubscriptions);
+      }
+
+      fieldSubscriptions.add(id, condition);
+    }
+
+    /**
+     * @return <code>true</code> if there are no subscriptions left.
+     */
+    private boolean remove(Integer id, OLiveQueryFieldCondition condition) {
+      if (condition == null)
+        unconditional.remove(id);
+      else {
+        final FieldSubscriptions fieldSubscriptions = fields.get(condition.getField());
+        if (fieldSubscriptions.remove(id, condition))
+          fields.remove(condition.getField());
+      }
+
+      return unconditional.isEmpty() && fields.isEmpty();
+    }
+
+    private void collect(OResult record, List<Integer> result) {
+      result.addAll(unconditional);
+
+      if (record == null)
+        return;
+
+      for (Map.Entry<String, FieldSubscriptions> entry : fields.entrySet())
+        entry.getValue().collect(record.getProperty(entry.getKey()), result);
+    }
+  }
+
+  private static final class FieldSubscriptions {
+    private final Map<String, Set<Integer>>     stringEquals = new HashMap<String, Set<Integer>>();
+    private final Map<Long, Set<Integer>>       numberEquals = new HashMap<Long, Set<Integer>>();
+    private final TreeMap<Double, Set<Integer>> lowerBounds  = new TreeMap<Double, Set<Integer>>();
+    private final TreeMap<Double, Set<Integer>> upperBounds  = new TreeMap<Double, Set<Integer>>();
+
+    private void add(Integer id, OLiveQueryFieldCondition condition) {
+      switch (condition.getOperator()) {
+      case EQUALS:
+        if (condition.getValue() instanceof String)
+          addTo(stringEquals, (String) condition.getValue(), id);
+        else
+          addTo(numberEquals, (Long) condition.getValue(), id);
+        break;
+      case GREATER:
+        addTo(lowerBounds, (Double) condition.getValue(), id);
+        break;
+      case LESS:
+        addTo(upperBounds, (Double) condition.getValue(), id);
+        break;
+      }
+    }
+
+    /**
+     * @return <code>true</code> if there are no subscriptions left.
+     */
+    private boolean remove(Integer id, OLiveQueryFieldCondition condition) {
+      switch (condition.getOperator()) {
+      case EQUALS:
+        if (condition.getValue() instanceof String)
+          removeFrom(stringEquals, (String) condition.getValue(), id);
+        else
+          removeFrom(numberEquals, (Long) condition.getValue(), id);
+        break;
+      case GREATER:
+        removeFrom(lowerBounds, (Double) condition.getValue(), id);
+        break;
+      case LESS:
+        removeFrom(upperBounds, (Double) condition.getValue(), id);
+        break;
+      }
+
+      return stringEquals.isEmpty() && numberEquals.isEmpty() && lowerBounds.isEmpty() && upperBounds.isEmpty();
+    }
+
+    private void collect(Object value, List<Integer> result) {
+      // SQL comparison operators never match null values
+      if (value == null)
+        return;
+
+      final Object key = OLiveQueryFieldCondition.toEqualityKey(value);
+      if (key instanceof String) {
+        addAll(stringEquals.get(key), result);
+        addAll(numberEquals.values(), result);
+      } else if (key instanceof Long) {
+        addAll(numberEquals.get(key), result);
+        addAll(stringEquals.values(), result);
+      } else {
+        addAll(stringEquals.values(), result);
+        addAll(numberEquals.values(), result);
+      }
+
+      final Double bound = OLiveQueryFieldCondition.toRangeKey(value);
+      if (bound != null) {
+        addAll(lowerBounds.headMap(bound, true).values(), result);
+        addAll(upperBounds.tailMap(bound, true).values(), result);
+      } else {
+        addAll(lowerBounds.values(), result);
+        addAll(upperBounds.values(), result);
+      }
+    }
+
+    private static <K> void addTo(Map<K, Set<Integer>> map, K key, Integer id) {
+      Set<Integer> ids = map.get(key);
+      if (ids == null) {
+        ids = new HashSet<Integer>();
+        map.put(key, ids);
+      }
+
+      ids.add(id);
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Integer>> map, K key, Integer id) {
+      final Set<Integer> ids = map.get(key);
+      if (ids != null && ids.remove(id) && ids.isEmpty())
+        map.remove(key);
+    }
+
+    private static void addAll(Set<Integer> ids, List<Integer> result) {
+      if (ids != null)
+        result.addAll(ids);
+    }
+
+    private static void addAll(Collection<Set<Integer>> idSets, List<Integer> result) {
+      for (Set<Integer> ids : idSets)
+        result.addAll(ids);
+    }
+  }
+}
@@ -12,6 +12,13 @@ import java.util.*;
 
 /**
  * Created by luigidellaquila on 12/07/16.
+ * <p>
+ * When the number of groups kept in memory reaches {@link com.orientechnologies.orient.core.config.OGlobalConfiguration#QUERY_SPILL_THRESHOLD},
+ * the groups already in memory keep being aggregated, while the input records of any other group are written to temporary
+ * partition files chosen by the hash of the GROUP BY key. Partitions are disjoint by key, so once the in-memory groups are
+ * returned each partition is aggregated on its own (and partitioned again if it is still too big). If an input record of a new
+ * group cannot be written to disk (see {@link OResultSpillFile#isSpillable(OResult)}), the partitions are aggregated back in
+ * memory and the rest of the input is not spilled.
  */
 public class AggregateProjectionCalculationStep extends ProjectionCalculationStep {
 
@@ -24,6 +31,25 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
   private int  nextItem = 0;
   private long cost     = 0;
 
+  private static final int SPILL_PARTITION_BITS = 4;
+  private static final int SPILL_PARTITIONS     = 1 << SPILL_PARTITION_BITS;
+  private static final int MAX_SPILL_LEVEL      = 32 / SPILL_PARTITION_BITS - 1;
+
+  private int                     spillThreshold    = 0;
+  private int                     spillLevel        = 0;
+  private OResultSpillFile[]      currentPartitions = null;
+  private Deque<SpilledPartition> pendingPartitions = new ArrayDeque<>();
+
+  private static class SpilledPartition {
+    private final OResultSpillFile file;
+    private final int              level;
+
+    SpilledPartition(OResultSpillFile file, int level) {
+      this.file = file;
+      this.level = level;
+    }
+  }
+
   public AggregateProjectionCalculationStep(OProjection projection, OGroupBy groupBy, OCommandContext ctx,
       boolean profilingEnabled) {
     super(projection, ctx, profilingEnabled);
@@ -41,7 +67,7 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
 
       @Override
       public boolean hasNext() {
-        if (localNext > nRecords || nextItem >= finalResults.size()) {
+        if (localNext > nRecords || !fetchPartitionIfNeeded(ctx)) {
           return false;
         }
         return true;
@@ -49,7 +75,7 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
 
       @Override
       public OResult next() {
-        if (localNext > nRecords || nextItem >= finalResults.size()) {
+        if (localNext > nRecords || !fetchPartitionIfNeeded(ctx)) {
           throw new IllegalStateException();
         }
         OResult result = finalResults.get(nextItem);
@@ -80,6 +106,9 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
       throw new OCommandExecutionException("Cannot execute an aggregation or a GROUP BY without a previous result");
     }
     OExecutionStepInternal prevStep = prev.get();
+    if (groupBy != null) {
+      spillThreshold = OResultSpillFile.getSpillThreshold(ctx);
+    }
     OResultSet lastRs = prevStep.syncPull(ctx, nRecords);
     while (lastRs.hasNext()) {
       aggregate(lastRs.next(), ctx);
@@ -87,9 +116,14 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
         lastRs = prevStep.syncPull(ctx, nRecords);
       }
     }
+    finishAggregation();
+  }
+
+  private void finishAggregation() {
     finalResults = new ArrayList<>();
     finalResults.addAll(aggregateResults.values());
     aggregateResults.clear();
+    nextItem = 0;
     for (OResultInternal item : finalResults) {
       for (String name : item.getPropertyNames()) {
         Object prevVal = item.getProperty(name);
@@ -98,6 +132,41 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
         }
       }
     }
+    if (currentPartitions != null) {
+      for (OResultSpillFile partition : currentPartitions) {
+        if (partition != null) {
+          pendingPartitions.add(new SpilledPartition(partition, spillLevel + 1));
+        }
+      }
+      currentPartitions = null;
+    }
+  }
+
+  /**
+   * if all the current results were returned, aggregates the next spilled partition (if any)
+   *
+   * @return true if there are more results to return
+   */
+  private boolean fetchPartitionIfNeeded(OCommandContext ctx) {
+    while (nextItem >= finalResults.size()) {
+      SpilledPartition partition = pendingPartitions.poll();
+      if (partition == null) {
+        return false;
+      }
+      spillLevel = partition.level;
+      OResultSpillFile.Reader reader = partition.file.read();
+      try {
+        OResult next;
+        while ((next = reader.next()) != null) {
+          aggregate(next, ctx);
+        }
+      } finally {
+        reader.close();
+        partition.file.delete();
+      }
+      finishAggregation();
+    }
+    return true;
   }
 
   private void aggregate(OResult next, OCommandContext ctx) {
@@ -110,6 +179,13 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
           key.add(val);
         }
       }
+      if (currentPartitions != null && !aggregateResults.containsKey(key)) {
+        if (OResultSpillFile.isSpillable(next)) {
+          spill(next, key, ctx);
+          return;
+        }
+        mergePartitions(ctx);
+      }
       OResultInternal preAggr = aggregateResults.get(key);
       if (preAggr == null) {
         preAggr = new OResultInternal();
@@ -129,6 +205,10 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
           preAggr.setProperty(alias, proj.execute(next, ctx));
         }
       }
+      if (spillThreshold > 0 && currentPartitions == null && spillLevel < MAX_SPILL_LEVEL
+          && aggregateResults.size() >= spillThreshold) {
+        currentPartitions = new OResultSpillFile[SPILL_PARTITIONS];
+      }
     } finally {
       if (profilingEnabled) {
         cost += (System.nanoTime() - begin);
@@ -136,6 +216,64 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
     }
   }
 
+  private void spill(OResult next, List<Object> key, OCommandContext ctx) {
+    // each level uses different bits of the hash, so that a partition is split again by the next level
+    int hash = key.hashCode() * 0x9E3779B9;
+    int partitionId = (hash >>> (32 - SPILL_PARTITION_BITS * (spillLevel + 1))) & (SPILL_PARTITIONS - 1);
+    if (currentPartitions[partitionId] == null) {
+      currentPartitions[partitionId] = new OResultSpillFile(ctx);
+    }
+    currentPartitions[partitionId].write(next);
+  }
+
+  /**
+   * Called when a result that cannot be written to disk belongs to a group that is not in memory: the partitions written so far
+   * are aggregated back in memory and the input of this level is not spilled anymore.
+   */
+  private void mergePartitions(OCommandContext ctx) {
+    OResultSpillFile[] partitions = currentPartitions;
+    currentPartitions = null;
+    spillThreshold = 0;
+    for (int i = 0; i < partitions.length; i++) {
+      OResultSpillFile partition = partitions[i];
+      if (partition == null) {
+        continue;
+      }
+      OResultSpillFile.Reader reader = partition.read();
+      try {
+        OResult next;
+        while ((next = reader.next()) != null) {
+          aggregate(next, ctx);
+        }
+      } catch (RuntimeException e) {
+        for (int j = i + 1; j < partitions.length; j++) {
+          if (partitions[j] != null) {
+            partitions[j].delete();
+          }
+        }
+        throw e;
+      } finally {
+        reader.close();
+        partition.delete();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (currentPartitions != null) {
+      for (OResultSpillFile partition : currentPartitions) {
+        if (partition != null) {
+          partition.delete();
+        }
+      }
+      currentPartitions = null;
+    }
+    pendingPartitions.forEach(x -> x.file.delete());
+    pendingPartitions.clear();
+    super.close();
+  }
+
   @Override
   public String prettyPrint(int depth, int indent) {
     String spaces = OExecutionStepInternal.getIndent(depth, indent);
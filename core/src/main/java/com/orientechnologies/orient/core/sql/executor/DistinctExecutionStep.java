@@ -3,24 +3,28 @@ package com.orientechnologies.orient.core.sql.executor;
 import com.orientechnologies.common.concur.OTimeoutException;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.BytesContainer;
+import com.orientechnologies.orient.core.serialization.serializer.result.binary.OResultSerializerNetwork;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.math.BigDecimal;
+import java.util.*;
 
 /**
  * Created by luigidellaquila on 08/07/16.
  */
 public class DistinctExecutionStep extends AbstractExecutionStep {
 
-  Set<OResult> pastItems = new HashSet<>();
-  ORidSet      pastRids  = new ORidSet();
+  Set<OResult>  pastItems = new HashSet<>();
+  ORidSet       pastRids  = new ORidSet();
+  OBinaryKeySet pastKeys;
+
+  private final OResultSerializerNetwork serializer = new OResultSerializerNetwork();
 
   OResultSet lastResult = null;
   OResult nextValue;
 
-  private long cost = 0;
+  private long cost         = 0;
+  private long spilledBytes = 0;
 
   public DistinctExecutionStep(OCommandContext ctx, boolean profilingEnabled) {
     super(ctx, profilingEnabled);
@@ -89,15 +93,15 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
         lastResult = getPrev().get().syncPull(ctx, nRecords);
       }
       if (lastResult == null || !lastResult.hasNext()) {
+        // no more input, the keys are not needed anymore
+        releaseKeys();
         return;
       }
       long begin = profilingEnabled ? System.nanoTime() : 0;
       try {
         nextValue = lastResult.next();
-        if (alreadyVisited(nextValue)) {
+        if (!markAsVisited(nextValue)) {
           nextValue = null;
-        } else {
-          markAsVisited(nextValue);
         }
       } finally {
         if (profilingEnabled) {
@@ -107,29 +111,86 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
     }
   }
 
-  private void markAsVisited(OResult nextValue) {
+  /**
+   * @return true if the item was not visited yet
+   */
+  private boolean markAsVisited(OResult nextValue) {
     if (nextValue.isElement()) {
       ORID identity = nextValue.getElement().get().getIdentity();
       int cluster = identity.getClusterId();
       long pos = identity.getClusterPosition();
       if (cluster >= 0 && pos >= 0) {
-        pastRids.add(identity);
-        return;
+        return pastRids.add(identity);
+      }
+    } else if (nextValue instanceof OResultInternal) {
+      byte[] key = toBinaryKey((OResultInternal) nextValue);
+      if (key != null) {
+        if (pastKeys == null) {
+          pastKeys = new OBinaryKeySet(ctx);
+        }
+        return pastKeys.add(key);
       }
     }
-    pastItems.add(nextValue);
+    return pastItems.add(nextValue);
   }
 
-  private boolean alreadyVisited(OResult nextValue) {
-    if (nextValue.isElement()) {
-      ORID identity = nextValue.getElement().get().getIdentity();
-      int cluster = identity.getClusterId();
-      long pos = identity.getClusterPosition();
-      if (cluster >= 0 && pos >= 0) {
-        return pastRids.contains(identity);
+  /**
+   * serializes the properties of a projection in a canonical form (sorted by name), so that two projections have the same key
+   * if and only if they are equal
+   *
+   * @return the key, null if the projection contains values whose equality cannot be checked on the binary form (eg. sets, maps,
+   * records)
+   */
+  private byte[] toBinaryKey(OResultInternal item) {
+    OResultInternal canonical = toCanonical(item);
+    if (canonical == null) {
+      return null;
+    }
+    BytesContainer bytes = new BytesContainer();
+    serializer.serialize(canonical, bytes);
+    return bytes.fitBytes();
+  }
+
+  private OResultInternal toCanonical(OResultInternal item) {
+    if (item.getElement().isPresent()) {
+      return null;
+    }
+    OResultInternal result = new OResultInternal();
+    for (String name : new TreeSet<>(item.content.keySet())) {
+      Object value = toCanonicalValue(item.content.get(name));
+      if (value == this) {
+        return null;
       }
+      result.content.put(name, value);
     }
-    return pastItems.contains(nextValue);
+    return result;
+  }
+
+  /**
+   * @return the value to serialize, or this step if the value cannot be part of a binary key
+   */
+  private Object toCanonicalValue(Object value) {
+    if (value == null || value instanceof String || value instanceof Boolean || value instanceof Integer
+        || value instanceof Long || value instanceof Short || value instanceof Byte || value instanceof Double
+        || value instanceof Float || value instanceof BigDecimal) {
+      return value;
+    }
+    if (value instanceof OResultInternal && !((OResultInternal) value).isElement()) {
+      OResultInternal result = toCanonical((OResultInternal) value);
+      return result == null ? this : result;
+    }
+    if (value instanceof List) {
+      List<Object> result = new ArrayList<>(((List) value).size());
+      for (Object item : (List) value) {
+        Object converted = toCanonicalValue(item);
+        if (converted == this) {
+          return this;
+        }
+        result.add(converted);
+      }
+      return result;
+    }
+    return this;
   }
 
   @Override
@@ -139,12 +200,25 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
 
   @Override
   public void close() {
+    releaseKeys();
     prev.ifPresent(x -> x.close());
   }
 
+  private void releaseKeys() {
+    if (pastKeys != null) {
+      spilledBytes = pastKeys.getSpilledBytes();
+      pastKeys.close();
+      pastKeys = null;
+    }
+  }
+
   @Override
   public String prettyPrint(int depth, int indent) {
     String result = OExecutionStepInternal.getIndent(depth, indent) + "+ DISTINCT";
+    long spilled = pastKeys == null ? spilledBytes : pastKeys.getSpilledBytes();
+    if (spilled > 0) {
+      result += " (" + spilled + " bytes of keys on disk)";
+    }
     if (profilingEnabled) {
       result += " (" + getCostFormatted() + ")";
     }
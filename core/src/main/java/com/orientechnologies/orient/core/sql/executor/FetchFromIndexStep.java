@@ -179,6 +179,9 @@ public class FetchFromIndexStep extends AbstractExecutionStep {
     long begin = profilingEnabled ? System.nanoTime() : 0;
     if (index == null) {
       index = db.getMetadata().getIndexManager().getIndex(indexName);
+    } else if (db != null && db != this.ctx.getDatabase()) {
+      //executed on a different database instance than the planning one (eg. by a parallel worker), the index has to be bound to it
+      index = db.getMetadata().getIndexManager().getIndex(index.getName());
     }
     try {
       if (index.getDefinition() == null) {
@@ -12,14 +12,25 @@ import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.record.ORecordOperation;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.query.live.OLiveQueryFieldCondition;
 import com.orientechnologies.orient.core.query.live.OLiveQueryHookV2;
 import com.orientechnologies.orient.core.query.live.OLiveQueryListenerV2;
 import com.orientechnologies.orient.core.sql.OSQLEngine;
+import com.orientechnologies.orient.core.sql.parser.OAndBlock;
+import com.orientechnologies.orient.core.sql.parser.OBinaryCompareOperator;
+import com.orientechnologies.orient.core.sql.parser.OBinaryCondition;
+import com.orientechnologies.orient.core.sql.parser.OBooleanExpression;
+import com.orientechnologies.orient.core.sql.parser.OEqualsCompareOperator;
+import com.orientechnologies.orient.core.sql.parser.OGeOperator;
+import com.orientechnologies.orient.core.sql.parser.OGtOperator;
+import com.orientechnologies.orient.core.sql.parser.OLeOperator;
+import com.orientechnologies.orient.core.sql.parser.OLtOperator;
 import com.orientechnologies.orient.core.sql.parser.OSelectStatement;
 import com.orientechnologies.orient.core.sql.parser.OStatement;
 import com.orientechnologies.orient.core.sql.parser.OWhereClause;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -32,8 +43,9 @@ public class LiveQueryListenerImpl implements OLiveQueryListenerV2 {
   private final OLiveQueryResultListener clientListener;
   private       ODatabaseDocument        execDb;
 
-  private final OSelectStatement statement;
-  private       String           className;
+  private final OSelectStatement         statement;
+  private       String                   className;
+  private       OLiveQueryFieldCondition indexedCondition;
 
   private final Map<Object, Object> params;
 
@@ -69,6 +81,8 @@ public class LiveQueryListenerImpl implements OLiveQueryListenerV2 {
       }
     });
 
+    this.indexedCondition = findIndexedCondition(statement.getWhereClause(), iArgs);
+
     synchronized (random) {
       token = random.nextInt();// TODO do something better ;-)!
     }
@@ -111,6 +125,67 @@ public class LiveQueryListenerImpl implements OLiveQueryListenerV2 {
     return token;
   }
 
+  @Override
+  public String getClassName() {
+    return className;
+  }
+
+  @Override
+  public OLiveQueryFieldCondition getIndexedCondition() {
+    return indexedCondition;
+  }
+
+  /**
+   * Finds condition on a field which has to be satisfied by all records matched by the WHERE clause. Only top level conditions
+   * which compare a field with a literal or an input parameter are considered, equality conditions are preferred over range
+   * ones.
+   */
+  private static OLiveQueryFieldCondition findIndexedCondition(OWhereClause where, Map<Object, Object> params) {
+    if (where == null) {
+      return null;
+    }
+    List<OAndBlock> flattened = where.flatten();
+    if (flattened.size() != 1) {
+      return null;
+    }
+
+    OLiveQueryFieldCondition rangeCondition = null;
+    for (OBooleanExpression item : flattened.get(0).getSubBlocks()) {
+      if (!(item instanceof OBinaryCondition)) {
+        continue;
+      }
+      OBinaryCondition condition = (OBinaryCondition) item;
+      if (!condition.getLeft().isBaseIdentifier() || !condition.getRight().isLiteralOrParameter()) {
+        continue;
+      }
+
+      String field = condition.getLeft().getDefaultAlias().getStringValue();
+      Object value;
+      try {
+        OBasicCommandContext ctx = new OBasicCommandContext();
+        ctx.setInputParameters(params);
+        value = condition.getRight().execute((OResult) null, ctx);
+      } catch (RuntimeException ignore) {
+        continue;
+      }
+
+      OBinaryCompareOperator operator = condition.getOperator();
+      if (operator instanceof OEqualsCompareOperator) {
+        OLiveQueryFieldCondition result = OLiveQueryFieldCondition.equalTo(field, value);
+        if (result != null) {
+          return result;
+        }
+      } else if (rangeCondition == null) {
+        if (operator instanceof OGtOperator || operator instanceof OGeOperator) {
+          rangeCondition = OLiveQueryFieldCondition.greaterThan(field, value);
+        } else if (operator instanceof OLtOperator || operator instanceof OLeOperator) {
+          rangeCondition = OLiveQueryFieldCondition.lessThan(field, value);
+        }
+      }
+    }
+    return rangeCondition;
+  }
+
   @Override
   public void onLiveResult(OLiveQueryHookV2.OLiveQueryOp iRecord) {
     execDb.activateOnCurrentThread();
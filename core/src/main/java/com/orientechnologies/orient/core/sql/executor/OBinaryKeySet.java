@@ -0,0 +1,280 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.common.directmemory.OByteBufferPool;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.hash.OMurmurHash3;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set of binary keys (eg. serialized projections) used by query operations that have to remember every value they already
+ * returned, like DISTINCT.
+ * <p>
+ * The keys are not kept on the heap: they are appended to direct memory chunks taken from {@link OByteBufferPool} and, once
+ * {@link OGlobalConfiguration#QUERY_SPILL_OFF_HEAP_LIMIT} is reached, to a temporary file. The heap only holds an open addressing
+ * table with the 64 bit hash and the address of each key, ie. 16 bytes per slot.
+ */
+public class OBinaryKeySet {
+  private static final int  HASH_SEED         = 0x2F0B3A49;
+  private static final int  INITIAL_SLOTS     = 1024;
+  private static final int  MAX_SLOTS         = 1 << 29;
+  private static final int  WRITE_BUFFER_SIZE = 64 * 1024;
+  /**
+   * addresses from this value on are offsets in the temporary file, lower addresses are in the off-heap chunks
+   */
+  private static final long FILE_ADDRESS      = 1L << 62;
+
+  private final OCommandContext ctx;
+  private final OByteBufferPool bufferPool = OByteBufferPool.instance();
+  private final int  chunkSize;
+  private final long maxChunks;
+
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private       int              chunkOffset;
+
+  /**
+   * slot i is (table[2*i] = hash, table[2*i+1] = address + 1), an address of 0 means that the slot is empty
+   */
+  private long[] table = new long[INITIAL_SLOTS * 2];
+  private int    mask  = INITIAL_SLOTS - 1;
+  private long   size  = 0;
+
+  private File        file;
+  private FileChannel channel;
+  private ByteBuffer  writeBuffer;
+  private long        flushedBytes;
+
+  public OBinaryKeySet(OCommandContext ctx) {
+    this.ctx = ctx;
+    this.chunkSize = bufferPool.getBufferSize();
+    long limit = OResultSpillFile.getConfiguration(ctx).getValueAsLong(OGlobalConfiguration.QUERY_SPILL_OFF_HEAP_LIMIT);
+    this.maxChunks = Math.max(0, limit) * 1024 * 1024 / chunkSize;
+  }
+
+  /**
+   * Adds a key to the set
+   *
+   * @return true if the key was not in the set yet
+   */
+  public boolean add(byte[] key) {
+    long hash = OMurmurHash3.murmurHash3_x64_64(key, HASH_SEED);
+    int slot = (int) hash & mask;
+    while (table[2 * slot + 1] != 0) {
+      if (table[2 * slot] == hash && keyEquals(table[2 * slot + 1] - 1, key)) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    table[2 * slot] = hash;
+    table[2 * slot + 1] = store(key) + 1;
+    size++;
+    if (size * 2 > mask + 1) {
+      grow();
+    }
+    return true;
+  }
+
+  public boolean contains(byte[] key) {
+    long hash = OMurmurHash3.murmurHash3_x64_64(key, HASH_SEED);
+    int slot = (int) hash & mask;
+    while (table[2 * slot + 1] != 0) {
+      if (table[2 * slot] == hash && keyEquals(table[2 * slot + 1] - 1, key)) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  /**
+   * @return the number of bytes of keys that were moved to the temporary file
+   */
+  public long getSpilledBytes() {
+    return channel == null ? 0 : flushedBytes + writeBuffer.position();
+  }
+
+  private void grow() {
+    int slots = mask + 1;
+    if (slots >= MAX_SLOTS) {
+      if (size + 1 >= slots) {
+        throw new OCommandExecutionException("Too many distinct keys in a single query operation: " + size);
+      }
+      return;
+    }
+    long[] oldTable = table;
+    table = new long[slots * 4];
+    mask = slots * 2 - 1;
+    for (int i = 0; i < oldTable.length; i += 2) {
+      if (oldTable[i + 1] != 0) {
+        int slot = (int) oldTable[i] & mask;
+        while (table[2 * slot + 1] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        table[2 * slot] = oldTable[i];
+        table[2 * slot + 1] = oldTable[i + 1];
+      }
+    }
+  }
+
+  private long store(byte[] key) {
+    int entrySize = key.length + 4;
+    if (entrySize <= chunkSize) {
+      if (!chunks.isEmpty() && chunkOffset + entrySize <= chunkSize) {
+        return storeInChunk(key);
+      }
+      if (chunks.size() < maxChunks) {
+        chunks.add(bufferPool.acquireDirect(false));
+        chunkOffset = 0;
+        return storeInChunk(key);
+      }
+    }
+    return storeInFile(key);
+  }
+
+  private long storeInChunk(byte[] key) {
+    ByteBuffer chunk = chunks.get(chunks.size() - 1);
+    long address = (long) (chunks.size() - 1) * chunkSize + chunkOffset;
+    chunk.putInt(chunkOffset, key.length);
+    chunk.position(chunkOffset + 4);
+    chunk.put(key);
+    chunkOffset += key.length + 4;
+    return address;
+  }
+
+  private long storeInFile(byte[] key) {
+    try {
+      if (channel == null) {
+        openFile();
+      }
+      if (writeBuffer.remaining() < key.length + 4) {
+        flush();
+      }
+      long address = FILE_ADDRESS + flushedBytes + writeBuffer.position();
+      if (writeBuffer.remaining() >= key.length + 4) {
+        writeBuffer.putInt(key.length);
+        writeBuffer.put(key);
+      } else {
+        // bigger than the write buffer, the buffer is empty at this point
+        ByteBuffer entry = ByteBuffer.allocate(key.length + 4);
+        entry.putInt(key.length);
+        entry.put(key);
+        entry.flip();
+        while (entry.hasRemaining()) {
+          flushedBytes += channel.write(entry, flushedBytes);
+        }
+      }
+      return address;
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Error on writing query keys to " + file), e);
+    }
+  }
+
+  private void openFile() throws IOException {
+    OContextConfiguration config = OResultSpillFile.getConfiguration(ctx);
+    String dir = config.getValueAsString(OGlobalConfiguration.QUERY_SPILL_DIRECTORY);
+    file = File.createTempFile("orientdb-query-", ".keys", dir == null ? null : new File(dir));
+    channel = new RandomAccessFile(file, "rw").getChannel();
+    writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    flushedBytes = 0;
+  }
+
+  private void flush() throws IOException {
+    writeBuffer.flip();
+    while (writeBuffer.hasRemaining()) {
+      flushedBytes += channel.write(writeBuffer, flushedBytes);
+    }
+    writeBuffer.clear();
+  }
+
+  private boolean keyEquals(long address, byte[] key) {
+    if (address < FILE_ADDRESS) {
+      ByteBuffer chunk = chunks.get((int) (address / chunkSize));
+      int offset = (int) (address % chunkSize);
+      if (chunk.getInt(offset) != key.length) {
+        return false;
+      }
+      offset += 4;
+      for (int i = 0; i < key.length; i++) {
+        if (chunk.get(offset + i) != key[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    long offset = address - FILE_ADDRESS;
+    if (offset >= flushedBytes) {
+      int bufferOffset = (int) (offset - flushedBytes);
+      if (writeBuffer.getInt(bufferOffset) != key.length) {
+        return false;
+      }
+      bufferOffset += 4;
+      for (int i = 0; i < key.length; i++) {
+        if (writeBuffer.get(bufferOffset + i) != key[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    try {
+      ByteBuffer stored = ByteBuffer.allocate(key.length + 4);
+      while (stored.hasRemaining()) {
+        if (channel.read(stored, offset + stored.position()) < 0) {
+          break;
+        }
+      }
+      if (stored.position() < 4 || stored.getInt(0) != key.length || stored.hasRemaining()) {
+        return false;
+      }
+      for (int i = 0; i < key.length; i++) {
+        if (stored.get(i + 4) != key[i]) {
+          return false;
+        }
+      }
+      return true;
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Error on reading query keys from " + file), e);
+    }
+  }
+
+  /**
+   * Releases the off-heap memory and deletes the temporary file. The set is empty after this call.
+   */
+  public void close() {
+    for (ByteBuffer chunk : chunks) {
+      bufferPool.release(chunk);
+    }
+    chunks.clear();
+    table = new long[INITIAL_SLOTS * 2];
+    mask = INITIAL_SLOTS - 1;
+    size = 0;
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        OLogManager.instance().warn(this, "Error on closing query key file %s", e, file);
+      }
+      channel = null;
+      writeBuffer = null;
+      if (file.exists() && !file.delete()) {
+        OLogManager.instance().warn(this, "Cannot delete query key file %s", file);
+      }
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.OEdge;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.OVertex;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.OEdgeDelegate;
+import com.orientechnologies.orient.core.record.impl.OVertexDelegate;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.BytesContainer;
+import com.orientechnologies.orient.core.serialization.serializer.result.binary.OResultSerializerNetwork;
+
+import java.io.*;
+
+/**
+ * Temporary file that holds a sequence of results, serialized with the binary result serializer. Blocking steps (eg. ORDER BY)
+ * use it to move part of their state out of the heap when it grows past {@link OGlobalConfiguration#QUERY_SPILL_THRESHOLD}.
+ * <p>
+ * Records are written with their binary content, identity and version, so reading them back does not access the storage
+ * again.
+ */
+public class OResultSpillFile {
+  private static final byte PROJECTION = 0;
+  private static final byte RECORD     = 1;
+  private static final byte VERTEX     = 2;
+  private static final byte EDGE       = 3;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final OResultSerializerNetwork serializer = new OResultSerializerNetwork();
+  private final File             file;
+  private       DataOutputStream out;
+  private long size = 0;
+
+  public OResultSpillFile(OCommandContext ctx) {
+    try {
+      String dir = getConfiguration(ctx).getValueAsString(OGlobalConfiguration.QUERY_SPILL_DIRECTORY);
+      this.file = File.createTempFile("orientdb-query-", ".spill", dir == null ? null : new File(dir));
+      this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Cannot create temporary file for query results"), e);
+    }
+  }
+
+  /**
+   * @return the maximum number of results a blocking step can keep in memory before spilling them, 0 if spilling is disabled
+   */
+  public static int getSpillThreshold(OCommandContext ctx) {
+    return getConfiguration(ctx).getValueAsInteger(OGlobalConfiguration.QUERY_SPILL_THRESHOLD);
+  }
+
+  static OContextConfiguration getConfiguration(OCommandContext ctx) {
+    if (ctx != null && ctx.getDatabase() instanceof ODatabaseDocumentInternal) {
+      return ((ODatabaseDocumentInternal) ctx.getDatabase()).getConfiguration();
+    }
+    return new OContextConfiguration();
+  }
+
+  /**
+   * checks if a result can be written to a spill file and read back without losing information. Only plain results are supported,
+   * subclasses (eg. updatable results) carry state that is not serialized
+   */
+  public static boolean isSpillable(OResult result) {
+    if (result == null || result.getClass() != OResultInternal.class) {
+      return false;
+    }
+    OIdentifiable element = ((OResultInternal) result).element;
+    return element == null || element.getRecord() != null;
+  }
+
+  public void write(OResult result) {
+    if (out == null) {
+      throw new IllegalStateException("Spill file " + file + " is not writable anymore");
+    }
+    OResultInternal item = (OResultInternal) result;
+    try {
+      ORecord record = item.element == null ? null : item.element.getRecord();
+      if (record == null) {
+        out.writeByte(PROJECTION);
+      } else {
+        if (item.element instanceof OVertex) {
+          out.writeByte(VERTEX);
+        } else if (item.element instanceof OEdge) {
+          out.writeByte(EDGE);
+        } else {
+          out.writeByte(RECORD);
+        }
+        out.writeByte(ORecordInternal.getRecordType(record));
+        ORID rid = record.getIdentity();
+        out.writeInt(rid.getClusterId());
+        out.writeLong(rid.getClusterPosition());
+        out.writeInt(record.getVersion());
+        writeBytes(record.toStream());
+      }
+
+      // properties and metadata that are not part of the record
+      OResultInternal projection = new OResultInternal();
+      projection.content = item.content;
+      projection.metadata = item.metadata;
+      BytesContainer bytes = new BytesContainer();
+      serializer.serialize(projection, bytes);
+      writeBytes(bytes.fitBytes());
+      size++;
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Error on writing query results to " + file), e);
+    }
+  }
+
+  private void writeBytes(byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * @return the number of results written to this file
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Ends the write phase and returns a reader positioned on the first result. After this call no more results can be written.
+   */
+  public Reader read() {
+    try {
+      if (out != null) {
+        out.close();
+        out = null;
+      }
+      return new Reader(new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)));
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Error on reading query results from " + file), e);
+    }
+  }
+
+  /**
+   * Deletes the file. Open readers are not usable anymore after this call
+   */
+  public void delete() {
+    try {
+      if (out != null) {
+        out.close();
+        out = null;
+      }
+    } catch (IOException e) {
+      OLogManager.instance().warn(this, "Error on closing query spill file %s", e, file);
+    }
+    if (file.exists() && !file.delete()) {
+      OLogManager.instance().warn(this, "Cannot delete query spill file %s", file);
+    }
+  }
+
+  public class Reader implements Closeable {
+    private final DataInputStream in;
+    private       long            read = 0;
+
+    private Reader(DataInputStream in) {
+      this.in = in;
+    }
+
+    /**
+     * @return the next result, null if all the results were read
+     */
+    public OResultInternal next() {
+      if (read >= size) {
+        return null;
+      }
+      try {
+        byte type = in.readByte();
+        OIdentifiable element = null;
+        if (type != PROJECTION) {
+          byte recordType = in.readByte();
+          ORecordId rid = new ORecordId(in.readInt(), in.readLong());
+          int version = in.readInt();
+          ORecord record = Orient.instance().getRecordFactoryManager().newInstance(recordType);
+          ORecordInternal.fill(record, rid, version, readBytes(), false);
+          if (type == VERTEX) {
+            element = new OVertexDelegate((ODocument) record);
+          } else if (type == EDGE) {
+            element = new OEdgeDelegate((ODocument) record);
+          } else {
+            element = record;
+          }
+        }
+        OResultInternal result = serializer.deserialize(new BytesContainer(readBytes()));
+        result.element = element;
+        read++;
+        return result;
+      } catch (IOException e) {
+        throw OException.wrapException(new OCommandExecutionException("Error on reading query results from " + file), e);
+      }
+    }
+
+    private byte[] readBytes() throws IOException {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return bytes;
+    }
+
+    @Override
+    public void close() {
+      try {
+        in.close();
+      } catch (IOException e) {
+        OLogManager.instance().warn(this, "Error on closing query spill file %s", e, file);
+      }
+    }
+  }
+}
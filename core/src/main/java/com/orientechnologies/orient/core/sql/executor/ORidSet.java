@@ -29,10 +29,11 @@ public class ORidSet implements Set<ORID> {
   protected int maxArraySize;
 
   /**
-   * instantiates an ORidSet with a bucket size of Integer.MAX_VALUE / 10
+   * instantiates an ORidSet with a bucket size of 64K longs (about 4M positions per bucket). Buckets are allocated only when
+   * they contain at least one RID, so sparse sets (eg. a few RIDs with high cluster positions) stay small
    */
   public ORidSet() {
-    this(Integer.MAX_VALUE / 10);
+    this(INITIAL_BLOCK_SIZE * 16);
   }
 
   /**
@@ -211,7 +212,7 @@ public class ORidSet implements Set<ORID> {
     if (content[cluster].length <= block) {
       return false;
     }
-    if (content[cluster][block].length <= blockPositionByteInt) {
+    if (content[cluster][block] == null || content[cluster][block].length <= blockPositionByteInt) {
       return false;
     }
 
@@ -220,10 +221,10 @@ public class ORidSet implements Set<ORID> {
     long existed = content[cluster][block][blockPositionByteInt] & currentMask;
     currentMask = ~currentMask;
     content[cluster][block][blockPositionByteInt] = original & currentMask;
-    if (existed > 0) {
+    if (existed != 0L) {
       size--;
     }
-    return existed == 0L;
+    return existed != 0L;
 
   }
 
@@ -239,7 +240,7 @@ public class ORidSet implements Set<ORID> {
   @Override public boolean addAll(Collection<? extends ORID> c) {
     boolean added = false;
     for (ORID o : c) {
-      added = added && add(o);
+      added = add(o) || added;
     }
     return added;
   }
@@ -40,41 +40,31 @@ public class ORidSetIterator implements Iterator<ORID> {
     }
 
     long currentArrayPos = currentId / 63;
-    long currentBit = currentId % 63;
-    int block = (int) (currentArrayPos / set.maxArraySize);
-    int blockPositionByteInt = (int) (currentArrayPos % set.maxArraySize);
+    int currentBit = (int) (currentId % 63);
 
     while (currentCluster < set.content.length) {
-      while (set.content[currentCluster] != null && block < set.content[currentCluster].length) {
-        while (set.content[currentCluster][block] != null && blockPositionByteInt < set.content[currentCluster][block].length) {
-          if (currentBit == 0 && set.content[currentCluster][block][blockPositionByteInt] == 0L) {
-            blockPositionByteInt++;
-            currentArrayPos++;
-            continue;
-          }
-          if (set.contains(new ORecordId(currentCluster, currentArrayPos * 63 + currentBit))) {
-            currentId = currentArrayPos * 63 + currentBit;
-            return;
-          } else {
-            currentBit++;
-            if (currentBit > 63) {
-              currentBit = 0;
-              blockPositionByteInt++;
-              currentArrayPos++;
+      long[][] blocks = set.content[currentCluster];
+      if (blocks != null) {
+        int block = (int) (currentArrayPos / set.maxArraySize);
+        int blockPositionByteInt = (int) (currentArrayPos % set.maxArraySize);
+        while (block < blocks.length) {
+          long[] words = blocks[block];
+          while (words != null && blockPositionByteInt < words.length) {
+            long word = words[blockPositionByteInt] & (-1L << currentBit);
+            if (word != 0L) {
+              currentId = ((long) block * set.maxArraySize + blockPositionByteInt) * 63 + Long.numberOfTrailingZeros(word);
+              return;
             }
+            blockPositionByteInt++;
+            currentBit = 0;
           }
+          block++;
+          blockPositionByteInt = 0;
+          currentBit = 0;
         }
-        if (set.content[currentCluster][block] == null && set.content[currentCluster].length >= block) {
-          currentArrayPos += set.maxArraySize;
-        }
-        block++;
-        blockPositionByteInt = 0;
-        currentBit = 0;
       }
-      block = 0;
-      currentBit = 0;
       currentArrayPos = 0;
-      blockPositionByteInt = 0;
+      currentBit = 0;
       currentCluster++;
     }
 
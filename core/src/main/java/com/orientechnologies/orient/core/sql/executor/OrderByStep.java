@@ -8,6 +8,10 @@ import java.util.*;
 
 /**
  * Created by luigidellaquila on 11/07/16.
+ * <p>
+ * When no LIMIT is known and the number of buffered results exceeds {@link com.orientechnologies.orient.core.config.OGlobalConfiguration#QUERY_SPILL_THRESHOLD},
+ * the buffer is sorted and written to a temporary file (a sorted run); at the end the runs are merged while the results are
+ * streamed to the next step.
  */
 public class OrderByStep extends AbstractExecutionStep {
   private final OOrderBy orderBy;
@@ -18,6 +22,42 @@ public class OrderByStep extends AbstractExecutionStep {
   List<OResult> cachedResult = null;
   int           nextElement  = 0;
 
+  private int                      spillThreshold = 0;
+  private List<OResultSpillFile>   spilledRuns    = null;
+  private PriorityQueue<SortedRun> mergeQueue     = null;
+
+  /**
+   * a sorted sequence of results, on disk or in memory, with its current head
+   */
+  private static class SortedRun {
+    private final int                     index;
+    private final OResultSpillFile.Reader reader;
+    private final Iterator<OResult>       iterator;
+    private       OResult                 head;
+
+    SortedRun(int index, OResultSpillFile.Reader reader, Iterator<OResult> iterator) {
+      this.index = index;
+      this.reader = reader;
+      this.iterator = iterator;
+      advance();
+    }
+
+    boolean advance() {
+      if (reader != null) {
+        head = reader.next();
+      } else {
+        head = iterator.hasNext() ? iterator.next() : null;
+      }
+      return head != null;
+    }
+
+    void close() {
+      if (reader != null) {
+        reader.close();
+      }
+    }
+  }
+
   public OrderByStep(OOrderBy orderBy, OCommandContext ctx, boolean profilingEnabled) {
     this(orderBy, null, ctx, profilingEnabled);
   }
@@ -35,18 +75,23 @@ public class OrderByStep extends AbstractExecutionStep {
   public OResultSet syncPull(OCommandContext ctx, int nRecords) throws OTimeoutException {
     if (cachedResult == null) {
       cachedResult = new ArrayList<>();
+      if (maxResults == null) {
+        spillThreshold = OResultSpillFile.getSpillThreshold(ctx);
+      }
       prev.ifPresent(p -> init(p, ctx));
     }
 
     return new OResultSet() {
       int currentBatchReturned = 0;
-      int offset = nextElement;
 
       @Override
       public boolean hasNext() {
         if (currentBatchReturned >= nRecords) {
           return false;
         }
+        if (mergeQueue != null) {
+          return !mergeQueue.isEmpty();
+        }
         if (cachedResult.size() <= nextElement) {
           return false;
         }
@@ -60,10 +105,17 @@ public class OrderByStep extends AbstractExecutionStep {
           if (currentBatchReturned >= nRecords) {
             throw new IllegalStateException();
           }
+          if (mergeQueue != null) {
+            if (mergeQueue.isEmpty()) {
+              throw new IllegalStateException();
+            }
+            currentBatchReturned++;
+            return nextMerged();
+          }
           if (cachedResult.size() <= nextElement) {
             throw new IllegalStateException();
           }
-          OResult result = cachedResult.get(offset + currentBatchReturned);
+          OResult result = cachedResult.get(nextElement);
           nextElement++;
           currentBatchReturned++;
           return result;
@@ -108,6 +160,13 @@ public class OrderByStep extends AbstractExecutionStep {
         try {
           cachedResult.add(item);
           sorted = false;
+          if (spillThreshold > 0) {
+            if (!OResultSpillFile.isSpillable(item)) {
+              spillThreshold = 0;
+            } else if (cachedResult.size() >= spillThreshold) {
+              spill(ctx);
+            }
+          }
           //compact, only at twice as the buffer, to avoid to do it at each add
           if (this.maxResults != null && maxResults * 2 < cachedResult.size()) {
             cachedResult.sort((a, b) -> orderBy.compare(a, b, ctx));
@@ -142,6 +201,9 @@ public class OrderByStep extends AbstractExecutionStep {
       if (!sorted) {
         cachedResult.sort((a, b) -> orderBy.compare(a, b, ctx));
       }
+      if (spilledRuns != null) {
+        initMerge(ctx);
+      }
     } finally {
       if (profilingEnabled) {
         cost += (System.nanoTime() - begin);
@@ -150,6 +212,69 @@ public class OrderByStep extends AbstractExecutionStep {
 
   }
 
+  /**
+   * sorts the buffered results and moves them to a new sorted run on disk
+   */
+  private void spill(OCommandContext ctx) {
+    cachedResult.sort((a, b) -> orderBy.compare(a, b, ctx));
+    if (spilledRuns == null) {
+      spilledRuns = new ArrayList<>();
+    }
+    OResultSpillFile run = new OResultSpillFile(ctx);
+    spilledRuns.add(run);
+    for (OResult item : cachedResult) {
+      run.write(item);
+    }
+    cachedResult = new ArrayList<>();
+  }
+
+  private void initMerge(OCommandContext ctx) {
+    // on equal values, results from older runs come first, as in a stable sort
+    mergeQueue = new PriorityQueue<>(spilledRuns.size() + 1, (a, b) -> {
+      int result = orderBy.compare(a.head, b.head, ctx);
+      return result == 0 ? Integer.compare(a.index, b.index) : result;
+    });
+    for (int i = 0; i < spilledRuns.size(); i++) {
+      addToMerge(new SortedRun(i, spilledRuns.get(i).read(), null));
+    }
+    addToMerge(new SortedRun(spilledRuns.size(), null, cachedResult.iterator()));
+  }
+
+  private void addToMerge(SortedRun run) {
+    if (run.head != null) {
+      mergeQueue.add(run);
+    } else {
+      run.close();
+    }
+  }
+
+  private OResult nextMerged() {
+    SortedRun run = mergeQueue.poll();
+    OResult result = run.head;
+    if (run.advance()) {
+      mergeQueue.add(run);
+    } else {
+      run.close();
+      if (run.reader != null) {
+        spilledRuns.get(run.index).delete();
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void close() {
+    if (mergeQueue != null) {
+      mergeQueue.forEach(SortedRun::close);
+      mergeQueue.clear();
+    }
+    if (spilledRuns != null) {
+      spilledRuns.forEach(OResultSpillFile::delete);
+      spilledRuns = null;
+    }
+    super.close();
+  }
+
   @Override
   public String prettyPrint(int depth, int indent) {
     String result = OExecutionStepInternal.getIndent(depth, indent) + "+ " + orderBy;
@@ -157,6 +282,9 @@ public class OrderByStep extends AbstractExecutionStep {
       result += " (" + getCostFormatted() + ")";
     }
     result += (maxResults != null ? "\n  (buffer size: " + maxResults + ")" : "");
+    if (spilledRuns != null) {
+      result += "\n  (sorted runs on disk: " + spilledRuns.size() + ")";
+    }
     return result;
   }
 
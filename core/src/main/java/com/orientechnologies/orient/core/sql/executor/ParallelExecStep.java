@@ -1,21 +1,58 @@
 package com.orientechnologies.orient.core.sql.executor;
 
 import com.orientechnologies.common.concur.OTimeoutException;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseWorkers;
+import com.orientechnologies.orient.core.db.OExecutionThreadLocal;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.exception.OCommandInterruptedException;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Executes a list of sub-plans and returns the union of their results.
+ * <p>
+ * By default the sub-plans are consumed one after the other on the current thread. If {@link
+ * OGlobalConfiguration#QUERY_PARALLEL_EXEC_ENABLED} is set (and there is no active transaction) the sub-plans are executed
+ * concurrently on a bounded number of worker threads, each one with its own copy of the database, and the results are handed
+ * back to the consumer through a bounded queue. In parallel mode the order of the results is not predictable.
+ *
  * @author Luigi Dell'Aquila (l.dellaquila-(at)-orientdb.com)
  */
 public class ParallelExecStep extends AbstractExecutionStep {
+  private static final Object END_OF_WORKER     = new Object();
+  private static final int    WORKER_BATCH_SIZE = 100;
+  private static final long   POLL_TIMEOUT_MS   = 100;
+  private static final long   STOP_TIMEOUT_MS   = 30000;
+
+  /**
+   * true on the threads that are executing a sub-plan, to run nested PARALLEL steps sequentially and avoid starving the pool
+   */
+  private static final ThreadLocal<Boolean> IN_WORKER = new ThreadLocal<>();
+
   private final List<OInternalExecutionPlan> subExecutionPlans;
 
   int current = 0;
   private OResultSet currentResultSet = null;
 
+  private       Boolean                    parallel;
+  private       BlockingQueue<Object>      resultQueue;
+  private final AtomicInteger              nextPlan    = new AtomicInteger();
+  private       ODatabaseWorkers           workers;
+  private int     runningWorkers;
+  private OResult nextParallelResult;
+
   public ParallelExecStep(List<OInternalExecutionPlan> subExecuitonPlans, OCommandContext ctx, boolean profilingEnabled) {
     super(ctx, profilingEnabled);
     this.subExecutionPlans = subExecuitonPlans;
@@ -24,6 +61,15 @@ public class ParallelExecStep extends AbstractExecutionStep {
   @Override
   public OResultSet syncPull(OCommandContext ctx, int nRecords) throws OTimeoutException {
     getPrev().ifPresent(x -> x.syncPull(ctx, nRecords));
+    if (parallel == null) {
+      parallel = canRunParallel(ctx);
+      if (parallel) {
+        startWorkers(ctx);
+      }
+    }
+    if (parallel) {
+      return syncPullParallel(nRecords);
+    }
     return new OResultSet() {
       int localCount = 0;
 
@@ -86,6 +132,211 @@ public class ParallelExecStep extends AbstractExecutionStep {
     } while (!currentResultSet.hasNext());
   }
 
+  private boolean canRunParallel(OCommandContext ctx) {
+    if (subExecutionPlans.size() < 2 || Boolean.TRUE.equals(IN_WORKER.get())) {
+      return false;
+    }
+    if (!(ctx instanceof OBasicCommandContext) || !(ctx.getDatabase() instanceof ODatabaseDocumentInternal)) {
+      return false;
+    }
+    ODatabaseDocumentInternal db = (ODatabaseDocumentInternal) ctx.getDatabase();
+    if (!db.getConfiguration().getValueAsBoolean(OGlobalConfiguration.QUERY_PARALLEL_EXEC_ENABLED)) {
+      return false;
+    }
+    if (db.getTransaction().isActive()) {
+      // transaction changes are visible only to the current database instance
+      return false;
+    }
+    for (OInternalExecutionPlan plan : subExecutionPlans) {
+      if (!(plan instanceof OSelectExecutionPlan)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void startWorkers(OCommandContext ctx) {
+    ODatabaseDocumentInternal db = (ODatabaseDocumentInternal) ctx.getDatabase();
+    int maxThreads = db.getConfiguration().getValueAsInteger(OGlobalConfiguration.QUERY_PARALLEL_EXEC_THREADS);
+    if (maxThreads <= 0) {
+      maxThreads = Runtime.getRuntime().availableProcessors();
+    }
+    int queueSize = db.getConfiguration().getValueAsInteger(OGlobalConfiguration.QUERY_PARALLEL_RESULT_QUEUE_SIZE);
+    resultQueue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+    runningWorkers = Math.min(maxThreads, subExecutionPlans.size());
+
+    // CREATE A SNAPSHOT TO AVOID DEADLOCKS
+    db.getMetadata().getSchema().makeSnapshot();
+
+    workers = new ODatabaseWorkers(db);
+    try {
+      for (int i = 0; i < runningWorkers; i++) {
+        OBasicCommandContext workerCtx = (OBasicCommandContext) ctx.copy();
+        workerCtx.setParentWithoutOverridingChild(ctx);
+        workerCtx.setInputParameters(ctx.getInputParameters());
+        workers.start(localDb -> runWorker(localDb, workerCtx));
+      }
+    } catch (RuntimeException e) {
+      stopWorkers();
+      awaitWorkers();
+      throw e;
+    }
+  }
+
+  private void runWorker(ODatabaseDocumentInternal localDb, OBasicCommandContext workerCtx) throws InterruptedException {
+    IN_WORKER.set(true);
+    try {
+      workerCtx.setDatabase(localDb);
+      int planIndex;
+      while (!workers.isStopped() && (planIndex = nextPlan.getAndIncrement()) < subExecutionPlans.size()) {
+        OExecutionStepInternal lastStep = ((OSelectExecutionPlan) subExecutionPlans.get(planIndex)).lastStep;
+        if (lastStep == null) {
+          continue;
+        }
+        boolean hasMore = true;
+        while (hasMore && !workers.isStopped()) {
+          OResultSet partial = lastStep.syncPull(workerCtx, WORKER_BATCH_SIZE);
+          hasMore = false;
+          while (!workers.isStopped() && partial.hasNext()) {
+            hasMore = true;
+            enqueue(partial.next());
+          }
+          partial.close();
+        }
+      }
+    } finally {
+      IN_WORKER.remove();
+    }
+    // A FAILED WORKER DOES NOT SIGNAL ITS END, SO THE CONSUMER DOES NOT COMPLETE BEFORE IT SEES THE FAILURE
+    enqueue(END_OF_WORKER);
+  }
+
+  private void enqueue(Object item) throws InterruptedException {
+    while (!workers.isStopped()) {
+      if (resultQueue.offer(item, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        return;
+      }
+    }
+  }
+
+  private OResultSet syncPullParallel(int nRecords) {
+    return new OResultSet() {
+      int localCount = 0;
+
+      @Override
+      public boolean hasNext() {
+        if (localCount >= nRecords) {
+          return false;
+        }
+        if (nextParallelResult == null) {
+          nextParallelResult = fetchNextParallel();
+        }
+        return nextParallelResult != null;
+      }
+
+      @Override
+      public OResult next() {
+        if (!hasNext()) {
+          throw new IllegalStateException();
+        }
+        OResult result = nextParallelResult;
+        nextParallelResult = null;
+        localCount++;
+        return result;
+      }
+
+      @Override
+      public void close() {
+
+      }
+
+      @Override
+      public Optional<OExecutionPlan> getExecutionPlan() {
+        return null;
+      }
+
+      @Override
+      public Map<String, Long> getQueryStats() {
+        return null;
+      }
+    };
+  }
+
+  private OResult fetchNextParallel() {
+    while (!timedOut) {
+      checkWorkerError();
+      if (runningWorkers == 0 && resultQueue.isEmpty()) {
+        return null;
+      }
+      if (OExecutionThreadLocal.isInterruptCurrentOperation()) {
+        stopWorkers();
+        throw new OCommandInterruptedException("The command has been interrupted");
+      }
+      Object item;
+      try {
+        item = resultQueue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        stopWorkers();
+        throw OException.wrapException(new OCommandInterruptedException("The command has been interrupted"), e);
+      }
+      if (item == END_OF_WORKER) {
+        runningWorkers--;
+      } else if (item != null) {
+        return (OResult) item;
+      }
+    }
+    return null;
+  }
+
+  private void checkWorkerError() {
+    Throwable error = workers.getError();
+    if (error != null) {
+      stopWorkers();
+      if (error instanceof RuntimeException) {
+        throw (RuntimeException) error;
+      }
+      throw OException.wrapException(new OCommandExecutionException("Error on executing parallel sub-plan"), error);
+    }
+  }
+
+  /**
+   * Signals the workers to stop, they complete the batch they are pulling.
+   */
+  private void stopWorkers() {
+    if (workers != null) {
+      workers.stop();
+    }
+    if (resultQueue != null) {
+      resultQueue.clear();
+    }
+  }
+
+  /**
+   * Waits for the workers to release their database copies, so the database can be closed or dropped once the step is closed.
+   * The wait is bounded in case a sub-plan does not return.
+   */
+  private void awaitWorkers() {
+    if (workers != null && !workers.stopAndWait(STOP_TIMEOUT_MS)) {
+      OLogManager.instance()
+          .warn(this, "Parallel sub-plans are still running after %d ms from the end of the query", STOP_TIMEOUT_MS);
+    }
+  }
+
+  @Override
+  public void sendTimeout() {
+    super.sendTimeout();
+    stopWorkers();
+    awaitWorkers();
+  }
+
+  @Override
+  public void close() {
+    stopWorkers();
+    awaitWorkers();
+    super.close();
+  }
+
   @Override
   public String prettyPrint(int depth, int indent) {
     String result = "";
@@ -213,6 +213,11 @@ public class OBaseExpression extends OMathExpression {
     return identifier != null && modifier == null && identifier.isBaseIdentifier();
   }
 
+  @Override
+  public boolean isLiteralOrParameter() {
+    return identifier == null && modifier == null && (number != null || inputParam != null || string != null);
+  }
+
   public boolean isEarlyCalculated() {
     if (number != null || inputParam != null || string != null) {
       return true;
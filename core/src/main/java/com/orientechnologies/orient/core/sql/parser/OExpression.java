@@ -149,6 +149,17 @@ public class OExpression extends SimpleNode {
     return false;
   }
 
+  /**
+   * @return <code>true</code> if the expression is a number, a string or an input parameter, so its value does not depend on
+   * the current record and on the moment of evaluation
+   */
+  public boolean isLiteralOrParameter() {
+    if (mathExpression != null) {
+      return mathExpression.isLiteralOrParameter();
+    }
+    return value instanceof Number || value instanceof String;
+  }
+
   public boolean isEarlyCalculated() {
     if (this.mathExpression != null) {
       return this.mathExpression.isEarlyCalculated();
@@ -829,6 +829,17 @@ public class OMathExpression extends SimpleNode {
     return false;
   }
 
+  /**
+   * @return <code>true</code> if the expression is a number, a string or an input parameter, so its value does not depend on
+   * the current record and on the moment of evaluation
+   */
+  public boolean isLiteralOrParameter() {
+    if (childExpressions.size() == 1) {
+      return childExpressions.get(0).isLiteralOrParameter();
+    }
+    return false;
+  }
+
   public boolean isEarlyCalculated() {
     for (OMathExpression exp : childExpressions) {
       if (!exp.isEarlyCalculated()) {
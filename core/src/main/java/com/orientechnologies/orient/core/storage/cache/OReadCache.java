@@ -80,6 +80,15 @@ public interface OReadCache {
 
   long getUsedMemory();
 
+  /**
+   * Changes amount of memory which may be used by the cache.
+   *
+   * @param readCacheMaxMemory New maximum size of cache in bytes.
+   *
+   * @throws IllegalStateException In case of new size of cache is too small to hold existing pinned pages.
+   */
+  void changeMaximumAmountOfMemory(long readCacheMaxMemory) throws IllegalStateException;
+
   void clear();
 
   void truncateFile(long fileId, OWriteCache writeCache) throws IOException;
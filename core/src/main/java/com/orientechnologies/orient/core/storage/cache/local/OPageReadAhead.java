@@ -0,0 +1,297 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.orient.core.storage.cache.local;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.thread.OThreadPoolExecutorWithLogging;
+import com.orientechnologies.common.util.OUncaughtExceptionHandler;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.storage.OStorageAbstract;
+import com.orientechnologies.orient.core.storage.cache.OWriteCache;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detects sequential reads of the pages of files and loads next pages of the file into the read cache in background, so
+ * sequential scans of clusters and indexes process already loaded pages while next pages are read from the disk.
+ * <p>
+ * Read of the file is considered sequential once {@link OGlobalConfiguration#DISK_CACHE_READ_AHEAD_THRESHOLD} pages which follow
+ * each other were read, repeated reads of the same page are ignored. Pages are prefetched by batches of
+ * {@link OGlobalConfiguration#DISK_CACHE_READ_AHEAD_PAGES} pages which are read from the file by single vectored read, next batch
+ * is requested once reader passed half of the previous one. Only single batch of the file is loaded at the same time, if queue
+ * of the read ahead threads is full the batch is skipped and pages are loaded by the reader itself.
+ */
+public final class OPageReadAhead {
+  /**
+   * Loads pages requested by read ahead into the read cache.
+   */
+  public interface PageLoader {
+    /**
+     * Loads pages into the cache without acquisition of them, pages which are already cached are not loaded again. Implementation
+     * has to check {@link Request#isValid()} under the locks which are acquired by truncation, close and deletion of the file, so
+     * pages of removed file are not added back into the cache.
+     *
+     * @return amount of pages which were loaded.
+     */
+    int prefetch(Request request) throws Exception;
+  }
+
+  private static final ThreadPoolExecutor executor = createExecutor();
+
+  private final ConcurrentMap<Long, FileState> files = new ConcurrentHashMap<>();
+
+  private final PageLoader loader;
+  private final int        pages;
+  private final int        threshold;
+
+  private final AtomicLong requests        = new AtomicLong();
+  private final AtomicLong prefetchedPages = new AtomicLong();
+
+  public OPageReadAhead(final PageLoader loader) {
+    this(loader, OGlobalConfiguration.DISK_CACHE_READ_AHEAD_PAGES.getValueAsInteger(),
+        OGlobalConfiguration.DISK_CACHE_READ_AHEAD_THRESHOLD.getValueAsInteger());
+  }
+
+  public OPageReadAhead(final PageLoader loader, final int pages, final int threshold) {
+    this.loader = loader;
+    this.pages = pages;
+    this.threshold = Math.max(1, threshold);
+  }
+
+  public boolean isEnabled() {
+    return pages > 0;
+  }
+
+  /**
+   * Records read of the page and requests load of the next pages of the file if the file is read sequentially.
+   */
+  public void onPageRead(final long fileId, final long pageIndex, final OWriteCache writeCache, final boolean verifyChecksums) {
+    if (pages <= 0)
+      return;
+
+    FileState state = files.get(fileId);
+    if (state == null) {
+      state = new FileState();
+      final FileState oldState = files.putIfAbsent(fileId, state);
+      if (oldState != null)
+        state = oldState;
+    }
+
+    final Request request = state.onPageRead(fileId, pageIndex, writeCache, verifyChecksums);
+    if (request == null)
+      return;
+
+    requests.incrementAndGet();
+    try {
+      executor.execute(request);
+    } catch (RejectedExecutionException ignore) {
+      request.state.cancel(request.startPageIndex);
+    }
+  }
+
+  /**
+   * Forgets about reads of the file, requests which are in progress become invalid. Should be called on truncation, close and
+   * deletion of the file under the same lock which is checked by {@link PageLoader}.
+   */
+  public void removeFile(final long fileId) {
+    files.remove(fileId);
+  }
+
+  public void clear() {
+    files.clear();
+  }
+
+  /**
+   * @return amount of batches of pages which were requested to load.
+   */
+  public long getRequests() {
+    return requests.get();
+  }
+
+  /**
+   * @return amount of pages which were loaded into the cache by read ahead.
+   */
+  public long getPrefetchedPages() {
+    return prefetchedPages.get();
+  }
+
+  /**
+   * Batch of pages which should be loaded into the cache.
+   */
+  public final class Request implements Runnable {
+    private final FileState   state;
+    private final long        fileId;
+    private final long        startPageIndex;
+    private final int         pageCount;
+    private final OWriteCache writeCache;
+    private final boolean     verifyChecksums;
+
+    private Request(final FileState state, final long fileId, final long startPageIndex, final int pageCount,
+        final OWriteCache writeCache, final boolean verifyChecksums) {
+      this.state = state;
+      this.fileId = fileId;
+      this.startPageIndex = startPageIndex;
+      this.pageCount = pageCount;
+      this.writeCache = writeCache;
+      this.verifyChecksums = verifyChecksums;
+    }
+
+    public long getFileId() {
+      return fileId;
+    }
+
+    public long getStartPageIndex() {
+      return startPageIndex;
+    }
+
+    public int getPageCount() {
+      return pageCount;
+    }
+
+    public OWriteCache getWriteCache() {
+      return writeCache;
+    }
+
+    public boolean isVerifyChecksums() {
+      return verifyChecksums;
+    }
+
+    /**
+     * @return <code>false</code> if the file was truncated, closed or deleted after the request was created.
+     */
+    public boolean isValid() {
+      return files.get(fileId) == state;
+    }
+
+    @Override
+    public void run() {
+      int loaded = 0;
+      try {
+        loaded = loader.prefetch(this);
+      } catch (Exception e) {
+        // PAGES WILL BE LOADED BY THE READER ITSELF, FAILURES OF THE LOAD ARE REPORTED TO IT
+        OLogManager.instance().debug(this, "Read ahead of pages of file %d was not completed", e, fileId);
+      } finally {
+        state.completed();
+      }
+
+      prefetchedPages.addAndGet(loaded);
+    }
+  }
+
+  /**
+   * Sequential read detector of single file. State is changed only by thread which managed to acquire it, threads which read the
+   * file concurrently skip the detection, so readers do not wait for each other.
+   */
+  private final class FileState {
+    private final AtomicBoolean busy     = new AtomicBoolean();
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+
+    private long lastPageIndex   = -1;
+    private int  sequentialPages;
+    private long prefetchedUpTo  = -1;
+
+    private Request onPageRead(final long fileId, final long pageIndex, final OWriteCache writeCache,
+        final boolean verifyChecksums) {
+      if (!busy.compareAndSet(false, true))
+        return null;
+
+      try {
+        if (pageIndex == lastPageIndex)
+          return null;
+
+        if (pageIndex == lastPageIndex + 1)
+          sequentialPages++;
+        else {
+          sequentialPages = 1;
+          prefetchedUpTo = -1;
+        }
+
+        lastPageIndex = pageIndex;
+
+        if (sequentialPages < threshold || prefetchedUpTo - pageIndex > pages / 2)
+          return null;
+
+        if (!inFlight.compareAndSet(false, true))
+          return null;
+
+        final long startPageIndex = Math.max(pageIndex + 1, prefetchedUpTo);
+        final long endPageIndex = pageIndex + 1 + pages;
+        prefetchedUpTo = endPageIndex;
+
+        return new Request(this, fileId, startPageIndex, (int) (endPageIndex - startPageIndex), writeCache, verifyChecksums);
+      } finally {
+        busy.set(false);
+      }
+    }
+
+    private void cancel(final long startPageIndex) {
+      while (!busy.compareAndSet(false, true))
+        Thread.yield();
+
+      try {
+        if (prefetchedUpTo > startPageIndex)
+          prefetchedUpTo = startPageIndex;
+      } finally {
+        busy.set(false);
+      }
+
+      completed();
+    }
+
+    private void completed() {
+      inFlight.set(false);
+    }
+  }
+
+  private static ThreadPoolExecutor createExecutor() {
+    final int threads = Math.max(1, OGlobalConfiguration.DISK_CACHE_READ_AHEAD_THREADS.getValueAsInteger());
+
+    final ThreadPoolExecutor executor = new OThreadPoolExecutorWithLogging(threads, threads, 60L, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(threads * 64), new ReadAheadThreadFactory());
+    executor.allowCoreThreadTimeOut(true);
+
+    return executor;
+  }
+
+  private static final class ReadAheadThreadFactory implements ThreadFactory {
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      final Thread thread = new Thread(OStorageAbstract.storageThreadGroup, r);
+
+      thread.setDaemon(true);
+      thread.setName("OrientDB Page Read Ahead #" + counter.incrementAndGet());
+      thread.setUncaughtExceptionHandler(new OUncaughtExceptionHandler());
+
+      return thread;
+    }
+  }
+}
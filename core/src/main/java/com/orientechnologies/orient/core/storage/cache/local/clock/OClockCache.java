@@ -0,0 +1,990 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.orient.core.storage.cache.local.clock;
+
+import com.orientechnologies.common.concur.lock.OInterruptedException;
+import com.orientechnologies.common.concur.lock.OPartitionedLockManager;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.types.OModifiableBoolean;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.exception.OAllCacheEntriesAreUsedException;
+import com.orientechnologies.orient.core.exception.OReadCacheException;
+import com.orientechnologies.orient.core.exception.OStorageException;
+import com.orientechnologies.orient.core.storage.cache.OAbstractWriteCache;
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.cache.OCachePointer;
+import com.orientechnologies.orient.core.storage.cache.OReadCache;
+import com.orientechnologies.orient.core.storage.cache.OWriteCache;
+import com.orientechnologies.orient.core.storage.cache.local.OPageReadAhead;
+import com.orientechnologies.orient.core.storage.cache.local.twoq.O2QCache;
+import com.orientechnologies.orient.core.storage.impl.local.statistic.OSessionStoragePerformanceStatistic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read cache which uses GCLOCK replacement policy instead of 2Q queues of {@link O2QCache}.
+ * <p>
+ * Pages are kept in a single concurrent hash map, page which is found in the map is acquired by CAS of its usages counter and
+ * access to the page is recorded by increment of its frequency counter, so page hits do not acquire any lock and do not change
+ * any shared structure except of the entry itself. Locks of files and pages are acquired only when page is absent in cache and
+ * has to be loaded from the write cache, or when page is removed from the cache.
+ * <p>
+ * Pages are evicted by the clock hand which passes over the pages in order of their addition into the cache, decrements frequency
+ * of each page and removes the first page which was not accessed since the previous pass and is not used. Only single thread
+ * moves the clock hand, other threads which load pages continue their work unless cache overflow is too big.
+ *
+ * @see OGlobalConfiguration#DISK_CACHE_READ_CACHE
+ */
+public class OClockCache implements OReadCache {
+  /**
+   * Name of this implementation of read cache.
+   *
+   * @see OGlobalConfiguration#DISK_CACHE_READ_CACHE
+   */
+  public static final String NAME = "CLOCK";
+
+  /**
+   * Maximum amount of times when we will show message that limit of pinned pages was exhausted.
+   */
+  private static final int MAX_AMOUNT_OF_WARNINGS_PINNED_PAGES = 10;
+
+  /**
+   * Maximum percent of pinned pages which may be contained in this cache.
+   */
+  private static final int MAX_PERCENT_OF_PINED_PAGES = 50;
+
+  /**
+   * Amount of pages on which cache may exceed its maximum size before threads which load pages will wait for eviction of pages.
+   */
+  private static final int MAX_CACHE_OVERFLOW = Runtime.getRuntime().availableProcessors() * 8;
+
+  private final int pageSize;
+
+  /**
+   * Counts how much time we warned user that limit of amount of pinned pages is reached.
+   */
+  private final AtomicInteger pinnedPagesWarningCounter = new AtomicInteger();
+
+  private final AtomicReference<MemoryData> memoryDataContainer = new AtomicReference<>();
+
+  /**
+   * Maximum percent of pinned pages which may be hold in this cache.
+   *
+   * @see OGlobalConfiguration#DISK_CACHE_PINNED_PAGES
+   */
+  private final int percentOfPinnedPages;
+
+  private final ConcurrentMap<PageKey, OClockCacheEntry> data        = new ConcurrentHashMap<>();
+  private final ConcurrentMap<PageKey, OClockCacheEntry> pinnedPages = new ConcurrentHashMap<>();
+
+  /**
+   * Contains all pages in cache for given file.
+   */
+  private final ConcurrentMap<Long, Set<Long>> filePages = new ConcurrentHashMap<>();
+
+  /**
+   * Pages in order of the clock hand pass, may contain pages which were already removed from the cache, such pages are thrown away
+   * by the clock hand.
+   */
+  private final ConcurrentLinkedQueue<OClockCacheEntry> clock = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Amount of pages in {@link #data}.
+   */
+  private final AtomicInteger size = new AtomicInteger();
+
+  private final ReentrantLock                    evictionLock    = new ReentrantLock();
+  private final OPartitionedLockManager<Object>  fileLockManager = new OPartitionedLockManager<>(true);
+  private final OPartitionedLockManager<PageKey> pageLockManager = new OPartitionedLockManager<>();
+
+  private final OPageReadAhead readAhead;
+
+  /**
+   * @param readCacheMaxMemory   Maximum amount of direct memory which can allocated by disk cache in bytes.
+   * @param pageSize             Cache page size in bytes.
+   * @param checkMinSize         If this flat is set size of cache may be {@link O2QCache#MIN_CACHE_SIZE} or bigger.
+   * @param percentOfPinnedPages Maximum percent of pinned pages which may be hold by this cache.
+   *
+   * @see #MAX_PERCENT_OF_PINED_PAGES
+   */
+  public OClockCache(final long readCacheMaxMemory, final int pageSize, final boolean checkMinSize,
+      final int percentOfPinnedPages) {
+    if (percentOfPinnedPages > MAX_PERCENT_OF_PINED_PAGES)
+      throw new IllegalArgumentException(
+          "Percent of pinned pages cannot be more than " + MAX_PERCENT_OF_PINED_PAGES + " but passed value is "
+              + percentOfPinnedPages);
+
+    this.percentOfPinnedPages = percentOfPinnedPages;
+    this.pageSize = pageSize;
+    this.readAhead = new OPageReadAhead(this::prefetch);
+
+    int normalizedSize = normalizeMemory(readCacheMaxMemory, pageSize);
+
+    if (checkMinSize && normalizedSize < O2QCache.MIN_CACHE_SIZE)
+      normalizedSize = O2QCache.MIN_CACHE_SIZE;
+
+    memoryDataContainer.set(new MemoryData(normalizedSize, 0));
+  }
+
+  @Override
+  public long addFile(String fileName, OWriteCache writeCache) throws IOException {
+    final long fileId = writeCache.addFile(fileName);
+    final Set<Long> oldPages = filePages.put(fileId, Collections.newSetFromMap(new ConcurrentHashMap<>()));
+    assert oldPages == null || oldPages.isEmpty();
+
+    return fileId;
+  }
+
+  @Override
+  public long addFile(String fileName, long fileId, OWriteCache writeCache) throws IOException {
+    fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+    final long fid = writeCache.addFile(fileName, fileId);
+    final Set<Long> oldPages = filePages.put(fid, Collections.newSetFromMap(new ConcurrentHashMap<>()));
+    assert oldPages == null || oldPages.isEmpty();
+
+    return fid;
+  }
+
+  @Override
+  public OCacheEntry loadForWrite(long fileId, long pageIndex, boolean checkPinnedPages, OWriteCache writeCache, int pageCount,
+      boolean verifyChecksums) throws IOException {
+    final OCacheEntry cacheEntry = doLoad(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, verifyChecksums);
+
+    if (cacheEntry != null) {
+      cacheEntry.acquireExclusiveLock();
+      writeCache.updateDirtyPagesTable(cacheEntry.getCachePointer());
+    }
+
+    return cacheEntry;
+  }
+
+  @Override
+  public OCacheEntry loadForRead(long fileId, long pageIndex, boolean checkPinnedPages, OWriteCache writeCache, int pageCount,
+      boolean verifyChecksums) throws IOException {
+    final OCacheEntry cacheEntry = doLoad(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, verifyChecksums);
+
+    if (cacheEntry != null) {
+      cacheEntry.acquireSharedLock();
+
+      if (readAhead.isEnabled())
+        readAhead.onPageRead(cacheEntry.getFileId(), pageIndex, writeCache, verifyChecksums);
+    }
+
+    return cacheEntry;
+  }
+
+  /**
+   * Unlike {@link O2QCache} page is passed to the write cache on each release of dirty page, not only on the release by the last
+   * user. Page may be acquired concurrently without lock, so the last user can not be detected atomically, and
+   * {@link OWriteCache#store(long, long, OCachePointer)} of already stored page is a no-op. Dirty flag is cleared before the page
+   * is stored, so changes of concurrent user which marks page dirty are not lost.
+   */
+  @Override
+  public void releaseFromWrite(OCacheEntry cacheEntry, OWriteCache writeCache) {
+    cacheEntry.releaseExclusiveLock();
+
+    CountDownLatch latch = null;
+
+    if (cacheEntry.isDirty()) {
+      final OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic = writeCache.getPerformanceStatisticManager()
+          .getSessionPerformanceStatistic();
+
+      if (sessionStoragePerformanceStatistic != null) {
+        sessionStoragePerformanceStatistic.startPageWriteInCacheTimer();
+      }
+
+      try {
+        cacheEntry.clearDirty();
+        latch = writeCache.store(cacheEntry.getFileId(), cacheEntry.getPageIndex(), cacheEntry.getCachePointer());
+      } finally {
+        if (sessionStoragePerformanceStatistic != null) {
+          sessionStoragePerformanceStatistic.stopPageWriteInCacheTimer();
+        }
+      }
+    }
+
+    cacheEntry.decrementUsages();
+
+    if (latch != null) {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.interrupted();
+        throw OException.wrapException(new OInterruptedException("File flush was interrupted"), e);
+      } catch (Exception e) {
+        throw OException.wrapException(new OReadCacheException("File flush was abnormally terminated"), e);
+      }
+    }
+  }
+
+  @Override
+  public void releaseFromRead(OCacheEntry cacheEntry, OWriteCache writeCache) {
+    cacheEntry.releaseSharedLock();
+    cacheEntry.decrementUsages();
+  }
+
+  @Override
+  public void pinPage(final OCacheEntry cacheEntry) {
+    MemoryData memoryData = memoryDataContainer.get();
+
+    if ((100 * (memoryData.pinnedPages + 1)) / memoryData.maxSize > percentOfPinnedPages) {
+      if (pinnedPagesWarningCounter.get() < MAX_AMOUNT_OF_WARNINGS_PINNED_PAGES) {
+
+        final long warnings = pinnedPagesWarningCounter.getAndIncrement();
+        if (warnings < MAX_AMOUNT_OF_WARNINGS_PINNED_PAGES) {
+          OLogManager.instance().warn(this, "Maximum amount of pinned pages is reached, given page " + cacheEntry
+              + " will not be marked as pinned which may lead to performance degradation. You may consider to increase the percent of pinned pages "
+              + "by changing the property '" + OGlobalConfiguration.DISK_CACHE_PINNED_PAGES.getKey() + "'");
+        }
+      }
+
+      return;
+    }
+
+    final PageKey pageKey = new PageKey(cacheEntry.getFileId(), cacheEntry.getPageIndex());
+    boolean pinned = false;
+
+    final Lock fileLock = fileLockManager.acquireSharedLock(cacheEntry.getFileId());
+    try {
+      final Lock pageLock = pageLockManager.acquireExclusiveLock(pageKey);
+      try {
+        //noinspection SuspiciousMethodCalls
+        if (data.remove(pageKey, cacheEntry)) {
+          size.decrementAndGet();
+          pinnedPages.put(pageKey, (OClockCacheEntry) cacheEntry);
+          pinned = true;
+        }
+      } finally {
+        pageLock.unlock();
+      }
+    } finally {
+      fileLock.unlock();
+    }
+
+    if (!pinned)
+      return;
+
+    MemoryData newMemoryData = new MemoryData(memoryData.maxSize, memoryData.pinnedPages + 1);
+
+    while (!memoryDataContainer.compareAndSet(memoryData, newMemoryData)) {
+      memoryData = memoryDataContainer.get();
+      newMemoryData = new MemoryData(memoryData.maxSize, memoryData.pinnedPages + 1);
+    }
+
+    evictPagesIfNeeded();
+  }
+
+  /**
+   * Changes amount of memory which may be used by given cache. This method may consume many resources if amount of memory provided
+   * in parameter is much less than current amount of memory.
+   *
+   * @param readCacheMaxMemory New maximum size of cache in bytes.
+   *
+   * @throws IllegalStateException In case of new size of disk cache is too small to hold existing pinned pages.
+   */
+  @Override
+  public void changeMaximumAmountOfMemory(final long readCacheMaxMemory) throws IllegalStateException {
+    MemoryData memoryData;
+    MemoryData newMemoryData;
+
+    final int newMemorySize = normalizeMemory(readCacheMaxMemory, pageSize);
+    do {
+      memoryData = memoryDataContainer.get();
+
+      if (memoryData.maxSize == newMemorySize)
+        return;
+
+      if ((100 * memoryData.pinnedPages / newMemorySize) > percentOfPinnedPages) {
+        throw new IllegalStateException("Cannot decrease amount of memory used by disk cache "
+            + "because limit of pinned pages will be more than allowed limit " + percentOfPinnedPages);
+      }
+
+      newMemoryData = new MemoryData(newMemorySize, memoryData.pinnedPages);
+    } while (!memoryDataContainer.compareAndSet(memoryData, newMemoryData));
+
+    if (newMemorySize < memoryData.maxSize)
+      evictPagesIfNeeded();
+
+    OLogManager.instance()
+        .info(this, "Disk cache size was changed from " + memoryData.maxSize + " pages to " + newMemorySize + " pages");
+  }
+
+  private OCacheEntry doLoad(long fileId, final long pageIndex, final boolean checkPinnedPages, final OWriteCache writeCache,
+      final int pageCount, final boolean verifyChecksums) throws IOException {
+    if (pageCount < 1)
+      throw new IllegalArgumentException(
+          "Amount of pages to load from cache should be not less than 1 but passed value is " + pageCount);
+
+    final OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic = writeCache.getPerformanceStatisticManager()
+        .getSessionPerformanceStatistic();
+
+    if (sessionStoragePerformanceStatistic != null) {
+      sessionStoragePerformanceStatistic.startPageReadFromCacheTimer();
+    }
+
+    try {
+      fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+      final PageKey pageKey = new PageKey(fileId, pageIndex);
+
+      OClockCacheEntry cacheEntry = getAndAcquire(pageKey, checkPinnedPages);
+      if (cacheEntry != null) {
+        if (sessionStoragePerformanceStatistic != null)
+          sessionStoragePerformanceStatistic.incrementPageAccessOnCacheLevel(true);
+
+        return cacheEntry;
+      }
+
+      final OModifiableBoolean cacheHit = new OModifiableBoolean(false);
+
+      final Lock fileLock = fileLockManager.acquireSharedLock(fileId);
+      try {
+        cacheEntry = loadAndAcquire(pageKey, false, writeCache, pageCount, cacheHit, verifyChecksums);
+      } finally {
+        fileLock.unlock();
+      }
+
+      if (cacheEntry == null)
+        return null;
+
+      if (sessionStoragePerformanceStatistic != null)
+        sessionStoragePerformanceStatistic.incrementPageAccessOnCacheLevel(cacheHit.getValue());
+
+      try {
+        evictPagesIfNeeded();
+      } catch (RuntimeException e) {
+        assert !cacheEntry.isDirty();
+
+        cacheEntry.decrementUsages();
+        throw e;
+      }
+
+      return cacheEntry;
+    } finally {
+      if (sessionStoragePerformanceStatistic != null) {
+        sessionStoragePerformanceStatistic.stopPageReadFromCacheTimer();
+      }
+    }
+  }
+
+  /**
+   * Lock free path of page load.
+   *
+   * @return Acquired page or <code>null</code> if page is absent in cache.
+   */
+  private OClockCacheEntry getAndAcquire(final PageKey pageKey, final boolean checkPinnedPages) {
+    OClockCacheEntry cacheEntry;
+
+    if (checkPinnedPages) {
+      cacheEntry = pinnedPages.get(pageKey);
+      if (cacheEntry != null && cacheEntry.acquire())
+        return cacheEntry;
+    }
+
+    cacheEntry = data.get(pageKey);
+    if (cacheEntry != null && cacheEntry.acquire()) {
+      cacheEntry.recordAccess();
+      return cacheEntry;
+    }
+
+    return null;
+  }
+
+  /**
+   * Loads page from the write cache if it is absent in read cache, lock of the file should be acquired by caller.
+   *
+   * @return Acquired page or <code>null</code> if page is absent in the file and <code>addNewPages</code> is <code>false</code>.
+   */
+  private OClockCacheEntry loadAndAcquire(final PageKey pageKey, final boolean addNewPages, final OWriteCache writeCache,
+      final int pageCount, final OModifiableBoolean cacheHit, final boolean verifyChecksums) throws IOException {
+    final PageKey[] pageKeys = new PageKey[pageCount];
+    for (int i = 0; i < pageKeys.length; i++) {
+      pageKeys[i] = new PageKey(pageKey.fileId, pageKey.pageIndex + i);
+    }
+
+    final Lock[] pageLocks = pageLockManager.acquireExclusiveLocksInBatch(pageKeys);
+    try {
+      //page could be loaded by other thread while we waited for the lock, pinned pages are checked because page which is not found
+      //in the cache is loaded from disk, so it would be duplicated otherwise
+      OClockCacheEntry cacheEntry = pinnedPages.get(pageKey);
+      if (cacheEntry == null) {
+        cacheEntry = data.get(pageKey);
+        if (cacheEntry != null)
+          cacheEntry.recordAccess();
+      }
+
+      if (cacheEntry != null) {
+        cacheHit.setValue(true);
+        cacheEntry.incrementUsages();
+
+        return cacheEntry;
+      }
+
+      final OCachePointer[] dataPointers = writeCache
+          .load(pageKey.fileId, pageKey.pageIndex, pageCount, addNewPages, cacheHit, verifyChecksums);
+      if (dataPointers.length == 0)
+        return null;
+
+      cacheEntry = new OClockCacheEntry(pageKey.fileId, pageKey.pageIndex, dataPointers[0]);
+      cacheEntry.incrementUsages();
+      addEntry(pageKey, cacheEntry);
+
+      for (int n = 1; n < dataPointers.length; n++) {
+        final OCachePointer dataPointer = dataPointers[n];
+        final PageKey key = new PageKey(dataPointer.getFileId(), dataPointer.getPageIndex());
+
+        if (pinnedPages.containsKey(key) || data.containsKey(key)) {
+          dataPointer.decrementReadersReferrer();
+        } else {
+          addEntry(key, new OClockCacheEntry(key.fileId, key.pageIndex, dataPointer));
+        }
+      }
+
+      return cacheEntry;
+    } finally {
+      for (Lock pageLock : pageLocks) {
+        pageLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Loads pages requested by {@link OPageReadAhead} into the cache without acquisition of them. Only the pages which follow each
+   * other and are absent in the cache are loaded. Amount of loaded pages is limited by eighth part of the cache, so prefetched
+   * pages do not push out the working set of the cache.
+   */
+  private int prefetch(final OPageReadAhead.Request request) throws IOException {
+    final long fileId = request.getFileId();
+    final int pageCount = Math.min(request.getPageCount(), memoryDataContainer.get().getClockSize() / 8);
+    if (pageCount < 1)
+      return 0;
+
+    final OCachePointer[] dataPointers;
+
+    final Lock fileLock = fileLockManager.acquireSharedLock(fileId);
+    try {
+      if (!request.isValid())
+        return 0;
+
+      final PageKey[] pageKeys = new PageKey[pageCount];
+      for (int i = 0; i < pageKeys.length; i++) {
+        pageKeys[i] = new PageKey(fileId, request.getStartPageIndex() + i);
+      }
+
+      final Lock[] pageLocks = pageLockManager.acquireExclusiveLocksInBatch(pageKeys);
+      try {
+        int start = 0;
+        while (start < pageCount && isCached(pageKeys[start]))
+          start++;
+
+        int end = start;
+        while (end < pageCount && !isCached(pageKeys[end]))
+          end++;
+
+        if (start == end)
+          return 0;
+
+        dataPointers = request.getWriteCache()
+            .load(fileId, pageKeys[start].pageIndex, end - start, false, new OModifiableBoolean(), request.isVerifyChecksums());
+
+        for (OCachePointer dataPointer : dataPointers) {
+          final PageKey key = new PageKey(dataPointer.getFileId(), dataPointer.getPageIndex());
+          addEntry(key, new OClockCacheEntry(key.fileId, key.pageIndex, dataPointer));
+        }
+      } finally {
+        for (Lock pageLock : pageLocks) {
+          pageLock.unlock();
+        }
+      }
+    } finally {
+      fileLock.unlock();
+    }
+
+    evictPagesIfNeeded();
+
+    return dataPointers.length;
+  }
+
+  private boolean isCached(final PageKey pageKey) {
+    return data.containsKey(pageKey) || pinnedPages.containsKey(pageKey);
+  }
+
+  private void addEntry(final PageKey pageKey, final OClockCacheEntry cacheEntry) {
+    data.put(pageKey, cacheEntry);
+
+    Set<Long> pages = filePages.get(pageKey.fileId);
+    if (pages == null) {
+      pages = Collections.newSetFromMap(new ConcurrentHashMap<>());
+      final Set<Long> oldPages = filePages.putIfAbsent(pageKey.fileId, pages);
+
+      if (oldPages != null)
+        pages = oldPages;
+    }
+
+    pages.add(pageKey.pageIndex);
+
+    clock.offer(cacheEntry);
+    size.incrementAndGet();
+  }
+
+  @Override
+  public OCacheEntry allocateNewPage(long fileId, OWriteCache writeCache, boolean verifyChecksums) throws IOException {
+    final OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic = writeCache.getPerformanceStatisticManager()
+        .getSessionPerformanceStatistic();
+
+    if (sessionStoragePerformanceStatistic != null) {
+      sessionStoragePerformanceStatistic.startPageReadFromCacheTimer();
+    }
+
+    try {
+      fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+      final OModifiableBoolean cacheHit = new OModifiableBoolean(false);
+      final OClockCacheEntry cacheEntry;
+
+      final Lock fileLock = fileLockManager.acquireExclusiveLock(fileId);
+      try {
+        final long filledUpTo = writeCache.getFilledUpTo(fileId);
+        assert filledUpTo >= 0;
+
+        cacheEntry = loadAndAcquire(new PageKey(fileId, filledUpTo), true, writeCache, 1, cacheHit, verifyChecksums);
+      } finally {
+        fileLock.unlock();
+      }
+
+      assert cacheEntry != null;
+
+      if (sessionStoragePerformanceStatistic != null)
+        sessionStoragePerformanceStatistic.incrementPageAccessOnCacheLevel(cacheHit.getValue());
+
+      try {
+        evictPagesIfNeeded();
+      } catch (RuntimeException e) {
+        assert !cacheEntry.isDirty();
+
+        cacheEntry.decrementUsages();
+        throw e;
+      }
+
+      cacheEntry.acquireExclusiveLock();
+      writeCache.updateDirtyPagesTable(cacheEntry.getCachePointer());
+
+      return cacheEntry;
+    } finally {
+      if (sessionStoragePerformanceStatistic != null) {
+        sessionStoragePerformanceStatistic.stopPageReadFromCacheTimer();
+      }
+    }
+  }
+
+  /**
+   * Moves the clock hand if size of the cache exceeds its limit. If the clock hand is already moved by other thread and overflow of
+   * the cache is not critical, method returns immediately.
+   */
+  private void evictPagesIfNeeded() {
+    final int overflow = size.get() - memoryDataContainer.get().getClockSize();
+    if (overflow <= 0)
+      return;
+
+    if (overflow > MAX_CACHE_OVERFLOW)
+      evictionLock.lock();
+    else if (!evictionLock.tryLock())
+      return;
+
+    try {
+      evictPages();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private void evictPages() {
+    int passedPages = 0;
+
+    while (true) {
+      final int clockSize = memoryDataContainer.get().getClockSize();
+      final int currentSize = size.get();
+
+      if (currentSize <= clockSize)
+        return;
+
+      //every page is not accessed after MAX_FREQUENCY + 1 passes of the clock hand, so only used pages are left in the cache
+      if (passedPages > (OClockCacheEntry.MAX_FREQUENCY + 2) * currentSize) {
+        if (currentSize - clockSize > MAX_CACHE_OVERFLOW)
+          throw new OAllCacheEntriesAreUsedException("All pages in read cache are used!");
+
+        return;
+      }
+
+      final OClockCacheEntry cacheEntry = clock.poll();
+      if (cacheEntry == null)
+        return;
+
+      final PageKey pageKey = new PageKey(cacheEntry.getFileId(), cacheEntry.getPageIndex());
+      if (data.get(pageKey) != cacheEntry)
+        continue;
+
+      passedPages++;
+
+      if (cacheEntry.getUsagesCount() > 0 || !cacheEntry.age()) {
+        clock.offer(cacheEntry);
+        continue;
+      }
+
+      if (evict(pageKey, cacheEntry))
+        passedPages = 0;
+      else
+        clock.offer(cacheEntry);
+    }
+  }
+
+  /**
+   * @return <code>false</code> if page is used and can not be removed from the cache.
+   */
+  private boolean evict(final PageKey pageKey, final OClockCacheEntry cacheEntry) {
+    final Lock fileLock = fileLockManager.acquireSharedLock(pageKey.fileId);
+    try {
+      final Lock pageLock = pageLockManager.acquireExclusiveLock(pageKey);
+      try {
+        if (data.get(pageKey) != cacheEntry)
+          return true;
+
+        if (!cacheEntry.freeze())
+          return false;
+
+        assert !cacheEntry.isDirty();
+
+        data.remove(pageKey);
+        size.decrementAndGet();
+
+        final Set<Long> pages = filePages.get(pageKey.fileId);
+        if (pages != null)
+          pages.remove(pageKey.pageIndex);
+
+        final OCachePointer cachePointer = cacheEntry.getCachePointer();
+        cachePointer.decrementReadersReferrer();
+        cacheEntry.clearCachePointer();
+
+        return true;
+      } finally {
+        pageLock.unlock();
+      }
+    } finally {
+      fileLock.unlock();
+    }
+  }
+
+  @Override
+  public long getUsedMemory() {
+    return ((long) size.get()) * pageSize;
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      readAhead.clear();
+
+      for (OClockCacheEntry cacheEntry : data.values()) {
+        if (cacheEntry.freeze()) {
+          final OCachePointer cachePointer = cacheEntry.getCachePointer();
+          cachePointer.decrementReadersReferrer();
+          cacheEntry.clearCachePointer();
+        } else
+          throw new OStorageException("Page with index " + cacheEntry.getPageIndex() + " for file id " + cacheEntry.getFileId()
+              + " is used and cannot be removed");
+      }
+
+      data.clear();
+      clock.clear();
+      size.set(0);
+
+      for (Set<Long> pages : filePages.values())
+        pages.clear();
+
+      clearPinnedPages();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private void clearPinnedPages() {
+    for (OClockCacheEntry pinnedEntry : pinnedPages.values()) {
+      if (pinnedEntry.freeze()) {
+        final OCachePointer cachePointer = pinnedEntry.getCachePointer();
+        cachePointer.decrementReadersReferrer();
+        pinnedEntry.clearCachePointer();
+
+        decrementPinnedPages();
+      } else
+        throw new OStorageException("Page with index " + pinnedEntry.getPageIndex() + " for file with id " + pinnedEntry.getFileId()
+            + "cannot be freed because it is used.");
+    }
+
+    pinnedPages.clear();
+  }
+
+  private void decrementPinnedPages() {
+    MemoryData memoryData = memoryDataContainer.get();
+    MemoryData newMemoryData = new MemoryData(memoryData.maxSize, memoryData.pinnedPages - 1);
+
+    while (!memoryDataContainer.compareAndSet(memoryData, newMemoryData)) {
+      memoryData = memoryDataContainer.get();
+      newMemoryData = new MemoryData(memoryData.maxSize, memoryData.pinnedPages - 1);
+    }
+  }
+
+  @Override
+  public void truncateFile(long fileId, OWriteCache writeCache) throws IOException {
+    fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+    final Lock fileLock = fileLockManager.acquireExclusiveLock(fileId);
+    try {
+      writeCache.truncateFile(fileId);
+
+      readAhead.removeFile(fileId);
+      clearFile(fileId);
+    } finally {
+      fileLock.unlock();
+    }
+  }
+
+  /**
+   * Removes all pages of the file from the cache, exclusive lock of the file should be acquired by caller.
+   */
+  private void clearFile(long fileId) {
+    final Set<Long> pageEntries = filePages.get(fileId);
+    if (pageEntries == null || pageEntries.isEmpty()) {
+      return;
+    }
+
+    for (Long pageIndex : pageEntries) {
+      final PageKey pageKey = new PageKey(fileId, pageIndex);
+
+      boolean pinned = false;
+      OClockCacheEntry cacheEntry = data.get(pageKey);
+      if (cacheEntry == null) {
+        cacheEntry = pinnedPages.get(pageKey);
+        pinned = true;
+      }
+
+      if (cacheEntry != null) {
+        if (cacheEntry.freeze()) {
+          if (pinned) {
+            pinnedPages.remove(pageKey);
+            decrementPinnedPages();
+          } else {
+            data.remove(pageKey);
+            size.decrementAndGet();
+          }
+
+          final OCachePointer cachePointer = cacheEntry.getCachePointer();
+          if (cachePointer != null) {
+            cachePointer.decrementReadersReferrer();
+            cacheEntry.clearCachePointer();
+          }
+        } else
+          throw new OStorageException(
+              "Page with index " + pageIndex + " for file with id " + fileId + " cannot be freed because it is used.");
+      } else
+        throw new OStorageException("Page with index " + pageIndex + " was  not found in cache for file with id " + fileId);
+    }
+
+    pageEntries.clear();
+  }
+
+  @Override
+  public void closeFile(long fileId, boolean flush, OWriteCache writeCache) {
+    fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+    final Lock fileLock = fileLockManager.acquireExclusiveLock(fileId);
+    try {
+      writeCache.close(fileId, flush);
+
+      readAhead.removeFile(fileId);
+      clearFile(fileId);
+    } finally {
+      fileLock.unlock();
+    }
+  }
+
+  @Override
+  public void deleteFile(long fileId, OWriteCache writeCache) throws IOException {
+    fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+    final Lock fileLock = fileLockManager.acquireExclusiveLock(fileId);
+    try {
+      readAhead.removeFile(fileId);
+      clearFile(fileId);
+      filePages.remove(fileId);
+      writeCache.deleteFile(fileId);
+    } finally {
+      fileLock.unlock();
+    }
+  }
+
+  @Override
+  public void closeStorage(OWriteCache writeCache) throws IOException {
+    if (writeCache == null)
+      return;
+
+    final long[] filesToClear = writeCache.close();
+    clearFiles(filesToClear);
+  }
+
+  /**
+   * State of this cache is not stored, pages are loaded back on demand.
+   */
+  @Override
+  public void loadCacheState(final OWriteCache writeCache) {
+  }
+
+  /**
+   * State of this cache is not stored, pages are loaded back on demand.
+   */
+  @Override
+  public void storeCacheState(OWriteCache writeCache) {
+  }
+
+  /**
+   * Also removes state of {@link O2QCache} if the storage was used with that cache previously.
+   */
+  @Override
+  public void deleteStorage(OWriteCache writeCache) throws IOException {
+    final long[] filesToClear = writeCache.delete();
+    clearFiles(filesToClear);
+
+    final Path rootDirectory = writeCache.getRootDirectory();
+    final Path stateFile = rootDirectory.resolve(O2QCache.CACHE_STATE_FILE);
+
+    if (Files.exists(stateFile)) {
+      Files.delete(stateFile);
+    }
+  }
+
+  private void clearFiles(long[] filesToClear) {
+    for (long fileId : filesToClear) {
+      final Lock fileLock = fileLockManager.acquireExclusiveLock(fileId);
+      try {
+        readAhead.removeFile(fileId);
+        clearFile(fileId);
+      } finally {
+        fileLock.unlock();
+      }
+    }
+  }
+
+  int getMaxSize() {
+    return memoryDataContainer.get().maxSize;
+  }
+
+  int getSize() {
+    return size.get();
+  }
+
+  boolean inCache(long fileId, long pageIndex) {
+    return data.containsKey(new PageKey(fileId, pageIndex));
+  }
+
+  boolean inPinnedPages(long fileId, long pageIndex) {
+    return pinnedPages.containsKey(new PageKey(fileId, pageIndex));
+  }
+
+  private static int normalizeMemory(long maxSize, int pageSize) {
+    long tmpMaxSize = maxSize / pageSize;
+    if (tmpMaxSize >= Integer.MAX_VALUE) {
+      return Integer.MAX_VALUE;
+    } else {
+      return (int) tmpMaxSize;
+    }
+  }
+
+  private static final class PageKey {
+    private final long fileId;
+    private final long pageIndex;
+
+    private PageKey(long fileId, long pageIndex) {
+      this.fileId = fileId;
+      this.pageIndex = pageIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o)
+        return true;
+      if (o == null || getClass() != o.getClass())
+        return false;
+
+      PageKey pageKey = (PageKey) o;
+
+      return fileId == pageKey.fileId && pageIndex == pageKey.pageIndex;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = (int) (fileId ^ (fileId >>> 32));
+      result = 31 * result + (int) (pageIndex ^ (pageIndex >>> 32));
+      return result;
+    }
+  }
+
+  /**
+   * That is immutable class which contains information about current memory limits of the cache, it is needed to change all
+   * parameters atomically.
+   */
+  private static final class MemoryData {
+    /**
+     * Maximum size of memory consumed by the cache in amount of pages.
+     */
+    private final int maxSize;
+
+    /**
+     * Memory consumed by pinned pages in amount of pages.
+     */
+    private final int pinnedPages;
+
+    MemoryData(int maxSize, int pinnedPages) {
+      this.maxSize = maxSize;
+      this.pinnedPages = pinnedPages;
+    }
+
+    /**
+     * @return Maximum amount of pages which may be passed by the clock hand.
+     */
+    int getClockSize() {
+      return maxSize - pinnedPages;
+    }
+  }
+}
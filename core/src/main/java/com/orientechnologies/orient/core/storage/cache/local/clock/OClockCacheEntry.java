@@ -0,0 +1,203 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.orient.core.storage.cache.local.clock;
+
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.cache.OCachePointer;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWALChanges;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Entry of {@link OClockCache}. Amount of usages of the entry is changed by CAS operations so the entry may be acquired without
+ * any lock, negative amount of usages means that the entry was removed from the cache and can not be acquired any more.
+ */
+final class OClockCacheEntry implements OCacheEntry {
+  private static final int FROZEN = -1;
+
+  /**
+   * Maximum value of access frequency of the page, each pass of the clock hand decrements it by one.
+   */
+  static final int MAX_FREQUENCY = 3;
+
+  private final long fileId;
+  private final long pageIndex;
+
+  private volatile OCachePointer dataPointer;
+  private volatile boolean       dirty;
+  private volatile int           frequency;
+
+  private final AtomicInteger usagesCount = new AtomicInteger();
+
+  OClockCacheEntry(final long fileId, final long pageIndex, final OCachePointer dataPointer) {
+    this.fileId = fileId;
+    this.pageIndex = pageIndex;
+    this.dataPointer = dataPointer;
+  }
+
+  /**
+   * Increments amount of usages of the entry unless it was already removed from the cache.
+   *
+   * @return <code>true</code> if the entry is acquired.
+   */
+  boolean acquire() {
+    while (true) {
+      final int usages = usagesCount.get();
+      if (usages == FROZEN)
+        return false;
+
+      if (usagesCount.compareAndSet(usages, usages + 1))
+        return true;
+    }
+  }
+
+  /**
+   * Marks the entry as removed from the cache if it is not used.
+   *
+   * @return <code>true</code> if the entry is not used and may be safely removed from the cache.
+   */
+  boolean freeze() {
+    return usagesCount.compareAndSet(0, FROZEN);
+  }
+
+  boolean isAlive() {
+    return usagesCount.get() != FROZEN;
+  }
+
+  void recordAccess() {
+    //avoid the write into shared cache line if the page is already hot
+    final int frequency = this.frequency;
+    if (frequency < MAX_FREQUENCY)
+      this.frequency = frequency + 1;
+  }
+
+  /**
+   * Decrements access frequency of the page if it is not zero.
+   *
+   * @return <code>true</code> if the page was not accessed since the previous pass of the clock hand.
+   */
+  boolean age() {
+    final int frequency = this.frequency;
+    if (frequency == 0)
+      return true;
+
+    this.frequency = frequency - 1;
+    return false;
+  }
+
+  @Override
+  public void markDirty() {
+    this.dirty = true;
+  }
+
+  @Override
+  public void clearDirty() {
+    this.dirty = false;
+  }
+
+  @Override
+  public boolean isDirty() {
+    return dirty;
+  }
+
+  @Override
+  public OCachePointer getCachePointer() {
+    return dataPointer;
+  }
+
+  @Override
+  public void clearCachePointer() {
+    dataPointer = null;
+  }
+
+  @Override
+  public void setCachePointer(OCachePointer cachePointer) {
+    this.dataPointer = cachePointer;
+  }
+
+  @Override
+  public long getFileId() {
+    return fileId;
+  }
+
+  @Override
+  public long getPageIndex() {
+    return pageIndex;
+  }
+
+  @Override
+  public void acquireExclusiveLock() {
+    dataPointer.acquireExclusiveLock();
+  }
+
+  @Override
+  public void releaseExclusiveLock() {
+    dataPointer.releaseExclusiveLock();
+  }
+
+  @Override
+  public void acquireSharedLock() {
+    dataPointer.acquireSharedLock();
+  }
+
+  @Override
+  public void releaseSharedLock() {
+    dataPointer.releaseSharedLock();
+  }
+
+  @Override
+  public int getUsagesCount() {
+    return Math.max(usagesCount.get(), 0);
+  }
+
+  @Override
+  public void incrementUsages() {
+    if (!acquire())
+      throw new IllegalStateException("Page " + pageIndex + " of file " + fileId + " was already removed from the cache");
+  }
+
+  /**
+   * DEBUG only !!
+   *
+   * @return Whether lock acquired on current entry
+   */
+  @Override
+  public boolean isLockAcquiredByCurrentThread() {
+    return dataPointer.isLockAcquiredByCurrentThread();
+  }
+
+  @Override
+  public void decrementUsages() {
+    final int usages = usagesCount.decrementAndGet();
+    assert usages >= 0;
+  }
+
+  @Override
+  public OWALChanges getChanges() {
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return "OClockCacheEntry{" + "fileId=" + fileId + ", pageIndex=" + pageIndex + ", dataPointer=" + dataPointer + ", dirty="
+        + dirty + ", usagesCount=" + usagesCount + '}';
+  }
+}
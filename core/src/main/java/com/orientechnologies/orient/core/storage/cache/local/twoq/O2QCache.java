@@ -32,6 +32,7 @@ import com.orientechnologies.orient.core.exception.OLoadCacheStateException;
 import com.orientechnologies.orient.core.exception.OReadCacheException;
 import com.orientechnologies.orient.core.exception.OStorageException;
 import com.orientechnologies.orient.core.storage.cache.*;
+import com.orientechnologies.orient.core.storage.cache.local.OPageReadAhead;
 import com.orientechnologies.orient.core.storage.impl.local.statistic.OSessionStoragePerformanceStatistic;
 
 import java.io.*;
@@ -113,6 +114,8 @@ public class O2QCache implements OReadCache {
 
   private final AtomicBoolean coldPagesRemovalInProgress = new AtomicBoolean();
 
+  private final OPageReadAhead readAhead;
+
   /**
    * @param readCacheMaxMemory   Maximum amount of direct memory which can allocated by disk cache in bytes.
    * @param pageSize             Cache page size in bytes.
@@ -127,6 +130,7 @@ public class O2QCache implements OReadCache {
           "Percent of pinned pages cannot be more than " + percentOfPinnedPages + " but passed value is " + percentOfPinnedPages);
 
     this.percentOfPinnedPages = percentOfPinnedPages;
+    this.readAhead = new OPageReadAhead(this::prefetch);
 
     cacheLock.acquireWriteLock();
     try {
@@ -150,6 +154,10 @@ public class O2QCache implements OReadCache {
     }
   }
 
+  OPageReadAhead getReadAhead() {
+    return readAhead;
+  }
+
   LRUList getAm() {
     return am;
   }
@@ -275,6 +283,9 @@ public class O2QCache implements OReadCache {
 
     if (cacheEntry != null) {
       cacheEntry.acquireSharedLock();
+
+      if (readAhead.isEnabled())
+        readAhead.onPageRead(cacheEntry.getFileId(), pageIndex, writeCache, verifyChecksums);
     }
 
     return cacheEntry;
@@ -369,6 +380,7 @@ public class O2QCache implements OReadCache {
    *
    * @throws IllegalStateException In case of new size of disk cache is too small to hold existing pinned pages.
    */
+  @Override
   public void changeMaximumAmountOfMemory(final long readCacheMaxMemory) throws IllegalStateException {
     MemoryData memoryData;
     MemoryData newMemoryData;
@@ -492,6 +504,74 @@ public class O2QCache implements OReadCache {
     return new UpdateCacheResult(removeColdPages, cacheEntry);
   }
 
+  /**
+   * Loads pages requested by {@link OPageReadAhead} into {@link #a1in} queue without acquisition of them. Only the pages which
+   * follow each other and are absent in the cache are loaded, so read ahead does not change position of already cached pages in
+   * the queues. Amount of loaded pages is limited by half of {@link #a1in} queue, otherwise prefetched pages would evict each
+   * other before they are read.
+   */
+  private int prefetch(final OPageReadAhead.Request request) throws IOException {
+    final long fileId = request.getFileId();
+    final int pageCount = Math.min(request.getPageCount(), memoryDataContainer.get().K_IN / 2);
+    if (pageCount < 1)
+      return 0;
+
+    final OCachePointer[] dataPointers;
+    boolean removeColdPages = false;
+
+    cacheLock.acquireReadLock();
+    try {
+      final Lock fileLock = fileLockManager.acquireSharedLock(fileId);
+      try {
+        if (!request.isValid())
+          return 0;
+
+        final PageKey[] pageKeys = new PageKey[pageCount];
+        for (int i = 0; i < pageKeys.length; i++) {
+          pageKeys[i] = new PageKey(fileId, request.getStartPageIndex() + i);
+        }
+
+        final Lock[] pageLocks = pageLockManager.acquireExclusiveLocksInBatch(pageKeys);
+        try {
+          int start = 0;
+          while (start < pageCount && isCached(fileId, pageKeys[start].pageIndex))
+            start++;
+
+          int end = start;
+          while (end < pageCount && !isCached(fileId, pageKeys[end].pageIndex))
+            end++;
+
+          if (start == end)
+            return 0;
+
+          dataPointers = request.getWriteCache()
+              .load(fileId, pageKeys[start].pageIndex, end - start, false, new OModifiableBoolean(), request.isVerifyChecksums());
+
+          for (OCachePointer dataPointer : dataPointers) {
+            removeColdPages = processFetchedPage(removeColdPages, dataPointer);
+          }
+        } finally {
+          for (Lock pageLock : pageLocks) {
+            pageLock.unlock();
+          }
+        }
+      } finally {
+        fileLock.unlock();
+      }
+    } finally {
+      cacheLock.releaseReadLock();
+    }
+
+    if (removeColdPages)
+      removeColdestPagesIfNeeded();
+
+    return dataPointers.length;
+  }
+
+  private boolean isCached(final long fileId, final long pageIndex) {
+    return get(fileId, pageIndex) != null || pinnedPages.containsKey(new PinnedPage(fileId, pageIndex));
+  }
+
   @Override
   public OCacheEntry allocateNewPage(long fileId, OWriteCache writeCache, boolean verifyChecksums) throws IOException {
     final OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic = writeCache.getPerformanceStatisticManager()
@@ -552,6 +632,7 @@ public class O2QCache implements OReadCache {
   public void clear() {
     cacheLock.acquireWriteLock();
     try {
+      readAhead.clear();
       clearCacheContent();
     } finally {
       cacheLock.releaseWriteLock();
@@ -570,6 +651,7 @@ public class O2QCache implements OReadCache {
 
         writeCache.truncateFile(fileId);
 
+        readAhead.removeFile(fileId);
         clearFile(fileId);
       } finally {
         fileLock.unlock();
@@ -637,6 +719,7 @@ public class O2QCache implements OReadCache {
       try {
         writeCache.close(fileId, flush);
 
+        readAhead.removeFile(fileId);
         clearFile(fileId);
 
       } finally {
@@ -658,6 +741,7 @@ public class O2QCache implements OReadCache {
     try {
       fileLock = fileLockManager.acquireExclusiveLock(fileId);
       try {
+        readAhead.removeFile(fileId);
         clearFile(fileId);
         filePages.remove(fileId);
         writeCache.deleteFile(fileId);
@@ -688,8 +772,10 @@ public class O2QCache implements OReadCache {
     try {
       final long[] filesToClear = writeCache.close();
 
-      for (long fileId : filesToClear)
+      for (long fileId : filesToClear) {
+        readAhead.removeFile(fileId);
         clearFile(fileId);
+      }
 
     } finally {
       cacheLock.releaseWriteLock();
@@ -1042,8 +1128,10 @@ public class O2QCache implements OReadCache {
     cacheLock.acquireWriteLock();
     try {
       final long[] filesToClear = writeCache.delete();
-      for (long fileId : filesToClear)
+      for (long fileId : filesToClear) {
+        readAhead.removeFile(fileId);
         clearFile(fileId);
+      }
 
       final Path rootDirectory = writeCache.getRootDirectory();
       final Path stateFile = rootDirectory.resolve(CACHE_STATE_FILE);
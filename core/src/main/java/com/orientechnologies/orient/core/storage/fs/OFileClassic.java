@@ -25,16 +25,21 @@ import com.orientechnologies.common.io.OIOException;
 import com.orientechnologies.common.io.OIOUtils;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.serialization.types.OLongSerializer;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.serialization.OBinaryProtocol;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -50,8 +55,20 @@ public class OFileClassic implements OFile, OClosableItem {
 
   private static final int OPEN_RETRY_MAX = 10;
 
+  private static final MappedByteBuffer[] NO_SEGMENTS = new MappedByteBuffer[0];
+
   private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
+  /**
+   * If enabled pages are read from segments of the file mapped into memory. Pages are still written through the channel, changes
+   * are visible in the mapped segments because both use the same OS page cache. Segments are mapped lazily, only if they are
+   * completely filled by the file, accessed under read lock and unmapped under write lock before the file is truncated or closed.
+   */
+  private final    boolean            mmapRead;
+  private final    long               mmapSegmentSize;
+  private final    Object             mmapLock       = new Object();
+  private volatile MappedByteBuffer[] mappedSegments = NO_SEGMENTS;
+
   private volatile Path osFile;
 
   private FileChannel channel;
@@ -63,6 +80,8 @@ public class OFileClassic implements OFile, OClosableItem {
 
   public OFileClassic(Path osFile) {
     this.osFile = osFile;
+    this.mmapRead = OGlobalConfiguration.FILE_MMAP_READ.getValueAsBoolean();
+    this.mmapSegmentSize = OGlobalConfiguration.FILE_MMAP_SEGMENT_SIZE.getValueAsLong() * 1024 * 1024;
   }
 
   @Override
@@ -91,6 +110,8 @@ public class OFileClassic implements OFile, OClosableItem {
       try {
         acquireWriteLock();
         try {
+          unmapSegments();
+
           channel.truncate(HEADER_SIZE + size);
           this.size = size;
           setSize(this.size);
@@ -147,6 +168,9 @@ public class OFileClassic implements OFile, OClosableItem {
       try {
         acquireReadLock();
         try {
+          if (mmapRead && readMapped(offset, buffer))
+            break;
+
           offset = checkRegions(offset, buffer.limit());
           readByteBuffer(buffer, channel, offset, throwOnEof);
 
@@ -165,6 +189,17 @@ public class OFileClassic implements OFile, OClosableItem {
 
   @Override
   public void read(long offset, ByteBuffer[] buffers, boolean throwOnEof) throws IOException {
+    if (mmapRead) {
+      // MAPPED SEGMENTS ARE READ IN PARALLEL, WHILE READ THROUGH THE CHANNEL HAS TO CHANGE ITS POSITION UNDER EXCLUSIVE LOCK
+      acquireReadLock();
+      try {
+        if (readMapped(offset, buffers))
+          return;
+      } finally {
+        releaseReadLock();
+      }
+    }
+
     int attempts = 0;
 
     while (true) {
@@ -484,6 +519,138 @@ public class OFileClassic implements OFile, OClosableItem {
 
   }
 
+  /**
+   * Copies content of the mapped segment into the buffer. Has to be called under read lock.
+   *
+   * @return <code>false</code> if the requested region is not mapped and has to be read through the channel
+   */
+  private boolean readMapped(final long offset, final ByteBuffer buffer) throws IOException {
+    final ByteBuffer region = getMappedRegion(offset, buffer.remaining());
+    if (region == null)
+      return false;
+
+    buffer.put(region);
+    return true;
+  }
+
+  private boolean readMapped(final long offset, final ByteBuffer[] buffers) throws IOException {
+    final ByteBuffer[] regions = new ByteBuffer[buffers.length];
+
+    long regionOffset = offset;
+    for (int i = 0; i < buffers.length; i++) {
+      regions[i] = getMappedRegion(regionOffset, buffers[i].remaining());
+      if (regions[i] == null)
+        return false;
+
+      regionOffset += buffers[i].remaining();
+    }
+
+    for (int i = 0; i < buffers.length; i++)
+      buffers[i].put(regions[i]);
+
+    return true;
+  }
+
+  /**
+   * @return view of the region of the mapped segment or <code>null</code> if the region is not contained in a single segment
+   * which is completely filled by the file.
+   */
+  private ByteBuffer getMappedRegion(final long offset, final int length) throws IOException {
+    if (offset < 0)
+      return null;
+
+    final long segmentIndex = offset / mmapSegmentSize;
+    final int segmentOffset = (int) (offset - segmentIndex * mmapSegmentSize);
+    if (segmentOffset + length > mmapSegmentSize || segmentIndex >= Integer.MAX_VALUE)
+      return null;
+
+    final MappedByteBuffer segment = getSegment((int) segmentIndex);
+    if (segment == null)
+      return null;
+
+    final ByteBuffer region = segment.duplicate();
+    region.limit(segmentOffset + length);
+    region.position(segmentOffset);
+    return region;
+  }
+
+  private MappedByteBuffer getSegment(final int index) throws IOException {
+    MappedByteBuffer[] segments = mappedSegments;
+    if (index < segments.length && segments[index] != null)
+      return segments[index];
+
+    final long segmentEnd = (index + 1L) * mmapSegmentSize;
+    if (segmentEnd > size || channel == null)
+      return null;
+
+    synchronized (mmapLock) {
+      segments = mappedSegments;
+      if (index < segments.length && segments[index] != null)
+        return segments[index];
+
+      // READ ONLY MAPPING CANNOT EXTEND THE FILE, SO ONLY THE SEGMENTS FILLED BY THE FILE ARE MAPPED
+      if (channel.size() < HEADER_SIZE + segmentEnd)
+        return null;
+
+      final MappedByteBuffer segment = channel
+          .map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + index * mmapSegmentSize, mmapSegmentSize);
+
+      final MappedByteBuffer[] newSegments = Arrays.copyOf(segments, Math.max(segments.length, index + 1));
+      newSegments[index] = segment;
+      mappedSegments = newSegments;
+
+      return segment;
+    }
+  }
+
+  /**
+   * Unmaps all the mapped segments. Has to be called under write lock, so none of the segments is read at the moment, because
+   * access to unmapped memory crashes the JVM.
+   */
+  private void unmapSegments() {
+    final MappedByteBuffer[] segments = mappedSegments;
+    if (segments.length == 0)
+      return;
+
+    mappedSegments = NO_SEGMENTS;
+
+    for (MappedByteBuffer segment : segments)
+      if (segment != null)
+        unmap(segment);
+  }
+
+  /**
+   * Releases mapping immediately instead of waiting for garbage collection, otherwise mapped file cannot be truncated or deleted on
+   * some platforms.
+   */
+  private void unmap(final MappedByteBuffer segment) {
+    try {
+      final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+
+      Method invokeCleaner = null;
+      try {
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      } catch (NoSuchMethodException ignore) {
+        // JAVA 8
+      }
+
+      if (invokeCleaner != null) {
+        final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        invokeCleaner.invoke(theUnsafe.get(null), segment);
+      } else {
+        final Method cleanerMethod = segment.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+
+        final Object cleaner = cleanerMethod.invoke(segment);
+        if (cleaner != null)
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (Exception e) {
+      OLogManager.instance().debug(this, "Cannot unmap segment of file '%s', it will be unmapped by garbage collector", e, osFile);
+    }
+  }
+
   private ByteBuffer readData(final long iOffset, final int iSize) throws IOException {
     ByteBuffer buffer = ByteBuffer.allocate(iSize);
     readByteBuffer(buffer, channel, iOffset, true);
@@ -566,6 +733,8 @@ public class OFileClassic implements OFile, OClosableItem {
       try {
         acquireWriteLock();
         try {
+          unmapSegments();
+
           if (channel != null && channel.isOpen()) {
             channel.close();
             channel = null;
@@ -812,6 +981,8 @@ public class OFileClassic implements OFile, OClosableItem {
 
     acquireWriteLock();
     try {
+      unmapSegments();
+
       try {
         channel.close();
       } catch (IOException ioe) {
@@ -24,11 +24,14 @@ import com.orientechnologies.common.concur.ONeedRetryException;
 import com.orientechnologies.common.concur.lock.*;
 import com.orientechnologies.common.exception.OException;
 import com.orientechnologies.common.exception.OHighLevelException;
+import com.orientechnologies.common.io.OFileUtils;
 import com.orientechnologies.common.io.OIOException;
+import com.orientechnologies.common.io.OIOUtils;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.profiler.AtomicLongOProfilerHookValue;
 import com.orientechnologies.common.profiler.OProfiler;
 import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.common.serialization.types.OLongSerializer;
 import com.orientechnologies.common.thread.OScheduledThreadPoolExecutorWithLogging;
 import com.orientechnologies.common.types.OModifiableBoolean;
 import com.orientechnologies.common.util.OCommonConst;
@@ -95,6 +98,8 @@ import java.io.*;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.*;
@@ -104,6 +109,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 /**
@@ -116,6 +122,15 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
   private static final int RECORD_LOCK_TIMEOUT         = OGlobalConfiguration.STORAGE_RECORD_LOCK_TIMEOUT.getValueAsInteger();
   private static final int WAL_RESTORE_REPORT_INTERVAL = 30 * 1000; // milliseconds
 
+  private static final String IBU_EXTENSION           = ".ibu";
+  private static final String IBU_DATE_FORMAT         = "yyyy-MM-dd-HH-mm-ss";
+  private static final String IBU_CONFIGURATION_ENTRY = "database.ocf";
+  private static final int    IBU_BUFFER_SIZE         = 64 * 1024;
+  /**
+   * LSN of the previous backup, last LSN contained in the backup, full backup flag
+   */
+  private static final int    IBU_HEADER_SIZE         = 4 * OLongSerializer.LONG_SIZE + 1;
+
   private static final Comparator<ORecordOperation> COMMIT_RECORD_OPERATION_COMPARATOR = Comparator
       .comparing(o -> o.getRecord().getIdentity());
 
@@ -172,6 +187,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
   private volatile ThreadLocal<OStorageTransaction> transaction;
   private final AtomicBoolean checkpointInProgress = new AtomicBoolean();
   private final AtomicBoolean walVacuumInProgress  = new AtomicBoolean();
+  private final AtomicBoolean incrementalBackupInProgress = new AtomicBoolean();
 
   /**
    * Error which happened inside of storage or during data processing related to this storage.
@@ -1820,6 +1836,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       }
 
       final List<ORecordOperation> result = new ArrayList<>();
+      OLogSequenceNumber commitLsn = null;
       stateLock.acquireReadLock();
       try {
         try {
@@ -1884,6 +1901,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
             commitIndexes(indexOperations);
 
             final OLogSequenceNumber lsn = endStorageTx();
+            commitLsn = lsn;
             final DataOutputStream journaledStream = OAbstractPaginatedStorage.journaledStream;
             if (journaledStream != null) { // send event to journaled tx stream if the streaming is on
               final int txId = transaction.getClientTransactionId();
@@ -1918,6 +1936,8 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         stateLock.releaseReadLock();
       }
 
+      syncOnCommit(commitLsn);
+
       if (OLogManager.instance().isDebugEnabled())
         OLogManager.instance()
             .debug(this, "%d Committed transaction %d on database '%s' (result=%s)", Thread.currentThread().getId(),
@@ -1995,6 +2015,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         }
       }
 
+      OLogSequenceNumber commitLsn = null;
       stateLock.acquireReadLock();
       try {
         try {
@@ -2051,7 +2072,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
 
             commitIndexes(indexOperations);
 
-            endStorageTx();
+            commitLsn = endStorageTx();
 
             OTransactionAbstract.updateCacheFromEntries(transaction.getDatabase(), recordOperations, true);
             txCommit.incrementAndGet();
@@ -2067,6 +2088,8 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       } finally {
         stateLock.releaseReadLock();
       }
+
+      syncOnCommit(commitLsn);
     } catch (RuntimeException ee) {
       throw logAndPrepareForRethrow(ee);
     } catch (Error ee) {
@@ -3653,6 +3676,9 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         }
 
         if (!foundInCache) {
+          // READ THE COUNTER BEFORE EXECUTION TO AVOID CACHING RESULTS OF CONCURRENTLY MODIFIED CLUSTERS
+          final long modificationCounter = db.getMetadata().getCommandCache().getModificationCounter();
+
           // EXECUTE THE COMMAND
           Map<Object, Object> params = iCommand.getParameters();
           result = executor.execute(params);
@@ -3662,7 +3688,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
             // CACHE THE COMMAND RESULT
             db.getMetadata().getCommandCache()
                 .put(db.getUser(), iCommand.getText(), result, iCommand.getLimit(), executor.getInvolvedClusters(),
-                    System.currentTimeMillis() - beginTime);
+                    System.currentTimeMillis() - beginTime, modificationCounter);
         }
 
         // CALL AFTER COMMAND
@@ -4075,6 +4101,20 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     }
   }
 
+  /**
+   * Waits till WAL records of the committed transaction are flushed to the disk if synchronous commits are enabled. It is called
+   * after the storage lock is released so committers which wait for the same flush of the WAL do not block each other.
+   *
+   * @param lsn LSN of the last WAL record of the committed transaction, <code>null</code> if the transaction was not logged.
+   */
+  private void syncOnCommit(OLogSequenceNumber lsn) {
+    if (lsn == null || writeAheadLog == null)
+      return;
+
+    if (getConfiguration().getContextConfiguration().getValueAsBoolean(OGlobalConfiguration.WAL_SYNC_ON_COMMIT))
+      writeAheadLog.flushTill(lsn);
+  }
+
   private OLogSequenceNumber endStorageTx() throws IOException {
     final OLogSequenceNumber lsn = atomicOperationsManager.endAtomicOperation(false, null);
     assert atomicOperationsManager.getCurrentOperation() == null;
@@ -4931,14 +4971,483 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     return false;
   }
 
+  /**
+   * Writes into the passed in directory a backup which contains only the pages changed since the last backup stored in the same
+   * directory, or all the pages if the directory does not contain any backup yet.
+   * <p>
+   * Each backup is a file with {@link #IBU_EXTENSION} extension which contains the LSN range covered by the backup, followed by a
+   * ZIP stream with an entry for each file of the storage (the changed pages only), the WAL segments written while the backup was
+   * running and the storage configuration. Pages are detected as changed using the WAL records logged since the previous backup
+   * if the WAL still contains them, otherwise comparing the LSN of each page with the LSN of the previous backup.
+   *
+   * @return the name of the backup file
+   */
   @Override
   public String incrementalBackup(String backupDirectory) {
-    throw new IllegalStateException("Incremental backup is supported only in enterprise version");
+    try {
+      checkOpenness();
+
+      if (writeAheadLog == null)
+        throw new OStorageException("Incremental backup of storage '" + name + "' requires the write ahead log to be enabled");
+
+      if (!incrementalBackupInProgress.compareAndSet(false, true))
+        throw new OStorageException("Incremental backup of storage '" + name + "' is already in progress");
+
+      try {
+        return doIncrementalBackup(new File(backupDirectory));
+      } finally {
+        incrementalBackupInProgress.set(false);
+      }
+    } catch (IOException e) {
+      throw logAndPrepareForRethrow(
+          OException.wrapException(new OStorageException("Error during incremental backup of storage '" + name + "'"), e));
+    } catch (RuntimeException e) {
+      throw logAndPrepareForRethrow(e);
+    } catch (Error e) {
+      throw logAndPrepareForRethrow(e);
+    } catch (Throwable t) {
+      throw logAndPrepareForRethrow(t);
+    }
   }
 
+  /**
+   * Replaces the content of this storage with the content of the incremental backups stored in the passed in directory. Backups
+   * are applied in the same order they were taken: the first one has to be a full backup and each of the next ones has to start
+   * where the previous one ends.
+   */
   @Override
   public void restoreFromIncrementalBackup(String filePath) {
-    throw new IllegalStateException("Incremental backup is supported only in enterprise version");
+    try {
+      final File backupDirectory = new File(filePath);
+      final String[] ibuFiles = fetchIBUFiles(backupDirectory);
+      if (ibuFiles.length == 0)
+        throw new OStorageException("Cannot find incremental backup files with extension '" + IBU_EXTENSION + "' in " + filePath);
+
+      stateLock.acquireWriteLock();
+      try {
+        checkOpenness();
+
+        // clusters and indexes are loaded again from the restored files once the storage is reopened
+        sbTreeCollectionManager.close();
+        clusters.clear();
+        clusterMap.clear();
+        indexEngines.clear();
+        indexEngineNameMap.clear();
+
+        OLogSequenceNumber previousLsn = null;
+        for (int i = 0; i < ibuFiles.length; i++) {
+          final File ibuFile = new File(backupDirectory, ibuFiles[i]);
+          final IBUHeader header = readIBUHeader(ibuFile);
+
+          if (i == 0 && !header.full)
+            throw new OStorageException("Incremental backup " + ibuFile + " cannot be restored because it is not a full backup");
+          if (i > 0 && (header.full || !Objects.equals(header.fromLsn, previousLsn)))
+            throw new OStorageException(
+                "Incremental backup " + ibuFile + " does not continue backup " + ibuFiles[i - 1] + ", the backup chain is broken");
+
+          OLogManager.instance().info(this, "Restoring storage '%s' from incremental backup %s", name, ibuFile);
+          restoreFromIBUFile(ibuFile, header.full);
+          previousLsn = header.lastLsn;
+        }
+
+        makeFullCheckpoint();
+      } finally {
+        stateLock.releaseWriteLock();
+      }
+
+      // the storage is reopened to load the restored configuration, clusters and indexes
+      close(true, false);
+      open(null, null, new OContextConfiguration());
+    } catch (IOException e) {
+      throw logAndPrepareForRethrow(
+          OException.wrapException(new OStorageException("Error during restore of storage '" + name + "' from " + filePath), e));
+    } catch (RuntimeException e) {
+      throw logAndPrepareForRethrow(e);
+    } catch (Error e) {
+      throw logAndPrepareForRethrow(e);
+    } catch (Throwable t) {
+      throw logAndPrepareForRethrow(t);
+    }
+  }
+
+  private String doIncrementalBackup(final File backupDirectory) throws IOException {
+    if (!backupDirectory.exists() && !backupDirectory.mkdirs())
+      throw new OStorageException("Cannot create backup directory " + backupDirectory);
+
+    final String[] ibuFiles = fetchIBUFiles(backupDirectory);
+    final OLogSequenceNumber fromLsn;
+    final long index;
+    if (ibuFiles.length == 0) {
+      fromLsn = null;
+      index = 0;
+    } else {
+      final String lastFile = ibuFiles[ibuFiles.length - 1];
+      fromLsn = readIBUHeader(new File(backupDirectory, lastFile)).lastLsn;
+      index = extractIBUIndex(lastFile) + 1;
+    }
+
+    final String fileName =
+        name + "_" + new SimpleDateFormat(IBU_DATE_FORMAT).format(new Date()) + "_" + index + IBU_EXTENSION;
+    final File ibuFile = new File(backupDirectory, fileName);
+    final File tmpFile = new File(backupDirectory, fileName + ".tmp");
+
+    final OLogSequenceNumber lastLsn;
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile), IBU_BUFFER_SIZE)) {
+      // the header is written once the backup is complete
+      out.write(new byte[IBU_HEADER_SIZE]);
+
+      final ZipOutputStream zipOutputStream = new ZipOutputStream(out, StandardCharsets.UTF_8);
+      lastLsn = incrementalBackup(zipOutputStream, fromLsn);
+      zipOutputStream.finish();
+    }
+
+    try (RandomAccessFile file = new RandomAccessFile(tmpFile, "rw")) {
+      final byte[] header = new byte[IBU_HEADER_SIZE];
+      writeIBULsn(header, 0, fromLsn);
+      writeIBULsn(header, 2 * OLongSerializer.LONG_SIZE, lastLsn);
+      header[IBU_HEADER_SIZE - 1] = (byte) (fromLsn == null ? 1 : 0);
+      file.write(header);
+    }
+
+    if (!tmpFile.renameTo(ibuFile))
+      throw new OStorageException("Cannot rename incremental backup file " + tmpFile + " to " + ibuFile);
+
+    OLogManager.instance().info(this, "Incremental backup of storage '%s' was written to %s", name, ibuFile);
+    return fileName;
+  }
+
+  /**
+   * @return the LSN the next incremental backup has to start from
+   */
+  private OLogSequenceNumber incrementalBackup(final ZipOutputStream zipOutputStream, final OLogSequenceNumber fromLsn)
+      throws IOException {
+    final boolean writeAllowed = isWriteAllowedDuringIncrementalBackup();
+
+    stateLock.acquireReadLock();
+    try {
+      checkOpenness();
+
+      final OLogSequenceNumber startLsn;
+      final long startSegment;
+      Map<Integer, BitSet> changedPages = null;
+
+      long freezeId = atomicOperationsManager.freezeAtomicOperations(null, null);
+      try {
+        final OLogSequenceNumber end = writeAheadLog.end();
+        startLsn = end == null ? new OLogSequenceNumber(0, 0) : end;
+
+        // segments written from now on are copied to the backup, so they should not be removed by checkpoints
+        writeAheadLog.addCutTillLimit(startLsn);
+        writeAheadLog.appendNewSegment();
+        startSegment = writeAheadLog.activeSegment();
+      } finally {
+        if (writeAllowed)
+          atomicOperationsManager.releaseAtomicOperations(freezeId);
+      }
+
+      try {
+        if (fromLsn != null)
+          changedPages = collectChangedPages(fromLsn, startLsn);
+
+        OLogSequenceNumber lastLsn = backupChangedPages(zipOutputStream, fromLsn, changedPages);
+
+        final OLogSequenceNumber lastWALLsn = copyWALToIncrementalBackup(zipOutputStream, startSegment);
+        if (lastWALLsn != null && (lastLsn == null || lastWALLsn.compareTo(lastLsn) > 0))
+          lastLsn = lastWALLsn;
+        if (lastLsn == null)
+          lastLsn = fromLsn;
+
+        zipOutputStream.putNextEntry(new ZipEntry(IBU_CONFIGURATION_ENTRY));
+        zipOutputStream.write(getConfiguration().toStream(StandardCharsets.UTF_8));
+        zipOutputStream.closeEntry();
+
+        return lastLsn;
+      } finally {
+        writeAheadLog.removeCutTillLimit(startLsn);
+        if (!writeAllowed)
+          atomicOperationsManager.releaseAtomicOperations(freezeId);
+      }
+    } finally {
+      stateLock.releaseReadLock();
+    }
+  }
+
+  /**
+   * Reads the WAL records logged after the given LSN to find the pages changed since then.
+   *
+   * @return changed pages by internal file id, or null if the WAL does not contain all the records since the given LSN anymore
+   */
+  private Map<Integer, BitSet> collectChangedPages(final OLogSequenceNumber fromLsn, final OLogSequenceNumber toLsn)
+      throws IOException {
+    writeAheadLog.addCutTillLimit(fromLsn);
+    try {
+      final OLogSequenceNumber begin = writeAheadLog.begin();
+      if (begin == null || begin.compareTo(fromLsn) > 0)
+        return null;
+
+      final Map<Integer, BitSet> changedPages = new HashMap<>();
+      OLogSequenceNumber lsn = fromLsn;
+      while (lsn != null && lsn.compareTo(toLsn) <= 0) {
+        final OWALRecord record = writeAheadLog.read(lsn);
+        if (record instanceof OUpdatePageRecord) {
+          final OUpdatePageRecord updatePageRecord = (OUpdatePageRecord) record;
+          changedPages.computeIfAbsent(writeCache.internalFileId(updatePageRecord.getFileId()), k -> new BitSet())
+              .set((int) updatePageRecord.getPageIndex());
+        }
+        lsn = writeAheadLog.next(lsn);
+      }
+      return changedPages;
+    } catch (OWALPageBrokenException e) {
+      OLogManager.instance().warn(this, "WAL of storage '%s' cannot be read, all pages are checked for changes", e, name);
+      return null;
+    } finally {
+      writeAheadLog.removeCutTillLimit(fromLsn);
+    }
+  }
+
+  /**
+   * Writes to the backup the pages with an LSN bigger than the given one. If a set of changed pages is provided only those pages
+   * are read, otherwise all the pages of the storage are checked.
+   *
+   * @return the biggest LSN of the written pages
+   */
+  private OLogSequenceNumber backupChangedPages(final ZipOutputStream zipOutputStream, final OLogSequenceNumber fromLsn,
+      final Map<Integer, BitSet> changedPages) throws IOException {
+    OLogSequenceNumber lastLsn = null;
+    final int pageSize = writeCache.pageSize();
+    final byte[] data = new byte[OLongSerializer.LONG_SIZE + pageSize];
+
+    for (Map.Entry<String, Long> entry : writeCache.files().entrySet()) {
+      final long fileId = entry.getValue();
+      final long filledUpTo = writeCache.getFilledUpTo(fileId);
+
+      zipOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
+
+      final byte[] fileHeader = new byte[2 * OLongSerializer.LONG_SIZE];
+      OLongSerializer.INSTANCE.serializeNative(fileId, fileHeader, 0);
+      OLongSerializer.INSTANCE.serializeNative(filledUpTo, fileHeader, OLongSerializer.LONG_SIZE);
+      zipOutputStream.write(fileHeader);
+
+      final BitSet filePages = changedPages == null ? null : changedPages.get(writeCache.internalFileId(fileId));
+      long pageIndex = changedPages == null ? 0 : (filePages == null ? -1 : filePages.nextSetBit(0));
+
+      while (pageIndex >= 0 && pageIndex < filledUpTo) {
+        final OCacheEntry cacheEntry = readCache.loadForRead(fileId, pageIndex, true, writeCache, 1, false);
+        if (cacheEntry != null) {
+          try {
+            final ByteBuffer buffer = cacheEntry.getCachePointer().getSharedBuffer();
+            final OLogSequenceNumber pageLsn = ODurablePage.getLogSequenceNumberFromPage(buffer);
+
+            if (fromLsn == null || pageLsn.compareTo(fromLsn) > 0) {
+              OLongSerializer.INSTANCE.serializeNative(pageIndex, data, 0);
+              ODurablePage.getPageData(buffer, data, OLongSerializer.LONG_SIZE, pageSize);
+              zipOutputStream.write(data);
+
+              if (lastLsn == null || pageLsn.compareTo(lastLsn) > 0)
+                lastLsn = pageLsn;
+            }
+          } finally {
+            readCache.releaseFromRead(cacheEntry, writeCache);
+          }
+        }
+
+        if (filePages == null)
+          pageIndex++;
+        else
+          pageIndex = filePages.nextSetBit((int) pageIndex + 1);
+      }
+
+      zipOutputStream.closeEntry();
+    }
+
+    return lastLsn;
+  }
+
+  private void restoreFromIBUFile(final File ibuFile, final boolean full) throws IOException {
+    if (full) {
+      for (long fileId : writeCache.files().values())
+        readCache.deleteFile(fileId, writeCache);
+    }
+
+    final Set<String> currentFiles = new HashSet<>(writeCache.files().keySet());
+    final File walDirectory = createWalTempDirectory();
+    final int pageSize = writeCache.pageSize();
+    OLogSequenceNumber maxLsn = null;
+
+    try (InputStream in = new BufferedInputStream(new FileInputStream(ibuFile), IBU_BUFFER_SIZE)) {
+      readFully(in, new byte[IBU_HEADER_SIZE], ibuFile);
+
+      final ZipInputStream zipInputStream = new ZipInputStream(in, StandardCharsets.UTF_8);
+      ZipEntry zipEntry;
+      while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+        final String entryName = zipEntry.getName();
+
+        if (entryName.equals(IBU_CONFIGURATION_ENTRY)) {
+          final ByteArrayOutputStream configurationStream = new ByteArrayOutputStream();
+          OIOUtils.copyStream(zipInputStream, configurationStream, -1);
+          final byte[] configuration = configurationStream.toByteArray();
+          getConfiguration().fromStream(configuration, 0, configuration.length, StandardCharsets.UTF_8);
+          getConfiguration().update();
+          continue;
+        }
+
+        if (entryName.endsWith(ODiskWriteAheadLog.WAL_SEGMENT_EXTENSION)) {
+          if (walDirectory != null)
+            addFileToDirectory(entryName, zipInputStream, walDirectory);
+          continue;
+        }
+
+        final byte[] fileHeader = new byte[2 * OLongSerializer.LONG_SIZE];
+        readFully(zipInputStream, fileHeader, ibuFile);
+        final long expectedFileId = OLongSerializer.INSTANCE.deserializeNative(fileHeader, 0);
+        final long filledUpTo = OLongSerializer.INSTANCE.deserializeNative(fileHeader, OLongSerializer.LONG_SIZE);
+
+        final long fileId;
+        if (writeCache.exists(entryName)) {
+          fileId = writeCache.fileIdByName(entryName);
+          if (writeCache.internalFileId(fileId) != writeCache.internalFileId(expectedFileId))
+            throw new OStorageException("Cannot restore file '" + entryName + "' from " + ibuFile
+                + " because it has a different id in the storage, the backup chain is broken");
+
+          // the file was truncated after the previous backup, all its remaining pages are contained in this one
+          if (writeCache.getFilledUpTo(fileId) > filledUpTo)
+            readCache.truncateFile(fileId, writeCache);
+        } else {
+          fileId = readCache.addFile(entryName, expectedFileId, writeCache);
+        }
+        currentFiles.remove(entryName);
+
+        final byte[] data = new byte[OLongSerializer.LONG_SIZE + pageSize];
+        while (readPage(zipInputStream, data, ibuFile)) {
+          final long pageIndex = OLongSerializer.INSTANCE.deserializeNative(data, 0);
+
+          OCacheEntry cacheEntry = readCache.loadForWrite(fileId, pageIndex, true, writeCache, 1, false);
+          if (cacheEntry == null) {
+            do {
+              if (cacheEntry != null)
+                readCache.releaseFromWrite(cacheEntry, writeCache);
+
+              cacheEntry = readCache.allocateNewPage(fileId, writeCache, false);
+            } while (cacheEntry.getPageIndex() != pageIndex);
+          }
+
+          try {
+            final ByteBuffer buffer = cacheEntry.getCachePointer().getExclusiveBuffer();
+            final OLogSequenceNumber backedUpLsn = ODurablePage.getLogSequenceNumber(OLongSerializer.LONG_SIZE, data);
+
+            if (full || backedUpLsn.compareTo(ODurablePage.getLogSequenceNumberFromPage(buffer)) > 0) {
+              buffer.position(0);
+              buffer.put(data, OLongSerializer.LONG_SIZE, pageSize);
+              cacheEntry.markDirty();
+
+              if (maxLsn == null || backedUpLsn.compareTo(maxLsn) > 0)
+                maxLsn = backedUpLsn;
+            }
+          } finally {
+            readCache.releaseFromWrite(cacheEntry, writeCache);
+          }
+        }
+      }
+    }
+
+    // files which are not in the backup were deleted
+    for (String fileName : currentFiles) {
+      if (writeCache.exists(fileName))
+        readCache.deleteFile(writeCache.fileIdByName(fileName), writeCache);
+    }
+
+    if (walDirectory != null) {
+      try {
+        final OWriteAheadLog restoreLog = createWalFromIBUFiles(walDirectory);
+        if (restoreLog != null) {
+          final OLogSequenceNumber beginLsn = restoreLog.begin();
+          if (beginLsn != null) {
+            final OLogSequenceNumber restoredLsn = restoreFrom(beginLsn, restoreLog);
+            if (restoredLsn != null && (maxLsn == null || restoredLsn.compareTo(maxLsn) > 0))
+              maxLsn = restoredLsn;
+          }
+          restoreLog.delete();
+        }
+      } finally {
+        OFileUtils.deleteRecursively(walDirectory);
+      }
+    }
+
+    // LSNs of the restored pages come from the WAL of the backed up storage, the WAL of this storage has to continue after them
+    if (maxLsn != null && writeAheadLog != null) {
+      // restored pages are flushed before the WAL is moved, the checkpoint also makes sure that the WAL is not empty
+      makeFullCheckpoint();
+      writeAheadLog.moveLsnAfter(maxLsn);
+    }
+  }
+
+  private static boolean readPage(final InputStream in, final byte[] data, final File ibuFile) throws IOException {
+    int read = 0;
+    while (read < data.length) {
+      final int rb = in.read(data, read, data.length - read);
+      if (rb < 0) {
+        if (read == 0)
+          return false;
+        throw new OStorageException("Incremental backup " + ibuFile + " is truncated");
+      }
+      read += rb;
+    }
+    return true;
+  }
+
+  private static void readFully(final InputStream in, final byte[] data, final File ibuFile) throws IOException {
+    if (!readPage(in, data, ibuFile))
+      throw new OStorageException("Incremental backup " + ibuFile + " is truncated");
+  }
+
+  private static String[] fetchIBUFiles(final File backupDirectory) {
+    final String[] files = backupDirectory.list((dir, fileName) -> fileName.toLowerCase(Locale.ENGLISH).endsWith(IBU_EXTENSION));
+    if (files == null)
+      return new String[0];
+
+    Arrays.sort(files, Comparator.comparingLong(OAbstractPaginatedStorage::extractIBUIndex));
+    return files;
+  }
+
+  private static long extractIBUIndex(final String fileName) {
+    final String withoutExtension = fileName.substring(0, fileName.length() - IBU_EXTENSION.length());
+    try {
+      return Long.parseLong(withoutExtension.substring(withoutExtension.lastIndexOf('_') + 1));
+    } catch (NumberFormatException e) {
+      throw OException.wrapException(new OStorageException("Invalid name of incremental backup file " + fileName), e);
+    }
+  }
+
+  private static IBUHeader readIBUHeader(final File ibuFile) throws IOException {
+    final byte[] header = new byte[IBU_HEADER_SIZE];
+    try (InputStream in = new FileInputStream(ibuFile)) {
+      readFully(in, header, ibuFile);
+    }
+    return new IBUHeader(readIBULsn(header, 0), readIBULsn(header, 2 * OLongSerializer.LONG_SIZE),
+        header[IBU_HEADER_SIZE - 1] == 1);
+  }
+
+  private static void writeIBULsn(final byte[] header, final int offset, final OLogSequenceNumber lsn) {
+    OLongSerializer.INSTANCE.serializeNative(lsn == null ? -1 : lsn.getSegment(), header, offset);
+    OLongSerializer.INSTANCE.serializeNative(lsn == null ? -1 : lsn.getPosition(), header, offset + OLongSerializer.LONG_SIZE);
+  }
+
+  private static OLogSequenceNumber readIBULsn(final byte[] header, final int offset) {
+    final long segment = OLongSerializer.INSTANCE.deserializeNative(header, offset);
+    final long position = OLongSerializer.INSTANCE.deserializeNative(header, offset + OLongSerializer.LONG_SIZE);
+    return segment < 0 ? null : new OLogSequenceNumber(segment, position);
+  }
+
+  private static final class IBUHeader {
+    private final OLogSequenceNumber fromLsn;
+    private final OLogSequenceNumber lastLsn;
+    private final boolean            full;
+
+    private IBUHeader(OLogSequenceNumber fromLsn, OLogSequenceNumber lastLsn, boolean full) {
+      this.fromLsn = fromLsn;
+      this.lastLsn = lastLsn;
+      this.full = full;
+    }
   }
 
   private boolean checkFuzzyCheckPointIsComplete(OLogSequenceNumber lastCheckPoint) throws IOException {
@@ -5333,6 +5842,10 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       final OIndexInternal<?> index = changes.getAssociatedIndex();
 
       final List<Object> orderedIndexNames = new ArrayList<>(changes.changesPerKey.keySet());
+      // null key is locked in the same order as other keys, partitioned indexes keep it in one of their partitions
+      if (!changes.nullKeyChanges.entries.isEmpty())
+        orderedIndexNames.add(null);
+
       if (orderedIndexNames.size() > 1)
         orderedIndexNames.sort((o1, o2) -> {
           String i1 = index.getIndexNameByKey(o1);
@@ -5340,14 +5853,9 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
           return i1.compareTo(i2);
         });
 
-      boolean fullyLocked = false;
       for (Object key : orderedIndexNames)
-        if (index.acquireAtomicExclusiveLock(key)) {
-          fullyLocked = true;
+        if (index.acquireAtomicExclusiveLock(key))
           break;
-        }
-      if (!fullyLocked && !changes.nullKeyChanges.entries.isEmpty())
-        index.acquireAtomicExclusiveLock(null);
     }
   }
 
@@ -27,6 +27,7 @@ import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OAtomicOperation;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OModificationStamp;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurableComponent;
 
 import java.io.IOException;
@@ -360,21 +361,7 @@ public class OClusterPositionMap extends ODurableComponent {
       try {
         acquireSharedLock();
         try {
-          long pageIndex = clusterPosition / OClusterPositionMapBucket.MAX_ENTRIES;
-          int index = (int) (clusterPosition % OClusterPositionMapBucket.MAX_ENTRIES);
-
-          final OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
-
-          if (pageIndex >= getFilledUpTo(atomicOperation, fileId))
-            return null;
-
-          final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount);
-          try {
-            final OClusterPositionMapBucket bucket = new OClusterPositionMapBucket(cacheEntry);
-            return bucket.get(index);
-          } finally {
-            releasePageFromRead(atomicOperation, cacheEntry);
-          }
+          return doGet(clusterPosition, pageCount, atomicOperationsManager.getCurrentOperation());
         } finally {
           releaseSharedLock();
         }
@@ -386,6 +373,31 @@ public class OClusterPositionMap extends ODurableComponent {
     }
   }
 
+  /**
+   * Reads position entry without acquisition of locks. Result may be inconsistent if the map is modified concurrently, so caller
+   * has to validate it by {@link OModificationStamp} of the cluster.
+   */
+  OClusterPositionMapBucket.PositionEntry getOptimistic(final long clusterPosition, final int pageCount) throws IOException {
+    return doGet(clusterPosition, pageCount, null);
+  }
+
+  private OClusterPositionMapBucket.PositionEntry doGet(final long clusterPosition, final int pageCount,
+      final OAtomicOperation atomicOperation) throws IOException {
+    long pageIndex = clusterPosition / OClusterPositionMapBucket.MAX_ENTRIES;
+    int index = (int) (clusterPosition % OClusterPositionMapBucket.MAX_ENTRIES);
+
+    if (pageIndex >= getFilledUpTo(atomicOperation, fileId))
+      return null;
+
+    final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount);
+    try {
+      final OClusterPositionMapBucket bucket = new OClusterPositionMapBucket(cacheEntry);
+      return bucket.get(index);
+    } finally {
+      releasePageFromRead(atomicOperation, cacheEntry);
+    }
+  }
+
   public void remove(final long clusterPosition) throws IOException {
     startOperation();
     try {
@@ -38,6 +38,7 @@ import com.orientechnologies.orient.core.storage.*;
 import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OAtomicOperation;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OModificationStamp;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurableComponent;
 import com.orientechnologies.orient.core.storage.impl.local.statistic.OSessionStoragePerformanceStatistic;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -62,6 +63,7 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
   }
 
   private final boolean addRidMetadata = OGlobalConfiguration.STORAGE_TRACK_CHANGED_RECORDS_IN_WAL.getValueAsBoolean();
+  private final boolean optimisticReads = OGlobalConfiguration.STORAGE_CLUSTER_OPTIMISTIC_READS.getValueAsBoolean();
 
   public static final  String DEF_EXTENSION            = ".pcl";
   private static final int    DISK_PAGE_SIZE           = DISK_CACHE_PAGE_SIZE.getValueAsInteger();
@@ -97,6 +99,18 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
     }
   }
 
+  /**
+   * Thrown when the pages read without locks are clearly inconsistent, so the optimistic read is given up before the modification
+   * stamp is checked.
+   */
+  private static final class OptimisticReadAbortedException extends RuntimeException {
+    private static final OptimisticReadAbortedException INSTANCE = new OptimisticReadAbortedException();
+
+    private OptimisticReadAbortedException() {
+      super(null, null, false, false);
+    }
+  }
+
   private static final class FindFreePageResult {
     private final long pageIndex;
     private final int  freePageIndex;
@@ -650,51 +664,30 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
     if (statistic != null)
       statistic.startRecordReadTimer();
     try {
-      atomicOperationsManager.acquireReadLock(this);
-      try {
-        acquireSharedLock();
-        try {
-          final OClusterPositionMapBucket.PositionEntry positionEntry = clusterPositionMap.get(clusterPosition, pageCount);
-          if (positionEntry == null)
-            return null;
-
-          final int recordPosition = positionEntry.getRecordPosition();
-          final long pageIndex = positionEntry.getPageIndex();
+      if (optimisticReads && atomicOperationsManager.getCurrentOperation() == null) {
+        final OModificationStamp modificationStamp = getModificationStamp();
+        final long stamp = modificationStamp.tryOptimisticRead();
 
-          final OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
-          if (getFilledUpTo(atomicOperation, fileId) <= pageIndex)
-            return null;
-
-          int recordVersion;
-          final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount);
+        if (stamp >= 0) {
           try {
-            final OClusterPage localPage = new OClusterPage(cacheEntry, false);
-            if (localPage.isDeleted(recordPosition))
-              return null;
-
-            recordVersion = localPage.getRecordVersion(recordPosition);
-          } finally {
-            releasePageFromRead(atomicOperation, cacheEntry);
+            final ORawBuffer buffer = readRecordContent(clusterPosition, pageCount, null, true);
+            if (modificationStamp.validate(stamp))
+              return buffer;
+          } catch (OptimisticReadAbortedException e) {
+            // RECORD WAS CHANGED DURING THE READ, IT IS READ AGAIN UNDER LOCKS
+          } catch (IOException | RuntimeException | AssertionError e) {
+            // DATA WERE CHANGED DURING THE READ, OTHERWISE THE SAME ERROR IS THROWN BY THE READ UNDER LOCKS
+            if (modificationStamp.validate(stamp))
+              throw e;
           }
+        }
+      }
 
-          final byte[] fullContent = readFullEntry(clusterPosition, pageIndex, recordPosition, atomicOperation, pageCount);
-          if (fullContent == null)
-            return null;
-
-          int fullContentPosition = 0;
-
-          final byte recordType = fullContent[fullContentPosition];
-          fullContentPosition++;
-
-          final int readContentSize = OIntegerSerializer.INSTANCE.deserializeNative(fullContent, fullContentPosition);
-          fullContentPosition += OIntegerSerializer.INT_SIZE;
-
-          byte[] recordContent = Arrays.copyOfRange(fullContent, fullContentPosition, fullContentPosition + readContentSize);
-
-          recordContent = encryption.decrypt(recordContent);
-          recordContent = compression.uncompress(recordContent);
-
-          return new ORawBuffer(recordContent, recordVersion, recordType);
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          return readRecordContent(clusterPosition, pageCount, atomicOperationsManager.getCurrentOperation(), false);
         } finally {
           releaseSharedLock();
         }
@@ -709,6 +702,76 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
 
   }
 
+  /**
+   * @param optimistic if <code>true</code> locks are not held by the caller and result has to be validated by
+   *                   {@link OModificationStamp} of the cluster.
+   */
+  private ORawBuffer readRecordContent(final long clusterPosition, final int pageCount, final OAtomicOperation atomicOperation,
+      final boolean optimistic) throws IOException {
+    final OClusterPositionMapBucket.PositionEntry positionEntry = optimistic ?
+        clusterPositionMap.getOptimistic(clusterPosition, pageCount) :
+        clusterPositionMap.get(clusterPosition, pageCount);
+    if (positionEntry == null)
+      return null;
+
+    final int recordPosition = positionEntry.getRecordPosition();
+    final long pageIndex = positionEntry.getPageIndex();
+
+    if (getFilledUpTo(atomicOperation, fileId) <= pageIndex)
+      return null;
+
+    int recordVersion;
+    final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount);
+    try {
+      final OClusterPage localPage = new OClusterPage(cacheEntry, false);
+      if (localPage.isDeleted(recordPosition))
+        return null;
+
+      recordVersion = localPage.getRecordVersion(recordPosition);
+    } finally {
+      releasePageFromRead(atomicOperation, cacheEntry);
+    }
+
+    final byte[] fullContent = readFullEntry(clusterPosition, pageIndex, recordPosition, atomicOperation, pageCount, optimistic);
+    if (fullContent == null)
+      return null;
+
+    int fullContentPosition = 0;
+
+    final byte recordType = fullContent[fullContentPosition];
+    fullContentPosition++;
+
+    final int readContentSize = OIntegerSerializer.INSTANCE.deserializeNative(fullContent, fullContentPosition);
+    fullContentPosition += OIntegerSerializer.INT_SIZE;
+
+    byte[] recordContent = Arrays.copyOfRange(fullContent, fullContentPosition, fullContentPosition + readContentSize);
+
+    recordContent = encryption.decrypt(recordContent);
+    recordContent = compression.uncompress(recordContent);
+
+    return new ORawBuffer(recordContent, recordVersion, recordType);
+  }
+
+  /**
+   * Exclusive lock of the cluster is acquired not only by atomic operations but also when cluster is opened, closed or
+   * configured, so these changes are also tracked by {@link OModificationStamp} used by optimistic reads.
+   */
+  @Override
+  protected void acquireExclusiveLock() {
+    super.acquireExclusiveLock();
+    getModificationStamp().startModification();
+  }
+
+  @Override
+  protected void releaseExclusiveLock() {
+    getModificationStamp().endModification();
+    super.releaseExclusiveLock();
+  }
+
+  private OModificationStamp getModificationStamp() {
+    return atomicOperationsManager.getModificationStamp(getLockName());
+  }
+
   @Override
   public ORawBuffer readRecordIfVersionIsNotLatest(long clusterPosition, final int recordVersion)
       throws IOException, ORecordNotFoundException {
@@ -1803,10 +1866,16 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
     return physicalPosition;
   }
 
+  /**
+   * @param optimistic if <code>true</code> pages may change during the read, so the chain of record chunks is followed at most
+   *                   once per page of the file and chunk sizes are checked before they are read, otherwise the read is aborted
+   *                   with {@link OptimisticReadAbortedException}.
+   */
   @SuppressFBWarnings(value = "PZLA_PREFER_ZERO_LENGTH_ARRAYS")
   private byte[] readFullEntry(final long clusterPosition, long pageIndex, int recordPosition,
-      final OAtomicOperation atomicOperation, final int pageCount) throws IOException {
-    if (getFilledUpTo(atomicOperation, fileId) <= pageIndex)
+      final OAtomicOperation atomicOperation, final int pageCount, final boolean optimistic) throws IOException {
+    final long filledUpTo = getFilledUpTo(atomicOperation, fileId);
+    if (filledUpTo <= pageIndex)
       return null;
 
     final List<byte[]> recordChunks = new ArrayList<>();
@@ -1815,6 +1884,9 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
     long nextPagePointer;
     boolean firstEntry = true;
     do {
+      if (optimistic && (pageIndex >= filledUpTo || recordChunks.size() >= filledUpTo))
+        throw OptimisticReadAbortedException.INSTANCE;
+
       OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount);
       try {
         final OClusterPage localPage = new OClusterPage(cacheEntry, false);
@@ -1826,7 +1898,12 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
             throw new OPaginatedClusterException("Content of record " + new ORecordId(id, clusterPosition) + " was broken", this);
         }
 
-        byte[] content = localPage.getRecordBinaryValue(recordPosition, 0, localPage.getRecordSize(recordPosition));
+        final int recordSize = localPage.getRecordSize(recordPosition);
+        if (optimistic && (recordSize < OLongSerializer.LONG_SIZE + OByteSerializer.BYTE_SIZE
+            || recordSize > OClusterPage.MAX_RECORD_SIZE))
+          throw OptimisticReadAbortedException.INSTANCE;
+
+        byte[] content = localPage.getRecordBinaryValue(recordPosition, 0, recordSize);
 
         if (firstEntry && content[content.length - OLongSerializer.LONG_SIZE - OByteSerializer.BYTE_SIZE] == 0)
           return null;
@@ -105,6 +105,8 @@ public class OAtomicOperationsManager implements OAtomicOperationsMangerMXBean {
 
   private final Map<OOperationUnitId, OPair<String, StackTraceElement[]>> activeAtomicOperations = new ConcurrentHashMap<>();
 
+  private final ConcurrentMap<String, OModificationStamp> modificationStamps = new ConcurrentHashMap<>();
+
   public OAtomicOperationsManager(OAbstractPaginatedStorage storage) {
     this.storage = storage;
     this.writeAheadLog = storage.getWALInstance();
@@ -391,8 +393,10 @@ public class OAtomicOperationsManager implements OAtomicOperationsMangerMXBean {
         activeAtomicOperations.remove(operation.getOperationUnitId());
       }
 
-      for (String lockObject : operation.lockedObjects())
+      for (String lockObject : operation.lockedObjects()) {
+        getModificationStamp(lockObject).endModification();
         lockManager.releaseLock(this, lockObject, OOneEntryPerKeyLockManager.LOCK.EXCLUSIVE);
+      }
 
       atomicOperationsCount.decrement();
     } else {
@@ -414,6 +418,7 @@ public class OAtomicOperationsManager implements OAtomicOperationsMangerMXBean {
       return;
 
     lockManager.acquireLock(lockName, OOneEntryPerKeyLockManager.LOCK.EXCLUSIVE);
+    getModificationStamp(lockName).startModification();
     operation.addLockedObject(lockName);
   }
 
@@ -439,6 +444,22 @@ public class OAtomicOperationsManager implements OAtomicOperationsMangerMXBean {
     lockManager.releaseLock(this, durableComponent.getLockName(), OOneEntryPerKeyLockManager.LOCK.SHARED);
   }
 
+  /**
+   * @return stamp which tracks modifications of the components protected by the lock with the given name. Modification lasts
+   * while exclusive lock is held by atomic operation, so it includes application of changes of the operation to the pages.
+   */
+  public OModificationStamp getModificationStamp(String lockName) {
+    OModificationStamp stamp = modificationStamps.get(lockName);
+    if (stamp == null) {
+      final OModificationStamp newStamp = new OModificationStamp();
+      stamp = modificationStamps.putIfAbsent(lockName, newStamp);
+      if (stamp == null)
+        stamp = newStamp;
+    }
+
+    return stamp;
+  }
+
   public void registerMBean() {
     if (mbeanIsRegistered.compareAndSet(false, true)) {
       try {
@@ -0,0 +1,65 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks modifications of durable component which allows to read the component without acquisition of locks.
+ * <p>
+ * Modification is started when exclusive lock of the component is acquired and is finished when the lock is released, after
+ * changes of atomic operation are applied to the pages. Reader takes the stamp by {@link #tryOptimisticRead()} before it reads the
+ * pages and checks by {@link #validate(long)} that the component was not modified in the meantime, otherwise result of the read
+ * is discarded and the read is repeated under locks.
+ */
+public final class OModificationStamp {
+  private final AtomicInteger activeModifications = new AtomicInteger();
+  private final AtomicLong    version             = new AtomicLong();
+
+  public void startModification() {
+    activeModifications.incrementAndGet();
+  }
+
+  public void endModification() {
+    // VERSION IS CHANGED BEFORE THE MODIFICATION IS FINISHED, SO READERS STARTED BEFORE IT ALWAYS NOTICE IT
+    version.incrementAndGet();
+    activeModifications.decrementAndGet();
+  }
+
+  /**
+   * @return stamp which should be passed to {@link #validate(long)} once data are read or <code>-1</code> if the component is
+   * modified at the moment and data should be read under locks.
+   */
+  public long tryOptimisticRead() {
+    final long stamp = version.get();
+    if (activeModifications.get() > 0)
+      return -1;
+
+    return stamp;
+  }
+
+  /**
+   * @return <code>true</code> if the component was not modified since the stamp was taken.
+   */
+  public boolean validate(final long stamp) {
+    return stamp >= 0 && activeModifications.get() == 0 && version.get() == stamp;
+  }
+}
@@ -57,6 +57,8 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 import java.util.zip.CRC32;
 
@@ -94,6 +96,27 @@ public class ODiskWriteAheadLog extends OAbstractWriteAheadLog {
 
   private final int segmentBufferSize;
 
+  /**
+   * Interval (in microseconds) during which flush of the log requested by {@link #flushTill(OLogSequenceNumber)} waits for other
+   * committers to join it.
+   */
+  private final int groupCommitInterval;
+
+  /**
+   * Amount of committers after which the log is flushed without waiting for the end of {@link #groupCommitInterval}.
+   */
+  private final int groupCommitMaxBatch;
+
+  private final Lock      groupCommitLock      = new ReentrantLock();
+  private final Condition groupCommitBatchFull = groupCommitLock.newCondition();
+  private final Condition groupFlushCompleted  = groupCommitLock.newCondition();
+
+  private boolean          groupFlushScheduled;
+  private int              waitingCommits;
+  private long             startedGroupFlushes;
+  private long             completedGroupFlushes;
+  private Throwable        groupFlushError;
+
   private final OLocalPaginatedStorage       storage;
   private final OPerformanceStatisticManager performanceStatisticManager;
 
@@ -132,6 +155,14 @@ public class ODiskWriteAheadLog extends OAbstractWriteAheadLog {
     return thread;
   });
 
+  private final ScheduledThreadPoolExecutor groupCommitExecutor = new OScheduledThreadPoolExecutorWithLogging(1, r -> {
+    final Thread thread = new Thread(OStorageAbstract.storageThreadGroup, r);
+    thread.setDaemon(true);
+    thread.setName("OrientDB WAL Group Commit Task (" + getStorage().getName() + ")");
+    thread.setUncaughtExceptionHandler(new OUncaughtExceptionHandler());
+    return thread;
+  });
+
   private final ConcurrentNavigableMap<OLogSequenceNumber, Runnable> events = new ConcurrentSkipListMap<>();
 
   public ODiskWriteAheadLog(OLocalPaginatedStorage storage) throws IOException {
@@ -141,7 +172,9 @@ public class ODiskWriteAheadLog extends OAbstractWriteAheadLog {
         storage.getConfiguration().getContextConfiguration().getValueAsString(OGlobalConfiguration.WAL_LOCATION), true, storage,
         storage.getConfiguration().getContextConfiguration().getValueAsInteger(OGlobalConfiguration.WAL_SEGMENT_BUFFER_SIZE)
             * ONE_MB,
-        storage.getConfiguration().getContextConfiguration().getValueAsInteger(OGlobalConfiguration.WAL_FILE_AUTOCLOSE_INTERVAL));
+        storage.getConfiguration().getContextConfiguration().getValueAsInteger(OGlobalConfiguration.WAL_FILE_AUTOCLOSE_INTERVAL),
+        storage.getConfiguration().getContextConfiguration().getValueAsInteger(OGlobalConfiguration.WAL_GROUP_COMMIT_INTERVAL),
+        storage.getConfiguration().getContextConfiguration().getValueAsInteger(OGlobalConfiguration.WAL_GROUP_COMMIT_MAX_BATCH));
   }
 
   @Override
@@ -184,8 +217,18 @@ public class ODiskWriteAheadLog extends OAbstractWriteAheadLog {
 
   public ODiskWriteAheadLog(int maxPagesCacheSize, int commitDelay, long maxSegmentSize, final String walPath,
       boolean filterWALFiles, final OLocalPaginatedStorage storage, int segmentBufferSize, int fileTTL) throws IOException {
+    this(maxPagesCacheSize, commitDelay, maxSegmentSize, walPath, filterWALFiles, storage, segmentBufferSize, fileTTL,
+        OGlobalConfiguration.WAL_GROUP_COMMIT_INTERVAL.getValueAsInteger(),
+        OGlobalConfiguration.WAL_GROUP_COMMIT_MAX_BATCH.getValueAsInteger());
+  }
+
+  public ODiskWriteAheadLog(int maxPagesCacheSize, int commitDelay, long maxSegmentSize, final String walPath,
+      boolean filterWALFiles, final OLocalPaginatedStorage storage, int segmentBufferSize, int fileTTL, int groupCommitInterval,
+      int groupCommitMaxBatch) throws IOException {
     this.fileTTL = fileTTL;
     this.segmentBufferSize = segmentBufferSize;
+    this.groupCommitInterval = groupCommitInterval;
+    this.groupCommitMaxBatch = groupCommitMaxBatch;
     this.maxPagesCacheSize = maxPagesCacheSize;
     this.commitDelay = commitDelay;
     this.maxSegmentSize = maxSegmentSize;
@@ -461,6 +504,54 @@ public class ODiskWriteAheadLog extends OAbstractWriteAheadLog {
     last.flush();
   }
 
+  @Override
+  public void flushTill(OLogSequenceNumber lsn) {
+    if (isFlushed(lsn))
+      return;
+
+    groupCommitLock.lock();
+    try {
+      // the flush which is already started may not include records of the caller, so the caller waits for the next one
+      final long groupFlush = startedGroupFlushes + 1;
+
+      waitingCommits++;
+      if (!groupFlushScheduled) {
+        try {
+          groupCommitExecutor.execute(new GroupFlushTask());
+        } catch (RejectedExecutionException e) {
+          waitingCommits--;
+          throw OException.wrapException(new OStorageException("WAL has been closed"), e);
+        }
+
+        groupFlushScheduled = true;
+      } else if (waitingCommits >= groupCommitMaxBatch)
+        groupCommitBatchFull.signal();
+
+      while (completedGroupFlushes < groupFlush) {
+        try {
+          groupFlushCompleted.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw OException.wrapException(new OInterruptedException("Waiting for the flush of the WAL was interrupted"), e);
+        }
+      }
+
+      if (!isFlushed(lsn)) {
+        if (groupFlushError != null)
+          throw OException.wrapException(new OStorageException("Error during flush of the WAL"), groupFlushError);
+        // the log was closed before the records of the caller were written
+        throw new OStorageException("WAL was not flushed till LSN " + lsn);
+      }
+    } finally {
+      groupCommitLock.unlock();
+    }
+  }
+
+  private boolean isFlushed(OLogSequenceNumber lsn) {
+    final OLogSequenceNumber flushedLsn = this.flushedLsn;
+    return flushedLsn != null && flushedLsn.compareTo(lsn) >= 0;
+  }
+
   @Override
   public OLogSequenceNumber logAtomicOperationStartRecord(boolean isRollbackSupported, OOperationUnitId unitId) throws IOException {
     final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
@@ -764,6 +855,9 @@ public class ODiskWriteAheadLog extends OAbstractWriteAheadLog {
 
       cutTillLimits.clear();
 
+      // queued group flushes fail because the log is closed and release committers which wait for them
+      groupCommitExecutor.shutdown();
+
       for (OLogSegment logSegment : logSegments)
         logSegment.close(flush);
 
@@ -1234,4 +1328,49 @@ public class ODiskWriteAheadLog extends OAbstractWriteAheadLog {
     }
   }
 
+  /**
+   * Flushes the log on behalf of all committers which called {@link #flushTill(OLogSequenceNumber)} during the group commit
+   * interval, so a single sync of the disk makes durable all of them.
+   */
+  private final class GroupFlushTask implements Runnable {
+    @Override
+    public void run() {
+      groupCommitLock.lock();
+      try {
+        long nanos = TimeUnit.MICROSECONDS.toNanos(groupCommitInterval);
+        while (nanos > 0 && waitingCommits < groupCommitMaxBatch)
+          nanos = groupCommitBatchFull.awaitNanos(nanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        // all committers which will come after this point are served by the next flush
+        groupFlushScheduled = false;
+        waitingCommits = 0;
+        startedGroupFlushes++;
+
+        groupCommitLock.unlock();
+      }
+
+      Throwable error = null;
+      try {
+        flush();
+      } catch (Throwable e) {
+        OLogManager.instance().error(this, "Error during group flush of the WAL", e);
+        error = e;
+      } finally {
+        // committers wait without timeout, so they are always released
+        groupCommitLock.lock();
+        try {
+          groupFlushError = error;
+          completedGroupFlushes++;
+          groupFlushCompleted.signalAll();
+        } finally {
+          groupCommitLock.unlock();
+        }
+      }
+
+      if (error instanceof Error)
+        throw (Error) error;
+    }
+  }
 }
@@ -52,6 +52,15 @@ public interface OWriteAheadLog {
 
   void flush();
 
+  /**
+   * Blocks the caller till all records up to and including the given LSN are flushed to the disk. Flushes requested by several
+   * threads at the same time may be coalesced into a single flush of the log, so the caller may wait a bit longer than in the
+   * case of {@link #flush()}, but the disk is synced much less often if there are many concurrent callers.
+   *
+   * @param lsn the LSN which should become durable.
+   */
+  void flushTill(OLogSequenceNumber lsn);
+
   OLogSequenceNumber logAtomicOperationStartRecord(boolean isRollbackSupported, OOperationUnitId unitId) throws IOException;
 
   OLogSequenceNumber logAtomicOperationEndRecord(OOperationUnitId operationUnitId, boolean rollback, OLogSequenceNumber startLsn,
@@ -29,6 +29,7 @@ import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.storage.cache.OReadCache;
 import com.orientechnologies.orient.core.storage.cache.OWriteCache;
 import com.orientechnologies.orient.core.storage.cache.local.OWOWCache;
+import com.orientechnologies.orient.core.storage.cache.local.clock.OClockCache;
 import com.orientechnologies.orient.core.storage.cache.local.twoq.O2QCache;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.ODiskWriteAheadLog;
@@ -236,7 +237,7 @@ public class OPerformanceStatisticManager {
    * disk based storage.
    * Initialized on demand.
    */
-  private volatile O2QCache readCache;
+  private volatile OReadCache readCache;
 
   /**
    * Flags which indicates whether {@link #writeAheadLog} field is initialized on demand.
@@ -283,13 +284,13 @@ public class OPerformanceStatisticManager {
   /**
    * @return Returns current instance of read cache and initializes local reference if such one is not initialized yet.
    */
-  private O2QCache gerReadCache() {
+  private OReadCache gerReadCache() {
     if (readCacheInitialized)
       return readCache;
 
     final OReadCache cache = storage.getReadCache();
-    if (cache instanceof O2QCache) {
-      this.readCache = (O2QCache) cache;
+    if (cache instanceof O2QCache || cache instanceof OClockCache) {
+      this.readCache = cache;
     } else {
       this.readCache = null;
     }
@@ -927,7 +928,7 @@ public class OPerformanceStatisticManager {
     switchLock.acquireReadLock();
     try {
       if (enabled) {
-        final O2QCache cache = gerReadCache();
+        final OReadCache cache = gerReadCache();
         if (cache != null)
           readCacheSize = cache.getUsedMemory();
 
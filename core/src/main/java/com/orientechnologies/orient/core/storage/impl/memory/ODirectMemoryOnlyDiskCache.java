@@ -574,6 +574,13 @@ public class ODirectMemoryOnlyDiskCache extends OAbstractWriteCache implements O
     }
   }
 
+  /**
+   * Memory of this cache is limited only by the data of in-memory storage, so the new size is ignored.
+   */
+  @Override
+  public void changeMaximumAmountOfMemory(long readCacheMaxMemory) {
+  }
+
   @Override
   public long getUsedMemory() {
     long totalPages = 0;
@@ -0,0 +1,465 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.storage.index.engine;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.index.*;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sharding.auto.OAutoShardingMurmurStrategy;
+import com.orientechnologies.orient.core.sharding.auto.OAutoShardingStrategy;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import com.orientechnologies.orient.core.storage.index.sbtree.local.OSBTree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Index engine which splits the index into several SB-trees partitioned by hash of the key. Every partition is a separate durable
+ * component with its own lock, so transactions which change keys of different partitions do not wait for each other during
+ * commit. Point lookups touch a single partition, range queries merge ordered cursors of all partitions, so the index keeps range
+ * query support of {@link OSBTreeIndexEngine}.
+ */
+public class OPartitionedSBTreeIndexEngine implements OIndexEngine {
+  public static final int VERSION = 1;
+
+  public static final String DATA_FILE_EXTENSION        = ".psb";
+  public static final String NULL_BUCKET_FILE_EXTENSION = ".pnb";
+
+  private static final String PARTITIONS_PROPERTY = "partitions";
+
+  private final OAbstractPaginatedStorage storage;
+  private final boolean                   durableInNonTx;
+  private final int                       version;
+  private final String                    name;
+
+  private int                           partitionsCount;
+  private List<OSBTree<Object, Object>> partitions;
+  private OAutoShardingStrategy         strategy;
+  private OBinarySerializer<Object>     keySerializer;
+  private OType[]                       keyTypes;
+
+  public OPartitionedSBTreeIndexEngine(String name, Boolean durableInNonTxMode, OAbstractPaginatedStorage storage, int version,
+      Map<String, String> engineProperties) {
+    this.name = name;
+    this.storage = storage;
+
+    if (durableInNonTxMode == null)
+      durableInNonTx = storage.getConfiguration().getContextConfiguration()
+          .getValueAsBoolean(OGlobalConfiguration.INDEX_DURABLE_IN_NON_TX_MODE);
+    else
+      durableInNonTx = durableInNonTxMode;
+
+    this.version = version;
+
+    // partitions are known before load only if the index already exists, it is needed to delete the index which cannot be loaded
+    if (engineProperties != null && engineProperties.get(PARTITIONS_PROPERTY) != null)
+      partitionsCount = Integer.parseInt(engineProperties.get(PARTITIONS_PROPERTY));
+  }
+
+  @Override
+  public void init(String indexName, String indexType, OIndexDefinition indexDefinition, boolean isAutomatic, ODocument metadata) {
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void create(OBinarySerializer valueSerializer, boolean isAutomatic, OType[] keyTypes, boolean nullPointerSupport,
+      OBinarySerializer keySerializer, int keySize, Set<String> clustersToIndex, Map<String, String> engineProperties,
+      ODocument metadata) {
+    if (metadata != null && metadata.containsField(PARTITIONS_PROPERTY))
+      partitionsCount = metadata.<Number>field(PARTITIONS_PROPERTY).intValue();
+    else
+      partitionsCount = Math.max(clustersToIndex.size(), 1);
+
+    if (partitionsCount < 1)
+      throw new OIndexException("Amount of partitions of index '" + name + "' should be positive, but was " + partitionsCount);
+
+    engineProperties.put(PARTITIONS_PROPERTY, Integer.toString(partitionsCount));
+
+    final boolean normalizedKeys = OSBTreeIndexEngine
+        .useNormalizedKeys(storage.getConfiguration().getContextConfiguration()
+            .getValueAsBoolean(OGlobalConfiguration.SBTREE_NORMALIZED_KEYS), keySerializer, keyTypes, engineProperties, metadata);
+
+    init(keySerializer, keyTypes);
+
+    for (OSBTree<Object, Object> partition : partitions)
+      partition.create(keySerializer, valueSerializer, keyTypes, keySize, nullPointerSupport, normalizedKeys);
+  }
+
+  @Override
+  public void delete() {
+    for (OSBTree<Object, Object> partition : partitions)
+      partition.delete();
+  }
+
+  @Override
+  public void deleteWithoutLoad(String indexName) {
+    if (partitions == null)
+      init(null, null);
+
+    for (OSBTree<Object, Object> partition : partitions)
+      partition.deleteWithoutLoad(partition.getName());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void load(String indexName, OBinarySerializer valueSerializer, boolean isAutomatic, OBinarySerializer keySerializer,
+      OType[] keyTypes, boolean nullPointerSupport, int keySize, Map<String, String> engineProperties) {
+    final String partitionsAsString = engineProperties.get(PARTITIONS_PROPERTY);
+    if (partitionsAsString == null || partitionsAsString.isEmpty())
+      throw new OIndexException(
+          "Cannot load partitioned index '" + indexName + "' because there is no metadata about the number of partitions");
+
+    partitionsCount = Integer.parseInt(partitionsAsString);
+    init(keySerializer, keyTypes);
+
+    final boolean normalizedKeys = OSBTreeIndexEngine.isNormalizedKeys(engineProperties);
+    for (OSBTree<Object, Object> partition : partitions)
+      partition.load(partition.getName(), keySerializer, valueSerializer, keyTypes, keySize, nullPointerSupport, normalizedKeys);
+  }
+
+  private void init(OBinarySerializer<Object> keySerializer, OType[] keyTypes) {
+    this.keySerializer = keySerializer;
+    this.keyTypes = keyTypes;
+
+    if (keySerializer != null)
+      strategy = new OAutoShardingMurmurStrategy(keySerializer);
+
+    partitions = new ArrayList<>(partitionsCount);
+    for (int i = 0; i < partitionsCount; i++)
+      partitions.add(
+          new OSBTree<>(name + "_" + i, DATA_FILE_EXTENSION, durableInNonTx, NULL_BUCKET_FILE_EXTENSION, storage));
+  }
+
+  @Override
+  public boolean contains(Object key) {
+    return getPartition(key).get(key) != null;
+  }
+
+  @Override
+  public boolean remove(Object key) {
+    return getPartition(key).remove(key) != null;
+  }
+
+  @Override
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public void clear() {
+    for (OSBTree<Object, Object> partition : partitions)
+      partition.clear();
+  }
+
+  @Override
+  public void close() {
+    for (OSBTree<Object, Object> partition : partitions)
+      partition.close();
+  }
+
+  @Override
+  public Object get(Object key) {
+    return getPartition(key).get(key);
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    getPartition(key).put(key, value);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public boolean validatedPut(Object key, OIdentifiable value, Validator<Object, OIdentifiable> validator) {
+    return getPartition(key).validatedPut(key, value, (Validator) validator);
+  }
+
+  @Override
+  public Object getFirstKey() {
+    Object firstKey = null;
+    for (OSBTree<Object, Object> partition : partitions) {
+      final Object key = partition.firstKey();
+      if (key != null && (firstKey == null || ODefaultComparator.INSTANCE.compare(key, firstKey) < 0))
+        firstKey = key;
+    }
+
+    return firstKey;
+  }
+
+  @Override
+  public Object getLastKey() {
+    Object lastKey = null;
+    for (OSBTree<Object, Object> partition : partitions) {
+      final Object key = partition.lastKey();
+      if (key != null && (lastKey == null || ODefaultComparator.INSTANCE.compare(key, lastKey) > 0))
+        lastKey = key;
+    }
+
+    return lastKey;
+  }
+
+  @Override
+  public OIndexCursor cursor(ValuesTransformer valuesTransformer) {
+    final List<OSBTree.OSBTreeCursor<Object, Object>> cursors = new ArrayList<>(partitions.size());
+    for (OSBTree<Object, Object> partition : partitions) {
+      final Object firstKey = partition.firstKey();
+      if (firstKey != null)
+        cursors.add(partition.iterateEntriesMajor(firstKey, true, true));
+    }
+
+    if (cursors.isEmpty())
+      return new OSBTreeIndexEngine.NullCursor();
+
+    return new OSBTreeIndexEngine.OSBTreeIndexCursor(new MergedTreeCursor(cursors, true), valuesTransformer);
+  }
+
+  @Override
+  public OIndexCursor descCursor(ValuesTransformer valuesTransformer) {
+    final List<OSBTree.OSBTreeCursor<Object, Object>> cursors = new ArrayList<>(partitions.size());
+    for (OSBTree<Object, Object> partition : partitions) {
+      final Object lastKey = partition.lastKey();
+      if (lastKey != null)
+        cursors.add(partition.iterateEntriesMinor(lastKey, true, false));
+    }
+
+    if (cursors.isEmpty())
+      return new OSBTreeIndexEngine.NullCursor();
+
+    return new OSBTreeIndexEngine.OSBTreeIndexCursor(new MergedTreeCursor(cursors, false), valuesTransformer);
+  }
+
+  @Override
+  public OIndexKeyCursor keyCursor() {
+    final List<OSBTree.OSBTreeKeyCursor<Object>> cursors = new ArrayList<>(partitions.size());
+    for (OSBTree<Object, Object> partition : partitions)
+      cursors.add(partition.keyCursor());
+
+    return new MergedKeyCursor(cursors);
+  }
+
+  @Override
+  public OIndexCursor iterateEntriesBetween(Object rangeFrom, boolean fromInclusive, Object rangeTo, boolean toInclusive,
+      boolean ascSortOrder, ValuesTransformer transformer) {
+    final List<OSBTree.OSBTreeCursor<Object, Object>> cursors = new ArrayList<>(partitions.size());
+    for (OSBTree<Object, Object> partition : partitions)
+      cursors.add(partition.iterateEntriesBetween(rangeFrom, fromInclusive, rangeTo, toInclusive, ascSortOrder));
+
+    return new OSBTreeIndexEngine.OSBTreeIndexCursor(new MergedTreeCursor(cursors, ascSortOrder), transformer);
+  }
+
+  @Override
+  public OIndexCursor iterateEntriesMajor(Object fromKey, boolean isInclusive, boolean ascSortOrder,
+      ValuesTransformer transformer) {
+    final List<OSBTree.OSBTreeCursor<Object, Object>> cursors = new ArrayList<>(partitions.size());
+    for (OSBTree<Object, Object> partition : partitions)
+      cursors.add(partition.iterateEntriesMajor(fromKey, isInclusive, ascSortOrder));
+
+    return new OSBTreeIndexEngine.OSBTreeIndexCursor(new MergedTreeCursor(cursors, ascSortOrder), transformer);
+  }
+
+  @Override
+  public OIndexCursor iterateEntriesMinor(Object toKey, boolean isInclusive, boolean ascSortOrder, ValuesTransformer transformer) {
+    final List<OSBTree.OSBTreeCursor<Object, Object>> cursors = new ArrayList<>(partitions.size());
+    for (OSBTree<Object, Object> partition : partitions)
+      cursors.add(partition.iterateEntriesMinor(toKey, isInclusive, ascSortOrder));
+
+    return new OSBTreeIndexEngine.OSBTreeIndexCursor(new MergedTreeCursor(cursors, ascSortOrder), transformer);
+  }
+
+  @Override
+  public long size(final ValuesTransformer transformer) {
+    long counter = 0;
+
+    for (OSBTree<Object, Object> partition : partitions) {
+      if (transformer == null) {
+        counter += partition.size();
+        continue;
+      }
+
+      if (partition.isNullPointerSupport()) {
+        final Object nullValue = partition.get(null);
+        if (nullValue != null)
+          counter += transformer.transformFromValue(nullValue).size();
+      }
+
+      final Object firstKey = partition.firstKey();
+      final Object lastKey = partition.lastKey();
+
+      if (firstKey != null && lastKey != null) {
+        final OSBTree.OSBTreeCursor<Object, Object> cursor = partition.iterateEntriesBetween(firstKey, true, lastKey, true, true);
+        Map.Entry<Object, Object> entry = cursor.next(-1);
+        while (entry != null) {
+          counter += transformer.transformFromValue(entry.getValue()).size();
+          entry = cursor.next(-1);
+        }
+      }
+    }
+
+    return counter;
+  }
+
+  @Override
+  public boolean hasRangeQuerySupport() {
+    return true;
+  }
+
+  @Override
+  public boolean acquireAtomicExclusiveLock(Object key) {
+    getPartition(key).acquireAtomicExclusiveLock();
+    return false;
+  }
+
+  @Override
+  public String getIndexNameByKey(Object key) {
+    return getPartition(key).getName();
+  }
+
+  private OSBTree<Object, Object> getPartition(Object key) {
+    if (key == null)
+      return partitions.get(0);
+
+    // keys are hashed in the same form in which they are stored in the tree, otherwise the same key passed as instances of
+    // different classes could be placed in different partitions
+    return partitions.get(strategy.getPartitionsId(keySerializer.preprocess(key, (Object[]) keyTypes), partitionsCount));
+  }
+
+  /**
+   * Merges ordered cursors of all partitions into the single ordered cursor. Partitions do not share keys, so the same key is never
+   * returned by two cursors.
+   */
+  private static final class MergedTreeCursor implements OSBTree.OSBTreeCursor<Object, Object> {
+    private final List<OSBTree.OSBTreeCursor<Object, Object>> cursors;
+    private final PriorityQueue<CursorHead>                   heads;
+
+    private CursorHead lastHead;
+    private boolean    initialized;
+
+    private MergedTreeCursor(List<OSBTree.OSBTreeCursor<Object, Object>> cursors, boolean ascSortOrder) {
+      this.cursors = cursors;
+
+      final Comparator<Object> keyComparator = ascSortOrder ? ODefaultComparator.INSTANCE : ODefaultComparator.INSTANCE.reversed();
+      this.heads = new PriorityQueue<>(Math.max(cursors.size(), 1),
+          (headOne, headTwo) -> keyComparator.compare(headOne.entry.getKey(), headTwo.entry.getKey()));
+    }
+
+    @Override
+    public Map.Entry<Object, Object> next(int prefetchSize) {
+      if (!initialized) {
+        for (OSBTree.OSBTreeCursor<Object, Object> cursor : cursors) {
+          final Map.Entry<Object, Object> entry = cursor.next(prefetchSize);
+          if (entry != null)
+            heads.add(new CursorHead(cursor, entry));
+        }
+
+        initialized = true;
+      } else if (lastHead != null) {
+        // cursor of the returned entry is moved only now to not load pages of the partition which may be not needed any more
+        final Map.Entry<Object, Object> entry = lastHead.cursor.next(prefetchSize);
+        if (entry != null) {
+          lastHead.entry = entry;
+          heads.add(lastHead);
+        }
+      }
+
+      lastHead = heads.poll();
+      if (lastHead == null)
+        return null;
+
+      return lastHead.entry;
+    }
+
+    private static final class CursorHead {
+      private final OSBTree.OSBTreeCursor<Object, Object> cursor;
+      private       Map.Entry<Object, Object>             entry;
+
+      private CursorHead(OSBTree.OSBTreeCursor<Object, Object> cursor, Map.Entry<Object, Object> entry) {
+        this.cursor = cursor;
+        this.entry = entry;
+      }
+    }
+  }
+
+  /**
+   * Merges key cursors of all partitions into the single cursor which returns keys in ascending order.
+   */
+  private static final class MergedKeyCursor implements OIndexKeyCursor {
+    private final List<OSBTree.OSBTreeKeyCursor<Object>> cursors;
+    private final PriorityQueue<KeyCursorHead>           heads = new PriorityQueue<>(
+        (headOne, headTwo) -> ODefaultComparator.INSTANCE.compare(headOne.key, headTwo.key));
+
+    private KeyCursorHead lastHead;
+    private boolean       initialized;
+
+    private MergedKeyCursor(List<OSBTree.OSBTreeKeyCursor<Object>> cursors) {
+      this.cursors = cursors;
+    }
+
+    @Override
+    public Object next(int prefetchSize) {
+      if (!initialized) {
+        for (OSBTree.OSBTreeKeyCursor<Object> cursor : cursors) {
+          final Object key = cursor.next(prefetchSize);
+          if (key != null)
+            heads.add(new KeyCursorHead(cursor, key));
+        }
+
+        initialized = true;
+      } else if (lastHead != null) {
+        final Object key = lastHead.cursor.next(prefetchSize);
+        if (key != null) {
+          lastHead.key = key;
+          heads.add(lastHead);
+        }
+      }
+
+      lastHead = heads.poll();
+      if (lastHead == null)
+        return null;
+
+      return lastHead.key;
+    }
+
+    private static final class KeyCursorHead {
+      private final OSBTree.OSBTreeKeyCursor<Object> cursor;
+      private       Object                           key;
+
+      private KeyCursorHead(OSBTree.OSBTreeKeyCursor<Object> cursor, Object key) {
+        this.cursor = cursor;
+        this.key = key;
+      }
+    }
+  }
+}
@@ -25,6 +25,7 @@ import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.index.*;
 import com.orientechnologies.orient.core.storage.index.sbtree.local.OSBTree;
+import com.orientechnologies.orient.core.storage.index.sbtree.local.OSBTreeKeyNormalizer;
 import com.orientechnologies.orient.core.iterator.OEmptyIterator;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
@@ -44,9 +45,17 @@ public class OSBTreeIndexEngine implements OIndexEngine {
   public static final String DATA_FILE_EXTENSION        = ".sbt";
   public static final String NULL_BUCKET_FILE_EXTENSION = ".nbt";
 
+  /**
+   * Name of engine property and index metadata field which defines whether keys are stored in normalized form.
+   *
+   * @see OGlobalConfiguration#SBTREE_NORMALIZED_KEYS
+   */
+  static final String NORMALIZED_KEYS_PROPERTY = "normalizedKeys";
+
   private final OSBTree<Object, Object> sbTree;
   private       int                     version;
   private final String                  name;
+  private final boolean                 normalizedKeysByDefault;
 
   public OSBTreeIndexEngine(String name, Boolean durableInNonTxMode, OAbstractPaginatedStorage storage, int version) {
     this.name = name;
@@ -59,6 +68,8 @@ public class OSBTreeIndexEngine implements OIndexEngine {
       durableInNonTx = durableInNonTxMode;
 
     this.version = version;
+    this.normalizedKeysByDefault = storage.getConfiguration().getContextConfiguration()
+        .getValueAsBoolean(OGlobalConfiguration.SBTREE_NORMALIZED_KEYS);
 
     sbTree = new OSBTree<Object, Object>(name, DATA_FILE_EXTENSION, durableInNonTx, NULL_BUCKET_FILE_EXTENSION, storage);
   }
@@ -80,7 +91,33 @@ public class OSBTreeIndexEngine implements OIndexEngine {
   public void create(OBinarySerializer valueSerializer, boolean isAutomatic, OType[] keyTypes, boolean nullPointerSupport,
       OBinarySerializer keySerializer, int keySize, Set<String> clustersToIndex, Map<String, String> engineProperties,
       ODocument metadata) {
-    sbTree.create(keySerializer, valueSerializer, keyTypes, keySize, nullPointerSupport);
+    final boolean normalizedKeys = useNormalizedKeys(normalizedKeysByDefault, keySerializer, keyTypes, engineProperties, metadata);
+    sbTree.create(keySerializer, valueSerializer, keyTypes, keySize, nullPointerSupport, normalizedKeys);
+  }
+
+  /**
+   * Decides whether keys of new index have to be stored in normalized form and remembers decision in engine properties.
+   */
+  static boolean useNormalizedKeys(boolean byDefault, OBinarySerializer keySerializer, OType[] keyTypes,
+      Map<String, String> engineProperties, ODocument metadata) {
+    boolean normalizedKeys = byDefault;
+    if (metadata != null && metadata.containsField(NORMALIZED_KEYS_PROPERTY))
+      normalizedKeys = Boolean.TRUE.equals(metadata.field(NORMALIZED_KEYS_PROPERTY));
+
+    normalizedKeys = normalizedKeys && OSBTreeKeyNormalizer.isSupported(keySerializer, keyTypes);
+
+    if (engineProperties != null) {
+      if (normalizedKeys)
+        engineProperties.put(NORMALIZED_KEYS_PROPERTY, Boolean.TRUE.toString());
+      else
+        engineProperties.remove(NORMALIZED_KEYS_PROPERTY);
+    }
+
+    return normalizedKeys;
+  }
+
+  static boolean isNormalizedKeys(Map<String, String> engineProperties) {
+    return engineProperties != null && Boolean.parseBoolean(engineProperties.get(NORMALIZED_KEYS_PROPERTY));
   }
 
   @Override
@@ -96,7 +133,8 @@ public class OSBTreeIndexEngine implements OIndexEngine {
   @Override
   public void load(String indexName, OBinarySerializer valueSerializer, boolean isAutomatic, OBinarySerializer keySerializer,
       OType[] keyTypes, boolean nullPointerSupport, int keySize, Map<String, String> engineProperties) {
-    sbTree.load(indexName, keySerializer, valueSerializer, keyTypes, keySize, nullPointerSupport);
+    sbTree.load(indexName, keySerializer, valueSerializer, keyTypes, keySize, nullPointerSupport,
+        isNormalizedKeys(engineProperties));
   }
 
   @Override
@@ -246,14 +284,14 @@ public class OSBTreeIndexEngine implements OIndexEngine {
     return name;
   }
 
-  private static final class OSBTreeIndexCursor extends OIndexAbstractCursor {
+  static final class OSBTreeIndexCursor extends OIndexAbstractCursor {
     private final OSBTree.OSBTreeCursor<Object, Object> treeCursor;
     private final ValuesTransformer                     valuesTransformer;
 
     private Iterator<OIdentifiable> currentIterator = OEmptyIterator.IDENTIFIABLE_INSTANCE;
     private Object                  currentKey      = null;
 
-    private OSBTreeIndexCursor(OSBTree.OSBTreeCursor<Object, Object> treeCursor, ValuesTransformer valuesTransformer) {
+    OSBTreeIndexCursor(OSBTree.OSBTreeCursor<Object, Object> treeCursor, ValuesTransformer valuesTransformer) {
       this.treeCursor = treeCursor;
       this.valuesTransformer = valuesTransformer;
     }
@@ -302,7 +340,7 @@ public class OSBTreeIndexEngine implements OIndexEngine {
     }
   }
 
-  private static class NullCursor extends OIndexAbstractCursor {
+  static class NullCursor extends OIndexAbstractCursor {
     @Override
     public Map.Entry<Object, OIdentifiable> nextEntry() {
       return null;
@@ -68,6 +68,10 @@ import java.util.*;
  * When new key-value pair is added we append binary presentation of this pair to the second part of array which grows from end of
  * page to start, remember value of offset for this pair, and find proper position of this offset inside of first part of array.
  * Such approach allows to minimize amount of memory involved in performing of operations and as result speed up data processing.
+ * <p>
+ * If tree is created with normalized keys, keys are stored in buckets in form produced by {@link OSBTreeKeyNormalizer}. Common
+ * prefix of all keys of a bucket is stored only once and binary search inside of bucket compares raw bytes instead of deserialized
+ * keys. Format of keys is chosen once the tree is created, so it has to be passed to both create and load methods.
  *
  * @author Andrey Lomakin (a.lomakin-at-orientdb.com)
  * @since 8/7/13
@@ -92,6 +96,7 @@ public class OSBTree<K, V> extends ODurableComponent {
   private OType[]              keyTypes;
   private OBinarySerializer<V> valueSerializer;
   private boolean              nullPointerSupport;
+  private OSBTreeKeyNormalizer keyNormalizer;
 
   public OSBTree(String name, String dataFileExtension, boolean durableInNonTxMode, String nullFileExtension,
       OAbstractPaginatedStorage storage) {
@@ -107,6 +112,16 @@ public class OSBTree<K, V> extends ODurableComponent {
 
   public void create(OBinarySerializer<K> keySerializer, OBinarySerializer<V> valueSerializer, OType[] keyTypes, int keySize,
       boolean nullPointerSupport) {
+    create(keySerializer, valueSerializer, keyTypes, keySize, nullPointerSupport, false);
+  }
+
+  /**
+   * @param normalizedKeys whether keys should be stored in buckets in normalized form, may be <code>true</code> only if {@link
+   *                       OSBTreeKeyNormalizer#isSupported(OBinarySerializer, OType[])} returns <code>true</code> for passed in key
+   *                       serializer and types.
+   */
+  public void create(OBinarySerializer<K> keySerializer, OBinarySerializer<V> valueSerializer, OType[] keyTypes, int keySize,
+      boolean nullPointerSupport, boolean normalizedKeys) {
     assert keySerializer != null;
     startOperation();
     try {
@@ -130,6 +145,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
         this.valueSerializer = valueSerializer;
         this.nullPointerSupport = nullPointerSupport;
+        this.keyNormalizer = normalizedKeys ? new OSBTreeKeyNormalizer(keySerializer, keyTypes) : null;
 
         fileId = addFile(atomicOperation, getFullName());
 
@@ -139,7 +155,7 @@ public class OSBTree<K, V> extends ODurableComponent {
         OCacheEntry rootCacheEntry = addPage(atomicOperation, fileId);
         try {
 
-          OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, true, keySerializer, keyTypes, valueSerializer);
+          OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, true, keySerializer, keyTypes, valueSerializer, keyNormalizer);
           rootBucket.setTreeSize(0);
 
         } finally {
@@ -202,7 +218,7 @@ public class OSBTree<K, V> extends ODurableComponent {
             OCacheEntry keyBucketCacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false);
             try {
               OSBTreeBucket<K, V> keyBucket = new OSBTreeBucket<K, V>(keyBucketCacheEntry, keySerializer, keyTypes,
-                  valueSerializer);
+                  valueSerializer, keyNormalizer);
 
               OSBTreeBucket.SBTreeEntry<K, V> treeEntry = keyBucket.getEntry(bucketSearchResult.itemIndex);
               return readValue(treeEntry.value, atomicOperation);
@@ -287,7 +303,7 @@ public class OSBTree<K, V> extends ODurableComponent {
           BucketSearchResult bucketSearchResult = findBucket(key, atomicOperation);
 
           OCacheEntry keyBucketCacheEntry = loadPageForWrite(atomicOperation, fileId, bucketSearchResult.getLastPathItem(), false);
-          OSBTreeBucket<K, V> keyBucket = new OSBTreeBucket<K, V>(keyBucketCacheEntry, keySerializer, keyTypes, valueSerializer);
+          OSBTreeBucket<K, V> keyBucket = new OSBTreeBucket<K, V>(keyBucketCacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
 
           if (validator != null) {
             boolean failure = true; // assuming validation throws by default
@@ -350,7 +366,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
             keyBucketCacheEntry = loadPageForWrite(atomicOperation, fileId, bucketSearchResult.getLastPathItem(), false);
 
-            keyBucket = new OSBTreeBucket<K, V>(keyBucketCacheEntry, keySerializer, keyTypes, valueSerializer);
+            keyBucket = new OSBTreeBucket<K, V>(keyBucketCacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
           }
 
           releasePageFromWrite(atomicOperation, keyBucketCacheEntry);
@@ -475,7 +491,7 @@ public class OSBTree<K, V> extends ODurableComponent {
         }
 
         try {
-          OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(cacheEntry, true, keySerializer, keyTypes, valueSerializer);
+          OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(cacheEntry, true, keySerializer, keyTypes, valueSerializer, keyNormalizer);
 
           rootBucket.setTreeSize(0);
 
@@ -570,6 +586,11 @@ public class OSBTree<K, V> extends ODurableComponent {
 
   public void load(String name, OBinarySerializer<K> keySerializer, OBinarySerializer<V> valueSerializer, OType[] keyTypes,
       int keySize, boolean nullPointerSupport) {
+    load(name, keySerializer, valueSerializer, keyTypes, keySize, nullPointerSupport, false);
+  }
+
+  public void load(String name, OBinarySerializer<K> keySerializer, OBinarySerializer<V> valueSerializer, OType[] keyTypes,
+      int keySize, boolean nullPointerSupport, boolean normalizedKeys) {
     startOperation();
     try {
       acquireExclusiveLock();
@@ -590,6 +611,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
         this.keySerializer = keySerializer;
         this.valueSerializer = valueSerializer;
+        this.keyNormalizer = normalizedKeys ? new OSBTreeKeyNormalizer(keySerializer, keyTypes) : null;
       } catch (IOException e) {
         throw OException.wrapException(new OSBTreeException("Exception during loading of sbtree " + name, this), e);
       } finally {
@@ -611,7 +633,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
           OCacheEntry rootCacheEntry = loadPageForRead(atomicOperation, fileId, ROOT_INDEX, false);
           try {
-            OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer);
+            OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
             return rootBucket.getTreeSize();
           } finally {
             releasePageFromRead(atomicOperation, rootCacheEntry);
@@ -657,7 +679,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
           OCacheEntry keyBucketCacheEntry = loadPageForWrite(atomicOperation, fileId, bucketSearchResult.getLastPathItem(), false);
           try {
-            OSBTreeBucket<K, V> keyBucket = new OSBTreeBucket<K, V>(keyBucketCacheEntry, keySerializer, keyTypes, valueSerializer);
+            OSBTreeBucket<K, V> keyBucket = new OSBTreeBucket<K, V>(keyBucketCacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
 
             final OSBTreeValue<V> removed = keyBucket.getEntry(bucketSearchResult.itemIndex).value;
             final V value = readValue(removed, atomicOperation);
@@ -799,7 +821,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
           final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, searchResult.getLastPathItem(), false);
           try {
-            OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer);
+            OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
             return bucket.getKey(searchResult.itemIndex);
           } finally {
             releasePageFromRead(atomicOperation, cacheEntry);
@@ -839,7 +861,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
           final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, searchResult.getLastPathItem(), false);
           try {
-            OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer);
+            OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
             return bucket.getKey(searchResult.itemIndex);
           } finally {
             releasePageFromRead(atomicOperation, cacheEntry);
@@ -983,7 +1005,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
     OCacheEntry rootCacheEntry = loadPageForWrite(atomicOperation, fileId, ROOT_INDEX, false);
 
-    OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer);
+    OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
     try {
       prevFreeListItem = rootBucket.getValuesFreeListFirstIndex();
       rootBucket.setValuesFreeListFirstIndex(pageIndex);
@@ -1069,7 +1091,7 @@ public class OSBTree<K, V> extends ODurableComponent {
     long freeListFirstIndex;
     OSBTreeBucket<K, V> rootBucket;
     try {
-      rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer);
+      rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
       freeListFirstIndex = rootBucket.getValuesFreeListFirstIndex();
     } finally {
       releasePageFromRead(atomicOperation, rootCacheEntry);
@@ -1082,7 +1104,7 @@ public class OSBTree<K, V> extends ODurableComponent {
         long nextFreeListIndex = valuePage.getNextFreeListPage();
 
         rootCacheEntry = loadPageForWrite(atomicOperation, fileId, ROOT_INDEX, false);
-        rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer);
+        rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
         try {
           rootBucket.setValuesFreeListFirstIndex(nextFreeListIndex);
         } finally {
@@ -1111,7 +1133,7 @@ public class OSBTree<K, V> extends ODurableComponent {
   private void setSize(long size, OAtomicOperation atomicOperation) throws IOException {
     OCacheEntry rootCacheEntry = loadPageForWrite(atomicOperation, fileId, ROOT_INDEX, false);
     try {
-      OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer);
+      OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
       rootBucket.setTreeSize(size);
     } finally {
       releasePageFromWrite(atomicOperation, rootCacheEntry);
@@ -1258,7 +1280,7 @@ public class OSBTree<K, V> extends ODurableComponent {
     OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, bucketIndex, false);
     int itemIndex = 0;
     try {
-      OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer);
+      OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
 
       while (true) {
         if (!bucket.isLeaf()) {
@@ -1306,7 +1328,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
         cacheEntry = loadPageForRead(atomicOperation, fileId, bucketIndex, false);
 
-        bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer);
+        bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
       }
     } finally {
       releasePageFromRead(atomicOperation, cacheEntry);
@@ -1320,7 +1342,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
     OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, bucketIndex, false);
 
-    OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer);
+    OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
 
     int itemIndex = bucket.size() - 1;
     try {
@@ -1371,7 +1393,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
         cacheEntry = loadPageForRead(atomicOperation, fileId, bucketIndex, false);
 
-        bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer);
+        bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
         if (itemIndex == OSBTreeBucket.MAX_PAGE_SIZE_BYTES + 1)
           itemIndex = bucket.size() - 1;
       }
@@ -1474,7 +1496,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
     OCacheEntry bucketEntry = loadPageForWrite(atomicOperation, fileId, pageIndex, false);
     try {
-      OSBTreeBucket<K, V> bucketToSplit = new OSBTreeBucket<K, V>(bucketEntry, keySerializer, keyTypes, valueSerializer);
+      OSBTreeBucket<K, V> bucketToSplit = new OSBTreeBucket<K, V>(bucketEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
 
       final boolean splitLeaf = bucketToSplit.isLeaf();
       final int bucketSize = bucketToSplit.size();
@@ -1507,7 +1529,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
     try {
       OSBTreeBucket<K, V> newRightBucket = new OSBTreeBucket<K, V>(rightBucketEntry, splitLeaf, keySerializer, keyTypes,
-          valueSerializer);
+          valueSerializer, keyNormalizer);
       newRightBucket.addAll(rightEntries);
 
       bucketToSplit.shrink(indexToSplit);
@@ -1523,7 +1545,7 @@ public class OSBTree<K, V> extends ODurableComponent {
         if (rightSiblingPageIndex >= 0) {
           final OCacheEntry rightSiblingBucketEntry = loadPageForWrite(atomicOperation, fileId, rightSiblingPageIndex, false);
           OSBTreeBucket<K, V> rightSiblingBucket = new OSBTreeBucket<K, V>(rightSiblingBucketEntry, keySerializer, keyTypes,
-              valueSerializer);
+              valueSerializer, keyNormalizer);
           try {
             rightSiblingBucket.setLeftSibling(rightBucketEntry.getPageIndex());
           } finally {
@@ -1535,7 +1557,7 @@ public class OSBTree<K, V> extends ODurableComponent {
       long parentIndex = path.get(path.size() - 2);
       OCacheEntry parentCacheEntry = loadPageForWrite(atomicOperation, fileId, parentIndex, false);
       try {
-        OSBTreeBucket<K, V> parentBucket = new OSBTreeBucket<K, V>(parentCacheEntry, keySerializer, keyTypes, valueSerializer);
+        OSBTreeBucket<K, V> parentBucket = new OSBTreeBucket<K, V>(parentCacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
         OSBTreeBucket.SBTreeEntry<K, V> parentEntry = new OSBTreeBucket.SBTreeEntry<K, V>(pageIndex,
             rightBucketEntry.getPageIndex(), separationKey, null);
 
@@ -1554,7 +1576,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
           insertionIndex = bucketSearchResult.itemIndex;
 
-          parentBucket = new OSBTreeBucket<K, V>(parentCacheEntry, keySerializer, keyTypes, valueSerializer);
+          parentBucket = new OSBTreeBucket<K, V>(parentCacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
         }
 
       } finally {
@@ -1597,7 +1619,7 @@ public class OSBTree<K, V> extends ODurableComponent {
     OCacheEntry rightBucketEntry = addPage(atomicOperation, fileId);
     try {
       OSBTreeBucket<K, V> newLeftBucket = new OSBTreeBucket<K, V>(leftBucketEntry, splitLeaf, keySerializer, keyTypes,
-          valueSerializer);
+          valueSerializer, keyNormalizer);
       newLeftBucket.addAll(leftEntries);
 
       if (splitLeaf)
@@ -1609,7 +1631,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
     try {
       OSBTreeBucket<K, V> newRightBucket = new OSBTreeBucket<K, V>(rightBucketEntry, splitLeaf, keySerializer, keyTypes,
-          valueSerializer);
+          valueSerializer, keyNormalizer);
       newRightBucket.addAll(rightEntries);
 
       if (splitLeaf)
@@ -1618,7 +1640,7 @@ public class OSBTree<K, V> extends ODurableComponent {
       releasePageFromWrite(atomicOperation, rightBucketEntry);
     }
 
-    bucketToSplit = new OSBTreeBucket<K, V>(bucketEntry, false, keySerializer, keyTypes, valueSerializer);
+    bucketToSplit = new OSBTreeBucket<K, V>(bucketEntry, false, keySerializer, keyTypes, valueSerializer, keyNormalizer);
 
     bucketToSplit.setTreeSize(treeSize);
     bucketToSplit.setValuesFreeListFirstIndex(freeListPage);
@@ -1646,6 +1668,9 @@ public class OSBTree<K, V> extends ODurableComponent {
     long pageIndex = ROOT_INDEX;
     final ArrayList<Long> path = new ArrayList<Long>();
 
+    if (keyNormalizer != null)
+      return findBucket(keyNormalizer.normalize(key), path, atomicOperation);
+
     while (true) {
       if (path.size() > MAX_PATH_LENGTH)
         throw new OSBTreeException(
@@ -1656,7 +1681,7 @@ public class OSBTree<K, V> extends ODurableComponent {
       final OCacheEntry bucketEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false);
       final OSBTreeBucket.SBTreeEntry<K, V> entry;
       try {
-        final OSBTreeBucket<K, V> keyBucket = new OSBTreeBucket<K, V>(bucketEntry, keySerializer, keyTypes, valueSerializer);
+        final OSBTreeBucket<K, V> keyBucket = new OSBTreeBucket<K, V>(bucketEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
         final int index = keyBucket.find(key);
 
         if (keyBucket.isLeaf())
@@ -1683,6 +1708,44 @@ public class OSBTree<K, V> extends ODurableComponent {
     }
   }
 
+  /**
+   * Version of the search for trees with normalized keys, key is normalized once and separation keys are not deserialized.
+   */
+  private BucketSearchResult findBucket(byte[] normalizedKey, ArrayList<Long> path, OAtomicOperation atomicOperation)
+      throws IOException {
+    long pageIndex = ROOT_INDEX;
+
+    while (true) {
+      if (path.size() > MAX_PATH_LENGTH)
+        throw new OSBTreeException(
+            "We reached max level of depth of SBTree but still found nothing, seems like tree is in corrupted state. You should rebuild index related to given query.",
+            this);
+
+      path.add(pageIndex);
+      final OCacheEntry bucketEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false);
+      try {
+        final OSBTreeBucket<K, V> keyBucket = new OSBTreeBucket<K, V>(bucketEntry, keySerializer, keyTypes, valueSerializer,
+            keyNormalizer);
+        final int index = keyBucket.findNormalized(normalizedKey);
+
+        if (keyBucket.isLeaf())
+          return new BucketSearchResult(index, path);
+
+        if (index >= 0)
+          pageIndex = keyBucket.getRightChild(index);
+        else {
+          final int insertionIndex = -index - 1;
+          if (insertionIndex >= keyBucket.size())
+            pageIndex = keyBucket.getRightChild(insertionIndex - 1);
+          else
+            pageIndex = keyBucket.getLeftChild(insertionIndex);
+        }
+      } finally {
+        releasePageFromRead(atomicOperation, bucketEntry);
+      }
+    }
+  }
+
   private K enhanceCompositeKey(K key, PartialSearchMode partialSearchMode) {
     if (!(key instanceof OCompositeKey))
       return key;
@@ -1862,7 +1925,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
               final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false);
               try {
-                final OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer);
+                final OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
 
                 if (itemIndex >= bucket.size()) {
                   pageIndex = bucket.getRightSibling();
@@ -1962,7 +2025,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
               final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false);
               try {
-                final OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer);
+                final OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
 
                 if (itemIndex >= bucket.size()) {
                   pageIndex = bucket.getRightSibling();
@@ -2070,7 +2133,7 @@ public class OSBTree<K, V> extends ODurableComponent {
 
               final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false);
               try {
-                final OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer);
+                final OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, keySerializer, keyTypes, valueSerializer, keyNormalizer);
 
                 if (itemIndex >= bucket.size())
                   itemIndex = bucket.size() - 1;
@@ -32,6 +32,7 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
@@ -60,6 +61,15 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
 
   private static final int POSITIONS_ARRAY_OFFSET = FREE_VALUES_LIST_OFFSET + OLongSerializer.LONG_SIZE;
 
+  /**
+   * Buckets of trees with normalized keys keep size and content of the common prefix of all keys of the bucket here, positions
+   * array follows the prefix. Only suffixes of keys are stored in entries.
+   */
+  private static final int PREFIX_SIZE_OFFSET = FREE_VALUES_LIST_OFFSET + OLongSerializer.LONG_SIZE;
+  private static final int PREFIX_OFFSET      = PREFIX_SIZE_OFFSET + OIntegerSerializer.INT_SIZE;
+
+  private static final int MAX_NORMALIZED_KEY_SIZE = 0x7FFF;
+
   private final boolean isLeaf;
 
   private final OBinarySerializer<K> keySerializer;
@@ -69,15 +79,26 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
 
   private final Comparator<? super K> comparator = ODefaultComparator.INSTANCE;
 
-  @SuppressFBWarnings("EI_EXPOSE_REP2")
+  private final OSBTreeKeyNormalizer keyNormalizer;
+
+  private byte[] prefix;
+  private int    positionsArrayOffset;
+
   public OSBTreeBucket(OCacheEntry cacheEntry, boolean isLeaf, OBinarySerializer<K> keySerializer, OType[] keyTypes,
       OBinarySerializer<V> valueSerializer) throws IOException {
+    this(cacheEntry, isLeaf, keySerializer, keyTypes, valueSerializer, null);
+  }
+
+  @SuppressFBWarnings("EI_EXPOSE_REP2")
+  public OSBTreeBucket(OCacheEntry cacheEntry, boolean isLeaf, OBinarySerializer<K> keySerializer, OType[] keyTypes,
+      OBinarySerializer<V> valueSerializer, OSBTreeKeyNormalizer keyNormalizer) throws IOException {
     super(cacheEntry);
 
     this.isLeaf = isLeaf;
     this.keySerializer = keySerializer;
     this.keyTypes = keyTypes;
     this.valueSerializer = valueSerializer;
+    this.keyNormalizer = keyNormalizer;
 
     setIntValue(FREE_POINTER_OFFSET, MAX_PAGE_SIZE_BYTES);
     setIntValue(SIZE_OFFSET, 0);
@@ -91,17 +112,33 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
 
     setByteValue(KEY_SERIALIZER_OFFSET, this.keySerializer.getId());
     setByteValue(VALUE_SERIALIZER_OFFSET, this.valueSerializer.getId());
+
+    if (keyNormalizer != null)
+      setPrefix(new byte[0]);
+    else
+      positionsArrayOffset = POSITIONS_ARRAY_OFFSET;
   }
 
-  @SuppressFBWarnings("EI_EXPOSE_REP2")
   public OSBTreeBucket(OCacheEntry cacheEntry, OBinarySerializer<K> keySerializer, OType[] keyTypes,
       OBinarySerializer<V> valueSerializer) {
+    this(cacheEntry, keySerializer, keyTypes, valueSerializer, null);
+  }
+
+  @SuppressFBWarnings("EI_EXPOSE_REP2")
+  public OSBTreeBucket(OCacheEntry cacheEntry, OBinarySerializer<K> keySerializer, OType[] keyTypes,
+      OBinarySerializer<V> valueSerializer, OSBTreeKeyNormalizer keyNormalizer) {
     super(cacheEntry);
     this.keyTypes = keyTypes;
 
     this.isLeaf = getByteValue(IS_LEAF_OFFSET) > 0;
     this.keySerializer = keySerializer;
     this.valueSerializer = valueSerializer;
+    this.keyNormalizer = keyNormalizer;
+
+    if (keyNormalizer != null)
+      positionsArrayOffset = PREFIX_OFFSET + getIntValue(PREFIX_SIZE_OFFSET);
+    else
+      positionsArrayOffset = POSITIONS_ARRAY_OFFSET;
   }
 
   public void setTreeSize(long size) throws IOException {
@@ -125,6 +162,9 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
   }
 
   public int find(K key) {
+    if (keyNormalizer != null)
+      return findNormalized(keyNormalizer.normalize(key));
+
     int low = 0;
     int high = size() - 1;
 
@@ -143,9 +183,41 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
     return -(low + 1); // key not found.
   }
 
+  int findNormalized(byte[] key) {
+    final byte[] prefix = getPrefix();
+    final int size = size();
+
+    final int prefixCmp = OSBTreeKeyNormalizer.compare(prefix, 0, key, 0);
+    if (prefixCmp > 0)
+      return -1;
+    if (prefixCmp < 0)
+      return -(size + 1);
+
+    int low = 0;
+    int high = size - 1;
+
+    if (key.length <= prefix.length) {
+      // key is a prefix of all keys of the bucket, so it is equal to any of them
+      return high < 0 ? -1 : (low + high) >>> 1;
+    }
+
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = OSBTreeKeyNormalizer.compare(getKeySuffix(getKeyPosition(mid)), 0, key, prefix.length);
+
+      if (cmp < 0)
+        low = mid + 1;
+      else if (cmp > 0)
+        high = mid - 1;
+      else
+        return mid; // key found
+    }
+    return -(low + 1); // key not found.
+  }
+
   public long remove(int entryIndex) throws IOException {
-    int entryPosition = getIntValue(POSITIONS_ARRAY_OFFSET + entryIndex * OIntegerSerializer.INT_SIZE);
-    int keySize = getObjectSizeInDirectMemory(keySerializer, entryPosition);
+    int entryPosition = getIntValue(positionsArrayOffset + entryIndex * OIntegerSerializer.INT_SIZE);
+    int keySize = getKeySize(entryPosition);
 
     int entrySize;
     long linkValue = -1;
@@ -170,8 +242,8 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
 
     int size = size();
     if (entryIndex < size - 1) {
-      moveData(POSITIONS_ARRAY_OFFSET + (entryIndex + 1) * OIntegerSerializer.INT_SIZE,
-          POSITIONS_ARRAY_OFFSET + entryIndex * OIntegerSerializer.INT_SIZE, (size - entryIndex - 1) * OIntegerSerializer.INT_SIZE);
+      moveData(positionsArrayOffset + (entryIndex + 1) * OIntegerSerializer.INT_SIZE,
+          positionsArrayOffset + entryIndex * OIntegerSerializer.INT_SIZE, (size - entryIndex - 1) * OIntegerSerializer.INT_SIZE);
     }
 
     size--;
@@ -183,7 +255,7 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
     }
     setIntValue(FREE_POINTER_OFFSET, freePointer + entrySize);
 
-    int currentPositionOffset = POSITIONS_ARRAY_OFFSET;
+    int currentPositionOffset = positionsArrayOffset;
 
     for (int i = 0; i < size; i++) {
       int currentEntryPosition = getIntValue(currentPositionOffset);
@@ -200,11 +272,11 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
   }
 
   public SBTreeEntry<K, V> getEntry(int entryIndex) {
-    int entryPosition = getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    int entryPosition = getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + positionsArrayOffset);
 
     if (isLeaf) {
-      K key = deserializeFromDirectMemory(keySerializer, entryPosition);
-      entryPosition += getObjectSizeInDirectMemory(keySerializer, entryPosition);
+      K key = readKey(entryPosition);
+      entryPosition += getKeySize(entryPosition);
 
       boolean isLinkValue = getByteValue(entryPosition) > 0;
       long link = -1;
@@ -223,7 +295,7 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
       long rightChild = getLongValue(entryPosition);
       entryPosition += OLongSerializer.LONG_SIZE;
 
-      K key = deserializeFromDirectMemory(keySerializer, entryPosition);
+      K key = readKey(entryPosition);
 
       return new SBTreeEntry<K, V>(leftChild, rightChild, key, null);
     }
@@ -239,10 +311,10 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
   public OSBTreeValue<V> getValue(int entryIndex) {
     assert isLeaf;
 
-    int entryPosition = getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    int entryPosition = getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + positionsArrayOffset);
 
     // skip key
-    entryPosition += getObjectSizeInDirectMemory(keySerializer, entryPosition);
+    entryPosition += getKeySize(entryPosition);
 
     boolean isLinkValue = getByteValue(entryPosition) > 0;
     long link = -1;
@@ -256,13 +328,163 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
     return new OSBTreeValue<V>(link >= 0, link, value);
   }
 
+  public long getLeftChild(int entryIndex) {
+    assert !isLeaf;
+
+    return getLongValue(getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + positionsArrayOffset));
+  }
+
+  public long getRightChild(int entryIndex) {
+    assert !isLeaf;
+
+    return getLongValue(getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + positionsArrayOffset) + OLongSerializer.LONG_SIZE);
+  }
+
   public K getKey(int index) {
-    int entryPosition = getIntValue(index * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    return readKey(getKeyPosition(index));
+  }
+
+  private int getKeyPosition(int index) {
+    int entryPosition = getIntValue(index * OIntegerSerializer.INT_SIZE + positionsArrayOffset);
 
     if (!isLeaf)
       entryPosition += 2 * OLongSerializer.LONG_SIZE;
 
-    return deserializeFromDirectMemory(keySerializer, entryPosition);
+    return entryPosition;
+  }
+
+  @SuppressWarnings("unchecked")
+  private K readKey(int keyPosition) {
+    if (keyNormalizer == null)
+      return deserializeFromDirectMemory(keySerializer, keyPosition);
+
+    final byte[] prefix = getPrefix();
+    final byte[] suffix = getKeySuffix(keyPosition);
+
+    final byte[] normalizedKey = Arrays.copyOf(prefix, prefix.length + suffix.length);
+    System.arraycopy(suffix, 0, normalizedKey, prefix.length, suffix.length);
+
+    return (K) keyNormalizer.denormalize(normalizedKey);
+  }
+
+  /**
+   * @return amount of bytes occupied by the key which starts at the given position.
+   */
+  private int getKeySize(int keyPosition) {
+    if (keyNormalizer == null)
+      return getObjectSizeInDirectMemory(keySerializer, keyPosition);
+
+    final int first = getByteValue(keyPosition) & 0xFF;
+    if (first < 0x80)
+      return OByteSerializer.BYTE_SIZE + first;
+
+    return 2 * OByteSerializer.BYTE_SIZE + (((first & 0x7F) << 8) | (getByteValue(keyPosition + 1) & 0xFF));
+  }
+
+  /**
+   * Suffix of normalized key is prefixed by its length which takes one byte if it is less than 128 and two bytes otherwise.
+   */
+  private byte[] getKeySuffix(int keyPosition) {
+    final int first = getByteValue(keyPosition) & 0xFF;
+    if (first < 0x80)
+      return getBinaryValue(keyPosition + OByteSerializer.BYTE_SIZE, first);
+
+    final int length = ((first & 0x7F) << 8) | (getByteValue(keyPosition + 1) & 0xFF);
+    return getBinaryValue(keyPosition + 2 * OByteSerializer.BYTE_SIZE, length);
+  }
+
+  private static byte[] serializeKeySuffix(byte[] normalizedKey, int prefixLength) {
+    final int length = normalizedKey.length - prefixLength;
+    if (length > MAX_NORMALIZED_KEY_SIZE)
+      throw new IllegalArgumentException(
+          "Size of normalized key " + length + " is more than allowed size " + MAX_NORMALIZED_KEY_SIZE + " bytes");
+
+    final byte[] serializedKey;
+    final int offset;
+    if (length < 0x80) {
+      serializedKey = new byte[OByteSerializer.BYTE_SIZE + length];
+      serializedKey[0] = (byte) length;
+      offset = OByteSerializer.BYTE_SIZE;
+    } else {
+      serializedKey = new byte[2 * OByteSerializer.BYTE_SIZE + length];
+      serializedKey[0] = (byte) (0x80 | (length >>> 8));
+      serializedKey[1] = (byte) length;
+      offset = 2 * OByteSerializer.BYTE_SIZE;
+    }
+
+    System.arraycopy(normalizedKey, prefixLength, serializedKey, offset, length);
+    return serializedKey;
+  }
+
+  private byte[] getPrefix() {
+    if (prefix == null) {
+      final int prefixSize = getIntValue(PREFIX_SIZE_OFFSET);
+      prefix = prefixSize == 0 ? new byte[0] : getBinaryValue(PREFIX_OFFSET, prefixSize);
+    }
+
+    return prefix;
+  }
+
+  /**
+   * Changes prefix of keys of the bucket, may be called only if bucket is empty because positions array is moved.
+   */
+  private void setPrefix(byte[] prefix) throws IOException {
+    setIntValue(PREFIX_SIZE_OFFSET, prefix.length);
+    if (prefix.length > 0)
+      setBinaryValue(PREFIX_OFFSET, prefix);
+
+    this.prefix = prefix;
+    positionsArrayOffset = PREFIX_OFFSET + prefix.length;
+  }
+
+  private byte[] commonPrefix(List<SBTreeEntry<K, V>> entries) {
+    if (entries.isEmpty())
+      return new byte[0];
+
+    final byte[] first = keyNormalizer.normalize(entries.get(0).key);
+    final byte[] last = keyNormalizer.normalize(entries.get(entries.size() - 1).key);
+
+    return Arrays.copyOf(first, OSBTreeKeyNormalizer.commonPrefixLength(first, last));
+  }
+
+  /**
+   * Shortens prefix of keys of the bucket if key which is going to be added does not start from it. All keys of the bucket are
+   * rewritten in such case.
+   *
+   * @return <code>false</code> if keys with shortened prefix do not fit into the bucket.
+   */
+  private boolean updatePrefix(byte[] normalizedKey) throws IOException {
+    final byte[] prefix = getPrefix();
+    final int size = size();
+
+    if (size == 0) {
+      if (prefix.length > 0)
+        setPrefix(new byte[0]);
+
+      return true;
+    }
+
+    final int prefixLength = OSBTreeKeyNormalizer.commonPrefixLength(prefix, normalizedKey);
+    if (prefixLength == prefix.length)
+      return true;
+
+    // length of each key may also take one more byte
+    final int entriesSize = MAX_PAGE_SIZE_BYTES - getIntValue(FREE_POINTER_OFFSET) + size * (prefix.length - prefixLength + 1);
+    if (PREFIX_OFFSET + prefixLength + size * OIntegerSerializer.INT_SIZE + entriesSize > MAX_PAGE_SIZE_BYTES)
+      return false;
+
+    final List<SBTreeEntry<K, V>> entries = new ArrayList<SBTreeEntry<K, V>>(size);
+    for (int i = 0; i < size; i++)
+      entries.add(getEntry(i));
+
+    setIntValue(FREE_POINTER_OFFSET, MAX_PAGE_SIZE_BYTES);
+    setIntValue(SIZE_OFFSET, 0);
+    setPrefix(Arrays.copyOf(prefix, prefixLength));
+
+    for (int i = 0; i < entries.size(); i++)
+      addEntry(i, entries.get(i), false);
+
+    return true;
   }
 
   public boolean isLeaf() {
@@ -270,6 +492,9 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
   }
 
   public void addAll(List<SBTreeEntry<K, V>> entries) throws IOException {
+    if (keyNormalizer != null && size() == 0)
+      setPrefix(commonPrefix(entries));
+
     for (int i = 0; i < entries.size(); i++)
       addEntry(i, entries.get(i), false);
   }
@@ -284,6 +509,9 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
     setIntValue(FREE_POINTER_OFFSET, MAX_PAGE_SIZE_BYTES);
     setIntValue(SIZE_OFFSET, 0);
 
+    if (keyNormalizer != null)
+      setPrefix(commonPrefix(treeEntries));
+
     int index = 0;
     for (SBTreeEntry<K, V> entry : treeEntries) {
       addEntry(index, entry, false);
@@ -292,7 +520,19 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
   }
 
   public boolean addEntry(int index, SBTreeEntry<K, V> treeEntry, boolean updateNeighbors) throws IOException {
-    final int keySize = keySerializer.getObjectSize(treeEntry.key, (Object[]) keyTypes);
+    final byte[] serializedKey;
+    if (keyNormalizer != null) {
+      final byte[] normalizedKey = keyNormalizer.normalize(treeEntry.key);
+      if (!updatePrefix(normalizedKey))
+        return false;
+
+      serializedKey = serializeKeySuffix(normalizedKey, getPrefix().length);
+    } else {
+      serializedKey = new byte[keySerializer.getObjectSize(treeEntry.key, (Object[]) keyTypes)];
+      keySerializer.serializeNativeObject(treeEntry.key, serializedKey, 0, (Object[]) keyTypes);
+    }
+
+    final int keySize = serializedKey.length;
     int valueSize = 0;
     int entrySize = keySize;
 
@@ -312,24 +552,21 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
 
     int size = size();
     int freePointer = getIntValue(FREE_POINTER_OFFSET);
-    if (freePointer - entrySize < (size + 1) * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET)
+    if (freePointer - entrySize < (size + 1) * OIntegerSerializer.INT_SIZE + positionsArrayOffset)
       return false;
 
     if (index <= size - 1) {
-      moveData(POSITIONS_ARRAY_OFFSET + index * OIntegerSerializer.INT_SIZE,
-          POSITIONS_ARRAY_OFFSET + (index + 1) * OIntegerSerializer.INT_SIZE, (size - index) * OIntegerSerializer.INT_SIZE);
+      moveData(positionsArrayOffset + index * OIntegerSerializer.INT_SIZE,
+          positionsArrayOffset + (index + 1) * OIntegerSerializer.INT_SIZE, (size - index) * OIntegerSerializer.INT_SIZE);
     }
 
     freePointer -= entrySize;
 
     setIntValue(FREE_POINTER_OFFSET, freePointer);
-    setIntValue(POSITIONS_ARRAY_OFFSET + index * OIntegerSerializer.INT_SIZE, freePointer);
+    setIntValue(positionsArrayOffset + index * OIntegerSerializer.INT_SIZE, freePointer);
     setIntValue(SIZE_OFFSET, size + 1);
 
     if (isLeaf) {
-      byte[] serializedKey = new byte[keySize];
-      keySerializer.serializeNativeObject(treeEntry.key, serializedKey, 0, (Object[]) keyTypes);
-
       freePointer += setBinaryValue(freePointer, serializedKey);
       freePointer += setByteValue(freePointer, treeEntry.value.isLink() ? (byte) 1 : (byte) 0);
 
@@ -344,20 +581,18 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
       freePointer += setLongValue(freePointer, treeEntry.leftChild);
       freePointer += setLongValue(freePointer, treeEntry.rightChild);
 
-      byte[] serializedKey = new byte[keySize];
-      keySerializer.serializeNativeObject(treeEntry.key, serializedKey, 0, (Object[]) keyTypes);
       setBinaryValue(freePointer, serializedKey);
 
       size++;
 
       if (updateNeighbors && size > 1) {
         if (index < size - 1) {
-          final int nextEntryPosition = getIntValue(POSITIONS_ARRAY_OFFSET + (index + 1) * OIntegerSerializer.INT_SIZE);
+          final int nextEntryPosition = getIntValue(positionsArrayOffset + (index + 1) * OIntegerSerializer.INT_SIZE);
           setLongValue(nextEntryPosition, treeEntry.rightChild);
         }
 
         if (index > 0) {
-          final int prevEntryPosition = getIntValue(POSITIONS_ARRAY_OFFSET + (index - 1) * OIntegerSerializer.INT_SIZE);
+          final int prevEntryPosition = getIntValue(positionsArrayOffset + (index - 1) * OIntegerSerializer.INT_SIZE);
           setLongValue(prevEntryPosition + OLongSerializer.LONG_SIZE, treeEntry.leftChild);
         }
       }
@@ -367,8 +602,8 @@ public class OSBTreeBucket<K, V> extends ODurablePage {
   }
 
   public int updateValue(int index, OSBTreeValue<V> value) throws IOException {
-    int entryPosition = getIntValue(index * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
-    entryPosition += getObjectSizeInDirectMemory(keySerializer, entryPosition);
+    int entryPosition = getIntValue(index * OIntegerSerializer.INT_SIZE + positionsArrayOffset);
+    entryPosition += getKeySize(entryPosition);
     boolean isLinkValue = getByteValue(entryPosition) > 0;
 
     entryPosition += OByteSerializer.BYTE_SIZE;
@@ -0,0 +1,364 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.orient.core.storage.index.sbtree.local;
+
+import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.index.OAlwaysGreaterKey;
+import com.orientechnologies.orient.core.index.OAlwaysLessKey;
+import com.orientechnologies.orient.core.index.OCompositeKey;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OCompositeKeySerializer;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Converts keys of {@link OSBTree} into byte arrays whose unsigned lexicographical order is the same as the order defined by
+ * {@link com.orientechnologies.common.comparator.ODefaultComparator} for original keys, so buckets may search keys by comparing
+ * raw bytes and may store common prefix of keys only once.
+ * <p>
+ * Encodings are self-delimiting and encoding of partial composite key is a prefix of encoding of any full key which starts from
+ * the same items, so two keys where one encoding is a prefix of another are considered equal the same way as {@link
+ * OCompositeKey#compareTo(OCompositeKey)} does it.
+ * <p>
+ * Only keys which consist of items of {@link #isSupported(OBinarySerializer, OType[])} types may be normalized.
+ */
+public final class OSBTreeKeyNormalizer {
+  private static final byte ALWAYS_LESS    = 0;
+  private static final byte NULL           = 1;
+  private static final byte NOT_NULL       = 2;
+  private static final byte ALWAYS_GREATER = (byte) 0xFF;
+
+  private static final byte STRING_TERMINATOR = 0;
+
+  private final OType[] keyTypes;
+  private final boolean composite;
+
+  public OSBTreeKeyNormalizer(OBinarySerializer<?> keySerializer, OType[] keyTypes) {
+    if (!isSupported(keySerializer, keyTypes))
+      throw new IllegalArgumentException("Keys of types " + Arrays.toString(keyTypes) + " can not be normalized");
+
+    this.keyTypes = Arrays.copyOf(keyTypes, keyTypes.length);
+    this.composite = keySerializer.getId() == OCompositeKeySerializer.ID;
+  }
+
+  /**
+   * @return <code>true</code> if keys serialized by passed in serializer and consist of items of passed in types may be normalized.
+   */
+  public static boolean isSupported(OBinarySerializer<?> keySerializer, OType[] keyTypes) {
+    if (keySerializer == null || keyTypes == null || keyTypes.length == 0)
+      return false;
+
+    if (keyTypes.length > 1 && keySerializer.getId() != OCompositeKeySerializer.ID)
+      return false;
+
+    for (OType keyType : keyTypes) {
+      if (keyType == null)
+        return false;
+
+      switch (keyType) {
+      case BOOLEAN:
+      case BYTE:
+      case SHORT:
+      case INTEGER:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case DATE:
+      case DATETIME:
+      case STRING:
+      case LINK:
+        break;
+      default:
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  public byte[] normalize(Object key) {
+    final KeyBuffer stream = new KeyBuffer();
+
+    if (composite) {
+      int index = 0;
+      for (Object item : ((OCompositeKey) key).getKeys()) {
+        if (item instanceof OAlwaysLessKey)
+          stream.write(ALWAYS_LESS);
+        else if (item instanceof OAlwaysGreaterKey)
+          stream.write(ALWAYS_GREATER);
+        else if (item == null)
+          stream.write(NULL);
+        else {
+          stream.write(NOT_NULL);
+          writeItem(stream, keyTypes[index], item);
+        }
+
+        index++;
+      }
+    } else
+      writeItem(stream, keyTypes[0], key);
+
+    return stream.toByteArray();
+  }
+
+  public Object denormalize(byte[] normalizedKey) {
+    final int[] position = new int[1];
+
+    if (!composite)
+      return readItem(normalizedKey, position, keyTypes[0]);
+
+    final OCompositeKey compositeKey = new OCompositeKey();
+    int index = 0;
+    while (position[0] < normalizedKey.length) {
+      final byte tag = normalizedKey[position[0]++];
+
+      if (tag == NULL)
+        compositeKey.addKey(null);
+      else if (tag == NOT_NULL)
+        compositeKey.addKey(readItem(normalizedKey, position, keyTypes[index]));
+      else
+        throw new IllegalStateException("Invalid tag " + tag + " of normalized composite key item");
+
+      index++;
+    }
+
+    return compositeKey;
+  }
+
+  /**
+   * Compares tails of two normalized keys which start from passed in offsets. Bytes are compared as unsigned values, if one of the
+   * tails is a prefix of another tails are treated as equal.
+   */
+  public static int compare(byte[] keyOne, int offsetOne, byte[] keyTwo, int offsetTwo) {
+    final int length = Math.min(keyOne.length - offsetOne, keyTwo.length - offsetTwo);
+
+    for (int i = 0; i < length; i++) {
+      final int diff = (keyOne[offsetOne + i] & 0xFF) - (keyTwo[offsetTwo + i] & 0xFF);
+      if (diff != 0)
+        return diff;
+    }
+
+    return 0;
+  }
+
+  /**
+   * @return length of the longest common prefix of two normalized keys.
+   */
+  public static int commonPrefixLength(byte[] keyOne, byte[] keyTwo) {
+    final int length = Math.min(keyOne.length, keyTwo.length);
+
+    for (int i = 0; i < length; i++) {
+      if (keyOne[i] != keyTwo[i])
+        return i;
+    }
+
+    return length;
+  }
+
+  private static void writeItem(KeyBuffer stream, OType type, Object item) {
+    switch (type) {
+    case BOOLEAN:
+      stream.write((Boolean) item ? 1 : 0);
+      break;
+    case BYTE:
+      stream.write((Byte) item ^ 0x80);
+      break;
+    case SHORT:
+      writeShort(stream, (short) ((Short) item ^ 0x8000));
+      break;
+    case INTEGER:
+      writeInt(stream, (Integer) item ^ Integer.MIN_VALUE);
+      break;
+    case LONG:
+      writeLong(stream, (Long) item ^ Long.MIN_VALUE);
+      break;
+    case FLOAT: {
+      final int bits = Float.floatToIntBits((Float) item);
+      writeInt(stream, bits < 0 ? ~bits : bits ^ Integer.MIN_VALUE);
+      break;
+    }
+    case DOUBLE: {
+      final long bits = Double.doubleToLongBits((Double) item);
+      writeLong(stream, bits < 0 ? ~bits : bits ^ Long.MIN_VALUE);
+      break;
+    }
+    case DATE:
+    case DATETIME:
+      writeLong(stream, ((Date) item).getTime() ^ Long.MIN_VALUE);
+      break;
+    case STRING:
+      writeString(stream, (String) item);
+      break;
+    case LINK: {
+      final ORID rid = ((OIdentifiable) item).getIdentity();
+      writeShort(stream, (short) (rid.getClusterId() ^ 0x8000));
+      writeLong(stream, rid.getClusterPosition() ^ Long.MIN_VALUE);
+      break;
+    }
+    default:
+      throw new IllegalArgumentException("Keys of type " + type + " can not be normalized");
+    }
+  }
+
+  private static Object readItem(byte[] normalizedKey, int[] position, OType type) {
+    switch (type) {
+    case BOOLEAN:
+      return normalizedKey[position[0]++] != 0;
+    case BYTE:
+      return (byte) (normalizedKey[position[0]++] ^ 0x80);
+    case SHORT:
+      return (short) (readShort(normalizedKey, position) ^ 0x8000);
+    case INTEGER:
+      return readInt(normalizedKey, position) ^ Integer.MIN_VALUE;
+    case LONG:
+      return readLong(normalizedKey, position) ^ Long.MIN_VALUE;
+    case FLOAT: {
+      final int bits = readInt(normalizedKey, position);
+      return Float.intBitsToFloat(bits < 0 ? bits ^ Integer.MIN_VALUE : ~bits);
+    }
+    case DOUBLE: {
+      final long bits = readLong(normalizedKey, position);
+      return Double.longBitsToDouble(bits < 0 ? bits ^ Long.MIN_VALUE : ~bits);
+    }
+    case DATE:
+    case DATETIME:
+      return new Date(readLong(normalizedKey, position) ^ Long.MIN_VALUE);
+    case STRING:
+      return readString(normalizedKey, position);
+    case LINK: {
+      final int clusterId = (short) (readShort(normalizedKey, position) ^ 0x8000);
+      final long clusterPosition = readLong(normalizedKey, position) ^ Long.MIN_VALUE;
+      return new ORecordId(clusterId, clusterPosition);
+    }
+    default:
+      throw new IllegalArgumentException("Keys of type " + type + " can not be normalized");
+    }
+  }
+
+  /**
+   * Characters are compared by {@link String#compareTo(String)} as UTF-16 code units, so each code unit is shifted by one to free
+   * zero for the terminator and written in one, two or three bytes depending on its value. Lengths of encodings grow together with
+   * values of code units and first bytes of encodings of different lengths do not intersect, which keeps the order of strings.
+   */
+  private static void writeString(KeyBuffer stream, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      final int unit = value.charAt(i) + 1;
+
+      if (unit < 0x80)
+        stream.write(unit);
+      else if (unit < 0x4000) {
+        stream.write(0x80 | (unit >>> 8));
+        stream.write(unit);
+      } else {
+        stream.write(0xC0 | (unit >>> 16));
+        stream.write(unit >>> 8);
+        stream.write(unit);
+      }
+    }
+
+    stream.write(STRING_TERMINATOR);
+  }
+
+  private static String readString(byte[] normalizedKey, int[] position) {
+    final StringBuilder builder = new StringBuilder();
+
+    int pos = position[0];
+    while (true) {
+      final int first = normalizedKey[pos++] & 0xFF;
+      if (first == STRING_TERMINATOR)
+        break;
+
+      final int unit;
+      if (first < 0x80)
+        unit = first;
+      else if (first < 0xC0)
+        unit = ((first & 0x3F) << 8) | (normalizedKey[pos++] & 0xFF);
+      else {
+        unit = ((first & 0x3F) << 16) | ((normalizedKey[pos] & 0xFF) << 8) | (normalizedKey[pos + 1] & 0xFF);
+        pos += 2;
+      }
+
+      builder.append((char) (unit - 1));
+    }
+
+    position[0] = pos;
+    return builder.toString();
+  }
+
+  private static void writeShort(KeyBuffer stream, short value) {
+    stream.write(value >>> 8);
+    stream.write(value);
+  }
+
+  private static void writeInt(KeyBuffer stream, int value) {
+    stream.write(value >>> 24);
+    stream.write(value >>> 16);
+    stream.write(value >>> 8);
+    stream.write(value);
+  }
+
+  private static void writeLong(KeyBuffer stream, long value) {
+    writeInt(stream, (int) (value >>> 32));
+    writeInt(stream, (int) value);
+  }
+
+  private static int readShort(byte[] normalizedKey, int[] position) {
+    final int pos = position[0];
+    position[0] += 2;
+
+    return ((normalizedKey[pos] & 0xFF) << 8) | (normalizedKey[pos + 1] & 0xFF);
+  }
+
+  private static int readInt(byte[] normalizedKey, int[] position) {
+    final int pos = position[0];
+    position[0] += 4;
+
+    return ((normalizedKey[pos] & 0xFF) << 24) | ((normalizedKey[pos + 1] & 0xFF) << 16) | ((normalizedKey[pos + 2] & 0xFF) << 8)
+        | (normalizedKey[pos + 3] & 0xFF);
+  }
+
+  private static long readLong(byte[] normalizedKey, int[] position) {
+    return ((long) readInt(normalizedKey, position) << 32) | (readInt(normalizedKey, position) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Not synchronized replacement of {@link java.io.ByteArrayOutputStream}.
+   */
+  private static final class KeyBuffer {
+    private byte[] buffer = new byte[32];
+    private int    size;
+
+    private void write(int value) {
+      if (size == buffer.length)
+        buffer = Arrays.copyOf(buffer, size << 1);
+
+      buffer[size++] = (byte) value;
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+    }
+  }
+}
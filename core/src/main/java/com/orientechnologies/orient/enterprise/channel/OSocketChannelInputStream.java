@@ -0,0 +1,98 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.enterprise.channel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Blocking input stream on top of a socket channel in non-blocking mode. The channel stays non-blocking, so it can be registered
+ * with a selector that waits for new requests, while the stream waits for the rest of a request with a private selector.
+ * <p>
+ * The socket timeout (SO_TIMEOUT) is honored as in the streams of a blocking socket.
+ */
+public class OSocketChannelInputStream extends InputStream {
+  private final SocketChannel channel;
+  private final byte[]        single = new byte[1];
+  private       Selector      selector;
+
+  public OSocketChannelInputStream(final SocketChannel channel) {
+    this.channel = channel;
+  }
+
+  @Override
+  public int read() throws IOException {
+    final int rb = read(single, 0, 1);
+    return rb < 0 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0)
+      return 0;
+
+    final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+    int rb = channel.read(buffer);
+    while (rb == 0) {
+      waitForData();
+      rb = channel.read(buffer);
+    }
+    return rb;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (selector != null)
+        selector.close();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void waitForData() throws IOException {
+    if (selector == null) {
+      selector = Selector.open();
+      channel.register(selector, SelectionKey.OP_READ);
+    }
+
+    final int timeout = channel.socket().getSoTimeout();
+    final int selected = selector.select(timeout);
+    selector.selectedKeys().clear();
+
+    if (Thread.currentThread().isInterrupted())
+      throw new InterruptedIOException("Read interrupted");
+    if (selected == 0 && timeout > 0)
+      throw new SocketTimeoutException("Read timed out");
+    if (!channel.isOpen())
+      throw new IOException("Channel is closed");
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.enterprise.channel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Blocking output stream on top of a socket channel in non-blocking mode, the counterpart of {@link OSocketChannelInputStream}.
+ * When the send buffer of the socket is full the stream waits on a private selector until the client reads the data.
+ */
+public class OSocketChannelOutputStream extends OutputStream {
+  private final SocketChannel channel;
+  private       Selector      selector;
+
+  public OSocketChannelOutputStream(final SocketChannel channel) {
+    this.channel = channel;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+    while (buffer.hasRemaining()) {
+      if (channel.write(buffer) == 0)
+        waitForSpace();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (selector != null)
+        selector.close();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void waitForSpace() throws IOException {
+    if (selector == null) {
+      selector = Selector.open();
+      channel.register(selector, SelectionKey.OP_WRITE);
+    }
+
+    selector.select();
+    selector.selectedKeys().clear();
+
+    if (Thread.currentThread().isInterrupted())
+      throw new InterruptedIOException("Write interrupted");
+    if (!channel.isOpen())
+      throw new IOException("Channel is closed");
+  }
+}
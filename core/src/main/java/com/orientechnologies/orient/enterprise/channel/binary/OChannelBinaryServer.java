@@ -25,21 +25,38 @@ import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
 
 import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.enterprise.channel.OSocketChannelInputStream;
+import com.orientechnologies.orient.enterprise.channel.OSocketChannelOutputStream;
 
 public class OChannelBinaryServer extends OChannelBinary {
 
   public OChannelBinaryServer(final Socket iSocket, final OContextConfiguration iConfig) throws IOException {
     super(iSocket, iConfig);
 
+    final InputStream socketIn;
+    final OutputStream socketOut;
+    final SocketChannel socketChannel = socket.getChannel();
+    if (socketChannel != null && !socketChannel.isBlocking()) {
+      // SOCKET SERVED BY A SELECTOR: THE STREAMS OF THE SOCKET CANNOT BE USED IN NON-BLOCKING MODE
+      socketIn = new OSocketChannelInputStream(socketChannel);
+      socketOut = new OSocketChannelOutputStream(socketChannel);
+    } else {
+      socketIn = socket.getInputStream();
+      socketOut = socket.getOutputStream();
+    }
+
     if (socketBufferSize > 0) {
-      inStream = new BufferedInputStream(socket.getInputStream(), socketBufferSize);
-      outStream = new BufferedOutputStream(socket.getOutputStream(), socketBufferSize);
+      inStream = new BufferedInputStream(socketIn, socketBufferSize);
+      outStream = new BufferedOutputStream(socketOut, socketBufferSize);
     } else {
-      inStream = new BufferedInputStream(socket.getInputStream());
-      outStream = new BufferedOutputStream(socket.getOutputStream());
+      inStream = new BufferedInputStream(socketIn);
+      outStream = new BufferedOutputStream(socketOut);
     }
 
     out = new DataOutputStream(outStream);
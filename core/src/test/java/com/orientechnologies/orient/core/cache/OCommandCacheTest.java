@@ -26,6 +26,8 @@ import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.metadata.OMetadataInternal;
 import com.orientechnologies.orient.core.metadata.security.OUser;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.executor.OResult;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import org.junit.Assert;
 import org.junit.Test;
@@ -33,6 +35,7 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -114,4 +117,106 @@ public class OCommandCacheTest {
 
     Assert.assertEquals(f.exists(), false);
   }
+
+  @Test
+  public void testResultSetCache() {
+    OGlobalConfiguration.COMMAND_CACHE_ENABLED.setValue(true);
+    ODatabaseDocument db = new ODatabaseDocumentTx("memory:" + OCommandCacheTest.class.getSimpleName() + "ResultSet");
+    db.create();
+
+    try {
+      OCommandCacheSoftRefs commandCache = (OCommandCacheSoftRefs) ((OMetadataInternal) db.getMetadata()).getCommandCache();
+      commandCache.setMinExecutionTime(0);
+      commandCache.setEvictStrategy(OCommandCache.STRATEGY.PER_CLUSTER);
+
+      db.getMetadata().getSchema().createClass("Cached");
+      db.getMetadata().getSchema().createClass("Other");
+
+      for (int i = 0; i < 10; i++)
+        db.save(new ODocument("Cached").field("name", "name" + (i % 2)).field("value", i));
+
+      Assert.assertEquals(5, count(db.query("select from Cached where name = ?", "name0")));
+      Assert.assertEquals(1, commandCache.size());
+
+      // CACHED RESULTS ARE RETURNED AS NEW RECORDS
+      OResultSet cached = db.query("select from Cached where name = ?", "name0");
+      OResult first = cached.next();
+      Assert.assertEquals("name0", first.getProperty("name"));
+      Assert.assertTrue(first.getIdentity().get().isPersistent());
+      cached.close();
+
+      Assert.assertEquals(5, count(db.query("select from Cached where name = :name", Collections.singletonMap("name", "name1"))));
+      Assert.assertEquals(2, commandCache.size());
+
+      Assert.assertEquals(10, count(db.query("select value from Cached")));
+      Assert.assertEquals(3, commandCache.size());
+
+      // MODIFICATION OF NOT INVOLVED CLUSTER KEEPS RESULTS
+      db.save(new ODocument("Other").field("name", "name0"));
+      Assert.assertEquals(5, count(db.query("select from Cached where name = ?", "name0")));
+      Assert.assertEquals(3, commandCache.size());
+
+      // MODIFICATION OF INVOLVED CLUSTER INVALIDATES RESULTS
+      db.save(new ODocument("Cached").field("name", "name0").field("value", 10));
+      Assert.assertEquals(6, count(db.query("select from Cached where name = ?", "name0")));
+      Assert.assertEquals(11, count(db.query("select value from Cached")));
+    } finally {
+      db.drop();
+    }
+  }
+
+  @Test
+  public void testMemoryLimitAndTtl() throws InterruptedException {
+    OGlobalConfiguration.COMMAND_CACHE_ENABLED.setValue(true);
+    ODatabaseDocument db = new ODatabaseDocumentTx("memory:" + OCommandCacheTest.class.getSimpleName() + "Memory");
+    db.create();
+
+    try {
+      OCommandCacheSoftRefs commandCache = (OCommandCacheSoftRefs) ((OMetadataInternal) db.getMetadata()).getCommandCache();
+      commandCache.setMinExecutionTime(0);
+      commandCache.setEvictStrategy(OCommandCache.STRATEGY.PER_CLUSTER);
+      commandCache.setMaxMemory(10 * 1024);
+
+      OUser user = new OUser("admin");
+      char[] content = new char[(2048 - 2 * OCommandCacheSoftRefs.ENTRY_OVERHEAD) / 2];
+      String result = new String(content);
+
+      for (int i = 0; i < 3; i++)
+        commandCache.put(user, "query" + i, result, -1, null, 1);
+      Assert.assertEquals(3, commandCache.size());
+      Assert.assertEquals(3 * 2048, commandCache.getUsedMemory());
+
+      // LEAST RECENTLY USED RESULT IS EVICTED
+      Assert.assertNotNull(commandCache.get(user, "query0", -1));
+      for (int i = 3; i < 6; i++)
+        commandCache.put(user, "query" + i, result, -1, null, 1);
+      Assert.assertEquals(5, commandCache.size());
+      Assert.assertNotNull(commandCache.get(user, "query0", -1));
+      Assert.assertNull(commandCache.get(user, "query1", -1));
+
+      // RESULT COMPUTED DURING MODIFICATION OF INVOLVED CLUSTER IS NOT CACHED
+      long counter = commandCache.getModificationCounter();
+      commandCache.invalidateResultsOfCluster("foo");
+      commandCache.put(user, "query6", result, -1, Collections.singleton("foo"), 1, counter);
+      Assert.assertNull(commandCache.get(user, "query6", -1));
+      commandCache.put(user, "query6", result, -1, Collections.singleton("bar"), 1, counter);
+      Assert.assertNotNull(commandCache.get(user, "query6", -1));
+
+      commandCache.setTtl(1);
+      Thread.sleep(10);
+      Assert.assertNull(commandCache.get(user, "query0", -1));
+    } finally {
+      db.drop();
+    }
+  }
+
+  private static int count(OResultSet resultSet) {
+    int count = 0;
+    while (resultSet.hasNext()) {
+      resultSet.next();
+      count++;
+    }
+    resultSet.close();
+    return count;
+  }
 }
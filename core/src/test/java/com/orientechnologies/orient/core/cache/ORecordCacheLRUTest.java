@@ -0,0 +1,124 @@
+package com.orientechnologies.orient.core.cache;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ORecordBytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ORecordCacheLRUTest {
+  private static final int RECORD_SIZE = 1024 - ORecordCacheLRU.ENTRY_OVERHEAD;
+
+  @Test
+  public void testMemoryLimit() {
+    final ORecordCacheLRU cache = new ORecordCacheLRU(10 * 1024);
+
+    for (int i = 0; i < 100; i++)
+      cache.put(record(i, RECORD_SIZE));
+
+    Assert.assertEquals(10, cache.size());
+    Assert.assertEquals(10 * 1024, cache.getUsedMemory());
+    Assert.assertEquals(90, cache.getEvictions());
+
+    for (int i = 0; i < 90; i++)
+      Assert.assertNull(cache.get(new ORecordId(1, i)));
+    for (int i = 90; i < 100; i++)
+      Assert.assertNotNull(cache.get(new ORecordId(1, i)));
+  }
+
+  @Test
+  public void testFrequentlyUsedRecordsSurviveScan() {
+    final ORecordCacheLRU cache = new ORecordCacheLRU(10 * 1024);
+
+    for (int i = 0; i < 5; i++) {
+      cache.put(record(i, RECORD_SIZE));
+      Assert.assertNotNull(cache.get(new ORecordId(1, i)));
+    }
+
+    for (int i = 100; i < 1000; i++)
+      cache.put(record(i, RECORD_SIZE));
+
+    for (int i = 0; i < 5; i++)
+      Assert.assertNotNull(cache.get(new ORecordId(1, i)));
+
+    Assert.assertEquals(10, cache.size());
+    Assert.assertEquals(10 * 1024, cache.getUsedMemory());
+  }
+
+  @Test
+  public void testProtectedSegmentLimit() {
+    final ORecordCacheLRU cache = new ORecordCacheLRU(10 * 1024);
+
+    for (int i = 0; i < 10; i++) {
+      cache.put(record(i, RECORD_SIZE));
+      Assert.assertNotNull(cache.get(new ORecordId(1, i)));
+    }
+
+    // records demoted from protected segment are evicted first
+    cache.put(record(10, RECORD_SIZE));
+    cache.put(record(11, RECORD_SIZE));
+
+    Assert.assertNull(cache.get(new ORecordId(1, 0)));
+    Assert.assertNull(cache.get(new ORecordId(1, 1)));
+    for (int i = 2; i < 12; i++)
+      Assert.assertNotNull(cache.get(new ORecordId(1, i)));
+  }
+
+  @Test
+  public void testPutRemoveClear() {
+    final ORecordCacheLRU cache = new ORecordCacheLRU(10 * 1024);
+
+    final ORecord first = record(1, RECORD_SIZE);
+    Assert.assertNull(cache.put(first));
+    Assert.assertNotNull(cache.get(first.getIdentity()));
+
+    final ORecord second = record(1, 2 * RECORD_SIZE);
+    Assert.assertSame(first, cache.put(second));
+    Assert.assertSame(second, cache.get(first.getIdentity()));
+    Assert.assertEquals(2 * RECORD_SIZE + ORecordCacheLRU.ENTRY_OVERHEAD, cache.getUsedMemory());
+
+    Assert.assertNull(cache.put(record(2, 20 * 1024)));
+    Assert.assertEquals(1, cache.size());
+
+    cache.put(record(3, RECORD_SIZE));
+    Assert.assertEquals(2, cache.keys().size());
+
+    Assert.assertSame(second, cache.remove(second.getIdentity()));
+    Assert.assertEquals(1024, cache.getUsedMemory());
+
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0, cache.getUsedMemory());
+  }
+
+  @Test
+  public void testDatabaseCache() {
+    final Object implementation = OGlobalConfiguration.CACHE_LOCAL_IMPL.getValue();
+    OGlobalConfiguration.CACHE_LOCAL_IMPL.setValue(ORecordCacheLRU.class.getName());
+    try {
+      final ODatabaseDocumentTx db = new ODatabaseDocumentTx("memory:" + ORecordCacheLRUTest.class.getSimpleName());
+      db.create();
+      try {
+        final ODocument document = db.save(new ODocument().field("name", "foo"), "default");
+
+        Assert.assertSame(document, db.load(document.getIdentity()));
+        Assert.assertTrue(db.getLocalCache().getHits() > 0);
+        Assert.assertEquals(0, db.getLocalCache().getEvictions());
+      } finally {
+        db.drop();
+      }
+    } finally {
+      OGlobalConfiguration.CACHE_LOCAL_IMPL.setValue(implementation);
+    }
+  }
+
+  private static ORecord record(long position, int size) {
+    final ORecordBytes record = new ORecordBytes(new byte[size]);
+    ORecordInternal.setIdentity(record, 1, position);
+    return record;
+  }
+}
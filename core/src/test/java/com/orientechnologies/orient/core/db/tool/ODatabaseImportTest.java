@@ -4,12 +4,22 @@ import com.orientechnologies.orient.core.command.OCommandOutputListener;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Created by tglman on 23/05/16.
@@ -78,4 +88,158 @@ public class ODatabaseImportTest {
     dbImp.drop();
   }
 
+  @Test
+  public void exportImportBinaryRecords() throws IOException {
+    final File directory = new File("./target/" + ODatabaseImportTest.class.getSimpleName() + "_binary");
+    final String fileName = new File(directory, "export.json.gz").getPath();
+
+    ODatabaseDocumentTx db = new ODatabaseDocumentTx("memory:" + ODatabaseImportTest.class.getSimpleName() + "_binary");
+    db.create();
+    try {
+      final OClass city = db.getMetadata().getSchema().createClass("City");
+      city.createProperty("name", OType.STRING);
+      final OClass person = db.getMetadata().getSchema().createClass("Person");
+      person.createProperty("name", OType.STRING);
+      person.createProperty("city", OType.LINK, city);
+      person.createIndex("Person.name", OClass.INDEX_TYPE.UNIQUE, "name");
+
+      final ODocument[] cities = new ODocument[10];
+      for (int i = 0; i < cities.length; i++)
+        cities[i] = new ODocument("City").field("name", "City" + i).save();
+
+      for (int i = 0; i < 1000; i++) {
+        final ODocument address = new ODocument().field("street", "Street" + i);
+        new ODocument("Person").field("name", "Person" + i).field("city", cities[1 + i % 9])
+            .field("address", address, OType.EMBEDDED).field("tags", Arrays.asList("tag" + i % 3)).save();
+      }
+
+      // HOLES IN CLUSTERS MOVE THE RECORDS TO THE NEW POSITIONS DURING IMPORT, SO THE LINKS ARE MIGRATED
+      cities[0].delete();
+      for (int i = 0; i < 1000; i += 100)
+        db.command("delete from Person where name = ?", "Person" + i).close();
+
+      final ODatabaseExport export = new ODatabaseExport(db, fileName, new OCommandOutputListener() {
+        @Override
+        public void onMessage(String iText) {
+        }
+      });
+      export.setOptions(" -binaryRecords=true -chunkSize=17 -threads=4");
+      export.exportDatabase();
+    } finally {
+      db.drop();
+    }
+
+    ODatabaseDocumentTx dbImp = new ODatabaseDocumentTx(
+        "memory:import_" + ODatabaseImportTest.class.getSimpleName() + "_binary");
+    dbImp.create();
+    try {
+      final ODatabaseImport importer = new ODatabaseImport(dbImp, fileName, new OCommandOutputListener() {
+        @Override
+        public void onMessage(String iText) {
+        }
+      });
+      importer.setOptions(" -threads=4");
+      importer.importDatabase();
+
+      Assert.assertEquals(9, dbImp.countClass("City"));
+      Assert.assertEquals(990, dbImp.countClass("Person"));
+
+      final OIndex<?> index = dbImp.getMetadata().getIndexManager().getIndex("Person.name");
+      Assert.assertEquals(990, index.getSize());
+
+      for (int i = 0; i < 1000; i++) {
+        final OIdentifiable rid = (OIdentifiable) index.get("Person" + i);
+        if (i % 100 == 0) {
+          Assert.assertNull(rid);
+          continue;
+        }
+
+        final ODocument document = rid.getRecord();
+        Assert.assertEquals("Person" + i, document.field("name"));
+        Assert.assertEquals("Street" + i, document.<ODocument>field("address").field("street"));
+        Assert.assertEquals(Arrays.asList("tag" + i % 3), document.field("tags"));
+
+        final OIdentifiable linked = document.field("city");
+        Assert.assertEquals("City" + (1 + i % 9), linked.<ODocument>getRecord().field("name"));
+      }
+    } finally {
+      dbImp.drop();
+    }
+  }
+
+  @Test
+  public void exportImportBinaryRecordsWithTreeRidBags() throws IOException {
+    final File directory = new File("./target/" + ODatabaseImportTest.class.getSimpleName() + "_ridbags");
+    final String fileName = new File(directory, "export.json.gz").getPath();
+
+    ODatabaseDocumentTx db = new ODatabaseDocumentTx("memory:" + ODatabaseImportTest.class.getSimpleName() + "_ridbags");
+    db.create();
+    try {
+      db.getMetadata().getSchema().createClass("Friend");
+      db.getMetadata().getSchema().createClass("Person");
+
+      // THE DELETED RECORD MOVES THE FRIENDS TO THE NEW POSITIONS DURING IMPORT, SO THE LINKS IN THE RIDBAGS ARE MIGRATED
+      new ODocument("Friend").field("name", "Deleted").save().delete();
+
+      final ORidBag friends = new ORidBag();
+      final ORidBag bestFriends = new ORidBag();
+      for (int i = 0; i < 100; i++) {
+        final ODocument friend = new ODocument("Friend").field("name", "Friend" + i).save();
+        friends.add(friend);
+        if (i < 5)
+          bestFriends.add(friend);
+      }
+
+      final ODocument person = new ODocument("Person").field("name", "Person").field("friends", friends)
+          .field("bestFriends", bestFriends).save();
+      person.reload();
+      Assert.assertFalse(person.<ORidBag>field("friends").isEmbedded());
+      Assert.assertTrue(person.<ORidBag>field("bestFriends").isEmbedded());
+
+      final ODatabaseExport export = new ODatabaseExport(db, fileName, new OCommandOutputListener() {
+        @Override
+        public void onMessage(String iText) {
+        }
+      });
+      export.setOptions(" -binaryRecords=true -threads=4");
+      export.exportDatabase();
+    } finally {
+      db.drop();
+    }
+
+    ODatabaseDocumentTx dbImp = new ODatabaseDocumentTx(
+        "memory:import_" + ODatabaseImportTest.class.getSimpleName() + "_ridbags");
+    dbImp.create();
+    try {
+      final ODatabaseImport importer = new ODatabaseImport(dbImp, fileName, new OCommandOutputListener() {
+        @Override
+        public void onMessage(String iText) {
+        }
+      });
+      importer.setOptions(" -threads=4");
+      importer.importDatabase();
+
+      Assert.assertEquals(100, dbImp.countClass("Friend"));
+      Assert.assertEquals(1, dbImp.countClass("Person"));
+
+      final ODocument person = dbImp.browseClass("Person").next();
+      final ORidBag friends = person.field("friends");
+      Assert.assertFalse(friends.isEmbedded());
+      Assert.assertEquals(100, friends.size());
+
+      final Set<String> names = new HashSet<String>();
+      for (OIdentifiable friend : friends)
+        names.add(friend.<ODocument>getRecord().<String>field("name"));
+      for (int i = 0; i < 100; i++)
+        Assert.assertTrue(names.contains("Friend" + i));
+
+      final ORidBag bestFriends = person.field("bestFriends");
+      Assert.assertTrue(bestFriends.isEmbedded());
+      Assert.assertEquals(5, bestFriends.size());
+      for (OIdentifiable friend : bestFriends)
+        Assert.assertTrue(names.contains(friend.<ODocument>getRecord().<String>field("name")));
+    } finally {
+      dbImp.drop();
+    }
+  }
 }
@@ -0,0 +1,154 @@
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.orient.core.config.OStorageConfigurationImpl;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares results of indexes which store keys in normalized form with results of the same indexes which store keys as is.
+ */
+public class NormalizedKeysIndexTest {
+  private static final int    RECORDS = 5000;
+  private static final String PREFIX  = "http://www.example.com/tenants/";
+
+  private ODatabaseDocumentTx db;
+
+  private OIndex<?> normalized;
+  private OIndex<?> plain;
+  private OIndex<?> normalizedComposite;
+  private OIndex<?> plainComposite;
+
+  @Before
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + NormalizedKeysIndexTest.class.getSimpleName());
+    db.create();
+
+    final OClass page = db.getMetadata().getSchema().createClass("Page");
+    page.createProperty("url", OType.STRING);
+    page.createProperty("url2", OType.STRING);
+    page.createProperty("visits", OType.INTEGER);
+    page.createProperty("visits2", OType.INTEGER);
+
+    normalized = page.createIndex("Page.url", OClass.INDEX_TYPE.NOTUNIQUE.toString(), null,
+        new ODocument().field("normalizedKeys", true), new String[] { "url" });
+    plain = page.createIndex("Page.url2", OClass.INDEX_TYPE.NOTUNIQUE.toString(), null,
+        new ODocument().field("normalizedKeys", false), new String[] { "url2" });
+
+    normalizedComposite = page.createIndex("Page.url_visits", OClass.INDEX_TYPE.NOTUNIQUE.toString(), null,
+        new ODocument().field("normalizedKeys", true), new String[] { "url", "visits" });
+    plainComposite = page.createIndex("Page.url2_visits2", OClass.INDEX_TYPE.NOTUNIQUE.toString(), null,
+        new ODocument().field("normalizedKeys", false), new String[] { "url2", "visits2" });
+  }
+
+  @After
+  public void after() {
+    db.drop();
+  }
+
+  @Test
+  public void testFormatIsStoredInEngineProperties() {
+    final OStorageConfigurationImpl configuration = (OStorageConfigurationImpl) db.getStorage().getConfiguration();
+
+    Assert.assertEquals("true", configuration.getIndexEngine("Page.url").getEngineProperties().get("normalizedKeys"));
+    Assert.assertEquals("true", configuration.getIndexEngine("Page.url_visits").getEngineProperties().get("normalizedKeys"));
+    Assert.assertNull(configuration.getIndexEngine("Page.url2").getEngineProperties().get("normalizedKeys"));
+  }
+
+  @Test
+  public void testSameResults() {
+    final Random random = new Random(42);
+    final List<ODocument> documents = new ArrayList<ODocument>();
+
+    for (int i = 0; i < RECORDS; i++) {
+      final String url = PREFIX + random.nextInt(50) + "/pages/" + random.nextInt(1000);
+      final Integer visits = random.nextInt(10) == 0 ? null : random.nextInt(100) - 50;
+
+      documents.add(db.save(new ODocument("Page").field("url", url).field("url2", url).field("visits", visits)
+          .field("visits2", visits)));
+    }
+
+    assertSameResults(random);
+
+    for (int i = 0; i < RECORDS; i += 2)
+      db.delete(documents.get(i));
+
+    assertSameResults(random);
+  }
+
+  private void assertSameResults(Random random) {
+    Assert.assertEquals(plain.getSize(), normalized.getSize());
+    Assert.assertEquals(plainComposite.getSize(), normalizedComposite.getSize());
+
+    assertSameEntries(plain.cursor(), normalized.cursor());
+    assertSameEntries(plain.descCursor(), normalized.descCursor());
+    assertSameEntries(plainComposite.cursor(), normalizedComposite.cursor());
+    assertSameEntries(plainComposite.descCursor(), normalizedComposite.descCursor());
+
+    for (int i = 0; i < 20; i++) {
+      final String from = PREFIX + random.nextInt(50);
+      final String to = PREFIX + random.nextInt(50);
+      final boolean fromInclusive = random.nextBoolean();
+      final boolean toInclusive = random.nextBoolean();
+      final boolean ascOrder = random.nextBoolean();
+
+      assertSameEntries(plain.iterateEntriesBetween(from, fromInclusive, to, toInclusive, ascOrder),
+          normalized.iterateEntriesBetween(from, fromInclusive, to, toInclusive, ascOrder));
+      assertSameEntries(plain.iterateEntriesMajor(from, fromInclusive, ascOrder),
+          normalized.iterateEntriesMajor(from, fromInclusive, ascOrder));
+      assertSameEntries(plain.iterateEntriesMinor(to, toInclusive, ascOrder),
+          normalized.iterateEntriesMinor(to, toInclusive, ascOrder));
+
+      final String url = from + "/pages/" + random.nextInt(1000);
+      final OCompositeKey partialKey = new OCompositeKey(url);
+      final OCompositeKey fullKey = new OCompositeKey(url, random.nextInt(100) - 50);
+
+      assertSameEntries(plainComposite.iterateEntriesBetween(partialKey, fromInclusive, partialKey, toInclusive, ascOrder),
+          normalizedComposite.iterateEntriesBetween(partialKey, fromInclusive, partialKey, toInclusive, ascOrder));
+      assertSameEntries(plainComposite.iterateEntriesBetween(partialKey, fromInclusive, fullKey, toInclusive, ascOrder),
+          normalizedComposite.iterateEntriesBetween(partialKey, fromInclusive, fullKey, toInclusive, ascOrder));
+      assertSameEntries(plainComposite.iterateEntriesMajor(fullKey, fromInclusive, ascOrder),
+          normalizedComposite.iterateEntriesMajor(fullKey, fromInclusive, ascOrder));
+      assertSameEntries(plainComposite.iterateEntriesMinor(partialKey, toInclusive, ascOrder),
+          normalizedComposite.iterateEntriesMinor(partialKey, toInclusive, ascOrder));
+
+      Assert.assertEquals(toSet(plain.get(url)), toSet(normalized.get(url)));
+      Assert.assertEquals(toSet(plainComposite.get(fullKey)), toSet(normalizedComposite.get(fullKey)));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<OIdentifiable> toSet(Object value) {
+    return new HashSet<OIdentifiable>((Collection<OIdentifiable>) value);
+  }
+
+  private static void assertSameEntries(OIndexCursor expectedCursor, OIndexCursor actualCursor) {
+    Map.Entry<Object, OIdentifiable> expected = expectedCursor.nextEntry();
+    Map.Entry<Object, OIdentifiable> actual = actualCursor.nextEntry();
+
+    while (expected != null) {
+      Assert.assertNotNull(actual);
+      Assert.assertEquals(expected.getKey(), actual.getKey());
+      Assert.assertEquals(expected.getValue(), actual.getValue());
+
+      expected = expectedCursor.nextEntry();
+      actual = actualCursor.nextEntry();
+    }
+
+    Assert.assertNull(actual);
+  }
+}
@@ -0,0 +1,334 @@
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.common.listener.OProgressListener;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+public class OIndexBulkBuilderTest {
+  private ODatabaseDocumentTx db;
+
+  private Object threads;
+  private Object sortBufferSize;
+  private Object batchSize;
+
+  @Before
+  public void before() {
+    threads = OGlobalConfiguration.INDEX_BULK_BUILD_THREADS.getValue();
+    sortBufferSize = OGlobalConfiguration.INDEX_BULK_BUILD_SORT_BUFFER_SIZE.getValue();
+    batchSize = OGlobalConfiguration.INDEX_BULK_BUILD_BATCH_SIZE.getValue();
+
+    // SMALL BUFFERS TO MERGE A LOT OF RUNS WRITTEN TO THE FILES
+    OGlobalConfiguration.INDEX_BULK_BUILD_THREADS.setValue(4);
+    OGlobalConfiguration.INDEX_BULK_BUILD_SORT_BUFFER_SIZE.setValue(50);
+    OGlobalConfiguration.INDEX_BULK_BUILD_BATCH_SIZE.setValue(7);
+
+    db = new ODatabaseDocumentTx("memory:" + OIndexBulkBuilderTest.class.getSimpleName());
+    db.create();
+  }
+
+  @After
+  public void after() {
+    db.drop();
+
+    OGlobalConfiguration.INDEX_BULK_BUILD_THREADS.setValue(threads);
+    OGlobalConfiguration.INDEX_BULK_BUILD_SORT_BUFFER_SIZE.setValue(sortBufferSize);
+    OGlobalConfiguration.INDEX_BULK_BUILD_BATCH_SIZE.setValue(batchSize);
+  }
+
+  @Test
+  public void testNotUniqueIndexBuildAndRebuild() {
+    final OClass clazz = db.getMetadata().getSchema().createClass("Person");
+    clazz.addCluster("person_second");
+    clazz.createProperty("name", OType.STRING);
+    clazz.createProperty("tags", OType.EMBEDDEDLIST, OType.STRING);
+
+    final Map<String, Set<ORID>> names = new HashMap<String, Set<ORID>>();
+    final Map<String, Set<ORID>> tags = new HashMap<String, Set<ORID>>();
+    for (int i = 0; i < 1000; i++) {
+      final ODocument document = new ODocument("Person");
+      document.field("name", i % 10 == 0 ? null : "Name" + (i % 97));
+      document.field("tags", Arrays.asList("tag" + (i % 3), "tag" + (i % 5)));
+      document.save();
+
+      add(names, (String) document.field("name"), document.getIdentity());
+      add(tags, "tag" + (i % 3), document.getIdentity());
+      add(tags, "tag" + (i % 5), document.getIdentity());
+    }
+
+    final OIndex<?> nameIndex = clazz.createIndex("Person.name", OClass.INDEX_TYPE.NOTUNIQUE, "name");
+    final OIndex<?> tagsIndex = clazz.createIndex("Person.tags", OClass.INDEX_TYPE.NOTUNIQUE, "tags");
+
+    assertNotUniqueIndex(nameIndex, names);
+    assertNotUniqueIndex(tagsIndex, tags);
+
+    Assert.assertEquals(1000, nameIndex.rebuild());
+    Assert.assertEquals(1000, tagsIndex.rebuild());
+
+    assertNotUniqueIndex(nameIndex, names);
+    assertNotUniqueIndex(tagsIndex, tags);
+  }
+
+  @Test
+  public void testUniqueCompositeIndexBuild() {
+    final OClass clazz = db.getMetadata().getSchema().createClass("Account");
+    clazz.createProperty("login", OType.STRING).setCollate("ci");
+    clazz.createProperty("created", OType.DATETIME);
+
+    final Map<OCompositeKey, ORID> keys = new HashMap<OCompositeKey, ORID>();
+    for (int i = 0; i < 500; i++) {
+      final ODocument document = new ODocument("Account");
+      document.field("login", "Login" + (i % 50));
+      document.field("created", new Date(1000L * (i / 50)));
+      document.save();
+
+      keys.put(new OCompositeKey("login" + (i % 50), new Date(1000L * (i / 50))), document.getIdentity());
+    }
+
+    final OIndex<?> index = clazz.createIndex("Account.login_created", OClass.INDEX_TYPE.UNIQUE, "login", "created");
+
+    Assert.assertEquals(keys.size(), index.getSize());
+    for (Map.Entry<OCompositeKey, ORID> entry : keys.entrySet())
+      Assert.assertEquals(entry.getValue(), ((OIdentifiable) index.get(entry.getKey())).getIdentity());
+  }
+
+  @Test
+  public void testUniqueIndexBuildFailsOnDuplicates() {
+    final OClass clazz = db.getMetadata().getSchema().createClass("User");
+    clazz.createProperty("mail", OType.STRING);
+
+    for (int i = 0; i < 300; i++) {
+      final ODocument document = new ODocument("User");
+      document.field("mail", "user" + (i == 299 ? 0 : i) + "@doe.com");
+      document.save();
+    }
+
+    try {
+      clazz.createIndex("User.mail", OClass.INDEX_TYPE.UNIQUE, "mail");
+      Assert.fail("Expected record duplicate exception");
+    } catch (ORecordDuplicatedException ignore) {
+    }
+
+    Assert.assertNull(db.getMetadata().getIndexManager().getIndex("User.mail"));
+  }
+
+  @Test
+  public void testRebuildWithConcurrentWrites() throws Exception {
+    final OClass clazz = db.getMetadata().getSchema().createClass("Item");
+    clazz.createProperty("code", OType.INTEGER);
+    final OIndex<?> index = clazz.createIndex("Item.code", OClass.INDEX_TYPE.UNIQUE, "code");
+
+    final List<ORID> rids = new ArrayList<ORID>();
+    for (int i = 0; i < 5000; i++) {
+      final ODocument document = new ODocument("Item");
+      document.field("code", i);
+      document.save();
+      rids.add(document.getIdentity());
+    }
+
+    final Writer writer = new Writer(rids);
+    writer.start();
+
+    // WRITES ARE PERFORMED ONLY WHILE THE INDEX IS FILLED, RECREATION OF THE INDEX ENGINE BY REBUILD BLOCKS WRITES
+    final OProgressListener listener = new OProgressListener() {
+      @Override
+      public void onBegin(Object iTask, long iTotal, Object metadata) {
+        writer.startWrites();
+      }
+
+      @Override
+      public boolean onProgress(Object iTask, long iCounter, float iPercent) {
+        return true;
+      }
+
+      @Override
+      public void onCompletition(Object iTask, boolean iSucceed) {
+        writer.stopWrites();
+      }
+    };
+
+    try {
+      for (int i = 0; i < 5; i++)
+        index.rebuild(listener);
+    } finally {
+      writer.finish();
+    }
+
+    Assert.assertNull(writer.error);
+    Assert.assertTrue(writer.operations > 0);
+
+    db.activateOnCurrentThread();
+    long count = 0;
+    for (ODocument document : db.browseClass("Item")) {
+      final Object value = index.get(document.field("code"));
+      Assert.assertNotNull(value);
+      Assert.assertEquals(document.getIdentity(), ((OIdentifiable) value).getIdentity());
+      count++;
+    }
+
+    Assert.assertEquals(count, index.getSize());
+  }
+
+  @Test
+  public void testFailedRebuildReleasesBuilder() throws Exception {
+    final OClass clazz = db.getMetadata().getSchema().createClass("Code");
+    clazz.createProperty("value", OType.INTEGER);
+    final OIndex<?> index = clazz.createIndex("Code.value", OClass.INDEX_TYPE.UNIQUE, "value");
+
+    for (int i = 0; i < 100; i++)
+      new ODocument("Code").field("value", i).save();
+
+    // BUILDER IS INSTALLED BY THE REBUILD BEFORE THE LISTENER IS NOTIFIED
+    final OProgressListener listener = new OProgressListener() {
+      @Override
+      public void onBegin(Object iTask, long iTotal, Object metadata) {
+        throw new IllegalStateException("Listener failure");
+      }
+
+      @Override
+      public boolean onProgress(Object iTask, long iCounter, float iPercent) {
+        return true;
+      }
+
+      @Override
+      public void onCompletition(Object iTask, boolean iSucceed) {
+      }
+    };
+
+    try {
+      index.rebuild(listener);
+      Assert.fail("Expected index exception");
+    } catch (OIndexException ignore) {
+    }
+
+    final Field bulkBuilder = OIndexAbstract.class.getDeclaredField("bulkBuilder");
+    bulkBuilder.setAccessible(true);
+    Assert.assertNull(bulkBuilder.get(index.getInternal()));
+
+    Assert.assertEquals(100, index.rebuild());
+    Assert.assertEquals(100, index.getSize());
+  }
+
+  private static void add(Map<String, Set<ORID>> map, String key, ORID rid) {
+    Set<ORID> rids = map.get(key);
+    if (rids == null) {
+      rids = new HashSet<ORID>();
+      map.put(key, rids);
+    }
+
+    rids.add(rid);
+  }
+
+  private static void assertNotUniqueIndex(OIndex<?> index, Map<String, Set<ORID>> expected) {
+    long size = 0;
+    for (Map.Entry<String, Set<ORID>> entry : expected.entrySet()) {
+      final Set<ORID> actual = new HashSet<ORID>();
+      for (OIdentifiable value : (Collection<OIdentifiable>) index.get(entry.getKey()))
+        actual.add(value.getIdentity());
+
+      Assert.assertEquals(entry.getValue(), actual);
+      size += actual.size();
+    }
+
+    Assert.assertEquals(size, index.getSize());
+  }
+  private final class Writer extends Thread {
+    private final List<ORID> rids;
+
+    private boolean running;
+    private boolean paused = true;
+    private boolean finished;
+
+    private volatile int       operations;
+    private volatile Throwable error;
+
+    private Writer(List<ORID> rids) {
+      this.rids = rids;
+    }
+
+    private synchronized void startWrites() {
+      running = true;
+      notifyAll();
+    }
+
+    private synchronized void stopWrites() {
+      running = false;
+      while (!paused && error == null)
+        waitQuietly();
+    }
+
+    private void finish() throws InterruptedException {
+      synchronized (this) {
+        finished = true;
+        notifyAll();
+      }
+      join();
+    }
+
+    private synchronized boolean awaitRunning() {
+      paused = true;
+      notifyAll();
+
+      while (!running && !finished)
+        waitQuietly();
+
+      paused = finished;
+      return !finished;
+    }
+
+    private void waitQuietly() {
+      try {
+        wait(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public void run() {
+      final ODatabaseDocumentTx writerDb = new ODatabaseDocumentTx(db.getURL());
+      writerDb.open("admin", "admin");
+      try {
+        final Random random = new Random(42);
+        int code = 1000000;
+        while (awaitRunning()) {
+          final ODocument document = writerDb.load(rids.get(random.nextInt(rids.size())));
+          if (document != null) {
+            if (random.nextInt(10) == 0)
+              document.delete();
+            else {
+              document.field("code", code++);
+              document.save();
+            }
+          }
+
+          final ODocument created = new ODocument("Item");
+          created.field("code", code++);
+          created.save();
+
+          operations++;
+        }
+      } catch (Throwable e) {
+        error = e;
+      } finally {
+        synchronized (this) {
+          paused = true;
+          notifyAll();
+        }
+        writerDb.close();
+      }
+    }
+  }
+}
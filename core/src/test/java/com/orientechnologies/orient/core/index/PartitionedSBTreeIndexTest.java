@@ -0,0 +1,226 @@
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
+import com.orientechnologies.orient.core.storage.index.engine.OPartitionedSBTreeIndexEngine;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PartitionedSBTreeIndexTest {
+  private static final int RECORDS            = 1000;
+  private static final int RECORDS_PER_THREAD = 100;
+
+  private ODatabaseDocumentTx db;
+  private OIndex<?>           index;
+
+  @Before
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + PartitionedSBTreeIndexTest.class.getSimpleName());
+    db.create();
+
+    final OClass person = db.getMetadata().getSchema().createClass("Person");
+    person.createProperty("id", OType.INTEGER);
+
+    index = person.createIndex("Person.id", OClass.INDEX_TYPE.UNIQUE.toString(), null, new ODocument().field("partitions", 4),
+        ODefaultIndexFactory.PARTITIONED_SBTREE_ALGORITHM, new String[] { "id" });
+  }
+
+  @After
+  public void after() {
+    db.activateOnCurrentThread();
+    db.drop();
+  }
+
+  @Test
+  public void testPointLookups() {
+    for (int i = 0; i < RECORDS; i++)
+      db.save(new ODocument("Person").field("id", i));
+
+    Assert.assertEquals(RECORDS, index.getSize());
+
+    for (int i = 0; i < RECORDS; i++) {
+      final OIdentifiable rid = (OIdentifiable) index.get(i);
+      Assert.assertNotNull(rid);
+      Assert.assertEquals(i, ((ODocument) rid.getRecord()).<Integer>field("id").intValue());
+    }
+
+    Assert.assertNull(index.get(RECORDS));
+  }
+
+  @Test(expected = ORecordDuplicatedException.class)
+  public void testUniqueness() {
+    db.save(new ODocument("Person").field("id", 42));
+    db.save(new ODocument("Person").field("id", 42));
+  }
+
+  @Test
+  public void testRangeQueriesAreOrdered() {
+    for (int i = RECORDS - 1; i >= 0; i--)
+      db.save(new ODocument("Person").field("id", i));
+
+    Assert.assertEquals(0, index.getFirstKey());
+    Assert.assertEquals(RECORDS - 1, index.getLastKey());
+
+    assertKeys(index.iterateEntriesBetween(100, true, 200, false, true), 100, 199, true);
+    assertKeys(index.iterateEntriesBetween(100, false, 200, true, false), 101, 200, false);
+    assertKeys(index.iterateEntriesMajor(900, true, true), 900, RECORDS - 1, true);
+    assertKeys(index.iterateEntriesMinor(99, true, false), 0, 99, false);
+    assertKeys(index.cursor(), 0, RECORDS - 1, true);
+    assertKeys(index.descCursor(), 0, RECORDS - 1, false);
+
+    final OIndexKeyCursor keyCursor = index.keyCursor();
+    for (int i = 0; i < RECORDS; i++)
+      Assert.assertEquals(i, keyCursor.next(-1));
+    Assert.assertNull(keyCursor.next(-1));
+  }
+
+  @Test
+  public void testRemove() {
+    final List<ODocument> documents = new ArrayList<>();
+    for (int i = 0; i < RECORDS; i++)
+      documents.add(db.save(new ODocument("Person").field("id", i)));
+
+    for (int i = 0; i < RECORDS; i += 2)
+      db.delete(documents.get(i));
+
+    Assert.assertEquals(RECORDS / 2, index.getSize());
+    for (int i = 0; i < RECORDS; i++)
+      Assert.assertEquals(i % 2 == 1, index.get(i) != null);
+  }
+
+  @Test
+  public void testConcurrentTransactions() throws Exception {
+    final int threads = 8;
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<Void>> futures = new ArrayList<>();
+      for (int n = 0; n < threads; n++) {
+        final int thread = n;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            final ODatabaseDocumentTx session = new ODatabaseDocumentTx(db.getURL());
+            session.open("admin", "admin");
+            try {
+              for (int i = 0; i < RECORDS_PER_THREAD; i += 10) {
+                session.begin();
+                for (int k = i; k < i + 10; k++)
+                  session.save(new ODocument("Person").field("id", thread * RECORDS + k));
+                session.commit();
+              }
+            } finally {
+              session.close();
+            }
+
+            return null;
+          }
+        }));
+      }
+
+      for (Future<Void> future : futures)
+        future.get();
+    } finally {
+      executor.shutdown();
+    }
+
+    db.activateOnCurrentThread();
+    Assert.assertEquals(threads * RECORDS_PER_THREAD, index.getSize());
+    for (int n = 0; n < threads; n++)
+      for (int i = 0; i < RECORDS_PER_THREAD; i++)
+        Assert.assertNotNull(index.get(n * RECORDS + i));
+  }
+
+  @Test
+  public void testReopenOnDisk() {
+    final String buildDirectory = System.getProperty("buildDirectory", ".");
+    final String path = buildDirectory + "/test-db/" + PartitionedSBTreeIndexTest.class.getSimpleName();
+
+    ODatabaseDocumentTx diskDb = new ODatabaseDocumentTx("plocal:" + path);
+    if (diskDb.exists()) {
+      diskDb.open("admin", "admin");
+      diskDb.drop();
+    }
+    diskDb.create();
+
+    try {
+      final OClass person = diskDb.getMetadata().getSchema().createClass("Person");
+      person.createProperty("id", OType.INTEGER);
+      // NULL KEYS ARE KEPT, SO THE NULL BUCKET FILES ARE CREATED TOO
+      person.createIndex("Person.id", OClass.INDEX_TYPE.UNIQUE.toString(), null,
+          new ODocument().field("partitions", 4).field("ignoreNullValues", false),
+          ODefaultIndexFactory.PARTITIONED_SBTREE_ALGORITHM, new String[] { "id" });
+
+      for (int i = RECORDS - 1; i >= 0; i--)
+        diskDb.save(new ODocument("Person").field("id", i));
+      diskDb.save(new ODocument("Person").field("name", "nobody"));
+
+      // CLOSES THE STORAGE, SO THE PARTITIONS ARE LOADED FROM THE FILES ON REOPEN
+      diskDb.getStorage().close(true, false);
+
+      Assert.assertEquals(4, countFiles(path, OPartitionedSBTreeIndexEngine.DATA_FILE_EXTENSION));
+      Assert.assertEquals(4, countFiles(path, OPartitionedSBTreeIndexEngine.NULL_BUCKET_FILE_EXTENSION));
+
+      diskDb = new ODatabaseDocumentTx("plocal:" + path);
+      diskDb.open("admin", "admin");
+
+      final OIndex<?> loaded = diskDb.getMetadata().getIndexManager().getIndex("Person.id");
+      Assert.assertEquals(ODefaultIndexFactory.PARTITIONED_SBTREE_ALGORITHM, loaded.getAlgorithm());
+      Assert.assertEquals(RECORDS + 1, loaded.getSize());
+      Assert.assertEquals("nobody", ((ODocument) ((OIdentifiable) loaded.get(null)).getRecord()).field("name"));
+
+      for (int i = 0; i < RECORDS; i++) {
+        final OIdentifiable rid = (OIdentifiable) loaded.get(i);
+        Assert.assertNotNull(rid);
+        Assert.assertEquals(i, ((ODocument) rid.getRecord()).<Integer>field("id").intValue());
+      }
+      Assert.assertNull(loaded.get(RECORDS));
+
+      assertKeys(loaded.iterateEntriesBetween(100, true, 200, false, true), 100, 199, true);
+      assertKeys(loaded.iterateEntriesMajor(900, true, false), 900, RECORDS - 1, false);
+      assertKeys(loaded.cursor(), 0, RECORDS - 1, true);
+      assertKeys(loaded.descCursor(), 0, RECORDS - 1, false);
+
+      diskDb.save(new ODocument("Person").field("id", RECORDS));
+      Assert.assertNotNull(loaded.get(RECORDS));
+    } finally {
+      diskDb.activateOnCurrentThread();
+      diskDb.drop();
+    }
+  }
+
+  private static int countFiles(String path, String extension) {
+    int count = 0;
+    for (String file : new File(path).list())
+      if (file.startsWith("Person.id_") && file.endsWith(extension))
+        count++;
+    return count;
+  }
+
+  private static void assertKeys(OIndexCursor cursor, int from, int to, boolean ascOrder) {
+    int expected = ascOrder ? from : to;
+
+    Map.Entry<Object, OIdentifiable> entry = cursor.nextEntry();
+    while (entry != null) {
+      Assert.assertEquals(expected, entry.getKey());
+      expected += ascOrder ? 1 : -1;
+      entry = cursor.nextEntry();
+    }
+
+    Assert.assertEquals(ascOrder ? to + 1 : from - 1, expected);
+  }
+}
@@ -34,7 +34,9 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -123,6 +125,66 @@ public class OLiveQueryV2Test {
     }
   }
 
+  @Test
+  public void testLiveWithConditions() throws InterruptedException {
+    ODatabaseDocumentTx db = new ODatabaseDocumentTx("memory:OLiveQueryV2TestConditions");
+    db.activateOnCurrentThread();
+    db.create();
+    try {
+      OClass test = db.getMetadata().getSchema().createClass("test");
+      db.getMetadata().getSchema().createClass("testSub", test);
+      db.getMetadata().getSchema().createClass("test2");
+
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put("name", "bar");
+
+      MyLiveQueryListener byName = new MyLiveQueryListener(new CountDownLatch(2));
+      MyLiveQueryListener byRange = new MyLiveQueryListener(new CountDownLatch(3));
+      MyLiveQueryListener byNameAndRange = new MyLiveQueryListener(new CountDownLatch(1));
+      MyLiveQueryListener byParameter = new MyLiveQueryListener(new CountDownLatch(1));
+      MyLiveQueryListener byConvertedValue = new MyLiveQueryListener(new CountDownLatch(1));
+      MyLiveQueryListener bySubclass = new MyLiveQueryListener(new CountDownLatch(1));
+      MyLiveQueryListener byOr = new MyLiveQueryListener(new CountDownLatch(2));
+
+      List<OLiveQueryMonitor> monitors = new ArrayList<OLiveQueryMonitor>();
+      monitors.add(db.live("select from test where name = 'foo'", byName));
+      monitors.add(db.live("select from test where age > 5", byRange));
+      monitors.add(db.live("select from test where age < 5 and name = 'foo'", byNameAndRange));
+      monitors.add(db.live("select from test where name = :name", byParameter, params));
+      monitors.add(db.live("select from test where age = 7", byConvertedValue));
+      monitors.add(db.live("select from testSub where name = 'foo'", bySubclass));
+      monitors.add(db.live("select from test where name = 'foo' or age > 80", byOr));
+
+      db.command("insert into test set name = 'foo', age = 3").close();
+      db.command("insert into test set name = 'bar', age = 12").close();
+      db.command("insert into testSub set name = 'foo', age = 20").close();
+      db.command("insert into test set name = 'baz', age = '7'").close();
+      db.command("insert into test2 set name = 'foo', age = 1").close();
+
+      assertNames(byName, "foo", "foo");
+      assertNames(byRange, "bar", "foo", "baz");
+      assertNames(byNameAndRange, "foo");
+      assertNames(byParameter, "bar");
+      assertNames(byConvertedValue, "baz");
+      assertNames(bySubclass, "foo");
+      assertNames(byOr, "foo", "foo");
+
+      for (OLiveQueryMonitor monitor : monitors) {
+        monitor.unSubscribe();
+      }
+    } finally {
+      db.drop();
+    }
+  }
+
+  private static void assertNames(MyLiveQueryListener listener, String... names) throws InterruptedException {
+    Assert.assertTrue(listener.latch.await(1, TimeUnit.MINUTES));
+    Assert.assertEquals(names.length, listener.ops.size());
+    for (int i = 0; i < names.length; i++) {
+      Assert.assertEquals(names[i], listener.ops.get(i).getProperty("name"));
+    }
+  }
+
   @Test
   public void testRestrictedLiveInsert() throws ExecutionException, InterruptedException {
     ODatabaseDocumentTx db = new ODatabaseDocumentTx("memory:OLiveQueryTest");
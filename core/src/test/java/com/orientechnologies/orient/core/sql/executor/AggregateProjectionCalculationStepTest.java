@@ -0,0 +1,74 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.common.concur.OTimeoutException;
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.sql.OSQLEngine;
+import com.orientechnologies.orient.core.sql.parser.OSelectStatement;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class AggregateProjectionCalculationStepTest {
+  private ODatabaseDocumentTx db;
+
+  @Before
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + AggregateProjectionCalculationStepTest.class.getSimpleName());
+    db.create();
+    db.getConfiguration().setValue(OGlobalConfiguration.QUERY_SPILL_THRESHOLD, 5);
+  }
+
+  @After
+  public void after() {
+    db.drop();
+  }
+
+  @Test
+  public void testSpillWithNotSpillableInput() {
+    OSelectStatement statement = (OSelectStatement) OSQLEngine
+        .parse("select count(*) as count, type from V group by type", db);
+    OBasicCommandContext ctx = new OBasicCommandContext();
+    ctx.setDatabase(db);
+
+    AggregateProjectionCalculationStep step = new AggregateProjectionCalculationStep(statement.getProjection(),
+        statement.getGroupBy(), ctx, false);
+    step.setPrevious(new AbstractExecutionStep(ctx, false) {
+      boolean done = false;
+
+      @Override
+      public OResultSet syncPull(OCommandContext ctx, int nRecords) throws OTimeoutException {
+        OInternalResultSet result = new OInternalResultSet();
+        if (!done) {
+          for (int i = 0; i < 1000; i++) {
+            // the last results are of a subclass that cannot be written to disk
+            OResultInternal item = i < 900 ? new OResultInternal() : new OTraverseResult();
+            item.setProperty("type", "type" + (i % 100));
+            result.add(item);
+          }
+          done = true;
+        }
+        return result;
+      }
+    });
+
+    Map<String, Long> counts = new HashMap<>();
+    OResultSet result = step.syncPull(ctx, 1000);
+    while (result.hasNext()) {
+      OResult item = result.next();
+      Assert.assertNull(counts.put(item.getProperty("type"), item.getProperty("count")));
+    }
+    step.close();
+
+    Assert.assertEquals(100, counts.size());
+    for (Long count : counts.values()) {
+      Assert.assertEquals(10L, (long) count);
+    }
+  }
+}
@@ -1,9 +1,13 @@
 package com.orientechnologies.orient.core.sql.executor;
 
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OSchema;
 import com.orientechnologies.orient.core.metadata.schema.OType;
@@ -312,6 +316,59 @@ public class OSelectStatementExecutionTest {
     result.close();
   }
 
+  @Test
+  public void testSelectOrderBySpill() {
+    String className = "testSelectOrderBySpill";
+    db.getMetadata().getSchema().createClass(className);
+    for (int i = 0; i < 1000; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("name", "name" + i);
+      doc.setProperty("surname", "surname" + (i * 37) % 1000);
+      doc.save();
+    }
+
+    OContextConfiguration config = ((ODatabaseDocumentInternal) db).getConfiguration();
+    Object oldThreshold = config.getValue(OGlobalConfiguration.QUERY_SPILL_THRESHOLD);
+    config.setValue(OGlobalConfiguration.QUERY_SPILL_THRESHOLD, 100);
+    try {
+      OResultSet result = db.query("select from " + className + " order by surname asc");
+      printExecutionPlan(result);
+
+      String lastSurname = null;
+      Set<ORID> found = new HashSet<>();
+      for (int i = 0; i < 1000; i++) {
+        Assert.assertTrue(result.hasNext());
+        OResult item = result.next();
+        Assert.assertTrue(item.isElement());
+        Assert.assertTrue(found.add(item.getIdentity().get()));
+        String thisSurname = item.getProperty("surname");
+        if (lastSurname != null) {
+          Assert.assertTrue(lastSurname.compareTo(thisSurname) <= 0);
+        }
+        lastSurname = thisSurname;
+      }
+      Assert.assertFalse(result.hasNext());
+      result.close();
+
+      result = db.query("select name, surname from " + className + " order by surname desc");
+      lastSurname = null;
+      for (int i = 0; i < 1000; i++) {
+        Assert.assertTrue(result.hasNext());
+        OResult item = result.next();
+        Assert.assertNotNull(item.getProperty("name"));
+        String thisSurname = item.getProperty("surname");
+        if (lastSurname != null) {
+          Assert.assertTrue(lastSurname.compareTo(thisSurname) >= 0);
+        }
+        lastSurname = thisSurname;
+      }
+      Assert.assertFalse(result.hasNext());
+      result.close();
+    } finally {
+      config.setValue(OGlobalConfiguration.QUERY_SPILL_THRESHOLD, oldThreshold);
+    }
+  }
+
   @Test
   public void testSelectOrderWithProjections() {
     String className = "testSelectOrderWithProjections";
@@ -651,6 +708,39 @@ public class OSelectStatementExecutionTest {
     result.close();
   }
 
+  @Test
+  public void testAggregateGroupBySpill() {
+    String className = "testAggregateGroupBySpill";
+    db.getMetadata().getSchema().createClass(className);
+    for (int i = 0; i < 1000; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("type", "type" + (i % 100));
+      doc.setProperty("val", i);
+      doc.save();
+    }
+
+    OContextConfiguration config = ((ODatabaseDocumentInternal) db).getConfiguration();
+    Object oldThreshold = config.getValue(OGlobalConfiguration.QUERY_SPILL_THRESHOLD);
+    config.setValue(OGlobalConfiguration.QUERY_SPILL_THRESHOLD, 5);
+    try {
+      OResultSet result = db.query("select count(*) as count, sum(val) as sum, type from " + className + " group by type");
+      printExecutionPlan(result);
+      Set<String> types = new HashSet<>();
+      while (result.hasNext()) {
+        OResult item = result.next();
+        String type = item.getProperty("type");
+        Assert.assertTrue(types.add(type));
+        int n = Integer.parseInt(type.substring("type".length()));
+        Assert.assertEquals(10L, (long) item.getProperty("count"));
+        Assert.assertEquals(10 * n + 4500, ((Number) item.getProperty("sum")).intValue());
+      }
+      Assert.assertEquals(100, types.size());
+      result.close();
+    } finally {
+      config.setValue(OGlobalConfiguration.QUERY_SPILL_THRESHOLD, oldThreshold);
+    }
+  }
+
   @Test
   public void testAggregateSumNoGroupByInProjection() {
     String className = "testAggregateSumNoGroupByInProjection";
@@ -1339,6 +1429,73 @@ public class OSelectStatementExecutionTest {
     result.close();
   }
 
+  @Test
+  public void testFetchFromClassWithIndexesParallel() {
+    String className = "testFetchFromClassWithIndexesParallel";
+    OClass clazz = db.getMetadata().getSchema().createClass(className);
+    clazz.createProperty("name", OType.STRING);
+    clazz.createProperty("surname", OType.STRING);
+    clazz.createIndex(className + ".name", OClass.INDEX_TYPE.NOTUNIQUE, "name");
+    clazz.createIndex(className + ".surname", OClass.INDEX_TYPE.NOTUNIQUE, "surname");
+
+    for (int i = 0; i < 1000; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("name", "name" + (i % 10));
+      doc.setProperty("surname", "surname" + (i % 20));
+      doc.save();
+    }
+
+    OContextConfiguration config = ((ODatabaseDocumentInternal) db).getConfiguration();
+    config.setValue(OGlobalConfiguration.QUERY_PARALLEL_EXEC_ENABLED, true);
+    try {
+      OResultSet result = db.query("select from " + className + " where name = 'name2' or surname = 'surname3'");
+      printExecutionPlan(result);
+
+      Set<ORID> found = new HashSet<>();
+      while (result.hasNext()) {
+        OResult next = result.next();
+        Assert.assertTrue("name2".equals(next.getProperty("name")) || ("surname3".equals(next.getProperty("surname"))));
+        Assert.assertTrue(found.add(next.getIdentity().get()));
+      }
+      // 100 records with name2, 50 with surname3, none with both
+      Assert.assertEquals(150, found.size());
+      result.close();
+    } finally {
+      config.setValue(OGlobalConfiguration.QUERY_PARALLEL_EXEC_ENABLED, false);
+    }
+  }
+
+  @Test
+  public void testParallelCloseAndDrop() {
+    String className = "testParallelCloseAndDrop";
+    ODatabaseDocumentTx parallelDb = new ODatabaseDocumentTx("memory:" + className);
+    parallelDb.create();
+    try {
+      OClass clazz = parallelDb.getMetadata().getSchema().createClass(className);
+      clazz.createProperty("name", OType.STRING);
+      clazz.createProperty("surname", OType.STRING);
+      clazz.createIndex(className + ".name", OClass.INDEX_TYPE.NOTUNIQUE, "name");
+      clazz.createIndex(className + ".surname", OClass.INDEX_TYPE.NOTUNIQUE, "surname");
+
+      for (int i = 0; i < 5000; i++) {
+        ODocument doc = parallelDb.newInstance(className);
+        doc.setProperty("name", "name" + (i % 2));
+        doc.setProperty("surname", "surname" + (i % 3));
+        doc.save();
+      }
+
+      parallelDb.getConfiguration().setValue(OGlobalConfiguration.QUERY_PARALLEL_EXEC_ENABLED, true);
+      OResultSet result = parallelDb.query("select from " + className + " where name = 'name1' or surname = 'surname2'");
+      Assert.assertTrue(result.hasNext());
+      result.next();
+      // the workers have to release their database copies before close() returns
+      result.close();
+      parallelDb.drop();
+    } finally {
+      db.activateOnCurrentThread();
+    }
+  }
+
   @Test
   public void testFetchFromClassWithIndexes2() {
     String className = "testFetchFromClassWithIndexes2";
@@ -1934,6 +2091,40 @@ public class OSelectStatementExecutionTest {
     result.close();
   }
 
+  @Test
+  public void testDistinctSpill() {
+    String className = "testDistinctSpill";
+    db.getMetadata().getSchema().createClass(className);
+
+    for (int i = 0; i < 9000; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("name", "name" + i % 3000);
+      doc.setProperty("val", i % 3000);
+      doc.setProperty("tags", Arrays.asList("a", "b" + i % 3000));
+      doc.save();
+    }
+
+    OContextConfiguration config = ((ODatabaseDocumentInternal) db).getConfiguration();
+    Object oldLimit = config.getValue(OGlobalConfiguration.QUERY_SPILL_OFF_HEAP_LIMIT);
+    config.setValue(OGlobalConfiguration.QUERY_SPILL_OFF_HEAP_LIMIT, 0);
+    try {
+      OResultSet result = db.query("select distinct name, val, tags from " + className);
+      printExecutionPlan(result);
+
+      Set<String> names = new HashSet<>();
+      while (result.hasNext()) {
+        OResult item = result.next();
+        String name = item.getProperty("name");
+        Assert.assertTrue(names.add(name));
+        Assert.assertEquals(name, "name" + item.getProperty("val"));
+      }
+      Assert.assertEquals(3000, names.size());
+      result.close();
+    } finally {
+      config.setValue(OGlobalConfiguration.QUERY_SPILL_OFF_HEAP_LIMIT, oldLimit);
+    }
+  }
+
   @Test
   public void testLet1() {
     OResultSet result = db.query("select $a as one, $b as two let $a = 1, $b = 1+1");
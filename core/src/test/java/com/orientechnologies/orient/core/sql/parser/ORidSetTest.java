@@ -154,4 +154,36 @@ public class ORidSetTest extends OParserTestAbstract {
 
   }
 
+  @Test public void testAddAll() {
+    ORidSet set = new ORidSet();
+    Set<ORID> items = new HashSet<>();
+    items.add(new ORecordId(12, 10));
+    items.add(new ORecordId(13, 200));
+    Assert.assertTrue(set.addAll(items));
+    Assert.assertEquals(2, set.size());
+    Assert.assertTrue(set.containsAll(items));
+    Assert.assertFalse(set.addAll(items));
+  }
+
+  @Test public void testIteratorSparseBlocks() {
+    Set<ORID> control = new HashSet<>();
+    Set<ORID> set = new ORidSet(16);
+
+    for (long id = 0; id < 100000; id += 997) {
+      ORecordId rid = new ORecordId(3, id);
+      set.add(rid);
+      control.add(rid);
+    }
+    ORecordId far = new ORecordId(5, 10L * 1000 * 1000 * 1000);
+    set.add(far);
+    control.add(far);
+
+    Assert.assertEquals(control.size(), set.size());
+    Iterator<ORID> iterator = set.iterator();
+    while (iterator.hasNext()) {
+      Assert.assertTrue(control.remove(iterator.next()));
+    }
+    Assert.assertTrue(control.isEmpty());
+  }
+
 }
@@ -0,0 +1,156 @@
+package com.orientechnologies.orient.core.storage.cache.local;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class OPageReadAheadTest {
+
+  @Test
+  public void testRandomReadsAreNotPrefetched() throws Exception {
+    final RecordingLoader loader = new RecordingLoader();
+    final OPageReadAhead readAhead = new OPageReadAhead(loader, 8, 3);
+
+    for (long pageIndex : new long[] { 10, 3, 7, 8, 1, 20, 5, 6 })
+      readAhead.onPageRead(1, pageIndex, null, false);
+
+    Assert.assertEquals(0, readAhead.getRequests());
+    Assert.assertNull(loader.requests.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testSequentialReadsArePrefetchedByBatches() throws Exception {
+    final RecordingLoader loader = new RecordingLoader();
+    final OPageReadAhead readAhead = new OPageReadAhead(loader, 8, 3);
+
+    // repeated reads of the same page do not break the sequence and are not counted
+    for (long pageIndex : new long[] { 0, 0, 1, 1, 1 })
+      readAhead.onPageRead(1, pageIndex, null, false);
+    Assert.assertEquals(0, readAhead.getRequests());
+
+    readAhead.onPageRead(1, 2, null, false);
+    assertRequest(loader.requests.poll(10, TimeUnit.SECONDS), 3, 8);
+    awaitPrefetchedPages(readAhead, 8);
+
+    // next batch is requested only when half of the previous one is passed
+    for (long pageIndex = 3; pageIndex < 7; pageIndex++)
+      readAhead.onPageRead(1, pageIndex, null, false);
+    Assert.assertEquals(1, readAhead.getRequests());
+
+    readAhead.onPageRead(1, 7, null, false);
+    assertRequest(loader.requests.poll(10, TimeUnit.SECONDS), 11, 5);
+    awaitPrefetchedPages(readAhead, 13);
+  }
+
+  @Test
+  public void testFilesAreTrackedSeparately() throws Exception {
+    final RecordingLoader loader = new RecordingLoader();
+    final OPageReadAhead readAhead = new OPageReadAhead(loader, 4, 2);
+
+    for (long pageIndex = 0; pageIndex < 3; pageIndex++) {
+      readAhead.onPageRead(1, pageIndex, null, false);
+      readAhead.onPageRead(2, 100 + pageIndex, null, false);
+    }
+    Assert.assertEquals(2, readAhead.getRequests());
+
+    final OPageReadAhead.Request first = loader.requests.poll(10, TimeUnit.SECONDS);
+    final OPageReadAhead.Request second = loader.requests.poll(10, TimeUnit.SECONDS);
+    Assert.assertNotNull(first);
+    Assert.assertNotNull(second);
+
+    if (first.getFileId() == 1) {
+      assertRequest(first, 2, 4);
+      assertRequest(second, 102, 4);
+    } else {
+      assertRequest(first, 102, 4);
+      assertRequest(second, 2, 4);
+    }
+  }
+
+  @Test
+  public void testSingleBatchOfFileIsLoadedAtOnce() throws Exception {
+    final CountDownLatch loadStarted = new CountDownLatch(1);
+    final CountDownLatch releaseLoad = new CountDownLatch(1);
+    final RecordingLoader loader = new RecordingLoader() {
+      @Override
+      public int prefetch(OPageReadAhead.Request request) throws Exception {
+        loadStarted.countDown();
+        releaseLoad.await();
+        return super.prefetch(request);
+      }
+    };
+
+    final OPageReadAhead readAhead = new OPageReadAhead(loader, 4, 1);
+
+    readAhead.onPageRead(1, 0, null, false);
+    Assert.assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+
+    for (long pageIndex = 1; pageIndex < 10; pageIndex++)
+      readAhead.onPageRead(1, pageIndex, null, false);
+    Assert.assertEquals(1, readAhead.getRequests());
+
+    releaseLoad.countDown();
+    assertRequest(loader.requests.poll(10, TimeUnit.SECONDS), 1, 4);
+  }
+
+  @Test
+  public void testRequestIsInvalidatedByRemovalOfFile() throws Exception {
+    final CountDownLatch releaseLoad = new CountDownLatch(1);
+    final BlockingQueue<Boolean> validity = new LinkedBlockingQueue<>();
+    final OPageReadAhead readAhead = new OPageReadAhead(new OPageReadAhead.PageLoader() {
+      @Override
+      public int prefetch(OPageReadAhead.Request request) throws Exception {
+        releaseLoad.await();
+        validity.add(request.isValid());
+        return 0;
+      }
+    }, 4, 1);
+
+    readAhead.onPageRead(1, 0, null, false);
+    readAhead.removeFile(1);
+    releaseLoad.countDown();
+
+    Assert.assertFalse(validity.poll(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testDisabledReadAhead() throws Exception {
+    final RecordingLoader loader = new RecordingLoader();
+    final OPageReadAhead readAhead = new OPageReadAhead(loader, 0, 1);
+
+    Assert.assertFalse(readAhead.isEnabled());
+    for (long pageIndex = 0; pageIndex < 10; pageIndex++)
+      readAhead.onPageRead(1, pageIndex, null, false);
+
+    Assert.assertEquals(0, readAhead.getRequests());
+  }
+
+  private static void awaitPrefetchedPages(OPageReadAhead readAhead, long pages) throws InterruptedException {
+    final long end = System.currentTimeMillis() + 10000;
+    while (readAhead.getPrefetchedPages() < pages && System.currentTimeMillis() < end)
+      Thread.sleep(10);
+
+    Assert.assertEquals(pages, readAhead.getPrefetchedPages());
+  }
+
+  private static void assertRequest(OPageReadAhead.Request request, long startPageIndex, int pageCount) {
+    Assert.assertNotNull(request);
+    Assert.assertTrue(request.isValid());
+    Assert.assertEquals(startPageIndex, request.getStartPageIndex());
+    Assert.assertEquals(pageCount, request.getPageCount());
+  }
+
+  private static class RecordingLoader implements OPageReadAhead.PageLoader {
+    private final BlockingQueue<OPageReadAhead.Request> requests = new LinkedBlockingQueue<>();
+
+    @Override
+    public int prefetch(OPageReadAhead.Request request) throws Exception {
+      requests.add(request);
+      return request.getPageCount();
+    }
+  }
+}
@@ -0,0 +1,245 @@
+package com.orientechnologies.orient.core.storage.cache.local.clock;
+
+import com.orientechnologies.common.collection.closabledictionary.OClosableLinkedContainer;
+import com.orientechnologies.common.directmemory.OByteBufferPool;
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.common.serialization.types.OLongSerializer;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.exception.OAllCacheEntriesAreUsedException;
+import com.orientechnologies.orient.core.storage.OChecksumMode;
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.cache.local.OWOWCache;
+import com.orientechnologies.orient.core.storage.fs.OFileClassic;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class OClockCacheTest {
+  private static final int systemOffset          = OIntegerSerializer.INT_SIZE + 3 * OLongSerializer.LONG_SIZE;
+  private static final int PAGE_SIZE             = 8 + systemOffset;
+  private static final int READ_CACHE_MAX_MEMORY = 16 * PAGE_SIZE;
+  private static final int WRITE_CACHE_MAX_SIZE  = 15000 * PAGE_SIZE;
+
+  private static final OClosableLinkedContainer<Long, OFileClassic> files = new OClosableLinkedContainer<>(1024);
+
+  private static OLocalPaginatedStorage storageLocal;
+
+  private OClockCache readCache;
+  private OWOWCache   writeCache;
+  private long        fileId;
+
+  @BeforeClass
+  public static void beforeClass() throws IOException {
+    OGlobalConfiguration.FILE_LOCK.setValue(Boolean.FALSE);
+
+    String buildDirectory = System.getProperty("buildDirectory");
+    if (buildDirectory == null)
+      buildDirectory = ".";
+
+    storageLocal = (OLocalPaginatedStorage) Orient.instance().getRunningEngine("plocal")
+        .createStorage(buildDirectory + "/OClockCacheTest", null);
+    storageLocal.create(new OContextConfiguration());
+    storageLocal.close(true, false);
+  }
+
+  @AfterClass
+  public static void afterClass() throws IOException {
+    storageLocal.delete();
+  }
+
+  @Before
+  public void before() throws Exception {
+    writeCache = new OWOWCache(PAGE_SIZE, new OByteBufferPool(PAGE_SIZE), null, -1, WRITE_CACHE_MAX_SIZE, storageLocal, false,
+        files, 1, OChecksumMode.StoreAndThrow);
+    writeCache.loadRegisteredFiles();
+
+    readCache = new OClockCache(READ_CACHE_MAX_MEMORY, PAGE_SIZE, false, 50);
+    fileId = readCache.addFile("clockCacheTest.tst", writeCache);
+  }
+
+  @After
+  public void after() throws IOException {
+    readCache.deleteStorage(writeCache);
+    readCache.clear();
+    files.clear();
+  }
+
+  @Test
+  public void testPagesAreReadBackAfterEviction() throws IOException {
+    for (int i = 0; i < 100; i++)
+      writePage(i);
+
+    Assert.assertTrue(readCache.getSize() <= readCache.getMaxSize());
+
+    for (int i = 0; i < 100; i++)
+      Assert.assertEquals(i, readPage(i));
+  }
+
+  @Test
+  public void testLoadForReadHitsCache() throws IOException {
+    writePage(0);
+
+    final OCacheEntry first = readCache.loadForRead(fileId, 0, false, writeCache, 1, true);
+    readCache.releaseFromRead(first, writeCache);
+
+    final OCacheEntry second = readCache.loadForRead(fileId, 0, false, writeCache, 1, true);
+    readCache.releaseFromRead(second, writeCache);
+
+    Assert.assertSame(first, second);
+  }
+
+  @Test
+  public void testFrequentlyReadPagesAreNotEvicted() throws IOException {
+    for (int i = 0; i < 8; i++)
+      writePage(i);
+
+    for (int n = 0; n < OClockCacheEntry.MAX_FREQUENCY; n++)
+      for (int i = 0; i < 8; i++)
+        readPage(i);
+
+    //scan of pages which are read only once does not remove frequently read pages
+    for (int i = 8; i < 20; i++)
+      writePage(i);
+
+    for (int i = 0; i < 8; i++)
+      Assert.assertTrue(readCache.inCache(fileId, i));
+  }
+
+  @Test
+  public void testUsedPagesAreNotEvicted() throws IOException {
+    writePage(0);
+
+    final OCacheEntry used = readCache.loadForRead(fileId, 0, false, writeCache, 1, true);
+    try {
+      for (int i = 1; i < 100; i++)
+        writePage(i);
+
+      Assert.assertTrue(readCache.inCache(fileId, 0));
+    } finally {
+      readCache.releaseFromRead(used, writeCache);
+    }
+  }
+
+  @Test
+  public void testIfAllPagesAreUsedExceptionShouldBeThrown() throws IOException {
+    final List<OCacheEntry> entries = new ArrayList<>();
+    try {
+      for (int i = 0; i < 10 * READ_CACHE_MAX_MEMORY / PAGE_SIZE + Runtime.getRuntime().availableProcessors() * 8; i++) {
+        final OCacheEntry cacheEntry = readCache.allocateNewPage(fileId, writeCache, true);
+        entries.add(cacheEntry);
+      }
+
+      Assert.fail();
+    } catch (OAllCacheEntriesAreUsedException e) {
+      //expected
+    } finally {
+      for (OCacheEntry cacheEntry : entries)
+        readCache.releaseFromWrite(cacheEntry, writeCache);
+    }
+  }
+
+  @Test
+  public void testPinnedPagesAreNotEvicted() throws IOException {
+    writePage(0);
+
+    final OCacheEntry pinned = readCache.loadForRead(fileId, 0, false, writeCache, 1, true);
+    readCache.pinPage(pinned);
+    readCache.releaseFromRead(pinned, writeCache);
+
+    for (int i = 1; i < 100; i++)
+      writePage(i);
+
+    Assert.assertTrue(readCache.inPinnedPages(fileId, 0));
+
+    final OCacheEntry cacheEntry = readCache.loadForRead(fileId, 0, true, writeCache, 1, true);
+    readCache.releaseFromRead(cacheEntry, writeCache);
+
+    Assert.assertSame(pinned, cacheEntry);
+  }
+
+  @Test
+  public void testTruncateFileRemovesPages() throws IOException {
+    for (int i = 0; i < 8; i++)
+      writePage(i);
+
+    readCache.truncateFile(fileId, writeCache);
+
+    Assert.assertEquals(0, readCache.getSize());
+    Assert.assertNull(readCache.loadForRead(fileId, 0, false, writeCache, 1, true));
+  }
+
+  @Test
+  public void testConcurrentReaders() throws Exception {
+    final int pages = 64;
+    for (int i = 0; i < pages; i++)
+      writePage(i);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Void>> futures = new ArrayList<>();
+      for (int n = 0; n < 8; n++) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            for (int i = 0; i < 20000; i++) {
+              final int pageIndex = ThreadLocalRandom.current().nextInt(pages);
+              Assert.assertEquals(pageIndex, readPage(pageIndex));
+            }
+
+            return null;
+          }
+        }));
+      }
+
+      for (Future<Void> future : futures)
+        future.get();
+    } finally {
+      executor.shutdown();
+    }
+
+    Assert.assertTrue(readCache.getSize() <= readCache.getMaxSize() + Runtime.getRuntime().availableProcessors() * 8);
+  }
+
+  private void writePage(int pageIndex) throws IOException {
+    OCacheEntry cacheEntry = readCache.loadForWrite(fileId, pageIndex, false, writeCache, 1, true);
+    if (cacheEntry == null) {
+      cacheEntry = readCache.allocateNewPage(fileId, writeCache, true);
+      Assert.assertEquals(pageIndex, cacheEntry.getPageIndex());
+    }
+
+    try {
+      final ByteBuffer buffer = cacheEntry.getCachePointer().getSharedBuffer();
+      buffer.putInt(systemOffset, pageIndex);
+
+      cacheEntry.markDirty();
+    } finally {
+      readCache.releaseFromWrite(cacheEntry, writeCache);
+    }
+  }
+
+  private int readPage(int pageIndex) throws IOException {
+    final OCacheEntry cacheEntry = readCache.loadForRead(fileId, pageIndex, false, writeCache, 1, true);
+    try {
+      final ByteBuffer buffer = cacheEntry.getCachePointer().getSharedBuffer();
+      return buffer.getInt(systemOffset);
+    } finally {
+      readCache.releaseFromRead(cacheEntry, writeCache);
+    }
+  }
+}
@@ -977,6 +977,66 @@ public class ReadWriteDiskCacheTest {
     readBuffer.changeMaximumAmountOfMemory(4 * (PAGE_SIZE));
   }
 
+  @Test
+  public void testSequentialReadPrefetchesNextPages() throws Exception {
+    final Object readAheadPages = OGlobalConfiguration.DISK_CACHE_READ_AHEAD_PAGES.getValue();
+    final Object readAheadThreshold = OGlobalConfiguration.DISK_CACHE_READ_AHEAD_THRESHOLD.getValue();
+
+    OGlobalConfiguration.DISK_CACHE_READ_AHEAD_PAGES.setValue(32);
+    OGlobalConfiguration.DISK_CACHE_READ_AHEAD_THRESHOLD.setValue(4);
+    try {
+      readBuffer.clear();
+      readBuffer = new O2QCache(64 * PAGE_SIZE, PAGE_SIZE, false, 50);
+    } finally {
+      OGlobalConfiguration.DISK_CACHE_READ_AHEAD_PAGES.setValue(readAheadPages);
+      OGlobalConfiguration.DISK_CACHE_READ_AHEAD_THRESHOLD.setValue(readAheadThreshold);
+    }
+
+    final long fileId = readBuffer.addFile(fileName, writeBuffer);
+
+    for (int i = 0; i < 32; i++) {
+      OCacheEntry cacheEntry = readBuffer.allocateNewPage(fileId, writeBuffer, true);
+      try {
+        final ByteBuffer buffer = cacheEntry.getCachePointer().getSharedBuffer();
+        buffer.position(systemOffset);
+        buffer.put(new byte[] { (byte) (i + 1) });
+
+        setLsn(buffer, new OLogSequenceNumber(1, i));
+
+        cacheEntry.markDirty();
+      } finally {
+        readBuffer.releaseFromWrite(cacheEntry, writeBuffer);
+      }
+    }
+
+    readBuffer.clear();
+    writeBuffer.flush();
+
+    LRUList a1in = readBuffer.getA1in();
+
+    for (int i = 0; i < 4; i++) {
+      OCacheEntry cacheEntry = readBuffer.loadForRead(fileId, i, false, writeBuffer, 1, true);
+      readBuffer.releaseFromRead(cacheEntry, writeBuffer);
+    }
+
+    //amount of prefetched pages is limited by half of a1in queue
+    final long end = System.currentTimeMillis() + 10000;
+    while (readBuffer.getReadAhead().getPrefetchedPages() < 8 && System.currentTimeMillis() < end)
+      Thread.sleep(10);
+
+    Assert.assertEquals(8, readBuffer.getReadAhead().getPrefetchedPages());
+    Assert.assertEquals(12, a1in.size());
+
+    for (int i = 4; i < 12; i++) {
+      final OCacheEntry cacheEntry = a1in.get(fileId, i);
+      Assert.assertNotNull(cacheEntry);
+      Assert.assertEquals(0, cacheEntry.getUsagesCount());
+      Assert.assertEquals(i + 1, cacheEntry.getCachePointer().getSharedBuffer().get(systemOffset));
+    }
+
+    Assert.assertNull(a1in.get(fileId, 12));
+  }
+
   @Test
   public void testLoadAndLockForReadShouldHitCache() throws Exception {
     long fileId = readBuffer.addFile(fileName, writeBuffer);
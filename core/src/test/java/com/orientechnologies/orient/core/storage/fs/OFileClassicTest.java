@@ -0,0 +1,118 @@
+package com.orientechnologies.orient.core.storage.fs;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class OFileClassicTest {
+  private static final int PAGE_SIZE = 64 * 1024;
+  private static final int MB        = 1024 * 1024;
+
+  private Path   storagePath;
+  private Object mmapRead;
+  private Object mmapSegmentSize;
+
+  @Before
+  public void before() {
+    String buildDirectory = System.getProperty("buildDirectory");
+    if (buildDirectory == null)
+      buildDirectory = ".";
+
+    storagePath = Paths.get(buildDirectory, OFileClassicTest.class.getSimpleName());
+    OFileUtils.deleteRecursively(storagePath.toFile());
+    storagePath.toFile().mkdirs();
+
+    mmapRead = OGlobalConfiguration.FILE_MMAP_READ.getValue();
+    mmapSegmentSize = OGlobalConfiguration.FILE_MMAP_SEGMENT_SIZE.getValue();
+
+    OGlobalConfiguration.FILE_MMAP_READ.setValue(true);
+    OGlobalConfiguration.FILE_MMAP_SEGMENT_SIZE.setValue(1);
+  }
+
+  @After
+  public void after() {
+    OGlobalConfiguration.FILE_MMAP_READ.setValue(mmapRead);
+    OGlobalConfiguration.FILE_MMAP_SEGMENT_SIZE.setValue(mmapSegmentSize);
+
+    OFileUtils.deleteRecursively(storagePath.toFile());
+  }
+
+  @Test
+  public void testMappedReadSeesWrites() throws Exception {
+    final OFileClassic file = new OFileClassic(storagePath.resolve("mapped.pcl"));
+    file.create();
+    try {
+      // TWO COMPLETE SEGMENTS AND THE TAIL WHICH IS READ THROUGH THE CHANNEL
+      final int pages = 2 * MB / PAGE_SIZE + 3;
+      file.allocateSpace((long) pages * PAGE_SIZE);
+
+      for (int i = 0; i < pages; i++)
+        file.write((long) i * PAGE_SIZE, page(i, 0));
+
+      for (int i = 0; i < pages; i++)
+        assertPage(read(file, i), i, 0);
+
+      // CHANGES WRITTEN THROUGH THE CHANNEL ARE VISIBLE IN ALREADY MAPPED SEGMENTS
+      file.write(PAGE_SIZE, page(1, 1));
+      assertPage(read(file, 1), 1, 1);
+
+      final ByteBuffer[] buffers = new ByteBuffer[4];
+      for (int i = 0; i < buffers.length; i++)
+        buffers[i] = ByteBuffer.allocateDirect(PAGE_SIZE);
+      file.read(0, buffers, true);
+
+      assertPage(buffers[0], 0, 0);
+      assertPage(buffers[1], 1, 1);
+      assertPage(buffers[2], 2, 0);
+      assertPage(buffers[3], 3, 0);
+
+      // PAGES CROSSING THE BOUNDARY OF THE SEGMENT AND THE TAIL
+      final int lastMapped = 2 * MB / PAGE_SIZE - 2;
+      for (int i = 0; i < buffers.length; i++)
+        buffers[i].clear();
+      file.read((long) lastMapped * PAGE_SIZE, buffers, true);
+      for (int i = 0; i < buffers.length; i++)
+        assertPage(buffers[i], lastMapped + i, 0);
+
+      file.shrink(PAGE_SIZE * 4);
+      Assert.assertEquals(PAGE_SIZE * 4, file.getFileSize());
+      assertPage(read(file, 3), 3, 0);
+
+      file.allocateSpace(MB);
+      for (int i = 4; i < MB / PAGE_SIZE + 4; i++)
+        file.write((long) i * PAGE_SIZE, page(i, 2));
+      assertPage(read(file, 10), 10, 2);
+    } finally {
+      file.delete();
+    }
+
+    Assert.assertFalse(new File(storagePath.toFile(), "mapped.pcl").exists());
+  }
+
+  private static ByteBuffer read(OFileClassic file, int pageIndex) throws Exception {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(PAGE_SIZE);
+    file.read((long) pageIndex * PAGE_SIZE, buffer, true);
+    return buffer;
+  }
+
+  private static ByteBuffer page(int pageIndex, int version) {
+    final ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+    for (int i = 0; i < PAGE_SIZE; i += 8)
+      buffer.putLong(i, ((long) pageIndex << 32) + version + i);
+    return buffer;
+  }
+
+  private static void assertPage(ByteBuffer buffer, int pageIndex, int version) {
+    Assert.assertEquals(PAGE_SIZE, buffer.position());
+    for (int i = 0; i < PAGE_SIZE; i += 8)
+      Assert.assertEquals(((long) pageIndex << 32) + version + i, buffer.getLong(i));
+  }
+}
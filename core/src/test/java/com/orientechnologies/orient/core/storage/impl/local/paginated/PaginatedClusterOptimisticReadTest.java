@@ -0,0 +1,136 @@
+package com.orientechnologies.orient.core.storage.impl.local.paginated;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OModificationStamp;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PaginatedClusterOptimisticReadTest {
+  private ODatabaseDocumentTx db;
+
+  @Before
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + PaginatedClusterOptimisticReadTest.class.getSimpleName());
+    db.create();
+  }
+
+  @After
+  public void after() {
+    db.activateOnCurrentThread();
+    db.drop();
+  }
+
+  @Test
+  public void testModificationStamp() {
+    final OModificationStamp modificationStamp = new OModificationStamp();
+
+    final long stamp = modificationStamp.tryOptimisticRead();
+    Assert.assertTrue(stamp >= 0);
+    Assert.assertTrue(modificationStamp.validate(stamp));
+
+    modificationStamp.startModification();
+    Assert.assertEquals(-1, modificationStamp.tryOptimisticRead());
+    Assert.assertFalse(modificationStamp.validate(stamp));
+
+    modificationStamp.endModification();
+    Assert.assertFalse(modificationStamp.validate(stamp));
+    Assert.assertTrue(modificationStamp.validate(modificationStamp.tryOptimisticRead()));
+  }
+
+  @Test
+  public void testConcurrentReadsAndUpdates() throws Exception {
+    concurrentReadsAndUpdates(100, 20, 2000);
+  }
+
+  @Test
+  public void testConcurrentReadsAndUpdatesOfRecordsOnSeveralPages() throws Exception {
+    // RECORDS ARE SPLIT IN CHUNKS LINKED FROM PAGE TO PAGE, THE CHAINS ARE CHANGED BY UPDATES
+    concurrentReadsAndUpdates(10, 10, 100000);
+  }
+
+  private void concurrentReadsAndUpdates(final int records, final int rounds, final int step) throws Exception {
+    final List<ORID> rids = new ArrayList<ORID>();
+    for (int i = 0; i < records; i++)
+      rids.add(db.save(new ODocument().field("value", value(i, 0, step)), "default").getIdentity());
+
+    final AtomicBoolean stop = new AtomicBoolean();
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final Future<Void> writer = executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          final ODatabaseDocumentTx writerDb = new ODatabaseDocumentTx(db.getURL()).open("admin", "admin");
+          try {
+            for (int round = 1; round <= rounds; round++)
+              for (int i = 0; i < rids.size(); i++) {
+                final ODocument document = writerDb.load(rids.get(i));
+                document.field("value", value(i, round, step));
+                writerDb.save(document);
+              }
+          } finally {
+            stop.set(true);
+            writerDb.close();
+          }
+          return null;
+        }
+      });
+
+      final List<Future<Long>> readers = new ArrayList<Future<Long>>();
+      for (int r = 0; r < 3; r++)
+        readers.add(executor.submit(new Callable<Long>() {
+          @Override
+          public Long call() {
+            final ODatabaseDocumentTx readerDb = new ODatabaseDocumentTx(db.getURL()).open("admin", "admin");
+            long reads = 0;
+            try {
+              while (!stop.get())
+                for (int i = 0; i < rids.size(); i++) {
+                  final ODocument document = readerDb.load(rids.get(i), null, true);
+                  Assert.assertNotNull(document);
+
+                  // CONTENT OF THE RECORD IS NEVER MIXED FROM DIFFERENT VERSIONS
+                  final String value = document.field("value");
+                  Assert.assertTrue(value, value.startsWith(i + ":"));
+                  final int round = Integer.parseInt(value.substring(value.indexOf(':') + 1, value.indexOf('-')));
+                  Assert.assertEquals(value(i, round, step), value);
+                  reads++;
+                }
+            } finally {
+              readerDb.close();
+            }
+            return reads;
+          }
+        }));
+
+      writer.get();
+      for (Future<Long> reader : readers)
+        Assert.assertTrue(reader.get() > 0);
+    } finally {
+      executor.shutdown();
+    }
+
+    db.activateOnCurrentThread();
+    for (int i = 0; i < rids.size(); i++)
+      Assert.assertEquals(value(i, rounds, step), ((ODocument) db.load(rids.get(i))).field("value"));
+  }
+
+  private static String value(int index, int round, int step) {
+    final StringBuilder value = new StringBuilder().append(index).append(':').append(round).append('-');
+    // RECORDS OF DIFFERENT SIZE ARE MOVED BETWEEN PAGES BY UPDATES
+    for (int i = 0; i < (round % 3) * step + index; i++)
+      value.append((char) ('a' + (i + round) % 26));
+    return value.toString();
+  }
+}
@@ -0,0 +1,95 @@
+package com.orientechnologies.orient.core.storage.impl.local.paginated;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.db.OrientDBInternal;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.OElement;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+public class StorageIncrementalBackupTest {
+  private OrientDB orientDB;
+  private File     buildDirectory;
+  private File     backupDirectory;
+
+  @Before
+  public void before() {
+    buildDirectory = new File(System.getProperty("buildDirectory", "./target"),
+        StorageIncrementalBackupTest.class.getSimpleName());
+    OFileUtils.deleteRecursively(buildDirectory);
+    backupDirectory = new File(buildDirectory, "backup");
+
+    orientDB = new OrientDB("embedded:" + new File(buildDirectory, "databases").getAbsolutePath(), OrientDBConfig.defaultConfig());
+    orientDB.create("incrementalBackup", ODatabaseType.PLOCAL);
+  }
+
+  @After
+  public void after() {
+    orientDB.close();
+    OFileUtils.deleteRecursively(buildDirectory);
+  }
+
+  @Test
+  public void testFullAndIncrementalBackup() {
+    try (ODatabaseSession db = orientDB.open("incrementalBackup", "admin", "admin")) {
+      OClass person = db.createClass("Person");
+      person.createProperty("id", OType.INTEGER).createIndex(OClass.INDEX_TYPE.UNIQUE);
+      insert(db, 0, 1000);
+
+      String fullBackup = db.incrementalBackup(backupDirectory.getAbsolutePath());
+      Assert.assertTrue(new File(backupDirectory, fullBackup).exists());
+
+      insert(db, 1000, 1500);
+      db.command("update Person set name = 'updated' where id < 100").close();
+      db.command("delete from Person where id >= 1400").close();
+
+      String incrementalBackup = db.incrementalBackup(backupDirectory.getAbsolutePath());
+      Assert.assertNotEquals(fullBackup, incrementalBackup);
+      Assert.assertTrue(
+          new File(backupDirectory, incrementalBackup).length() < new File(backupDirectory, fullBackup).length());
+    }
+
+    OrientDBInternal.extract(orientDB)
+        .restore("restored", "admin", "admin", ODatabaseType.PLOCAL, backupDirectory.getAbsolutePath(),
+            OrientDBConfig.defaultConfig());
+
+    try (ODatabaseSession db = orientDB.open("restored", "admin", "admin")) {
+      Assert.assertNotNull(db.getMetadata().getSchema().getClass("Person"));
+      Assert.assertEquals(1400, db.countClass("Person"));
+      assertCount(db, "select from Person where name = 'updated'", 100);
+      assertCount(db, "select from Person where id = 1399", 1);
+      assertCount(db, "select from Person where id = 1400", 0);
+
+      // the restored database is writable and its WAL continues after the restored pages
+      insert(db, 1500, 1600);
+      Assert.assertEquals(1500, db.countClass("Person"));
+      Assert.assertEquals(1500, ((ODatabaseDocumentInternal) db).getMetadata().getIndexManager().getIndex("Person.id").getSize());
+    }
+  }
+
+  private static void insert(ODatabaseSession db, int from, int to) {
+    for (int i = from; i < to; i++) {
+      OElement element = db.newElement("Person");
+      element.setProperty("id", i);
+      element.setProperty("name", "name" + i);
+      element.save();
+    }
+  }
+
+  private static void assertCount(ODatabaseSession db, String query, long expected) {
+    try (OResultSet result = db.query(query)) {
+      Assert.assertEquals(expected, result.stream().count());
+    }
+  }
+}
@@ -15,6 +15,10 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -51,6 +55,10 @@ public class WriteAheadLogTest {
   }
 
   private ODiskWriteAheadLog createWAL(int maxPagesCacheSize, int maxSegmentSize) throws IOException {
+    return new ODiskWriteAheadLog(maxPagesCacheSize, -1, maxSegmentSize, null, true, mockStorage(), 16 * OWALPage.PAGE_SIZE, 1);
+  }
+
+  private OLocalPaginatedStorage mockStorage() {
     OLocalPaginatedStorage paginatedStorage = mock(OLocalPaginatedStorage.class);
     when(paginatedStorage.getName()).thenReturn("WriteAheadLogTest");
     when(paginatedStorage.getStoragePath()).thenReturn(Paths.get(testDir.getAbsolutePath()));
@@ -59,8 +67,7 @@ public class WriteAheadLogTest {
     when(paginatedStorage.getConfiguration()).thenReturn(configurationMock);
     when(paginatedStorage.getPerformanceStatisticManager())
         .thenReturn(new OPerformanceStatisticManager(paginatedStorage, Long.MAX_VALUE, -1));
-
-    return new ODiskWriteAheadLog(maxPagesCacheSize, -1, maxSegmentSize, null, true, paginatedStorage, 16 * OWALPage.PAGE_SIZE, 1);
+    return paginatedStorage;
   }
 
   @After
@@ -132,6 +139,69 @@ public class WriteAheadLogTest {
     Assert.assertNull(writeAheadLog.next(writeAheadLog.begin()));
   }
 
+  @Test
+  public void testFlushTill() throws Exception {
+    final OLogSequenceNumber lsn = writeAheadLog.log(new TestRecord(-1, SEGMENT_SIZE, 30, false, true));
+    Assert.assertNull(writeAheadLog.getFlushedLsn());
+
+    writeAheadLog.flushTill(lsn);
+
+    Assert.assertTrue(writeAheadLog.getFlushedLsn().compareTo(lsn) >= 0);
+  }
+
+  @Test
+  public void testConcurrentFlushTill() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          for (int n = 0; n < 100; n++) {
+            final OLogSequenceNumber lsn = writeAheadLog.log(new TestRecord(-1, SEGMENT_SIZE, 30, false, true));
+            writeAheadLog.flushTill(lsn);
+
+            Assert.assertTrue(writeAheadLog.getFlushedLsn().compareTo(lsn) >= 0);
+          }
+
+          return null;
+        }));
+      }
+
+      for (Future<Void> future : futures)
+        future.get();
+    } finally {
+      executor.shutdown();
+    }
+
+    Assert.assertEquals(writeAheadLog.end(), writeAheadLog.getFlushedLsn());
+  }
+
+  @Test
+  public void testFlushTillWhenFlushFails() throws Exception {
+    final AtomicBoolean failFlush = new AtomicBoolean(true);
+    writeAheadLog.delete();
+    writeAheadLog = new ODiskWriteAheadLog(2, -1, SEGMENT_SIZE, null, true, mockStorage(), 16 * OWALPage.PAGE_SIZE, 1) {
+      @Override
+      public void flush() {
+        if (failFlush.get())
+          throw new AssertionError("flush failure");
+        super.flush();
+      }
+    };
+
+    try {
+      final OLogSequenceNumber lsn = writeAheadLog.log(new TestRecord(-1, SEGMENT_SIZE, 30, false, true));
+      try {
+        writeAheadLog.flushTill(lsn);
+        Assert.fail();
+      } catch (OStorageException e) {
+        Assert.assertTrue(e.getCause() instanceof AssertionError);
+      }
+    } finally {
+      failFlush.set(false);
+    }
+  }
+
   @Test
   public void testFirstMasterRecordUpdate() throws Exception {
     TestRecord writtenRecord = new TestRecord(-1, SEGMENT_SIZE, 30, false, true);
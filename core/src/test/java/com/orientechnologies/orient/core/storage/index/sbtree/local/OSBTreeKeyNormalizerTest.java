@@ -0,0 +1,149 @@
+package com.orientechnologies.orient.core.storage.index.sbtree.local;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.common.serialization.types.ODecimalSerializer;
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.common.serialization.types.OStringSerializer;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.index.OAlwaysGreaterKey;
+import com.orientechnologies.orient.core.index.OAlwaysLessKey;
+import com.orientechnologies.orient.core.index.OCompositeKey;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializerFactory;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OCompositeKeySerializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+public class OSBTreeKeyNormalizerTest {
+  private static final int ITERATIONS = 2000;
+
+  private final Random random = new Random(42);
+
+  @Test
+  public void testSupportedTypes() {
+    Assert.assertTrue(OSBTreeKeyNormalizer.isSupported(OStringSerializer.INSTANCE, new OType[] { OType.STRING }));
+    Assert.assertTrue(OSBTreeKeyNormalizer
+        .isSupported(OCompositeKeySerializer.INSTANCE, new OType[] { OType.STRING, OType.LONG, OType.LINK }));
+
+    Assert.assertFalse(OSBTreeKeyNormalizer.isSupported(OStringSerializer.INSTANCE, null));
+    Assert.assertFalse(OSBTreeKeyNormalizer.isSupported(ODecimalSerializer.INSTANCE, new OType[] { OType.DECIMAL }));
+    Assert.assertFalse(OSBTreeKeyNormalizer.isSupported(OIntegerSerializer.INSTANCE, new OType[] { OType.INTEGER, OType.INTEGER }));
+  }
+
+  @Test
+  public void testOrderOfSimpleKeys() {
+    for (OType type : new OType[] { OType.BOOLEAN, OType.BYTE, OType.SHORT, OType.INTEGER, OType.LONG, OType.FLOAT, OType.DOUBLE,
+        OType.DATETIME, OType.STRING, OType.LINK }) {
+      final OSBTreeKeyNormalizer normalizer = new OSBTreeKeyNormalizer(serializer(type), new OType[] { type });
+
+      final List<Object> keys = new ArrayList<Object>();
+      for (int i = 0; i < ITERATIONS; i++)
+        keys.add(randomValue(type));
+
+      assertOrder(normalizer, keys);
+    }
+  }
+
+  @Test
+  public void testOrderOfCompositeKeys() {
+    final OType[] types = { OType.STRING, OType.INTEGER, OType.DOUBLE };
+    final OSBTreeKeyNormalizer normalizer = new OSBTreeKeyNormalizer(OCompositeKeySerializer.INSTANCE, types);
+
+    final List<Object> keys = new ArrayList<Object>();
+    for (int i = 0; i < ITERATIONS; i++) {
+      final OCompositeKey key = new OCompositeKey();
+      for (OType type : types)
+        key.addKey(random.nextInt(10) == 0 ? null : randomValue(type));
+
+      keys.add(key);
+    }
+
+    assertOrder(normalizer, keys);
+  }
+
+  @Test
+  public void testPartialCompositeKeys() {
+    final OSBTreeKeyNormalizer normalizer = new OSBTreeKeyNormalizer(OCompositeKeySerializer.INSTANCE,
+        new OType[] { OType.STRING, OType.INTEGER });
+
+    final byte[] full = normalizer.normalize(new OCompositeKey("abc", 1));
+    final byte[] partial = normalizer.normalize(new OCompositeKey("abc"));
+    final byte[] lowest = normalizer.normalize(new OCompositeKey("abc", new OAlwaysLessKey()));
+    final byte[] highest = normalizer.normalize(new OCompositeKey("abc", new OAlwaysGreaterKey()));
+    final byte[] nullItem = normalizer.normalize(new OCompositeKey("abc", null));
+
+    Assert.assertEquals(0, OSBTreeKeyNormalizer.compare(full, 0, partial, 0));
+    Assert.assertTrue(OSBTreeKeyNormalizer.compare(lowest, 0, nullItem, 0) < 0);
+    Assert.assertTrue(OSBTreeKeyNormalizer.compare(nullItem, 0, full, 0) < 0);
+    Assert.assertTrue(OSBTreeKeyNormalizer.compare(full, 0, highest, 0) < 0);
+    Assert.assertTrue(OSBTreeKeyNormalizer.compare(highest, 0, normalizer.normalize(new OCompositeKey("abd", 0)), 0) < 0);
+  }
+
+  private void assertOrder(OSBTreeKeyNormalizer normalizer, List<Object> keys) {
+    for (int i = 0; i < keys.size(); i++) {
+      final Object key = keys.get(i);
+      final byte[] normalizedKey = normalizer.normalize(key);
+
+      Assert.assertEquals(0, ODefaultComparator.INSTANCE.compare(key, normalizer.denormalize(normalizedKey)));
+
+      final Object other = keys.get(random.nextInt(keys.size()));
+      final int expected = Integer.signum(ODefaultComparator.INSTANCE.compare(key, other));
+      final int actual = Integer.signum(OSBTreeKeyNormalizer.compare(normalizedKey, 0, normalizer.normalize(other), 0));
+
+      Assert.assertEquals(key + " vs " + other, expected, actual);
+    }
+  }
+
+  private Object randomValue(OType type) {
+    switch (type) {
+    case BOOLEAN:
+      return random.nextBoolean();
+    case BYTE:
+      return (byte) random.nextInt();
+    case SHORT:
+      return (short) random.nextInt();
+    case INTEGER:
+      return random.nextInt();
+    case LONG:
+      return random.nextLong();
+    case FLOAT:
+      return random.nextInt(10) == 0 ? -0.0f : (float) random.nextGaussian() * 1000;
+    case DOUBLE:
+      return random.nextInt(10) == 0 ? Double.NEGATIVE_INFINITY : random.nextGaussian() * 1000;
+    case DATETIME:
+      return new Date(random.nextLong() >> 16);
+    case STRING: {
+      final StringBuilder builder = new StringBuilder("http://host/");
+      final int length = random.nextInt(8);
+      for (int i = 0; i < length; i++) {
+        switch (random.nextInt(4)) {
+        case 0:
+          builder.append((char) random.nextInt(0x80));
+          break;
+        case 1:
+          builder.append((char) random.nextInt(0x4000));
+          break;
+        default:
+          builder.append((char) random.nextInt(0x10000));
+        }
+      }
+      return builder.toString();
+    }
+    case LINK:
+      return new ORecordId(random.nextInt(Short.MAX_VALUE), random.nextLong());
+    default:
+      throw new IllegalArgumentException("Unsupported type " + type);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static OBinarySerializer<Object> serializer(OType type) {
+    return (OBinarySerializer<Object>) OBinarySerializerFactory.getInstance().getObjectSerializer(type);
+  }
+}
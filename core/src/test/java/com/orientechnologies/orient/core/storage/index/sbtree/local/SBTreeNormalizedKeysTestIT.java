@@ -0,0 +1,20 @@
+package com.orientechnologies.orient.core.storage.index.sbtree.local;
+
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.OLinkSerializer;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+
+/**
+ * Runs the same scenarios as {@link SBTreeTestIT} against tree which keeps keys in normalized form.
+ */
+public class SBTreeNormalizedKeysTestIT extends SBTreeTestIT {
+  public SBTreeNormalizedKeysTestIT() {
+    sbTree.delete();
+
+    sbTree = new OSBTree<Integer, OIdentifiable>("normalizedSBTree", ".sbt", false, ".nbt",
+        (OAbstractPaginatedStorage) databaseDocumentTx.getStorage());
+    sbTree.create(OIntegerSerializer.INSTANCE, OLinkSerializer.INSTANCE, new OType[] { OType.INTEGER }, 1, false, true);
+  }
+}
@@ -0,0 +1,85 @@
+package com.orientechnologies.orient.enterprise.channel.binary;
+
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class OChannelBinaryServerNonBlockingTest {
+  private ServerSocketChannel serverChannel;
+  private Socket              client;
+  private SocketChannel       accepted;
+  private ExecutorService     executor;
+
+  @Before
+  public void before() throws Exception {
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    client = new Socket(InetAddress.getLoopbackAddress(), serverChannel.socket().getLocalPort());
+    accepted = serverChannel.accept();
+    accepted.configureBlocking(false);
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void after() throws Exception {
+    executor.shutdownNow();
+    client.close();
+    accepted.close();
+    serverChannel.close();
+  }
+
+  @Test
+  public void testReadWaitsForData() throws Exception {
+    final OChannelBinaryServer channel = new OChannelBinaryServer(accepted.socket(), new OContextConfiguration());
+
+    final Future<?> writer = executor.submit(() -> {
+      final DataOutputStream out = new DataOutputStream(client.getOutputStream());
+      out.writeInt(42);
+      out.flush();
+      Thread.sleep(200);
+      out.writeUTF("request");
+      out.flush();
+      return null;
+    });
+
+    Assert.assertEquals(42, channel.readInt());
+    Assert.assertEquals("request", channel.getDataInput().readUTF());
+    writer.get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testWriteWaitsForSpace() throws Exception {
+    final OChannelBinaryServer channel = new OChannelBinaryServer(accepted.socket(), new OContextConfiguration());
+
+    final byte[] content = new byte[8 * 1024 * 1024];
+    for (int i = 0; i < content.length; i++)
+      content[i] = (byte) i;
+
+    final Future<byte[]> reader = executor.submit(() -> {
+      final DataInputStream in = new DataInputStream(client.getInputStream());
+      Thread.sleep(200);
+      final byte[] read = new byte[in.readInt()];
+      in.readFully(read);
+      return read;
+    });
+
+    channel.writeBytes(content);
+    channel.flush();
+
+    Assert.assertArrayEquals(content, reader.get(10, TimeUnit.SECONDS));
+  }
+}
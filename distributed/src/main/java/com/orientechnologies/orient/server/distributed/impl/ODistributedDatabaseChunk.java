@@ -22,6 +22,7 @@ package com.orientechnologies.orient.server.distributed.impl;
 import java.io.*;
 import java.util.zip.GZIPInputStream;
 
+import com.orientechnologies.common.io.OIOUtils;
 import com.orientechnologies.orient.core.serialization.OStreamable;
 import com.orientechnologies.orient.server.distributed.ODistributedMomentum;
 
@@ -64,13 +65,21 @@ public class ODistributedDatabaseChunk implements OStreamable {
         break;
     }
 
-    final int toRead = (int) Math.min(iMaxSize, fileSize - offset);
+    // CHUNKS REQUESTED IN PARALLEL CAN START AFTER THE END OF THE FILE
+    final int toRead = (int) Math.max(0, Math.min(iMaxSize, fileSize - offset));
     buffer = new byte[toRead];
 
     final InputStream in = gzipCompressed ? new GZIPInputStream(new FileInputStream(iFile)) : new FileInputStream(iFile);
     try {
-      in.skip(offset);
-      in.read(buffer);
+      long toSkip = toRead > 0 ? offset : 0;
+      while (toSkip > 0) {
+        final long skipped = in.skip(toSkip);
+        if (skipped <= 0)
+          throw new EOFException();
+        toSkip -= skipped;
+      }
+
+      OIOUtils.readFully(in, buffer, 0, toRead);
 
     } finally {
       try {
@@ -82,7 +91,7 @@ public class ODistributedDatabaseChunk implements OStreamable {
     // UPDATE FILE SIZE
     fileSize = iFile.length();
 
-    if (completedFile.exists() && fileSize - (offset + toRead) == 0) {
+    if (completedFile.exists() && fileSize <= offset + toRead) {
       // BACKUP COMPLETED
       last = true;
     }
@@ -0,0 +1,251 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.distributed.impl;
+
+import com.orientechnologies.common.collection.OMultiValue;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.thread.OThreadPoolExecutorWithLogging;
+import com.orientechnologies.common.util.OUncaughtExceptionHandler;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.server.distributed.ODistributedException;
+import com.orientechnologies.orient.server.distributed.ODistributedRequest;
+import com.orientechnologies.orient.server.distributed.ODistributedResponse;
+import com.orientechnologies.orient.server.distributed.ODistributedServerLog;
+import com.orientechnologies.orient.server.distributed.ODistributedServerLog.DIRECTION;
+import com.orientechnologies.orient.server.distributed.impl.task.OCopyDatabaseChunkTask;
+import com.orientechnologies.orient.server.distributed.impl.task.OSyncDatabaseTask;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads database file from the remote node requesting up to {@link OGlobalConfiguration#DISTRIBUTED_DEPLOYCHUNK_TASK_PARALLEL}
+ * chunks of the file in parallel. Chunks are written in order, so the file can be installed while it is downloaded.
+ * <p>
+ * Remote node may still create the file when chunks are requested, in this case chunks shorter than requested are returned. The
+ * missing part is requested again from the end of the last written chunk and parts of chunks which were already written are
+ * skipped. Chunk which cannot be transferred is requested again up to {@link OGlobalConfiguration#DISTRIBUTED_DEPLOYCHUNK_TASK_RETRIES}
+ * times, so the transfer is resumed from the last written chunk instead of failing the whole deployment.
+ * <p>
+ * Once a chunk flagged as last is received the end of the file is known: no more chunks are requested past it and chunks already
+ * queued past it are discarded without contacting the remote node.
+ */
+public class ODistributedDatabaseChunkDownloader {
+  private final ODistributedAbstractPlugin manager;
+  private final String                     databaseName;
+  private final String                     sourceNode;
+  private final int                        parallel;
+  private final int                        retries;
+  private final AtomicLong                 fileEnd      = new AtomicLong(Long.MAX_VALUE);
+  private       int                        writtenChunks;
+
+  public ODistributedDatabaseChunkDownloader(final ODistributedAbstractPlugin manager, final String databaseName,
+      final String sourceNode) {
+    this.manager = manager;
+    this.databaseName = databaseName;
+    this.sourceNode = sourceNode;
+    this.parallel = Math.max(1, OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_PARALLEL.getValueAsInteger());
+    this.retries = Math.max(0, OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_RETRIES.getValueAsInteger());
+  }
+
+  /**
+   * Writes the first chunk and all the following chunks of the file to the output stream.
+   *
+   * @return size of the downloaded file
+   */
+  public long download(final ODistributedDatabaseChunk firstChunk, final OutputStream out) throws IOException {
+    long written = write(firstChunk, firstChunk.offset, out);
+    if (firstChunk.last)
+      return written;
+
+    final ExecutorService executor = new OThreadPoolExecutorWithLogging(parallel, parallel, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ChunkThreadFactory());
+
+    // CHUNKS REQUESTED AND NOT WRITTEN YET, BY OFFSET
+    final TreeMap<Long, Future<ODistributedDatabaseChunk>> pending = new TreeMap<Long, Future<ODistributedDatabaseChunk>>();
+    long requested = written;
+    int chunkNum = 2;
+
+    try {
+      while (true) {
+        while (pending.size() < parallel && requested < fileEnd.get()) {
+          pending.put(requested, executor.submit(new ChunkRequest(firstChunk.filePath, chunkNum++, requested)));
+          requested += OSyncDatabaseTask.CHUNK_MAX_SIZE;
+        }
+
+        final Map.Entry<Long, Future<ODistributedDatabaseChunk>> next = pending.firstEntry();
+        if (next == null || next.getKey() > written) {
+          // LAST CHUNK WAS SHORTER THAN REQUESTED: ASK FOR THE MISSING PART
+          pending.put(written, executor.submit(new ChunkRequest(firstChunk.filePath, chunkNum++, written)));
+          continue;
+        }
+
+        pending.remove(next.getKey());
+
+        final ODistributedDatabaseChunk chunk = getChunk(next.getValue());
+        written = write(chunk, written, out);
+
+        if (chunk.last)
+          return written;
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Records the end of the file when the last chunk is received.
+   */
+  private void received(final ODistributedDatabaseChunk chunk) {
+    if (!chunk.last)
+      return;
+
+    final long end = chunk.offset + chunk.buffer.length;
+    long current;
+    do {
+      current = fileEnd.get();
+    } while (end < current && !fileEnd.compareAndSet(current, end));
+  }
+
+  private ODistributedDatabaseChunk getChunk(final Future<ODistributedDatabaseChunk> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw OException.wrapException(new ODistributedException("Transfer of database '" + databaseName + "' was interrupted"), e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+
+      throw OException
+          .wrapException(new ODistributedException("Error on transferring database '" + databaseName + "'"), e.getCause());
+    }
+  }
+
+  /**
+   * Writes part of the chunk which follows already written data.
+   *
+   * @return offset of the end of written data
+   */
+  private long write(final ODistributedDatabaseChunk chunk, final long written, final OutputStream out) throws IOException {
+    final long end = chunk.offset + chunk.buffer.length;
+    if (end <= written)
+      return written;
+
+    if (chunk.offset < written) {
+      // SKIP THE PART WRITTEN FROM THE PREVIOUS CHUNKS
+      chunk.buffer = Arrays.copyOfRange(chunk.buffer, (int) (written - chunk.offset), chunk.buffer.length);
+      chunk.offset = written;
+    }
+
+    manager.writeDatabaseChunk(++writtenChunks, chunk, out);
+    return end;
+  }
+
+  private final class ChunkRequest implements Callable<ODistributedDatabaseChunk> {
+    private final String filePath;
+    private final int    chunkNum;
+    private final long   offset;
+
+    private ChunkRequest(final String filePath, final int chunkNum, final long offset) {
+      this.filePath = filePath;
+      this.chunkNum = chunkNum;
+      this.offset = offset;
+    }
+
+    @Override
+    public ODistributedDatabaseChunk call() throws Exception {
+      Exception lastError = null;
+
+      for (int attempt = 0; attempt <= retries; ++attempt) {
+        if (Thread.currentThread().isInterrupted())
+          throw new InterruptedException();
+
+        if (offset >= fileEnd.get())
+          // PAST THE END OF THE FILE: NOTHING TO REQUEST
+          return emptyLastChunk();
+
+        try {
+          final ODistributedResponse response = manager
+              .sendRequest(databaseName, null, OMultiValue.getSingletonList(sourceNode),
+                  new OCopyDatabaseChunkTask(filePath, chunkNum, offset, false), manager.getNextMessageIdCounter(),
+                  ODistributedRequest.EXECUTION_MODE.RESPONSE, null, null, null);
+
+          final Object result = response.getPayload();
+          if (result instanceof ODistributedDatabaseChunk) {
+            received((ODistributedDatabaseChunk) result);
+            return (ODistributedDatabaseChunk) result;
+          }
+
+          if (result instanceof Exception)
+            lastError = (Exception) result;
+          else
+            lastError = new ODistributedException("Unexpected response: " + result);
+
+        } catch (RuntimeException e) {
+          lastError = e;
+        }
+
+        ODistributedServerLog.warn(this, manager.getLocalNodeName(), sourceNode, DIRECTION.IN,
+            "Error on transferring chunk #%d offset=%d of database '%s' (attempt %d/%d)", lastError, chunkNum, offset,
+            databaseName, attempt + 1, retries + 1);
+      }
+
+      throw OException.wrapException(
+          new ODistributedException("Cannot transfer chunk #" + chunkNum + " offset=" + offset + " of database '" + databaseName + "'"),
+          lastError);
+    }
+
+    private ODistributedDatabaseChunk emptyLastChunk() {
+      final ODistributedDatabaseChunk chunk = new ODistributedDatabaseChunk();
+      chunk.filePath = filePath;
+      chunk.offset = offset;
+      chunk.buffer = new byte[0];
+      chunk.last = true;
+      return chunk;
+    }
+  }
+
+  private final class ChunkThreadFactory implements ThreadFactory {
+    private int threads;
+
+    @Override
+    public synchronized Thread newThread(final Runnable r) {
+      final Thread thread = new Thread(r);
+
+      thread.setDaemon(true);
+      thread.setName("OrientDB installDatabase node=" + manager.getLocalNodeName() + " db=" + databaseName + " chunks-" + threads++);
+      thread.setUncaughtExceptionHandler(new OUncaughtExceptionHandler());
+
+      return thread;
+    }
+  }
+}
@@ -89,6 +89,7 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
   protected final List<ODistributedWorker>                                        workerThreads    = new ArrayList<ODistributedWorker>();
   protected ODistributedWorker lockThread;
   protected ODistributedWorker nowaitThread;
+  protected ODistributedPartitionDispatcher partitionDispatcher;
 
   private          AtomicLong                            totalSentRequests     = new AtomicLong();
   private          AtomicLong                            totalReceivedRequests = new AtomicLong();
@@ -190,6 +191,37 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
           }
         }, "distributed.db.*.recordLocks");
 
+    Orient.instance().getProfiler().registerHookValue("distributed.db." + databaseName + ".activePartitions",
+        "Number of partitions with requests queued or in execution", OProfiler.METRIC_TYPE.COUNTER,
+        new OAbstractProfiler.OProfilerHookValue() {
+          @Override
+          public Object getValue() {
+            return (long) partitionDispatcher.getActivePartitions();
+          }
+        }, "distributed.db.*.activePartitions");
+
+    for (final ODistributedWorker workerThread : workerThreads) {
+      Orient.instance().getProfiler()
+          .registerHookValue("distributed.db." + databaseName + ".worker." + workerThread.id + ".queueSize",
+              "Number of requests waiting in the worker queue", OProfiler.METRIC_TYPE.SIZE,
+              new OAbstractProfiler.OProfilerHookValue() {
+                @Override
+                public Object getValue() {
+                  return (long) workerThread.getQueueSize();
+                }
+              }, "distributed.db.*.worker.*.queueSize");
+
+      Orient.instance().getProfiler()
+          .registerHookValue("distributed.db." + databaseName + ".worker." + workerThread.id + ".load",
+              "Number of requests assigned to the worker and not processed yet", OProfiler.METRIC_TYPE.SIZE,
+              new OAbstractProfiler.OProfilerHookValue() {
+                @Override
+                public Object getValue() {
+                  return (long) partitionDispatcher.getLoad(workerThread.id);
+                }
+              }, "distributed.db.*.worker.*.load");
+    }
+
     long timeout = manager.getServerInstance().getContextConfiguration().getValueAsLong(DISTRIBUTED_ATOMIC_LOCK_TIMEOUT);
     recordLockManager = new OSimpleLockManagerImpl<>(timeout);
     indexKeyLockManager = new OSimpleLockManagerImpl<>(timeout);
@@ -266,7 +298,7 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
 
       final Set<Integer> involvedWorkerQueues;
       if (partitionKeys.length > 1)
-        involvedWorkerQueues = getInvolvedQueuesByPartitionKeys(partitionKeys);
+        involvedWorkerQueues = partitionDispatcher.assign(request, partitionKeys);
       else
         // LOCK ALL THE QUEUES
         involvedWorkerQueues = ALL_QUEUES;
@@ -278,7 +310,7 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
 
       if (involvedWorkerQueues.size() == 1)
         // JUST ONE QUEUE INVOLVED: PROCESS IT IMMEDIATELY
-        processRequest(involvedWorkerQueues.iterator().next(), request);
+        dispatchToWorker(involvedWorkerQueues.iterator().next(), request);
       else {
         // INVOLVING MULTIPLE QUEUES
 
@@ -320,6 +352,7 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
               final String msg = String.format(
                   "Cannot execute distributed request (%s) because all worker threads (%d) are busy (pending=%d timeout=%d)",
                   request, workerThreads.size(), syncLatch.getCount(), taskTimeout);
+              partitionDispatcher.release(request);
               ODistributedWorker.sendResponseBack(this, manager, request, new ODistributedOperationException(msg));
               return;
             }
@@ -330,6 +363,7 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
           final String msg = String
               .format("Cannot execute distributed request (%s) because all worker threads (%d) are busy", request,
                   workerThreads.size());
+          partitionDispatcher.release(request);
           ODistributedWorker.sendResponseBack(this, manager, request, new ODistributedOperationException(msg));
           return;
         }
@@ -412,25 +446,28 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
       }
   }
 
-  protected Set<Integer> getInvolvedQueuesByPartitionKeys(final int[] partitionKeys) {
-    final Set<Integer> involvedWorkerQueues = new HashSet<Integer>(partitionKeys.length);
-    for (int pk : partitionKeys) {
-      if (pk >= 0)
-        involvedWorkerQueues.add(pk % workerThreads.size());
-    }
-    return involvedWorkerQueues;
+  /**
+   * Called by workers once the request is executed or discarded to release its partitions.
+   */
+  public void onRequestProcessed(final ODistributedRequest request) {
+    final ODistributedPartitionDispatcher dispatcher = partitionDispatcher;
+    if (dispatcher != null)
+      dispatcher.release(request);
   }
 
   protected void processRequest(final int partitionKey, final ODistributedRequest request) {
     if (workerThreads.isEmpty())
       throw new ODistributedException("There are no worker threads to process request " + request);
 
-    final int partition = partitionKey % workerThreads.size();
+    // THE PARTITION STAYS ON THE SAME WORKER UNTIL ALL ITS REQUESTS ARE PROCESSED, THEN IT CAN MOVE TO A LESS LOADED ONE
+    dispatchToWorker(partitionDispatcher.assign(request, new int[] { partitionKey }).iterator().next(), request);
+  }
 
+  protected void dispatchToWorker(final int worker, final ODistributedRequest request) {
     ODistributedServerLog.debug(this, localNodeName, request.getTask().getNodeSource(), DIRECTION.IN,
-        "Request %s on database '%s' dispatched to the worker %d", request, databaseName, partition);
+        "Request %s on database '%s' dispatched to the worker %d", request, databaseName, worker);
 
-    workerThreads.get(partition).processRequest(request);
+    workerThreads.get(worker).processRequest(request);
   }
 
   @Override
@@ -964,6 +1001,8 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
   public void shutdown() {
     running = false;
 
+    final int totalWorkers = workerThreads.size();
+
     try {
       if (txTimeoutTask != null)
         txTimeoutTask.cancel();
@@ -1005,6 +1044,8 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
       lockThread = null;
       nowaitThread = null;
       workerThreads.clear();
+      if (partitionDispatcher != null)
+        partitionDispatcher.clear();
 
       // SAVE SYNC CONFIGURATION
       try {
@@ -1028,6 +1069,11 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
       Orient.instance().getProfiler().unregisterHookValue("distributed.db." + databaseName + ".activeContexts");
       Orient.instance().getProfiler().unregisterHookValue("distributed.db." + databaseName + ".workerThreads");
       Orient.instance().getProfiler().unregisterHookValue("distributed.db." + databaseName + ".recordLocks");
+      Orient.instance().getProfiler().unregisterHookValue("distributed.db." + databaseName + ".activePartitions");
+      for (int i = 0; i < totalWorkers; ++i) {
+        Orient.instance().getProfiler().unregisterHookValue("distributed.db." + databaseName + ".worker." + i + ".queueSize");
+        Orient.instance().getProfiler().unregisterHookValue("distributed.db." + databaseName + ".worker." + i + ".load");
+      }
 
     } finally {
 
@@ -1190,6 +1236,8 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
     nowaitThread = new ODistributedWorker(this, databaseName, -4, true);
     nowaitThread.start();
 
+    partitionDispatcher = new ODistributedPartitionDispatcher(totalWorkers);
+
     for (int i = 0; i < totalWorkers; ++i) {
       final ODistributedWorker workerThread = new ODistributedWorker(this, databaseName, i, true);
       workerThreads.add(workerThread);
@@ -1315,6 +1363,8 @@ public class ODistributedDatabaseImpl implements ODistributedDatabase {
         if (w != null)
           w.reset();
       }
+      if (partitionDispatcher != null)
+        partitionDispatcher.clear();
     }
 
     this.parsing.set(false);
@@ -0,0 +1,170 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.distributed.impl;
+
+import com.orientechnologies.orient.server.distributed.ODistributedRequest;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assigns partitions of distributed requests to worker queues. Partition stays assigned to the same worker while it has requests
+ * queued or in execution, so requests of the same partition are executed in the order they were received. Once all the requests
+ * of the partition are processed the partition is released and its next request goes to the least loaded worker, so partitions
+ * which share a worker with a hot partition move to idle workers.
+ * <p>
+ * Request which involves several partitions is assigned to workers which already process some of them. Partitions which are not
+ * processed by any worker are assigned to one of these workers, so such request involves several queues only if its partitions
+ * are processed by different workers at the same time.
+ */
+public class ODistributedPartitionDispatcher {
+  private final int[]                           load;
+  private final Map<Integer, Partition>         partitions = new HashMap<Integer, Partition>();
+  private final Map<ODistributedRequest, int[]> requests   = new IdentityHashMap<ODistributedRequest, int[]>();
+
+  public ODistributedPartitionDispatcher(final int workers) {
+    this.load = new int[workers];
+  }
+
+  /**
+   * Assigns partitions of the request to workers. Every assigned request has to be released by {@link #release(ODistributedRequest)}
+   * once it is processed or discarded.
+   *
+   * @return indexes of workers involved in the request, the first one has to execute the request
+   */
+  public synchronized Set<Integer> assign(final ODistributedRequest request, final int[] partitionKeys) {
+    final Set<Integer> workers = new LinkedHashSet<Integer>();
+    for (int partitionKey : partitionKeys) {
+      if (partitionKey < 0)
+        continue;
+
+      final Partition partition = partitions.get(partitionKey);
+      if (partition != null)
+        workers.add(partition.worker);
+    }
+
+    int target = -1;
+    for (int partitionKey : partitionKeys) {
+      if (partitionKey < 0)
+        continue;
+
+      Partition partition = partitions.get(partitionKey);
+      if (partition == null) {
+        if (target < 0)
+          target = workers.isEmpty() ? getLeastLoaded(partitionKey) : getLeastLoaded(workers);
+
+        partition = new Partition(target);
+        partitions.put(partitionKey, partition);
+        workers.add(target);
+      }
+
+      partition.inFlight++;
+    }
+
+    // THE REQUEST KEEPS ALL THE INVOLVED WORKERS BUSY, NO MATTER HOW MANY OF ITS PARTITIONS EACH OF THEM PROCESSES
+    for (int worker : workers)
+      load[worker]++;
+
+    if (!workers.isEmpty())
+      requests.put(request, partitionKeys);
+
+    return workers;
+  }
+
+  /**
+   * Releases partitions of processed request. Requests which were not assigned by this dispatcher are ignored.
+   */
+  public synchronized void release(final ODistributedRequest request) {
+    final int[] partitionKeys = requests.remove(request);
+    if (partitionKeys == null)
+      return;
+
+    final Set<Integer> workers = new HashSet<Integer>();
+    for (int partitionKey : partitionKeys) {
+      if (partitionKey < 0)
+        continue;
+
+      final Partition partition = partitions.get(partitionKey);
+      workers.add(partition.worker);
+      if (--partition.inFlight == 0)
+        partitions.remove(partitionKey);
+    }
+
+    for (int worker : workers)
+      load[worker]--;
+  }
+
+  /**
+   * @return number of partitions which have requests queued or in execution.
+   */
+  public synchronized int getActivePartitions() {
+    return partitions.size();
+  }
+
+  /**
+   * @return number of requests assigned to the worker and not processed yet. Request which involves several workers is counted
+   * once by each of them.
+   */
+  public synchronized int getLoad(final int worker) {
+    return load[worker];
+  }
+
+  public synchronized void clear() {
+    partitions.clear();
+    requests.clear();
+    for (int i = 0; i < load.length; i++)
+      load[i] = 0;
+  }
+
+  /**
+   * Worker selected by modulo of the partition key is preferred between equally loaded workers, so the same partition tends to be
+   * processed by the same worker when load is even.
+   */
+  private int getLeastLoaded(final int partitionKey) {
+    int best = partitionKey % load.length;
+    for (int i = 0; i < load.length; i++)
+      if (load[i] < load[best])
+        best = i;
+
+    return best;
+  }
+
+  private int getLeastLoaded(final Set<Integer> workers) {
+    int best = -1;
+    for (int worker : workers)
+      if (best < 0 || load[worker] < load[best])
+        best = worker;
+
+    return best;
+  }
+
+  private static final class Partition {
+    private final int worker;
+    private       int inFlight;
+
+    private Partition(final int worker) {
+      this.worker = worker;
+    }
+  }
+}
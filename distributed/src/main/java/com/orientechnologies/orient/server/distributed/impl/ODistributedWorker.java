@@ -87,9 +87,12 @@ public class ODistributedWorker extends Thread {
     if (!acceptsWhileNotOnline && manager.isOffline()) {
       ODistributedServerLog.debug(this, manager.getLocalNodeName(), null, DIRECTION.NONE,
           "Discard request '%s' for database '%s' because the server is not online", request, this.databaseName);
+      distributed.onRequestProcessed(request);
       return;
     }
 
+    request.setQueuedOn(Orient.instance().getProfiler().startChrono());
+
     if (!localQueue.offer(request)) {
 //    throw new ODistributedException(
 //        "Local queue for database '" + this.databaseName + "' is full, cannot process further requests");
@@ -102,6 +105,7 @@ public class ODistributedWorker extends Thread {
       } catch (InterruptedException e) {
         // JUST RETURN
         Thread.currentThread().interrupt();
+        distributed.onRequestProcessed(request);
       }
     }
   }
@@ -119,7 +123,20 @@ public class ODistributedWorker extends Thread {
         if (message != null) {
           message.getId();
           reqId = message.getId();
-          onMessage(message);
+
+          Orient.instance().getProfiler().stopChrono("distributed.db." + databaseName + ".worker." + id + ".wait",
+              "Time spent by distributed requests in the worker queue", message.getQueuedOn(), "distributed.db.*.worker.*.wait");
+
+          final long executionStart = Orient.instance().getProfiler().startChrono();
+          try {
+            onMessage(message);
+          } finally {
+            distributed.onRequestProcessed(message);
+
+            Orient.instance().getProfiler().stopChrono("distributed.db." + databaseName + ".worker." + id + ".execution",
+                "Time spent by the worker executing distributed requests", executionStart,
+                "distributed.db.*.worker.*.execution");
+          }
         }
 
         currentExecuting = null;
@@ -470,6 +487,13 @@ public class ODistributedWorker extends Thread {
     return processedRequests.get();
   }
 
+  /**
+   * @return number of requests waiting in the local queue of the worker.
+   */
+  public int getQueueSize() {
+    return localQueue.size();
+  }
+
   public void reset() {
     localQueue.clear();
     if (database != null) {
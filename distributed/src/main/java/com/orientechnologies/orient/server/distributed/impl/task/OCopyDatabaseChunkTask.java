@@ -74,8 +74,10 @@ public class OCopyDatabaseChunkTask extends OAbstractReplicatedTask {
     ODistributedServerLog.info(this, iManager.getLocalNodeName(), getNodeSource(), ODistributedServerLog.DIRECTION.OUT,
         "- transferring chunk #%d offset=%d size=%s...", chunkNum, result.offset, OFileUtils.getSizeAsNumber(result.buffer.length));
 
-    if (result.last)
-      // NO MORE CHUNKS: SET THE NODE ONLINE (SYNCHRONIZING ENDED)
+    if (result.last && iManager.getDatabaseStatus(iManager.getLocalNodeName(), database.getName())
+        != ODistributedServerManager.DB_STATUS.ONLINE)
+      // NO MORE CHUNKS: SET THE NODE ONLINE (SYNCHRONIZING ENDED). CHUNKS REQUESTED IN PARALLEL PAST THE END OF THE FILE ARE
+      // ALL FLAGGED AS LAST, SO THE STATUS IS CHANGED ONLY ONCE
       iManager.setDatabaseStatus(iManager.getLocalNodeName(), database.getName(), ODistributedServerManager.DB_STATUS.ONLINE);
 
     return result;
@@ -0,0 +1,228 @@
+package com.orientechnologies.orient.server.distributed.impl;
+
+import com.orientechnologies.common.util.OCallable;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.server.distributed.ODistributedRequest;
+import com.orientechnologies.orient.server.distributed.ODistributedRequestId;
+import com.orientechnologies.orient.server.distributed.ODistributedResponse;
+import com.orientechnologies.orient.server.distributed.ODistributedResponseManager;
+import com.orientechnologies.orient.server.distributed.task.ORemoteTask;
+import com.orientechnologies.orient.server.distributed.impl.task.OCopyDatabaseChunkTask;
+import com.orientechnologies.orient.server.distributed.impl.task.OSyncDatabaseTask;
+import com.orientechnologies.orient.server.hazelcast.OHazelcastPlugin;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ODistributedDatabaseChunkDownloaderTest {
+  private static final int CHUNK = OSyncDatabaseTask.CHUNK_MAX_SIZE;
+
+  private Object parallel;
+  private Object retries;
+
+  @Before
+  public void before() {
+    parallel = OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_PARALLEL.getValue();
+    retries = OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_RETRIES.getValue();
+  }
+
+  @After
+  public void after() {
+    OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_PARALLEL.setValue(parallel);
+    OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_RETRIES.setValue(retries);
+  }
+
+  @Test
+  public void testChunksAreWrittenInOrder() throws Exception {
+    OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_PARALLEL.setValue(4);
+    final byte[] file = file(CHUNK * 3 + CHUNK / 2);
+
+    final StubPlugin plugin = new StubPlugin(file) {
+      @Override
+      protected Object reply(final long offset) throws Exception {
+        // LATER CHUNKS ARE RETURNED FIRST
+        Thread.sleep(Math.max(0, 200 - offset / CHUNK * 50));
+        return super.reply(offset);
+      }
+    };
+
+    Assert.assertArrayEquals(file, plugin.download());
+    Assert.assertEquals(Arrays.asList((long) CHUNK, 2L * CHUNK, 3L * CHUNK), plugin.sorted().subList(0, 3));
+  }
+
+  @Test
+  public void testShortChunkIsRequestedAgain() throws Exception {
+    OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_PARALLEL.setValue(2);
+    final byte[] file = file(CHUNK * 3);
+
+    final StubPlugin plugin = new StubPlugin(file) {
+      private boolean shortened;
+
+      @Override
+      protected Object reply(final long offset) throws Exception {
+        if (offset == CHUNK && !shortened) {
+          // FILE IS STILL BEING CREATED ON THE REMOTE NODE
+          shortened = true;
+          return chunk(offset, CHUNK / 2, false);
+        }
+        return super.reply(offset);
+      }
+    };
+
+    Assert.assertArrayEquals(file, plugin.download());
+    Assert.assertTrue(plugin.requested.contains(CHUNK + CHUNK / 2L));
+  }
+
+  @Test
+  public void testFailedChunkIsRequestedAgain() throws Exception {
+    OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_PARALLEL.setValue(2);
+    OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_RETRIES.setValue(1);
+    final byte[] file = file(CHUNK * 2 + 10);
+
+    final StubPlugin plugin = new StubPlugin(file) {
+      private boolean failed;
+
+      @Override
+      protected Object reply(final long offset) throws Exception {
+        if (offset == CHUNK && !failed) {
+          failed = true;
+          return new IOException("connection reset");
+        }
+        return super.reply(offset);
+      }
+    };
+
+    Assert.assertArrayEquals(file, plugin.download());
+    Assert.assertEquals(2, plugin.count(CHUNK));
+  }
+
+  @Test
+  public void testNoChunkIsRequestedAfterTheLastOne() throws Exception {
+    OGlobalConfiguration.DISTRIBUTED_DEPLOYCHUNK_TASK_PARALLEL.setValue(2);
+    final byte[] file = file(CHUNK * 2 + CHUNK / 2);
+    final CountDownLatch lastReturned = new CountDownLatch(1);
+
+    final StubPlugin plugin = new StubPlugin(file) {
+      private volatile Thread lastThread;
+
+      @Override
+      protected Object reply(final long offset) throws Exception {
+        if (offset == 2L * CHUNK) {
+          lastThread = Thread.currentThread();
+          lastReturned.countDown();
+        } else if (offset == CHUNK) {
+          // THE LAST CHUNK IS RECEIVED WHILE THE PREVIOUS ONE IS STILL IN PROGRESS
+          Assert.assertTrue(lastReturned.await(10, TimeUnit.SECONDS));
+          while (lastThread.getState() == Thread.State.RUNNABLE)
+            Thread.sleep(10);
+        }
+        return super.reply(offset);
+      }
+    };
+
+    Assert.assertArrayEquals(file, plugin.download());
+    Assert.assertEquals(Arrays.asList((long) CHUNK, 2L * CHUNK), plugin.sorted());
+  }
+
+  private static byte[] file(final int size) {
+    final byte[] file = new byte[size];
+    for (int i = 0; i < size; i++)
+      file[i] = (byte) (i * 31 + i / CHUNK);
+    return file;
+  }
+
+  /**
+   * Serves chunks of an in-memory file in place of the remote node.
+   */
+  private static class StubPlugin extends OHazelcastPlugin {
+    protected final byte[]     file;
+    protected final List<Long> requested = new CopyOnWriteArrayList<Long>();
+
+    private StubPlugin(final byte[] file) {
+      this.file = file;
+    }
+
+    private byte[] download() throws IOException {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(file.length);
+      final ODistributedDatabaseChunk first = chunk(0, CHUNK, false);
+
+      final long size = new ODistributedDatabaseChunkDownloader(this, "db", "source").download(first, out);
+      Assert.assertEquals(file.length, size);
+      return out.toByteArray();
+    }
+
+    @Override
+    public ODistributedResponse sendRequest(final String iDatabaseName, final Collection<String> iClusterNames,
+        final Collection<String> iTargetNodes, final ORemoteTask iTask, final long reqId,
+        final ODistributedRequest.EXECUTION_MODE iExecutionMode, final Object localResult,
+        final OCallable<Void, ODistributedRequestId> iAfterSentCallback,
+        final OCallable<Void, ODistributedResponseManager> endCallback) {
+      Assert.assertEquals(Arrays.asList("source"), iTargetNodes);
+
+      final long offset = offsetOf((OCopyDatabaseChunkTask) iTask);
+      requested.add(offset);
+
+      try {
+        return new ODistributedResponse(null, null, "source", "source", reply(offset));
+      } catch (Exception e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    protected Object reply(final long offset) throws Exception {
+      return chunk(offset, CHUNK, true);
+    }
+
+    protected ODistributedDatabaseChunk chunk(final long offset, final int max, final boolean completed) {
+      final int toRead = (int) Math.max(0, Math.min(max, file.length - offset));
+
+      final ODistributedDatabaseChunk chunk = new ODistributedDatabaseChunk();
+      chunk.filePath = "db.zip";
+      chunk.offset = offset;
+      chunk.buffer = Arrays.copyOfRange(file, (int) Math.min(offset, file.length), (int) Math.min(offset, file.length) + toRead);
+      chunk.last = completed && file.length <= offset + toRead;
+      return chunk;
+    }
+
+    private int count(final long offset) {
+      int count = 0;
+      for (Long o : requested)
+        if (o == offset)
+          count++;
+      return count;
+    }
+
+    private List<Long> sorted() {
+      final Long[] sorted = requested.toArray(new Long[requested.size()]);
+      Arrays.sort(sorted);
+      return Arrays.asList(sorted);
+    }
+
+    private static long offsetOf(final OCopyDatabaseChunkTask task) {
+      try {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        task.toStream(new DataOutputStream(buffer));
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        in.readUTF();
+        in.readInt();
+        return in.readLong();
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+}
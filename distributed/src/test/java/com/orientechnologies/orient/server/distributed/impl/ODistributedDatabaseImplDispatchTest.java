@@ -0,0 +1,112 @@
+package com.orientechnologies.orient.server.distributed.impl;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.server.OServer;
+import com.orientechnologies.orient.server.OSystemDatabase;
+import com.orientechnologies.orient.server.distributed.ODistributedRequest;
+import com.orientechnologies.orient.server.distributed.ODistributedRequestId;
+import com.orientechnologies.orient.server.distributed.impl.task.OWaitForTask;
+import com.orientechnologies.orient.server.distributed.task.ORemoteTask;
+import com.orientechnologies.orient.server.hazelcast.OHazelcastPlugin;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatches requests through the worker threads of {@link ODistributedDatabaseImpl} and checks the partitions are released once
+ * the workers process them.
+ */
+public class ODistributedDatabaseImplDispatchTest {
+  private static final String DATABASE_DIRECTORY = "./target/dispatch/";
+
+  private Object                  workerThreads;
+  private ODistributedDatabaseImpl distributed;
+  private CountDownLatch          executing;
+  private Semaphore               started;
+
+  @Before
+  public void before() throws Exception {
+    workerThreads = OGlobalConfiguration.DISTRIBUTED_DB_WORKERTHREADS.getValue();
+    OGlobalConfiguration.DISTRIBUTED_DB_WORKERTHREADS.setValue(2);
+
+    executing = new CountDownLatch(1);
+    started = new Semaphore(0);
+
+    final OHazelcastPlugin manager = new OHazelcastPlugin() {
+      @Override
+      public String getNodeNameById(final int id) {
+        return "node";
+      }
+
+      @Override
+      public Object executeOnLocalNode(final ODistributedRequestId reqId, final ORemoteTask task,
+          final ODatabaseDocumentInternal database) {
+        started.release();
+        try {
+          executing.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return null;
+      }
+    };
+    manager.serverInstance = new OServer(false) {
+      @Override
+      public String getDatabaseDirectory() {
+        // SYNC CONFIGURATION IS SAVED HERE ON SHUTDOWN
+        return DATABASE_DIRECTORY;
+      }
+    };
+
+    // THE SYSTEM DATABASE DOES NOT REGISTER TIMERS AND REPAIRERS
+    distributed = new ODistributedDatabaseImpl(manager, new ODistributedMessageServiceImpl(manager),
+        OSystemDatabase.SYSTEM_DB_NAME, null);
+  }
+
+  @After
+  public void after() {
+    executing.countDown();
+    distributed.shutdown();
+    OFileUtils.deleteRecursively(new File(DATABASE_DIRECTORY));
+    OGlobalConfiguration.DISTRIBUTED_DB_WORKERTHREADS.setValue(workerThreads);
+  }
+
+  @Test
+  public void testPartitionsAreReleasedByWorkers() throws Exception {
+    final ODistributedPartitionDispatcher dispatcher = distributed.partitionDispatcher;
+
+    distributed.processRequest(0, request());
+    distributed.processRequest(0, request());
+    Assert.assertTrue(started.tryAcquire(10, TimeUnit.SECONDS));
+
+    // SECOND REQUEST OF THE PARTITION WAITS ON THE SAME WORKER, THE OTHER PARTITION GOES TO THE IDLE ONE
+    Assert.assertEquals(2, dispatcher.getLoad(0));
+    distributed.processRequest(2, request());
+    Assert.assertTrue(started.tryAcquire(10, TimeUnit.SECONDS));
+    Assert.assertEquals(1, dispatcher.getLoad(1));
+    Assert.assertEquals(2, dispatcher.getActivePartitions());
+
+    executing.countDown();
+    Assert.assertTrue(started.tryAcquire(10, TimeUnit.SECONDS));
+
+    final long timeout = System.currentTimeMillis() + 10000;
+    while (dispatcher.getActivePartitions() > 0 && System.currentTimeMillis() < timeout)
+      Thread.sleep(10);
+
+    Assert.assertEquals(0, dispatcher.getActivePartitions());
+    Assert.assertEquals(0, dispatcher.getLoad(0));
+    Assert.assertEquals(0, dispatcher.getLoad(1));
+  }
+
+  private ODistributedRequest request() {
+    return new ODistributedRequest(null, 0, -1, OSystemDatabase.SYSTEM_DB_NAME, new OWaitForTask(new CountDownLatch(0)));
+  }
+}
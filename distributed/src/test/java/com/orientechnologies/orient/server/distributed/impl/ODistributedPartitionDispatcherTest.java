@@ -0,0 +1,95 @@
+package com.orientechnologies.orient.server.distributed.impl;
+
+import com.orientechnologies.orient.server.distributed.ODistributedRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+public class ODistributedPartitionDispatcherTest {
+
+  @Test
+  public void testPartitionStaysOnWorkerWhileInFlight() {
+    final ODistributedPartitionDispatcher dispatcher = new ODistributedPartitionDispatcher(2);
+
+    final ODistributedRequest first = new ODistributedRequest(null);
+    final ODistributedRequest second = new ODistributedRequest(null);
+    Assert.assertEquals(Collections.singleton(0), dispatcher.assign(first, new int[] { 2 }));
+    Assert.assertEquals(Collections.singleton(0), dispatcher.assign(second, new int[] { 2 }));
+    Assert.assertEquals(2, dispatcher.getLoad(0));
+    Assert.assertEquals(1, dispatcher.getActivePartitions());
+
+    dispatcher.release(first);
+    dispatcher.release(second);
+    Assert.assertEquals(0, dispatcher.getLoad(0));
+    Assert.assertEquals(0, dispatcher.getActivePartitions());
+  }
+
+  @Test
+  public void testIdlePartitionMovesToLeastLoadedWorker() {
+    final ODistributedPartitionDispatcher dispatcher = new ODistributedPartitionDispatcher(2);
+
+    // partitions 0 and 2 share worker 0 by modulo
+    final ODistributedRequest hot = new ODistributedRequest(null);
+    Assert.assertEquals(Collections.singleton(0), dispatcher.assign(hot, new int[] { 0 }));
+    Assert.assertEquals(Collections.singleton(1), dispatcher.assign(new ODistributedRequest(null), new int[] { 2 }));
+
+    dispatcher.release(hot);
+    Assert.assertEquals(Collections.singleton(0), dispatcher.assign(new ODistributedRequest(null), new int[] { 1 }));
+  }
+
+  @Test
+  public void testMultiPartitionRequestUsesSingleWorker() {
+    final ODistributedPartitionDispatcher dispatcher = new ODistributedPartitionDispatcher(4);
+
+    final ODistributedRequest request = new ODistributedRequest(null);
+    final Set<Integer> workers = dispatcher.assign(request, new int[] { 1, 2, 3 });
+    Assert.assertEquals(Collections.singleton(1), workers);
+    // load counts requests, not partitions
+    Assert.assertEquals(1, dispatcher.getLoad(1));
+
+    // partition 2 is processed by worker 1, partition 4 is free and joins it
+    Assert.assertEquals(Collections.singleton(1), dispatcher.assign(new ODistributedRequest(null), new int[] { 4, 2 }));
+    Assert.assertEquals(2, dispatcher.getLoad(1));
+
+    dispatcher.release(request);
+    Assert.assertEquals(2, dispatcher.getActivePartitions());
+    Assert.assertEquals(1, dispatcher.getLoad(1));
+  }
+
+  @Test
+  public void testMultiPartitionRequestInvolvesBusyWorkers() {
+    final ODistributedPartitionDispatcher dispatcher = new ODistributedPartitionDispatcher(4);
+
+    dispatcher.assign(new ODistributedRequest(null), new int[] { 1 });
+    dispatcher.assign(new ODistributedRequest(null), new int[] { 2 });
+
+    final ODistributedRequest request = new ODistributedRequest(null);
+    Assert.assertEquals(Arrays.asList(1, 2), Arrays.asList(dispatcher.assign(request, new int[] { 1, 2, 5 }).toArray()));
+    Assert.assertEquals(3, dispatcher.getActivePartitions());
+
+    // the request keeps both workers busy
+    Assert.assertEquals(2, dispatcher.getLoad(1));
+    Assert.assertEquals(2, dispatcher.getLoad(2));
+
+    dispatcher.release(request);
+    Assert.assertEquals(1, dispatcher.getLoad(1));
+    Assert.assertEquals(1, dispatcher.getLoad(2));
+    Assert.assertEquals(2, dispatcher.getActivePartitions());
+  }
+
+  @Test
+  public void testReleaseOfUnknownRequestIsIgnored() {
+    final ODistributedPartitionDispatcher dispatcher = new ODistributedPartitionDispatcher(2);
+
+    dispatcher.assign(new ODistributedRequest(null), new int[] { 1 });
+    dispatcher.release(new ODistributedRequest(null));
+    Assert.assertEquals(1, dispatcher.getLoad(1));
+
+    dispatcher.clear();
+    Assert.assertEquals(0, dispatcher.getLoad(1));
+    Assert.assertEquals(0, dispatcher.getActivePartitions());
+  }
+}
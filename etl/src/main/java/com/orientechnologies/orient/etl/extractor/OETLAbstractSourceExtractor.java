@@ -18,14 +18,41 @@
 
 package com.orientechnologies.orient.etl.extractor;
 
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.etl.source.OETLFileSource;
+import com.orientechnologies.orient.etl.source.OETLSource;
+
 import java.io.IOException;
 import java.io.Reader;
+import java.util.List;
+import java.util.logging.Level;
 
 /**
  * ETL abstract extractor.
+ * <p>
+ * Extractors supporting it can parse a file source with multiple threads, every thread parses a part of the file. Set 'threads' to
+ * enable it and 'ordered' to keep the extracted items in the order of the file.
  */
 public abstract class OETLAbstractSourceExtractor extends OETLAbstractExtractor {
-  protected Reader reader;
+  private static final long ORDERED_PART_SIZE = 4 * 1024 * 1024;
+  private static final int  MAX_ORDERED_PARTS = 65536;
+
+  protected Reader                 reader;
+  protected int                    threads = 1;
+  protected boolean                ordered = false;
+  protected OETLParallelExtraction parallelExtraction;
+
+  @Override
+  public void configure(final ODocument iConfiguration, final OCommandContext iContext) {
+    super.configure(iConfiguration, iContext);
+
+    if (iConfiguration.containsField("threads"))
+      threads = ((Number) iConfiguration.field("threads")).intValue();
+
+    if (iConfiguration.containsField("ordered"))
+      ordered = (Boolean) iConfiguration.field("ordered");
+  }
 
   @Override
   public void extract(final Reader iReader) {
@@ -46,6 +73,9 @@ public abstract class OETLAbstractSourceExtractor extends OETLAbstractExtractor
 
   @Override
   public void end() {
+    if (parallelExtraction != null)
+      parallelExtraction.close();
+
     if (reader != null)
       try {
         reader.close();
@@ -54,4 +84,51 @@ public abstract class OETLAbstractSourceExtractor extends OETLAbstractExtractor
 
     super.end();
   }
+
+  protected String getParallelConfigurationParameters() {
+    return "{threads:{optional:true,description:'Number of threads parsing parts of a file source concurrently. Default is 1',type:'int'}},"
+        + "{ordered:{optional:true,description:'Keeps the order of the file when parsed by multiple threads. Default is false',type:'boolean'}}";
+  }
+
+  /**
+   * Splits the source in parts starting at the beginning of a record, if more threads are requested and the source is a file which
+   * can be split.
+   *
+   * @return the readers of the parts, or null if the source has to be read by a single thread
+   */
+  protected List<Reader> splitSource(final Character delimiter, final Character quote, final Character escape,
+      final Character commentMarker) {
+    if (threads <= 1)
+      return null;
+
+    final OETLSource source = processor != null ? processor.getSource() : null;
+    if (!(source instanceof OETLFileSource) || !((OETLFileSource) source).isSplittable()) {
+      log(Level.INFO, "source cannot be split, it is parsed by a single thread");
+      return null;
+    }
+
+    final OETLFileSource fileSource = (OETLFileSource) source;
+    final int parts;
+    if (ordered)
+      // SMALL PARTS, SO FEW PARSED DOCUMENTS ARE KEPT IN MEMORY WAITING FOR THE PREVIOUS PARTS
+      parts = (int) Math.max(threads, Math.min(MAX_ORDERED_PARTS, fileSource.getFileSize() / ORDERED_PART_SIZE));
+    else
+      parts = threads;
+
+    return fileSource.split(parts, delimiter, quote, escape, commentMarker);
+  }
+
+  protected void startParallelExtraction(final List<Reader> parts, final OETLParallelExtraction.PartParser parser) {
+    log(Level.INFO, "parsing %d parts with %d threads (ordered=%s)", parts.size(), threads, ordered);
+    parallelExtraction = new OETLParallelExtraction(getName(), parts, parser, threads, ordered);
+  }
+
+  /**
+   * Returns the next document parsed by the threads.
+   *
+   * @return null if all the parts are parsed
+   */
+  protected ODocument nextFromParts() {
+    return parallelExtraction.hasNext() ? parallelExtraction.next() : null;
+  }
 }
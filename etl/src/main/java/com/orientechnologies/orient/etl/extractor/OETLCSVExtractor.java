@@ -67,7 +67,8 @@ public class OETLCSVExtractor extends OETLAbstractSourceExtractor {
             + "{ignoreMissingColumns:{optional:true,description:'Ignore empty columns',type:'boolean'}},"
             + "{skipFrom:{optional:true,description:'Line number where start to skip',type:'int'}},"
             + "{skipTo:{optional:true,description:'Line number where skip ends',type:'int'}},"
-            + "{predefinedFormat:{optional:true,description:'Name of standard csv format (from Apache commons-csv): Default, Excel, MySQL, RFC4180, TDF',type:'String'}}"
+            + "{predefinedFormat:{optional:true,description:'Name of standard csv format (from Apache commons-csv): Default, Excel, MySQL, RFC4180, TDF',type:'String'}},"
+            + getParallelConfigurationParameters()
             + "],input:['String'],output:'ODocument'}");
   }
 
@@ -169,6 +170,32 @@ public class OETLCSVExtractor extends OETLAbstractSourceExtractor {
     super.extract(iReader);
     try {
 
+      if (skipFrom > -1 || skipTo > -1) {
+        if (threads > 1)
+          log(Level.INFO, "skipFrom and skipTo need the numbers of the rows, file is parsed by a single thread");
+      } else {
+        final List<Reader> parts = splitSource(csvFormat.getDelimiter(), csvFormat.getQuoteCharacter(),
+            csvFormat.getEscapeCharacter(), csvFormat.getCommentMarker());
+        if (parts != null) {
+          final CSVFormat partFormat = getPartFormat(iReader);
+          startParallelExtraction(parts, (part, partReader) -> {
+            final Iterator<CSVRecord> records = new CSVParser(partReader, part == 0 ? csvFormat : partFormat).iterator();
+            return new Iterator<ODocument>() {
+              @Override
+              public boolean hasNext() {
+                return records.hasNext();
+              }
+
+              @Override
+              public ODocument next() {
+                return toDocument(records.next());
+              }
+            };
+          });
+          return;
+        }
+      }
+
       CSVParser parser = new CSVParser(iReader, csvFormat);
 
       recordIterator = parser.iterator();
@@ -177,8 +204,39 @@ public class OETLCSVExtractor extends OETLAbstractSourceExtractor {
     }
   }
 
+  /**
+   * Returns the format of the parts following the first one, which do not start with the header.
+   */
+  private CSVFormat getPartFormat(final Reader iReader) throws IOException {
+    final String[] header = csvFormat.getHeader();
+    if (header == null)
+      return csvFormat;
+
+    if (header.length > 0)
+      // COLUMNS ARE CONFIGURED
+      return csvFormat.withSkipHeaderRecord(false);
+
+    // COLUMNS ON FIRST LINE: READS THEM FROM THE BEGINNING OF THE FILE
+    final Map<String, Integer> headerMap = new CSVParser(iReader, csvFormat).getHeaderMap();
+    final String[] columns = new String[headerMap.size()];
+    for (Map.Entry<String, Integer> entry : headerMap.entrySet())
+      columns[entry.getValue()] = entry.getKey();
+
+    return csvFormat.withHeader(columns).withSkipHeaderRecord(false);
+  }
+
   @Override
   public boolean hasNext() {
+    if (parallelExtraction != null) {
+      final ODocument doc = nextFromParts();
+      if (doc == null)
+        return false;
+
+      current++;
+      next = new OETLExtractedItem(current, doc);
+      return true;
+    }
+
     if (recordIterator.hasNext()) {
       CSVRecord csvRecord = recordIterator.next();
 
@@ -197,6 +255,12 @@ public class OETLCSVExtractor extends OETLAbstractSourceExtractor {
   }
 
   private OETLExtractedItem fetchNext(CSVRecord csvRecord) {
+    final ODocument doc = toDocument(csvRecord);
+    current++;
+    return new OETLExtractedItem(current, doc);
+  }
+
+  private ODocument toDocument(CSVRecord csvRecord) {
     ODocument doc = new ODocument();
     final Map<String, String> recordAsMap = csvRecord.toMap();
 
@@ -238,8 +302,7 @@ public class OETLCSVExtractor extends OETLAbstractSourceExtractor {
     }
 
     log(Level.FINE, "document=%s", doc);
-    current++;
-    return new OETLExtractedItem(current, doc);
+    return doc;
   }
 
   private Object determineTheType(String fieldStringValue) {
@@ -18,31 +18,45 @@
 
 package com.orientechnologies.orient.etl.extractor;
 
+import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.serializer.OJSONReader;
 import com.orientechnologies.orient.etl.OETLExtractedItem;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.text.ParseException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 public class OETLJsonExtractor extends OETLAbstractSourceExtractor {
   protected OJSONReader jsonReader;
   protected Character first = null;
   protected OETLExtractedItem next;
+  protected boolean        lines;
+  protected BufferedReader lineReader;
 
   @Override
   public String getName() {
     return "json";
   }
 
+  @Override
+  public void configure(final ODocument iConfiguration, final OCommandContext iContext) {
+    super.configure(iConfiguration, iContext);
+
+    if (iConfiguration.containsField("lines"))
+      lines = (Boolean) iConfiguration.field("lines");
+  }
+
   @Override
   public boolean hasNext() {
     if (next != null)
       return true;
 
-    if (jsonReader == null)
+    if (jsonReader == null && lineReader == null && parallelExtraction == null)
       return false;
 
     try {
@@ -75,6 +89,17 @@ public class OETLJsonExtractor extends OETLAbstractSourceExtractor {
   @Override
   public void extract(final Reader iReader) {
     super.extract(iReader);
+
+    if (lines) {
+      // JSON LINES: EVERY LINE IS A DOCUMENT AND NEW LINES CANNOT BE PART OF JSON VALUES, SO THE FILE CAN BE SPLIT AT ANY LINE
+      final List<Reader> parts = splitSource(null, null, null, null);
+      if (parts != null)
+        startParallelExtraction(parts, (part, partReader) -> new LineIterator(new BufferedReader(partReader)));
+      else
+        lineReader = new BufferedReader(iReader);
+      return;
+    }
+
     try {
       final int read = reader.read();
       if (read == -1)
@@ -97,7 +122,8 @@ public class OETLJsonExtractor extends OETLAbstractSourceExtractor {
 
   @Override
   public ODocument getConfiguration() {
-    return new ODocument().fromJSON("{parameters:[],output:'ODocument'}");
+    return new ODocument().fromJSON("{parameters:[{lines:{optional:true,description:'Input contains a JSON document per line (JSON Lines)',type:'boolean'}},"
+        + getParallelConfigurationParameters() + "],output:'ODocument'}");
   }
 
   @Override
@@ -106,6 +132,20 @@ public class OETLJsonExtractor extends OETLAbstractSourceExtractor {
   }
 
   protected OETLExtractedItem fetchNext() throws IOException, ParseException {
+    if (parallelExtraction != null) {
+      final ODocument doc = nextFromParts();
+      return doc != null ? new OETLExtractedItem(current++, doc) : null;
+    }
+
+    if (lineReader != null) {
+      final ODocument doc = readLine(lineReader);
+      if (doc == null) {
+        lineReader = null;
+        return null;
+      }
+      return new OETLExtractedItem(current++, doc);
+    }
+
     if (!jsonReader.hasNext())
       return null;
 
@@ -135,4 +175,49 @@ public class OETLJsonExtractor extends OETLAbstractSourceExtractor {
 
     return new OETLExtractedItem(current++, new ODocument().fromJSON(value));
   }
+
+  /**
+   * Reads the next not empty line.
+   *
+   * @return null if the end of the input is reached
+   */
+  private static ODocument readLine(final BufferedReader reader) throws IOException {
+    String line;
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+      if (!line.isEmpty())
+        return new ODocument().fromJSON(line);
+    }
+    return null;
+  }
+
+  private static final class LineIterator implements Iterator<ODocument> {
+    private final BufferedReader reader;
+    private       ODocument      next;
+
+    private LineIterator(final BufferedReader reader) {
+      this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null)
+        try {
+          next = readLine(reader);
+        } catch (IOException e) {
+          throw new OETLExtractorException("[JSON extractor] error on reading json lines", e);
+        }
+      return next != null;
+    }
+
+    @Override
+    public ODocument next() {
+      if (!hasNext())
+        throw new NoSuchElementException("EOF");
+
+      final ODocument result = next;
+      next = null;
+      return result;
+    }
+  }
 }
@@ -0,0 +1,198 @@
+/*
+ *
+ *  * Copyright 2010-2016 OrientDB LTD (info(-at-)orientdb.com)
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *
+ */
+
+package com.orientechnologies.orient.etl.extractor;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parses the parts of a split source concurrently. Every thread parses one part at a time, taking the parts in the order of the
+ * source.
+ * <p>
+ * When ordered, documents are returned in the order of the source: parts are returned one after the other, and parsed documents
+ * of the next parts are kept in memory meanwhile. Only a window of parts beyond the one being returned can be parsed, so use
+ * small parts to bound the used memory. Otherwise documents are returned as soon as they are parsed by any thread.
+ */
+final class OETLParallelExtraction {
+  private static final Object END_OF_PART = new Object();
+  private static final int    QUEUE_SIZE  = 1000;
+
+  private final List<Reader>                readers;
+  private final PartParser                  parser;
+  private final boolean                     ordered;
+  private final int                         window;
+  private final List<BlockingQueue<Object>> queues  = new ArrayList<BlockingQueue<Object>>();
+  private final List<Thread>                threads = new ArrayList<Thread>();
+  private final AtomicReference<Exception>  error   = new AtomicReference<Exception>();
+  private final AtomicInteger               nextPart = new AtomicInteger();
+  private       int                         currentPart;
+  private       int                         completedParts;
+  private       ODocument                   next;
+
+  /**
+   * Parser of a single part of the source.
+   */
+  interface PartParser {
+    Iterator<ODocument> parse(int part, Reader reader) throws Exception;
+  }
+
+  OETLParallelExtraction(final String name, final List<Reader> readers, final PartParser parser, final int threads,
+      final boolean ordered) {
+    this.readers = readers;
+    this.parser = parser;
+    this.ordered = ordered;
+    this.window = 2 * threads;
+
+    if (ordered) {
+      for (int i = 0; i < readers.size(); i++)
+        queues.add(new LinkedBlockingQueue<Object>());
+    } else
+      queues.add(new ArrayBlockingQueue<Object>(QUEUE_SIZE * threads));
+
+    for (int i = 0; i < Math.min(threads, readers.size()); i++) {
+      final Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          parseParts();
+        }
+      }, "OrientDB ETL " + name + " extractor #" + i);
+      thread.setDaemon(true);
+      this.threads.add(thread);
+    }
+
+    for (Thread thread : this.threads)
+      thread.start();
+  }
+
+  boolean hasNext() {
+    if (next != null)
+      return true;
+
+    while (completedParts < readers.size()) {
+      final Object value;
+      try {
+        value = queues.get(ordered ? currentPart : 0).take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OETLExtractorException("Extraction has been interrupted", e);
+      }
+
+      if (value == END_OF_PART) {
+        checkError();
+
+        completedParts++;
+        if (ordered) {
+          synchronized (this) {
+            // RELEASES THE QUEUE AND LETS THE THREADS PARSE ONE PART MORE
+            queues.set(currentPart++, null);
+            notifyAll();
+          }
+        }
+      } else {
+        next = (ODocument) value;
+        return true;
+      }
+    }
+
+    checkError();
+    return false;
+  }
+
+  ODocument next() {
+    if (!hasNext())
+      throw new NoSuchElementException("EOF");
+
+    final ODocument result = next;
+    next = null;
+    return result;
+  }
+
+  /**
+   * Stops the parsing of the parts, used when extraction ends before all the documents are returned.
+   */
+  void close() {
+    error.compareAndSet(null, new OETLExtractorException("Extraction is closed"));
+    for (Thread thread : threads)
+      thread.interrupt();
+
+    for (Reader reader : readers)
+      closeQuietly(reader);
+  }
+
+  private void parseParts() {
+    int part;
+    while (error.get() == null && (part = nextPart.getAndIncrement()) < readers.size()) {
+      final BlockingQueue<Object> queue;
+      try {
+        queue = ordered ? waitForWindow(part) : queues.get(0);
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      final Reader reader = readers.get(part);
+      try {
+        final Iterator<ODocument> documents = parser.parse(part, reader);
+        while (error.get() == null && documents.hasNext())
+          queue.put(documents.next());
+      } catch (InterruptedException e) {
+        return;
+      } catch (Exception e) {
+        error.compareAndSet(null, e);
+      } finally {
+        closeQuietly(reader);
+      }
+
+      try {
+        queue.put(END_OF_PART);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private synchronized BlockingQueue<Object> waitForWindow(final int part) throws InterruptedException {
+    while (part >= currentPart + window)
+      wait();
+    return queues.get(part);
+  }
+
+  private void checkError() {
+    final Exception e = error.get();
+    if (e != null)
+      throw e instanceof OETLExtractorException ? (OETLExtractorException) e : new OETLExtractorException(e);
+  }
+
+  private static void closeQuietly(final Reader reader) {
+    try {
+      reader.close();
+    } catch (IOException ignore) {
+    }
+  }
+}
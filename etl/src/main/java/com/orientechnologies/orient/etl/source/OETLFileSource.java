@@ -27,6 +27,9 @@ import java.io.*;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.zip.GZIPInputStream;
 
@@ -163,4 +166,53 @@ public class OETLFileSource extends OETLAbstractSource {
   public Reader read() {
     return fileReader;
   }
+
+  /**
+   * Tells if the file can be read in parts: compressed files and files with encodings where special characters can take more
+   * than one byte cannot be split.
+   */
+  public boolean isSplittable() {
+    return !fileName.endsWith(".gz") && (encoding.equals(StandardCharsets.UTF_8) || encoding.equals(StandardCharsets.US_ASCII)
+        || encoding.equals(StandardCharsets.ISO_8859_1));
+  }
+
+  public long getFileSize() {
+    return input.length();
+  }
+
+  /**
+   * Splits the file in parts starting at the beginning of a record. Records are separated by new lines which are not inside
+   * quoted values.
+   *
+   * @param parts         wanted number of parts, less parts are returned for small files
+   * @param delimiter     field delimiter, null if records have no fields
+   * @param quote         quote character, null if values are never quoted
+   * @param escape        escape character, null if there is no escape character
+   * @param commentMarker character starting comment lines, null if comments are not supported
+   *
+   * @return the readers of the parts in the same order of the file, the parts are opened on first read
+   */
+  public List<Reader> split(final int parts, final Character delimiter, final Character quote, final Character escape,
+      final Character commentMarker) {
+    if (!isSplittable())
+      throw new OETLSourceException("[File source] file '" + path + "' cannot be split");
+
+    final OETLFileSplitter splitter = new OETLFileSplitter(input, delimiter, quote, escape, commentMarker);
+    final List<Reader> readers = new ArrayList<Reader>(parts);
+    try {
+      final long[] offsets = splitter.split(parts);
+      for (int i = 0; i < offsets.length - 1; i++)
+        readers.add(new InputStreamReader(splitter.open(offsets[i], offsets[i + 1]), encoding));
+    } catch (IOException e) {
+      for (Reader reader : readers)
+        try {
+          reader.close();
+        } catch (IOException ignore) {
+        }
+      throw new OETLSourceException("[File source] error on splitting file '" + path + "'", e);
+    }
+
+    log(Level.INFO, "Split file %s in %d parts", path, readers.size());
+    return readers;
+  }
 }
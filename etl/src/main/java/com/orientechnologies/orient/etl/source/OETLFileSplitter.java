@@ -0,0 +1,244 @@
+/*
+ *
+ *  * Copyright 2010-2016 OrientDB LTD (info(-at-)orientdb.com)
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *
+ */
+
+package com.orientechnologies.orient.etl.source;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a text file in byte ranges starting at the beginning of a record, so the ranges can be parsed concurrently. Records are
+ * separated by new lines, new lines inside quoted values and comment lines are recognized by scanning the file bytes, this
+ * works only for encodings where delimiter, quote, escape and new line characters are single bytes never used inside other
+ * characters. As in commons-csv, a quote opens a quoted value only at the start of a field, elsewhere it is part of the value.
+ */
+final class OETLFileSplitter {
+  private static final int NONE        = -1;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final File file;
+  private final int  delimiter;
+  private final int  quote;
+  private final int  escape;
+  private final int  commentMarker;
+
+  /**
+   * @param delimiter     field delimiter, null if records have no fields
+   * @param quote         quote character, null if values are never quoted
+   * @param escape        escape character, null if there is no escape character
+   * @param commentMarker character starting comment lines, null if comments are not supported
+   */
+  OETLFileSplitter(final File file, final Character delimiter, final Character quote, final Character escape,
+      final Character commentMarker) {
+    this.file = file;
+    this.delimiter = delimiter != null ? delimiter : NONE;
+    this.quote = quote != null ? quote : NONE;
+    this.escape = escape != null ? escape : NONE;
+    this.commentMarker = commentMarker != null ? commentMarker : NONE;
+  }
+
+  /**
+   * Returns the offsets of the ranges, the range i starts at offset i and ends at offset i + 1. Less ranges than requested are
+   * returned if the file is too small or records are too long.
+   */
+  long[] split(final int parts) throws IOException {
+    final long length = file.length();
+    final List<Long> offsets = new ArrayList<Long>(parts + 1);
+    offsets.add(0L);
+
+    if (parts > 1 && length > 0) {
+      if (quote == NONE && commentMarker == NONE)
+        findLineStarts(length, parts, offsets);
+      else
+        scanRecordStarts(length, parts, offsets);
+    }
+
+    if (offsets.get(offsets.size() - 1) < length)
+      offsets.add(length);
+
+    final long[] result = new long[offsets.size()];
+    for (int i = 0; i < result.length; i++)
+      result[i] = offsets.get(i);
+    return result;
+  }
+
+  /**
+   * Opens the range of bytes between the two offsets.
+   */
+  InputStream open(final long start, final long end) {
+    return new RangeInputStream(file, start, end);
+  }
+
+  /**
+   * Every new line separates two records: seeks to the wanted offsets and moves to the next line.
+   */
+  private void findLineStarts(final long length, final int parts, final List<Long> offsets) throws IOException {
+    final RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      for (int i = 1; i < parts; i++) {
+        long position = Math.max(length * i / parts, offsets.get(offsets.size() - 1));
+        long lineStart = -1;
+
+        raf.seek(position);
+        int read;
+        while (lineStart < 0 && (read = raf.read(buffer)) > 0) {
+          for (int k = 0; k < read; k++)
+            if (buffer[k] == '\n') {
+              lineStart = position + k + 1;
+              break;
+            }
+          position += read;
+        }
+
+        if (lineStart < 0 || lineStart >= length)
+          break;
+        if (lineStart > offsets.get(offsets.size() - 1))
+          offsets.add(lineStart);
+      }
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * New lines can be part of quoted values, so the file is scanned from the beginning keeping track of quotes.
+   */
+  private void scanRecordStarts(final long length, final int parts, final List<Long> offsets) throws IOException {
+    final InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+    try {
+      int nextPart = 1;
+      long target = length / parts;
+      long position = 0;
+
+      boolean quoted = false;
+      boolean closed = false;
+      boolean comment = false;
+      boolean escaped = false;
+      boolean lineStart = true;
+      boolean fieldStart = true;
+
+      int b;
+      while ((b = in.read()) != -1) {
+        position++;
+
+        final boolean afterClosingQuote = closed;
+        closed = false;
+
+        if (escaped) {
+          escaped = false;
+          lineStart = false;
+          fieldStart = false;
+        } else if (comment) {
+          if (b == '\n') {
+            comment = false;
+            lineStart = true;
+            fieldStart = true;
+          }
+        } else if (b == escape) {
+          escaped = true;
+        } else if (quoted) {
+          if (b == quote) {
+            quoted = false;
+            closed = true;
+          }
+        } else if (b == quote && (fieldStart || afterClosingQuote)) {
+          // A QUOTE RIGHT AFTER THE CLOSING ONE IS A DOUBLED QUOTE: THE VALUE GOES ON
+          quoted = true;
+          lineStart = false;
+          fieldStart = false;
+        } else if (b == '\n') {
+          lineStart = true;
+          fieldStart = true;
+
+          if (position >= target) {
+            if (position >= length)
+              break;
+
+            offsets.add(position);
+
+            while (target <= position && nextPart < parts)
+              target = length * ++nextPart / parts;
+            if (nextPart >= parts)
+              break;
+          }
+        } else if (b == delimiter) {
+          lineStart = false;
+          fieldStart = true;
+        } else if (lineStart && b == commentMarker) {
+          comment = true;
+        } else {
+          lineStart = false;
+          fieldStart = false;
+        }
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Range of the file, the file is opened only when the range is read.
+   */
+  private static final class RangeInputStream extends InputStream {
+    private final File            file;
+    private       FileInputStream in;
+    private       FileChannel     channel;
+    private       long            position;
+    private final long            end;
+
+    private RangeInputStream(final File file, final long start, final long end) {
+      this.file = file;
+      this.position = start;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (position >= end)
+        return -1;
+
+      if (in == null) {
+        in = new FileInputStream(file);
+        channel = in.getChannel();
+      }
+
+      final int toRead = (int) Math.min(len, end - position);
+      final int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+      if (read > 0)
+        position += read;
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      position = end;
+      if (in != null)
+        in.close();
+    }
+  }
+}
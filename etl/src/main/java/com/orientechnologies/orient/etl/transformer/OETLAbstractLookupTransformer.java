@@ -18,32 +18,51 @@
 
 package com.orientechnologies.orient.etl.transformer;
 
+import com.orientechnologies.common.collection.OLRUCache;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexCursor;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.query.OSQLQuery;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import com.orientechnologies.orient.etl.context.OETLContextWrapper;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Locale;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Merges two records. Useful when a record needs to be updated rather than created.
+ * <p>
+ * Resolved lookups can be cached by setting 'lookupCacheSize'. Only RIDs of persistent records are cached, unresolved values are
+ * always looked up again because they could be created later by the same process. With 'lookupPreload' all the entries of the
+ * lookup index are loaded in memory on begin.
+ * <p>
+ * Cached entries are never invalidated, so only lookups on unique indexes are cached: a key resolved to a record keeps resolving
+ * to it. Lookups on not unique indexes and SQL lookups always query the database, because records with the same key created
+ * later by the same process would be missing from the cached result. Records deleted or updated to another key during the
+ * process are still returned from the cache.
  */
 public abstract class OETLAbstractLookupTransformer extends OETLAbstractTransformer {
+  public static final String LOOKUP_CACHE_STATS = "lookupCacheStats";
+
   protected String joinFieldName;
   protected Object joinValue;
   protected String lookup;
   protected ACTION unresolvedLinkAction = ACTION.NOTHING;
+  protected int     lookupCacheSize;
+  protected boolean lookupPreload;
   private OSQLQuery<ODocument> sqlQuery;
   private OIndex<?>            index;
+  private OLRUCache<Object, Object> cache;
+  private volatile Map<Object, Object> preloaded;
+  private boolean                      preloadChecked;
+  private final AtomicLong          cacheHits   = new AtomicLong();
+  private final AtomicLong          cacheMisses = new AtomicLong();
 
   @Override
   public void configure(final ODocument iConfiguration, OCommandContext iContext) {
@@ -59,31 +78,78 @@ public abstract class OETLAbstractLookupTransformer extends OETLAbstractTransfor
 
     if (iConfiguration.containsField("unresolvedLinkAction"))
       unresolvedLinkAction = ACTION.valueOf(iConfiguration.field("unresolvedLinkAction").toString().toUpperCase(Locale.ENGLISH));
+
+    if (iConfiguration.containsField("lookupCacheSize"))
+      lookupCacheSize = ((Number) iConfiguration.field("lookupCacheSize")).intValue();
+
+    if (iConfiguration.containsField("lookupPreload"))
+      lookupPreload = (Boolean) iConfiguration.field("lookupPreload");
+
+    if (lookupCacheSize > 0)
+      cache = new OLRUCache<Object, Object>(lookupCacheSize);
+  }
+
+  @Override
+  public void begin(final ODatabaseDocument db) {
+    super.begin(db);
+
+    if (lookupPreload && lookup != null)
+      preload(db);
+  }
+
+  @Override
+  public void end() {
+    super.end();
+
+    final long hits = cacheHits.get();
+    final long misses = cacheMisses.get();
+    if (hits + misses == 0)
+      return;
+
+    final float hitRatio = (float) hits * 100 / (hits + misses);
+    OETLContextWrapper.getInstance().getMessageHandler()
+        .info(this, "%s: lookup cache on '%s' hits=%d misses=%d (hit ratio %.2f%%)", getName(), lookup, hits, misses, hitRatio);
+
+    final OCommandContext etlContext = OETLContextWrapper.getInstance().getContext();
+    synchronized (etlContext) {
+      Map<String, Float> stats = (Map<String, Float>) etlContext.getVariable(LOOKUP_CACHE_STATS);
+      if (stats == null) {
+        stats = new ConcurrentHashMap<String, Float>();
+        etlContext.setVariable(LOOKUP_CACHE_STATS, stats);
+      }
+      stats.put(lookup, hitRatio);
+    }
+  }
+
+  protected String getLookupCacheConfigurationParameters() {
+    return "{lookupCacheSize:{optional:true,description:'maximum number of resolved lookups kept in memory, only lookups on unique indexes are cached. Default is 0 (no cache)'}},"
+        + "{lookupPreload:{optional:true,description:'loads all the entries of the unique lookup index in memory on begin',default:false}}";
   }
 
   protected Object lookup(ODatabaseDocument db, Object joinValue, final boolean iReturnRIDS) {
     Object result = null;
 
     if (joinValue != null) {
-      if (sqlQuery == null && index == null) {
-        // ONLY THE FIRST TIME
-        if (lookup.toUpperCase(Locale.ENGLISH).startsWith("SELECT"))
-          sqlQuery = new OSQLSynchQuery<ODocument>(lookup);
-        else {
-          index = db.getMetadata().getIndexManager().getIndex(lookup);
-          if (index == null) {
-            OETLContextWrapper
-                .getInstance().getMessageHandler().warn(this, "WARNING: index %s not found. Lookups could be really slow", lookup);
-            final String[] parts = lookup.split("\\.");
-            sqlQuery = new OSQLSynchQuery<ODocument>("SELECT FROM " + parts[0] + " WHERE " + parts[1] + " = ?");
-          }
-        }
-      }
+      init(db);
 
       if (index != null) {
         final OType idxFieldType = index.getDefinition().getTypes()[0];
         joinValue = OType.convert(joinValue, idxFieldType.getDefaultJavaType());
-        result = index.get(joinValue);
+      }
+
+      final Object cacheKey = isCached() ? getCacheKey(joinValue) : null;
+      if (cacheKey != null) {
+        final Object cached = getCached(cacheKey);
+        if (cached != null) {
+          cacheHits.incrementAndGet();
+          return fromCache(cached, iReturnRIDS);
+        }
+        cacheMisses.incrementAndGet();
+      }
+
+      if (index != null) {
+        // THE INDEX IS BOUND TO THE DATABASE INSTANCE IT WAS LOADED WITH, PIPELINES USE A POOLED INSTANCE PER RECORD
+        result = db.getMetadata().getIndexManager().getIndex(lookup).get(joinValue);
       } else {
         if (sqlQuery instanceof OSQLSynchQuery)
           ((OSQLSynchQuery) sqlQuery).resetPagination();
@@ -91,6 +157,9 @@ public abstract class OETLAbstractLookupTransformer extends OETLAbstractTransfor
         result = db.query(sqlQuery, joinValue);
       }
 
+      if (cacheKey != null && cache != null)
+        putInCache(cacheKey, result);
+
       if (result != null && result instanceof Collection) {
         final Collection coll = (Collection) result;
 
@@ -117,6 +186,98 @@ public abstract class OETLAbstractLookupTransformer extends OETLAbstractTransfor
     return result;
   }
 
+  private synchronized void init(final ODatabaseDocument db) {
+    if (sqlQuery == null && index == null) {
+      // ONLY THE FIRST TIME
+      if (lookup.toUpperCase(Locale.ENGLISH).startsWith("SELECT"))
+        sqlQuery = new OSQLSynchQuery<ODocument>(lookup);
+      else {
+        index = db.getMetadata().getIndexManager().getIndex(lookup);
+        if (index == null) {
+          OETLContextWrapper
+              .getInstance().getMessageHandler().warn(this, "WARNING: index %s not found. Lookups could be really slow", lookup);
+          final String[] parts = lookup.split("\\.");
+          sqlQuery = new OSQLSynchQuery<ODocument>("SELECT FROM " + parts[0] + " WHERE " + parts[1] + " = ?");
+        }
+      }
+    }
+  }
+
+  private synchronized void preload(final ODatabaseDocument db) {
+    // THE TRANSFORMER IS SHARED BETWEEN THE PIPELINES: LOADS THE INDEX ONLY BY THE FIRST ONE
+    if (preloadChecked)
+      return;
+    preloadChecked = true;
+
+    // THE INDEX IS NOT KEPT: IT IS BOUND TO THE DATABASE INSTANCE USED ON BEGIN, NOT TO THE ONES OF THE PIPELINES
+    final OIndex<?> idx = lookup.toUpperCase(Locale.ENGLISH).startsWith("SELECT") ?
+        null :
+        db.getMetadata().getIndexManager().getIndex(lookup);
+    if (idx == null || !idx.isUnique()) {
+      OETLContextWrapper.getInstance().getMessageHandler()
+          .warn(this, "WARNING: lookup '%s' is not a unique index, it cannot be preloaded", lookup);
+      return;
+    }
+
+    final Map<Object, Object> entries = new HashMap<Object, Object>();
+    final OIndexCursor cursor = idx.cursor();
+    Map.Entry<Object, OIdentifiable> entry;
+    while ((entry = cursor.nextEntry()) != null)
+      entries.put(entry.getKey(), entry.getValue().getIdentity());
+
+    // ENTRIES ARE NOT CHANGED ANYMORE, SO THEY ARE READ WITHOUT LOCKS
+    preloaded = entries;
+    OETLContextWrapper.getInstance().getMessageHandler()
+        .info(this, "%s: preloaded %d keys of index '%s'", getName(), entries.size(), lookup);
+  }
+
+  /**
+   * Results of not unique indexes and SQL lookups can change when records are created, so they are not cached.
+   */
+  private boolean isCached() {
+    return (cache != null || preloaded != null) && index != null && index.isUnique();
+  }
+
+  private Object getCacheKey(final Object joinValue) {
+    if (index != null && index.getDefinition().getCollate() != null)
+      // THE SAME KEY USED BY THE INDEX, SO CACHED VALUES MATCH THE PRELOADED ONES
+      return index.getDefinition().getCollate().transform(joinValue);
+    return joinValue;
+  }
+
+  private Object getCached(final Object cacheKey) {
+    if (preloaded != null) {
+      final Object value = preloaded.get(cacheKey);
+      if (value != null)
+        return value;
+    }
+
+    if (cache != null) {
+      synchronized (cache) {
+        return cache.get(cacheKey);
+      }
+    }
+    return null;
+  }
+
+  private void putInCache(final Object cacheKey, final Object result) {
+    if (!(result instanceof OIdentifiable))
+      // UNRESOLVED LOOKUPS ARE NOT CACHED, THE RECORD COULD BE CREATED LATER
+      return;
+
+    final ORID rid = ((OIdentifiable) result).getIdentity();
+    if (!rid.isPersistent())
+      return;
+
+    synchronized (cache) {
+      cache.put(cacheKey, rid);
+    }
+  }
+
+  private Object fromCache(final Object cached, final boolean iReturnRIDS) {
+    return iReturnRIDS ? cached : ((ORID) cached).getRecord();
+  }
+
   protected enum ACTION {
     NOTHING, WARNING, ERROR, HALT, SKIP, CREATE
   }
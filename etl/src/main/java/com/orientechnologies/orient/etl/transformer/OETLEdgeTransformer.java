@@ -48,6 +48,7 @@ public class OETLEdgeTransformer extends OETLAbstractLookupTransformer {
         + "{joinValue:{optional:true,description:'value to use for join'}},"
         + "{joinFieldName:{optional:true,description:'field name containing the value to join'}},"
         + "{lookup:{optional:false,description:'<Class>.<property> or Query to execute'}},"
+        + getLookupCacheConfigurationParameters() + ","
         + "{direction:{optional:true,description:'Direction between \'in\' and \'out\'. Default is \'out\''}},"
         + "{class:{optional:true,description:'Edge class name. Default is \'E\''}},"
         + "{targetVertexFields:{optional:true,description:'Map of fields to set in target vertex. Use ${$input.<field>} to get input field values'}},"
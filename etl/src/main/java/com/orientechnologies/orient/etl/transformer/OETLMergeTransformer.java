@@ -35,6 +35,7 @@ public class OETLMergeTransformer extends OETLAbstractLookupTransformer {
     return new ODocument().fromJSON("{parameters:[" + getCommonConfigurationParameters() + ","
         + "{joinFieldName:{optional:false,description:'field name containing the value to join'}},"
         + "{lookup:{optional:false,description:'<Class>.<property> or Query to execute'}},"
+        + getLookupCacheConfigurationParameters() + ","
         + "{unresolvedLinkAction:{optional:true,description:'action when a unresolved link is found',values:" + stringArray2Json(
         ACTION.values()) + "}}]," + "input:['ODocument'],output:'ODocument'}");
   }
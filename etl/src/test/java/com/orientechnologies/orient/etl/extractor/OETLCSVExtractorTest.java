@@ -6,12 +6,18 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.etl.OETLBaseTest;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.*;
@@ -535,4 +541,92 @@ public class OETLCSVExtractorTest extends OETLBaseTest {
     assertThat(doc.<String>field("value")).isEqualTo("myvalue");
   }
 
+  @Test
+  public void testParallel() throws IOException {
+    final String path = writeMultiLineCsv(3000);
+    configure("{source: { file: { path: '" + path + "' } }, extractor : { csv: { threads: 4 } }, loader: { test: {} } }");
+    proc.execute();
+
+    List<ODocument> res = getResult();
+    assertThat(res).hasSize(3000);
+
+    final Map<Integer, String> notes = new HashMap<Integer, String>();
+    for (ODocument doc : res) {
+      notes.put(doc.<Integer>field("id"), doc.<String>field("note"));
+    }
+    assertThat(notes).hasSize(3000);
+    for (int i = 0; i < 3000; ++i) {
+      assertThat(notes.get(i)).isEqualTo("first line " + i + "\n\"second\" line");
+    }
+  }
+
+  @Test
+  public void testParallelOrdered() throws IOException {
+    final String path = writeMultiLineCsv(3000);
+    configure("{source: { file: { path: '" + path + "' } }, extractor : { csv: { threads: 4, ordered: true } }, loader: { test: {} } }");
+    proc.execute();
+
+    List<ODocument> res = getResult();
+    assertThat(res).hasSize(3000);
+
+    int i = 0;
+    for (ODocument doc : res) {
+      assertThat(doc.<Integer>field("id")).isEqualTo(i);
+      assertThat(doc.<String>field("name")).isEqualTo(names[i % names.length]);
+      i++;
+    }
+  }
+
+  @Test
+  public void testParallelQuoteInsideValue() throws IOException {
+    final File file = new File("./target/" + name.getMethodName() + ".csv");
+    file.getParentFile().mkdirs();
+
+    // A QUOTE WHICH IS NOT AT THE START OF THE FIELD IS PART OF THE VALUE AND DOES NOT OPEN A QUOTED VALUE
+    final Writer writer = new FileWriter(file);
+    try {
+      writer.write("id,height,note\n");
+      for (int i = 0; i < 3000; ++i)
+        writer.write(i + ",5'11\",\"line " + i + "\n\"\"next\"\" line\"\n");
+    } finally {
+      writer.close();
+    }
+
+    configure("{source: { file: { path: '" + file.getPath() + "' } }, extractor : { csv: { threads: 4 } }, loader: { test: {} } }");
+    proc.execute();
+
+    List<ODocument> res = getResult();
+    assertThat(res).hasSize(3000);
+
+    final Map<Integer, String> notes = new HashMap<Integer, String>();
+    for (ODocument doc : res) {
+      assertThat(doc.<String>field("height")).isEqualTo("5'11\"");
+      notes.put(doc.<Integer>field("id"), doc.<String>field("note"));
+    }
+    assertThat(notes).hasSize(3000);
+    for (int i = 0; i < 3000; ++i) {
+      assertThat(notes.get(i)).isEqualTo("line " + i + "\n\"next\" line");
+    }
+  }
+
+  /**
+   * Writes rows with new lines and quotes inside quoted values, and comment lines with unbalanced quotes.
+   */
+  private String writeMultiLineCsv(final int rows) throws IOException {
+    final File file = new File("./target/" + name.getMethodName() + ".csv");
+    file.getParentFile().mkdirs();
+
+    final Writer writer = new FileWriter(file);
+    try {
+      writer.write("id,name,note\n");
+      for (int i = 0; i < rows; ++i) {
+        if (i % 100 == 0)
+          writer.write("# comment with \" quote\n");
+        writer.write(i + "," + names[i % names.length] + ",\"first line " + i + "\n\"\"second\"\" line\"\n");
+      }
+    } finally {
+      writer.close();
+    }
+    return file.getPath();
+  }
 }
@@ -23,6 +23,13 @@ import com.orientechnologies.orient.etl.OETLBaseTest;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 
@@ -117,4 +124,62 @@ public class OETLJsonExtractorTest extends OETLBaseTest {
 //      assertThat(doc.<Integer>field("id")).isLessThan(5);
     }
   }
+
+  @Test
+  public void testJsonLines() throws IOException {
+    final String path = writeJsonLines(100);
+    configure("{source: { file: { path: '" + path + "' } }, extractor : { json: { lines: true } }, loader: { test: {} } }");
+    proc.execute();
+
+    assertThat(getResult()).hasSize(100);
+    int i = 0;
+    for (ODocument doc : getResult()) {
+      assertThat(doc.<Integer>field("id")).isEqualTo(i++);
+    }
+  }
+
+  @Test
+  public void testJsonLinesInParallel() throws IOException {
+    final String path = writeJsonLines(5000);
+    configure("{source: { file: { path: '" + path + "' } }, extractor : { json: { lines: true, threads: 4 } }, loader: { test: {} } }");
+    proc.execute();
+
+    assertThat(getResult()).hasSize(5000);
+    final Set<Integer> ids = new HashSet<Integer>();
+    for (ODocument doc : getResult()) {
+      ids.add(doc.<Integer>field("id"));
+    }
+    assertThat(ids).hasSize(5000);
+  }
+
+  @Test
+  public void testJsonLinesInParallelOrdered() throws IOException {
+    final String path = writeJsonLines(5000);
+    configure("{source: { file: { path: '" + path
+        + "' } }, extractor : { json: { lines: true, threads: 4, ordered: true } }, loader: { test: {} } }");
+    proc.execute();
+
+    assertThat(getResult()).hasSize(5000);
+    int i = 0;
+    for (ODocument doc : getResult()) {
+      assertThat(doc.<Integer>field("id")).isEqualTo(i++);
+    }
+  }
+
+  private String writeJsonLines(final int lines) throws IOException {
+    final File file = new File("./target/" + name.getMethodName() + ".jsonl");
+    file.getParentFile().mkdirs();
+
+    final Writer writer = new FileWriter(file);
+    try {
+      for (int i = 0; i < lines; ++i) {
+        writer.write("{\"name\":\"" + names[i % names.length] + "\",\"id\":" + i + "}\n");
+        if (i % 10 == 0)
+          writer.write("\n");
+      }
+    } finally {
+      writer.close();
+    }
+    return file.getPath();
+  }
 }
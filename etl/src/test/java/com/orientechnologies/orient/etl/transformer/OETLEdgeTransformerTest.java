@@ -35,6 +35,7 @@ import org.junit.Test;
 
 import java.io.File;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -222,6 +223,95 @@ public class OETLEdgeTransformerTest extends OETLBaseTest {
     assertEquals(1, db.countClass("Friend"));
   }
 
+  @Test
+  public void testLookupCache() {
+    configure("{source: { content: { value: 'name,surname,friend\nJay,Miner,Luca\nBill,Gates,Luca\nSteve,Jobs,Luca\nJill,Raggio,Luca' } }, extractor : { csv: {} },"
+        + " transformers: [{vertex: {class:'V1'}}, {edge:{class:'Friend',joinFieldName:'friend',lookup:'V2.name',lookupCacheSize:10}},"
+        + "], loader: { orientdb: { dbURL: 'memory:" + name.getMethodName() + "', dbType:'graph', useLightweightEdges:false } } }");
+
+    OETLLoader loader = proc.getLoader();
+    ODatabasePool pool = loader.getPool();
+    ODatabaseDocument db = pool.acquire();
+    createClasses(db);
+    createNameIndex(db);
+    db.close();
+
+    proc.execute();
+    db = pool.acquire();
+
+    assertEquals(4, db.countClass("V1"));
+    assertEquals(1, db.countClass("V2"));
+    assertEquals(4, db.countClass("Friend"));
+    assertEquals(75f, getLookupCacheHitRatio("V2.name"), 0.01);
+    db.close();
+  }
+
+  @Test
+  public void testLookupPreload() {
+    configure("{source: { content: { value: 'name,surname,friend\nJay,Miner,Luca\nBill,Gates,Luca\nSteve,Jobs,Luca' } }, extractor : { csv: {} },"
+        + " transformers: [{vertex: {class:'V1'}}, {edge:{class:'Friend',joinFieldName:'friend',lookup:'V2.name',lookupPreload:true}},"
+        + "], loader: { orientdb: { dbURL: 'memory:" + name.getMethodName() + "', dbType:'graph', useLightweightEdges:false } } }");
+
+    OETLLoader loader = proc.getLoader();
+    ODatabasePool pool = loader.getPool();
+    ODatabaseDocument db = pool.acquire();
+    createClasses(db);
+    createNameIndex(db);
+    db.close();
+
+    proc.execute();
+    db = pool.acquire();
+
+    assertEquals(3, db.countClass("V1"));
+    assertEquals(3, db.countClass("Friend"));
+    assertEquals(100f, getLookupCacheHitRatio("V2.name"), 0.01);
+    db.close();
+  }
+
+  @Test
+  public void testLookupCacheIsNotUsedOnNotUniqueIndex() {
+    configure("{source: { content: { value: [{name:'Jay',friend:'Luca'},{name:'Bill',friend:'Luca'},{name:'Steve',friend:'Luca'}] } },"
+        + " extractor : { json: {} }, transformers: [{vertex: {class:'V1'}},"
+        + " {edge:{class:'Friend',joinFieldName:'friend',lookup:'V2.name',lookupCacheSize:10,lookupPreload:true}},"
+        + "], loader: { orientdb: { dbURL: 'memory:" + name.getMethodName() + "', dbType:'graph', useLightweightEdges:false } } }");
+
+    OETLLoader loader = proc.getLoader();
+    ODatabasePool pool = loader.getPool();
+    ODatabaseDocument db = pool.acquire();
+    createClasses(db);
+    final OClass v2 = db.getClass("V2");
+    v2.createProperty("name", OType.STRING);
+    v2.createIndex("V2.name", OClass.INDEX_TYPE.NOTUNIQUE, "name");
+    final OVertex vertex = db.newVertex(v2);
+    vertex.setProperty("name", "Luca");
+    db.save(vertex);
+    db.close();
+
+    proc.execute();
+    db = pool.acquire();
+
+    // EVERY LOOKUP RESOLVES BOTH THE VERTICES AND IT IS NOT CACHED
+    assertEquals(3, db.countClass("V1"));
+    assertEquals(6, db.countClass("Friend"));
+    final Map<String, Float> stats = (Map<String, Float>) proc.getContext()
+        .getVariable(OETLAbstractLookupTransformer.LOOKUP_CACHE_STATS);
+    assertTrue(stats == null || !stats.containsKey("V2.name"));
+    db.close();
+  }
+
+  private void createNameIndex(ODatabaseDocument db) {
+    final OClass v2 = db.getClass("V2");
+    v2.createProperty("name", OType.STRING);
+    v2.createIndex("V2.name", OClass.INDEX_TYPE.UNIQUE, "name");
+  }
+
+  private float getLookupCacheHitRatio(String lookup) {
+    final Map<String, Float> stats = (Map<String, Float>) proc.getContext()
+        .getVariable(OETLAbstractLookupTransformer.LOOKUP_CACHE_STATS);
+    assertNotNull(stats);
+    return stats.get(lookup);
+  }
+
   @Test
   public void testVertexAndEdgesOnSeparatedFiles() {
     // IMPORT PERSON (VERTICES)
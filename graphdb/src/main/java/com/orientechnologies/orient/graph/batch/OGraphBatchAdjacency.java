@@ -0,0 +1,546 @@
+package com.orientechnologies.orient.graph.batch;
+
+import com.orientechnologies.common.log.OLogManager;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Staging area of the adjacency of vertices for {@link OGraphBatchInsert}. Entries are kept in primitive arrays, once the buffer
+ * is full it is sorted and spilled to a temporary file as a run, so the amount of edges is not limited by the heap.
+ * <p>
+ * Vertices are split in partitions by <code>vertex % partitions</code>, every partition is read by its own {@link Cursor} in
+ * ascending order of vertices, entries of the same vertex are returned in order of their addition. Sorted runs are merged per
+ * vertex while the cursor advances.
+ */
+final class OGraphBatchAdjacency implements Closeable {
+  /**
+   * Value of the entry is id of a vertex.
+   */
+  static final int VERTEX = -1;
+  /**
+   * Entry marks existence of the vertex and has no value.
+   */
+  static final int NONE   = -2;
+
+  static final int DEFAULT_BUFFER_SIZE = 4 * 1024 * 1024;
+
+  private static final int MAX_RUNS          = 64;
+  private static final int ENTRY_SIZE        = 8 + 4 + 8;
+  private static final int READ_BUFFER_SIZE  = 64 * 1024;
+  private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+  private final int  partitions;
+  private final int  bufferSize;
+  private final File directory;
+
+  private long[] vertices;
+  private int[]  clusterIds;
+  private long[] values;
+  private int    size;
+
+  private final List<List<FileRun>> levels = new ArrayList<List<FileRun>>();
+  private List<Run> runs;
+  private int       spills;
+
+  /**
+   * @param partitions amount of partitions of vertices.
+   * @param bufferSize maximum amount of entries kept in memory.
+   * @param directory  directory of temporary files, system temporary directory is used if <code>null</code>.
+   * @param capacity   initial capacity of the buffer.
+   */
+  OGraphBatchAdjacency(final int partitions, final int bufferSize, final File directory, final int capacity) {
+    this.partitions = partitions;
+    this.bufferSize = Math.max(bufferSize, 1);
+    this.directory = directory != null ? directory : new File(System.getProperty("java.io.tmpdir"));
+
+    final int initialCapacity = Math.max(Math.min(capacity > 0 ? capacity : 1024, this.bufferSize), 1);
+    vertices = new long[initialCapacity];
+    clusterIds = new int[initialCapacity];
+    values = new long[initialCapacity];
+  }
+
+  /**
+   * Adds entry to the adjacency of the vertex.
+   *
+   * @param clusterId cluster id of the record id passed as value or {@link #VERTEX} or {@link #NONE}.
+   */
+  void add(final long vertex, final int clusterId, final long value) {
+    if (runs != null)
+      throw new IllegalStateException("Adjacency of vertices is already being read");
+
+    if (size == vertices.length) {
+      if (size >= bufferSize)
+        spill();
+      else
+        grow();
+    }
+
+    vertices[size] = vertex;
+    clusterIds[size] = clusterId;
+    values[size] = value;
+    size++;
+  }
+
+  /**
+   * Returns cursor over the vertices of the partition. No entries can be added once a cursor is opened.
+   */
+  synchronized Cursor cursor(final int partition) {
+    if (runs == null)
+      seal();
+
+    return new Cursor(partition);
+  }
+
+  /**
+   * Removes temporary files of the runs.
+   */
+  @Override
+  public synchronized void close() {
+    if (runs != null)
+      for (Run run : runs)
+        run.delete();
+
+    for (List<FileRun> level : levels)
+      for (FileRun run : level)
+        run.delete();
+
+    levels.clear();
+    vertices = null;
+    clusterIds = null;
+    values = null;
+  }
+
+  private void grow() {
+    final int capacity = (int) Math.min((long) vertices.length * 2, bufferSize);
+    final long[] newVertices = new long[capacity];
+    final int[] newClusterIds = new int[capacity];
+    final long[] newValues = new long[capacity];
+
+    System.arraycopy(vertices, 0, newVertices, 0, size);
+    System.arraycopy(clusterIds, 0, newClusterIds, 0, size);
+    System.arraycopy(values, 0, newValues, 0, size);
+
+    vertices = newVertices;
+    clusterIds = newClusterIds;
+    values = newValues;
+  }
+
+  private void seal() {
+    final List<Run> result = new ArrayList<Run>();
+
+    if (levels.isEmpty()) {
+      // ALL ENTRIES FIT IN MEMORY
+      result.add(new MemoryRun(0));
+    } else {
+      if (size > 0)
+        spill();
+
+      final List<FileRun> fileRuns = new ArrayList<FileRun>();
+      for (int i = levels.size() - 1; i >= 0; i--)
+        fileRuns.addAll(levels.get(i));
+
+      if (fileRuns.size() > MAX_RUNS) {
+        // RUNS OF LOWER LEVELS ARE THE LATEST ONES
+        final int oldest = levels.get(levels.size() - 1).size();
+        final List<FileRun> latest = new ArrayList<FileRun>(fileRuns.subList(oldest, fileRuns.size()));
+        fileRuns.removeAll(latest);
+        fileRuns.add(merge(latest));
+      }
+
+      levels.clear();
+      result.addAll(fileRuns);
+
+      vertices = null;
+      clusterIds = null;
+      values = null;
+    }
+
+    runs = result;
+  }
+
+  private void spill() {
+    final MemoryRun memoryRun = new MemoryRun(spills);
+    final FileRun run = createFileRun(spills);
+    try {
+      final DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(run.file), WRITE_BUFFER_SIZE));
+      try {
+        long written = 0;
+        for (int partition = 0; partition < partitions; partition++) {
+          run.starts[partition] = written;
+          final RunReader reader = memoryRun.open(partition);
+          while (reader.next()) {
+            write(out, reader);
+            written++;
+          }
+        }
+        run.starts[partitions] = written;
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      run.delete();
+      throw new IllegalStateException("Error on writing adjacency of vertices to file " + run.file, e);
+    }
+
+    spills++;
+    size = 0;
+    addRun(0, run);
+  }
+
+  private void addRun(final int level, final FileRun run) {
+    while (levels.size() <= level)
+      levels.add(new ArrayList<FileRun>());
+
+    final List<FileRun> levelRuns = levels.get(level);
+    levelRuns.add(run);
+
+    if (levelRuns.size() >= MAX_RUNS) {
+      final FileRun merged = merge(levelRuns);
+      levelRuns.clear();
+      addRun(level + 1, merged);
+    }
+  }
+
+  /**
+   * Merges runs which contain consecutive spills in order of their creation into a single run.
+   */
+  private FileRun merge(final List<FileRun> toMerge) {
+    final FileRun run = createFileRun(toMerge.get(0).order);
+    try {
+      final DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(run.file), WRITE_BUFFER_SIZE));
+      try {
+        long written = 0;
+        for (int partition = 0; partition < partitions; partition++) {
+          run.starts[partition] = written;
+
+          final PriorityQueue<RunReader> queue = open(toMerge, partition);
+          try {
+            RunReader reader;
+            while ((reader = queue.poll()) != null) {
+              write(out, reader);
+              written++;
+              if (reader.next())
+                queue.add(reader);
+              else
+                reader.close();
+            }
+          } finally {
+            for (RunReader reader : queue)
+              reader.close();
+          }
+        }
+        run.starts[partitions] = written;
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      run.delete();
+      throw new IllegalStateException("Error on merge of adjacency of vertices to file " + run.file, e);
+    }
+
+    for (FileRun merged : toMerge)
+      merged.delete();
+
+    return run;
+  }
+
+  private FileRun createFileRun(final int order) {
+    try {
+      return new FileRun(order, Files.createTempFile(directory.toPath(), "orientdb-batch-", ".run").toFile());
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot create temporary file in directory " + directory, e);
+    }
+  }
+
+  private static void write(final DataOutputStream out, final RunReader reader) throws IOException {
+    out.writeLong(reader.vertex);
+    out.writeInt(reader.clusterId);
+    out.writeLong(reader.value);
+  }
+
+  private static PriorityQueue<RunReader> open(final List<? extends Run> runs, final int partition) throws IOException {
+    final PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(Math.max(runs.size(), 1));
+    try {
+      for (Run run : runs) {
+        final RunReader reader = run.open(partition);
+        if (reader.next())
+          queue.add(reader);
+        else
+          reader.close();
+      }
+    } catch (IOException e) {
+      for (RunReader reader : queue)
+        reader.close();
+      throw e;
+    }
+    return queue;
+  }
+
+  private int partition(final long vertex) {
+    return (int) (vertex % partitions);
+  }
+
+  /**
+   * Reads the adjacency of vertices of a single partition. Vertices have to be requested in ascending order.
+   */
+  final class Cursor implements Closeable {
+    private final PriorityQueue<RunReader> queue;
+
+    private int[]  resultClusterIds = new int[16];
+    private long[] resultValues     = new long[16];
+
+    private Cursor(final int partition) {
+      try {
+        queue = open(runs, partition);
+      } catch (IOException e) {
+        throw new IllegalStateException("Error on reading adjacency of vertices", e);
+      }
+    }
+
+    /**
+     * Reads the entries of the vertex, they are available through {@link #getClusterId(int)} and {@link #getValue(int)} till the
+     * next call.
+     *
+     * @return amount of the entries of vertex or <code>-1</code> if vertex is absent.
+     */
+    int read(final long vertex) {
+      int count = 0;
+      boolean found = false;
+
+      try {
+        RunReader reader;
+        while ((reader = queue.peek()) != null && reader.vertex <= vertex) {
+          queue.poll();
+
+          if (reader.vertex == vertex) {
+            found = true;
+            if (reader.clusterId != NONE) {
+              if (count == resultValues.length) {
+                final int capacity = count * 2;
+                final int[] newClusterIds = new int[capacity];
+                final long[] newValues = new long[capacity];
+                System.arraycopy(resultClusterIds, 0, newClusterIds, 0, count);
+                System.arraycopy(resultValues, 0, newValues, 0, count);
+                resultClusterIds = newClusterIds;
+                resultValues = newValues;
+              }
+
+              resultClusterIds[count] = reader.clusterId;
+              resultValues[count] = reader.value;
+              count++;
+            }
+          }
+
+          if (reader.next())
+            queue.add(reader);
+          else
+            reader.close();
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Error on reading adjacency of vertex " + vertex, e);
+      }
+
+      return found ? count : -1;
+    }
+
+    int getClusterId(final int index) {
+      return resultClusterIds[index];
+    }
+
+    long getValue(final int index) {
+      return resultValues[index];
+    }
+
+    @Override
+    public void close() {
+      RunReader reader;
+      while ((reader = queue.poll()) != null)
+        reader.close();
+    }
+  }
+
+  private abstract static class Run {
+    /**
+     * Order of creation, entries of the same vertex are returned from the earlier runs first.
+     */
+    final int order;
+
+    Run(final int order) {
+      this.order = order;
+    }
+
+    abstract RunReader open(int partition) throws IOException;
+
+    abstract void delete();
+  }
+
+  private abstract static class RunReader implements Comparable<RunReader> {
+    private final int order;
+
+    long vertex;
+    int  clusterId;
+    long value;
+
+    RunReader(final int order) {
+      this.order = order;
+    }
+
+    abstract boolean next() throws IOException;
+
+    abstract void close();
+
+    @Override
+    public int compareTo(final RunReader other) {
+      if (vertex != other.vertex)
+        return vertex < other.vertex ? -1 : 1;
+      return order < other.order ? -1 : (order == other.order ? 0 : 1);
+    }
+  }
+
+  /**
+   * Content of the buffer sorted by partition and vertex, stable sort keeps order of addition of entries of the same vertex.
+   */
+  private final class MemoryRun extends Run {
+    private final int[] sorted;
+    private final int[] starts = new int[partitions + 1];
+
+    MemoryRun(final int order) {
+      super(order);
+
+      sorted = new int[size];
+      for (int i = 0; i < size; i++)
+        sorted[i] = i;
+      mergeSort(sorted, new int[size], 0, size);
+
+      int index = 0;
+      for (int partition = 0; partition < partitions; partition++) {
+        starts[partition] = index;
+        while (index < size && partition(vertices[sorted[index]]) == partition)
+          index++;
+      }
+      starts[partitions] = size;
+    }
+
+    @Override
+    RunReader open(final int partition) {
+      return new RunReader(order) {
+        private int index = starts[partition];
+
+        @Override
+        boolean next() {
+          if (index >= starts[partition + 1])
+            return false;
+
+          final int entry = sorted[index++];
+          vertex = vertices[entry];
+          clusterId = clusterIds[entry];
+          value = values[entry];
+          return true;
+        }
+
+        @Override
+        void close() {
+        }
+      };
+    }
+
+    @Override
+    void delete() {
+    }
+
+    private void mergeSort(final int[] items, final int[] buffer, final int from, final int to) {
+      if (to - from < 2)
+        return;
+
+      final int middle = (from + to) >>> 1;
+      mergeSort(items, buffer, from, middle);
+      mergeSort(items, buffer, middle, to);
+
+      if (compare(items[middle - 1], items[middle]) <= 0)
+        return;
+
+      System.arraycopy(items, from, buffer, from, to - from);
+      int left = from;
+      int right = middle;
+      for (int i = from; i < to; i++) {
+        if (right >= to || (left < middle && compare(buffer[left], buffer[right]) <= 0))
+          items[i] = buffer[left++];
+        else
+          items[i] = buffer[right++];
+      }
+    }
+
+    private int compare(final int first, final int second) {
+      final int firstPartition = partition(vertices[first]);
+      final int secondPartition = partition(vertices[second]);
+      if (firstPartition != secondPartition)
+        return firstPartition < secondPartition ? -1 : 1;
+
+      final long firstVertex = vertices[first];
+      final long secondVertex = vertices[second];
+      return firstVertex < secondVertex ? -1 : (firstVertex == secondVertex ? 0 : 1);
+    }
+  }
+
+  /**
+   * Run stored in a file as fixed size entries grouped by partitions.
+   */
+  private final class FileRun extends Run {
+    private final File   file;
+    private final long[] starts = new long[partitions + 1];
+
+    FileRun(final int order, final File file) {
+      super(order);
+      this.file = file;
+    }
+
+    @Override
+    RunReader open(final int partition) throws IOException {
+      final FileInputStream fileStream = new FileInputStream(file);
+      try {
+        fileStream.getChannel().position(starts[partition] * ENTRY_SIZE);
+      } catch (IOException e) {
+        fileStream.close();
+        throw e;
+      }
+
+      final DataInputStream in = new DataInputStream(new BufferedInputStream(fileStream, READ_BUFFER_SIZE));
+      return new RunReader(order) {
+        private long remaining = starts[partition + 1] - starts[partition];
+
+        @Override
+        boolean next() throws IOException {
+          if (remaining == 0)
+            return false;
+
+          remaining--;
+          vertex = in.readLong();
+          clusterId = in.readInt();
+          value = in.readLong();
+          return true;
+        }
+
+        @Override
+        void close() {
+          try {
+            in.close();
+          } catch (IOException e) {
+            OLogManager.instance().warn(this, "Error on closing file %s", e, file);
+          }
+        }
+      };
+    }
+
+    @Override
+    void delete() {
+      if (file.exists() && !file.delete())
+        OLogManager.instance().warn(this, "Cannot delete temporary file %s", file);
+    }
+  }
+}
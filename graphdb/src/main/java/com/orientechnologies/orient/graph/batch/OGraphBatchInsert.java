@@ -15,8 +15,7 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.tinkerpop.blueprints.impls.orient.OrientEdgeType;
 import com.tinkerpop.blueprints.impls.orient.OrientVertexType;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -83,8 +82,10 @@ public class OGraphBatchInsert {
   private final String        userName;
   private final String        dbUrl;
   private final String        password;
-  Map<Long, List<Object>>     out                      = new HashMap<Long, List<Object>>();
-  Map<Long, List<Object>>     in                       = new HashMap<Long, List<Object>>();
+  OGraphBatchAdjacency        out;
+  OGraphBatchAdjacency        in;
+  private OGraphBatchAdjacency.Cursor[] outCursors;
+  private OGraphBatchAdjacency.Cursor[] inCursors;
   private String              idPropertyName           = "uid";
   private String              edgeClass                = OrientEdgeType.CLASS_NAME;
   private String              vertexClass              = OrientVertexType.CLASS_NAME;
@@ -92,6 +93,8 @@ public class OGraphBatchInsert {
   private ODatabaseDocument db;
   private int                 averageEdgeNumberPerNode = -1;
   private int                 estimatedEntries         = -1;
+  private int                 stagingBufferSize        = OGraphBatchAdjacency.DEFAULT_BUFFER_SIZE;
+  private String              stagingDirectory;
   private int                 bonsaiThreshold          = 1000;
   private int[]               clusterIds;
   private long[]              lastClusterPositions;
@@ -161,39 +164,20 @@ public class OGraphBatchInsert {
 
     private void createVertex(ODatabaseDocument db, long i, String inField, String outField, String clusterName,
         Map<String, Object> properties) {
-      final List<Object> outIds = out.get(i);
-      final List<Object> inIds = in.get(i);
+      final OGraphBatchAdjacency.Cursor outCursor = getCursor(outCursors, out, mod);
+      final OGraphBatchAdjacency.Cursor inCursor = getCursor(inCursors, in, mod);
+      final int outCount = outCursor.read(i);
+      final int inCount = inCursor.read(i);
       final ODocument doc = new ODocument(vClass);
-      if (outIds == null && inIds == null) {
+      if (outCount < 0 && inCount < 0) {
         db.save(doc, clusterName).delete();
       } else {
         doc.field(idPropertyName, i);
-        if (outIds != null) {
-          final ORidBag outBag = new ORidBag();
-          for (Object l : outIds) {
-
-            ORecordId rid;
-            if (l instanceof ORecordId) {
-              rid = (ORecordId) l;
-            } else {
-              rid = new ORecordId(getClusterId((Long) l), getClusterPosition((Long) l));
-            }
-            outBag.add(rid);
-          }
-          doc.field(outField, outBag);
+        if (outCount >= 0) {
+          doc.field(outField, createRidBag(outCursor, outCount));
         }
-        if (inIds != null) {
-          final ORidBag inBag = new ORidBag();
-          for (Object l : inIds) {
-            ORecordId rid;
-            if (l instanceof ORecordId) {
-              rid = (ORecordId) l;
-            } else {
-              rid = new ORecordId(getClusterId((Long) l), getClusterPosition((Long) l));
-            }
-            inBag.add(rid);
-          }
-          doc.field(inField, inBag);
+        if (inCount >= 0) {
+          doc.field(inField, createRidBag(inCursor, inCount));
         }
 
         doc.fromMap(properties);
@@ -201,6 +185,20 @@ public class OGraphBatchInsert {
       }
       nextVerticesToCreate[mod] += parallel;
     }
+
+    private ORidBag createRidBag(OGraphBatchAdjacency.Cursor cursor, int count) {
+      final ORidBag bag = new ORidBag();
+      for (int k = 0; k < count; k++) {
+        final int clusterId = cursor.getClusterId(k);
+        final long value = cursor.getValue(k);
+        if (clusterId == OGraphBatchAdjacency.VERTEX) {
+          bag.add(new ORecordId(getClusterId(value), getClusterPosition(value)));
+        } else {
+          bag.add(new ORecordId(clusterId, value));
+        }
+      }
+      return bag;
+    }
   }
 
   /**
@@ -266,8 +264,11 @@ public class OGraphBatchInsert {
     }
     createBaseSchema();
 
-    out = estimatedEntries > 0 ? new HashMap<Long, List<Object>>(estimatedEntries) : new HashMap<Long, List<Object>>();
-    in = estimatedEntries > 0 ? new HashMap<Long, List<Object>>(estimatedEntries) : new HashMap<Long, List<Object>>();
+    final File directory = stagingDirectory != null ? new File(stagingDirectory) : null;
+    out = new OGraphBatchAdjacency(parallel, stagingBufferSize, directory, estimatedEntries);
+    in = new OGraphBatchAdjacency(parallel, stagingBufferSize, directory, estimatedEntries);
+    outCursors = new OGraphBatchAdjacency.Cursor[parallel];
+    inCursors = new OGraphBatchAdjacency.Cursor[parallel];
 
     OClass vClass = db.getMetadata().getSchema().getClass(this.vertexClass);
     int[] existingClusters = vClass.getClusterIds();
@@ -323,6 +324,7 @@ public class OGraphBatchInsert {
       db.close();
       if (walActive)
         OGlobalConfiguration.USE_WAL.setValue(true);
+      closeStaging();
     }
   }
 
@@ -338,10 +340,7 @@ public class OGraphBatchInsert {
     }
 
     last = last < v ? v : last;
-    final List<Object> outList = out.get(v);
-    if (outList == null) {
-      out.put(v, new ArrayList<Object>(averageEdgeNumberPerNode <= 0 ? 4 : averageEdgeNumberPerNode));
-    }
+    out.add(v, OGraphBatchAdjacency.NONE, 0);
   }
 
   /**
@@ -365,8 +364,8 @@ public class OGraphBatchInsert {
     if (useLightWeigthEdges && (properties == null || properties.size() == 0)) {
       last = last < from ? from : last;
       last = last < to ? to : last;
-      putInList(from, out, to);
-      putInList(to, in, from);
+      out.add(from, OGraphBatchAdjacency.VERTEX, to);
+      in.add(to, OGraphBatchAdjacency.VERTEX, from);
     } else {
       ODocument edgeDoc = new ODocument(edgeClass);
 
@@ -375,8 +374,8 @@ public class OGraphBatchInsert {
       edgeDoc.field("in", new ORecordId(getClusterId(to), getClusterPosition(to)));
       db.save(edgeDoc);
       ORecordId rid = (ORecordId) edgeDoc.getIdentity();
-      putInList(from, out, rid);
-      putInList(to, in, rid);
+      out.add(from, rid.getClusterId(), rid.getClusterPosition());
+      in.add(to, rid.getClusterId(), rid.getClusterPosition());
     }
   }
 
@@ -522,13 +521,59 @@ public class OGraphBatchInsert {
     this.parallel = parallel;
   }
 
-  private void putInList(final Long key, final Map<Long, List<Object>> out, final Object value) {
-    List<Object> list = out.get(key);
-    if (list == null) {
-      list = new ArrayList<Object>(averageEdgeNumberPerNode <= 0 ? 4 : averageEdgeNumberPerNode);
-      out.put(key, list);
+  /**
+   * Returns the maximum number of edge ends kept in memory before they are sorted and spilled to disk.
+   */
+  public int getStagingBufferSize() {
+    return stagingBufferSize;
+  }
+
+  /**
+   * Sets the maximum number of edge ends kept in memory (every edge has two ends). Once the limit is reached the ends are sorted
+   * by vertex and written to a temporary file, files are merged per vertex when vertices are created. Use it before calling
+   * begin()
+   *
+   * @param stagingBufferSize
+   *          number of edge ends (default 4M, about 80MB of heap)
+   */
+  public void setStagingBufferSize(final int stagingBufferSize) {
+    this.stagingBufferSize = stagingBufferSize;
+  }
+
+  /**
+   * @return the directory of temporary files of edges, null for the system temporary directory
+   */
+  public String getStagingDirectory() {
+    return stagingDirectory;
+  }
+
+  /**
+   * Sets the directory of temporary files of edges that do not fit in memory. Use it before calling begin()
+   *
+   * @param stagingDirectory
+   *          directory path, null for the system temporary directory (default)
+   */
+  public void setStagingDirectory(final String stagingDirectory) {
+    this.stagingDirectory = stagingDirectory;
+  }
+
+  private static OGraphBatchAdjacency.Cursor getCursor(final OGraphBatchAdjacency.Cursor[] cursors,
+      final OGraphBatchAdjacency adjacency, final int partition) {
+    // EVERY PARTITION IS READ BY A SINGLE THREAD AT TIME
+    if (cursors[partition] == null)
+      cursors[partition] = adjacency.cursor(partition);
+    return cursors[partition];
+  }
+
+  private void closeStaging() {
+    for (int i = 0; i < parallel; i++) {
+      if (outCursors[i] != null)
+        outCursors[i].close();
+      if (inCursors[i] != null)
+        inCursors[i].close();
     }
-    list.add(value);
+    out.close();
+    in.close();
   }
 
   private void createBaseSchema() {
@@ -1,6 +1,8 @@
 package com.orientechnologies.orient.graph.batch;
 
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import com.tinkerpop.blueprints.Vertex;
@@ -8,9 +10,13 @@ import com.tinkerpop.blueprints.impls.orient.OrientGraph;
 import junit.framework.TestCase;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Luigi Dell'Aquila (l.dellaquila-(at)-orientdb.com) (l.dellaquila-at-orientdb.com)
@@ -230,4 +236,74 @@ public class OGraphBatchInsertTest extends TestCase {
     g.shutdown();
   }
 
+  @Test
+  public void testStagingOnDisk() {
+    String dbUrl = "memory:batchinsert_testStagingOnDisk";
+    OGraphBatchInsert batch = new OGraphBatchInsert(dbUrl, "admin", "admin");
+    // EDGES DO NOT FIT IN MEMORY, SO THEY ARE SPILLED TO A LOT OF FILES MERGED ON CREATION OF VERTICES
+    batch.setStagingBufferSize(16);
+    batch.setParallel(3);
+    batch.begin();
+
+    final int vertices = 500;
+    final Map<Long, List<Long>> out = new HashMap<Long, List<Long>>();
+    final Map<Long, List<Long>> in = new HashMap<Long, List<Long>>();
+    final Map<String, Object> edgeProps = new HashMap<String, Object>();
+    edgeProps.put("weight", 1);
+    for (long i = 0; i < vertices; i++) {
+      if (i % 5 == 4)
+        continue;
+
+      final long to = (i * 7 + 3) % vertices;
+      batch.createEdge(i, to, i % 11 == 0 ? edgeProps : null);
+      addEdge(out, in, i, to);
+      batch.createEdge(i, to, null);
+      addEdge(out, in, i, to);
+    }
+    batch.createVertex(vertices + 1L);
+    out.put(vertices + 1L, new ArrayList<Long>());
+    batch.end();
+
+    final Set<Long> uids = new HashSet<Long>(out.keySet());
+    uids.addAll(in.keySet());
+
+    ODatabaseDocumentTx db = new ODatabaseDocumentTx(dbUrl);
+    db.open("admin", "admin");
+    try {
+      List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>("select from V"));
+      assertEquals(uids.size(), result.size());
+      for (ODocument doc : result) {
+        final Long uid = doc.field("uid");
+        assertEquals(out.get(uid), getNeighbours(doc, "out_", "in"));
+        assertEquals(in.get(uid), getNeighbours(doc, "in_", "out"));
+      }
+    } finally {
+      db.close();
+    }
+  }
+
+  private static void addEdge(Map<Long, List<Long>> out, Map<Long, List<Long>> in, long from, long to) {
+    if (!out.containsKey(from))
+      out.put(from, new ArrayList<Long>());
+    if (!in.containsKey(to))
+      in.put(to, new ArrayList<Long>());
+    out.get(from).add(to);
+    in.get(to).add(from);
+  }
+
+  private static List<Long> getNeighbours(ODocument vertex, String field, String edgeField) {
+    final ORidBag bag = vertex.field(field);
+    if (bag == null)
+      return null;
+
+    final List<Long> result = new ArrayList<Long>();
+    for (OIdentifiable identifiable : bag) {
+      ODocument doc = identifiable.getRecord();
+      if (!doc.containsField("uid"))
+        doc = doc.<OIdentifiable> field(edgeField).getRecord();
+      result.add(doc.<Long> field("uid"));
+    }
+    Collections.sort(result);
+    return result;
+  }
 }
@@ -43,6 +43,7 @@ public class ODistributedRequest {
   private long                  senderThreadId;
   private ORemoteTask           task;
   private ORecordId             userRID;       // KEEP ALSO THE RID TO AVOID SECURITY PROBLEM ON DELETE & RECREATE USERS
+  private volatile long         queuedOn;      // LOCAL ONLY, NOT SERIALIZED
 
   public ODistributedRequest(final ODistributedServerManager manager) {
     this.manager = manager;
@@ -91,6 +92,17 @@ public class ODistributedRequest {
     this.userRID = iUserRID;
   }
 
+  /**
+   * @return time when the request was put into the local queue of a worker, used to measure the waiting time in the queue.
+   */
+  public long getQueuedOn() {
+    return queuedOn;
+  }
+
+  public void setQueuedOn(final long queuedOn) {
+    this.queuedOn = queuedOn;
+  }
+
   public void toStream(final DataOutput out) throws IOException {
     id.toStream(out);
     out.writeLong(senderThreadId);
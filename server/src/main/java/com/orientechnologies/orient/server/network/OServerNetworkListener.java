@@ -32,11 +32,14 @@ import com.orientechnologies.orient.server.config.OServerCommandConfiguration;
 import com.orientechnologies.orient.server.config.OServerParameterConfiguration;
 import com.orientechnologies.orient.server.network.protocol.OBeforeDatabaseOpenNetworkEventListener;
 import com.orientechnologies.orient.server.network.protocol.ONetworkProtocol;
+import com.orientechnologies.orient.server.network.protocol.binary.ONetworkBinaryEventLoop;
+import com.orientechnologies.orient.server.network.protocol.binary.ONetworkProtocolBinary;
 import com.orientechnologies.orient.server.network.protocol.http.command.OServerCommand;
 
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.net.*;
+import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -53,6 +56,7 @@ public class OServerNetworkListener extends Thread {
   private OServer                                       server;
   private int                                           protocolVersion = -1;
   private List<OBeforeDatabaseOpenNetworkEventListener> beforeDatabaseOpenNetworkEventListener = new ArrayList<OBeforeDatabaseOpenNetworkEventListener>();
+  private ONetworkBinaryEventLoop                       binaryEventLoop;
 
   public OServerNetworkListener(final OServer iServer, final OServerSocketFactory iSocketFactory, final String iHostName,
       final String iHostPortRange, final String iProtocolName, final Class<? extends ONetworkProtocol> iProtocol,
@@ -73,10 +77,20 @@ public class OServerNetworkListener extends Thread {
       throw OException.wrapException(new ONetworkProtocolException(message), e);
     }
 
+    readParameters(iServer.getContextConfiguration(), iParameters);
+
     listen(iHostName, iHostPortRange, iProtocolName, iProtocol);
     protocolType = iProtocol;
 
-    readParameters(iServer.getContextConfiguration(), iParameters);
+    if (serverSocket.getChannel() != null) {
+      try {
+        binaryEventLoop = new ONetworkBinaryEventLoop(iServer.getThreadGroup(),
+            iProtocol.getSimpleName() + " " + iHostName + ":" + serverSocket.getLocalPort(), configuration);
+        binaryEventLoop.start();
+      } catch (IOException e) {
+        throw OException.wrapException(new ONetworkProtocolException("Error on creating the selector of " + iProtocolName), e);
+      }
+    }
 
     if (iCommands != null) {
       for (int i = 0; i < iCommands.length; ++i) {
@@ -167,6 +181,9 @@ public class OServerNetworkListener extends Thread {
   public void shutdown() {
     this.active = false;
 
+    if (binaryEventLoop != null)
+      binaryEventLoop.shutdown();
+
     if (serverSocket != null)
       try {
         serverSocket.close();
@@ -242,6 +259,13 @@ public class OServerNetworkListener extends Thread {
     beforeDatabaseOpenNetworkEventListener.remove(listener);
   }
 
+  /**
+   * @return the selector that serves the connections of this listener, null if every connection is served by its own thread
+   */
+  public ONetworkBinaryEventLoop getBinaryEventLoop() {
+    return binaryEventLoop;
+  }
+
   public Class<? extends ONetworkProtocol> getProtocolType() {
     return protocolType;
   }
@@ -332,7 +356,18 @@ public class OServerNetworkListener extends Thread {
     for (int port : getPorts(iHostPortRange)) {
       inboundAddr = new InetSocketAddress(iHostName, port);
       try {
-        serverSocket = socketFactory.createServerSocket(port, 0, InetAddress.getByName(iHostName));
+        if (isEventLoopEnabled(protocolClass)) {
+          // SOCKETS ACCEPTED BY A CHANNEL CAN BE REGISTERED WITH A SELECTOR
+          final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+          try {
+            serverChannel.socket().bind(new InetSocketAddress(InetAddress.getByName(iHostName), port));
+          } catch (IOException e) {
+            serverChannel.close();
+            throw e;
+          }
+          serverSocket = serverChannel.socket();
+        } else
+          serverSocket = socketFactory.createServerSocket(port, 0, InetAddress.getByName(iHostName));
 
         if (serverSocket.isBound()) {
           OLogManager.instance().info(this,
@@ -359,6 +394,19 @@ public class OServerNetworkListener extends Thread {
     throw new OSystemException("Unable to listen for connections using the configured ports '%s' on host '%s'");
   }
 
+  private boolean isEventLoopEnabled(final Class<? extends ONetworkProtocol> protocolClass) {
+    if (!configuration.getValueAsBoolean(OGlobalConfiguration.NETWORK_BINARY_NIO_ENABLED) || !ONetworkProtocolBinary.class
+        .isAssignableFrom(protocolClass))
+      return false;
+
+    if (!(socketFactory instanceof ODefaultServerSocketFactory)) {
+      OLogManager.instance().warn(this, "Socket factory '%s' does not support %s, every connection is served by its own thread",
+          socketFactory.getName(), OGlobalConfiguration.NETWORK_BINARY_NIO_ENABLED.getKey());
+      return false;
+    }
+    return true;
+  }
+
   /**
    * Initializes connection parameters by the reading XML configuration. If not specified, get the parameters defined as global
    * configuration.
@@ -0,0 +1,189 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.server.network.protocol.binary;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.thread.OThreadPoolExecutorWithLogging;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the connections of a binary listener without a thread per connection. A single thread waits on a selector for the
+ * connections that received a request and hands them to a bounded pool of workers (or to virtual threads, when enabled and
+ * supported by the JVM), which execute all the requests already received and give the connection back to the selector.
+ * <p>
+ * While a connection is executed by a worker it is not selected again, so the requests of a connection are still executed one
+ * after the other as with a dedicated thread.
+ */
+public class ONetworkBinaryEventLoop extends Thread {
+  private final Selector                     selector;
+  private final ExecutorService              workers;
+  private final Queue<ONetworkProtocolBinary> toRegister = new ConcurrentLinkedQueue<>();
+  private final Queue<SelectionKey>          toResume   = new ConcurrentLinkedQueue<>();
+  private volatile boolean active = true;
+
+  public ONetworkBinaryEventLoop(final ThreadGroup group, final String name, final OContextConfiguration configuration)
+      throws IOException {
+    super(group, "OrientDB " + name + " selector");
+    setDaemon(true);
+
+    selector = Selector.open();
+    workers = createWorkers(name, configuration);
+  }
+
+  private static ExecutorService createWorkers(final String name, final OContextConfiguration configuration) {
+    if (configuration.getValueAsBoolean(OGlobalConfiguration.NETWORK_BINARY_NIO_VIRTUAL_THREADS)) {
+      try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException e) {
+        OLogManager.instance()
+            .warn(ONetworkBinaryEventLoop.class, "Virtual threads are not supported by the JVM, a pool of worker threads is used");
+      }
+    }
+
+    int size = configuration.getValueAsInteger(OGlobalConfiguration.NETWORK_BINARY_NIO_WORKERS);
+    if (size <= 0)
+      size = Runtime.getRuntime().availableProcessors() * 8;
+
+    final OThreadPoolExecutorWithLogging executor = new OThreadPoolExecutorWithLogging(size, size, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), new WorkerThreadFactory(name));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Starts to serve the requests of a connection. The socket channel of the connection has to be already in non-blocking mode.
+   */
+  public void register(final ONetworkProtocolBinary protocol) {
+    toRegister.add(protocol);
+    selector.wakeup();
+  }
+
+  public void shutdown() {
+    active = false;
+    selector.wakeup();
+    workers.shutdown();
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (active) {
+        selector.select();
+
+        registerConnections();
+        resumeConnections();
+
+        final Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+          final SelectionKey key = it.next();
+          it.remove();
+
+          if (!key.isValid())
+            continue;
+
+          // THE CONNECTION IS NOT SELECTED AGAIN UNTIL THE WORKER HAS EXECUTED ALL ITS REQUESTS
+          key.interestOps(0);
+          workers.execute(() -> executeRequests(key));
+        }
+      }
+    } catch (ClosedSelectorException e) {
+      // SHUTDOWN
+    } catch (Exception e) {
+      if (active)
+        OLogManager.instance().error(this, "Error on selecting binary connections", e);
+    } finally {
+      try {
+        for (SelectionKey key : selector.keys())
+          ((ONetworkProtocolBinary) key.attachment()).shutdown();
+
+        selector.close();
+      } catch (Exception e) {
+        OLogManager.instance().debug(this, "Error on closing selector of binary connections", e);
+      }
+    }
+  }
+
+  private void registerConnections() {
+    ONetworkProtocolBinary protocol;
+    while ((protocol = toRegister.poll()) != null) {
+      try {
+        protocol.getChannel().socket.getChannel().register(selector, SelectionKey.OP_READ, protocol);
+      } catch (IOException | RuntimeException e) {
+        OLogManager.instance().debug(this, "Error on registering binary connection %s", e, protocol);
+        protocol.shutdown();
+      }
+    }
+  }
+
+  private void resumeConnections() {
+    SelectionKey key;
+    while ((key = toResume.poll()) != null) {
+      if (key.isValid())
+        key.interestOps(SelectionKey.OP_READ);
+    }
+  }
+
+  private void executeRequests(final SelectionKey key) {
+    final ONetworkProtocolBinary protocol = (ONetworkProtocolBinary) key.attachment();
+    try {
+      if (protocol.executeReceivedRequests()) {
+        toResume.add(key);
+        selector.wakeup();
+      } else
+        key.cancel();
+    } finally {
+      // WORKERS ARE SHARED BY ALL THE CONNECTIONS
+      ODatabaseRecordThreadLocal.instance().remove();
+    }
+  }
+
+  private static class WorkerThreadFactory implements ThreadFactory {
+    private final String        name;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private WorkerThreadFactory(final String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Thread newThread(final Runnable r) {
+      final Thread thread = new Thread(r, "OrientDB " + name + " worker " + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -89,6 +89,7 @@ public class ONetworkProtocolBinary extends ONetworkProtocol {
   private          HandshakeInfo       handshakeInfo;
   private volatile OBinaryPushResponse expectedPushResponse;
   private BlockingQueue<OBinaryPushResponse> pushResponse = new SynchronousQueue<OBinaryPushResponse>();
+  private ONetworkBinaryEventLoop            eventLoop;
 
   private Function<Integer, OBinaryRequest<? extends OBinaryResponse>> factory = ONetworkBinaryProtocolFactory.defaultProtocol();
 
@@ -116,6 +117,11 @@ public class ONetworkProtocolBinary extends ONetworkProtocol {
   public void config(final OServerNetworkListener iListener, final OServer iServer, final Socket iSocket,
       final OContextConfiguration iConfig) throws IOException {
 
+    eventLoop = iListener != null ? iListener.getBinaryEventLoop() : null;
+    if (eventLoop != null)
+      // THE CHANNEL IS SWITCHED TO NON-BLOCKING BEFORE CREATING THE STREAMS
+      iSocket.getChannel().configureBlocking(false);
+
     OChannelBinaryServer channel = new OChannelBinaryServer(iSocket, iConfig);
     initVariables(iServer, channel);
 
@@ -123,8 +129,36 @@ public class ONetworkProtocolBinary extends ONetworkProtocol {
     channel.writeShort((short) getVersion());
 
     channel.flush();
-    start();
     setName("OrientDB (" + iSocket.getLocalSocketAddress() + ") <- BinaryClient (" + iSocket.getRemoteSocketAddress() + ")");
+    if (eventLoop != null)
+      eventLoop.register(this);
+    else
+      start();
+  }
+
+  /**
+   * Executes the requests received from the client so far, used when the connection is served by a
+   * {@link ONetworkBinaryEventLoop} instead of by this thread.
+   *
+   * @return false if the connection has been closed
+   */
+  boolean executeReceivedRequests() {
+    try {
+      do {
+        beforeExecution();
+        execute();
+        afterExecution();
+      } while (!isShutdownFlag() && channel.getDataInput().available() > 0);
+    } catch (Exception e) {
+      if (isDumpExceptions())
+        OLogManager.instance().error(this, "Error during execution of binary request", e);
+    }
+
+    if (isShutdownFlag()) {
+      shutdown();
+      return false;
+    }
+    return true;
   }
 
   @Override
@@ -138,6 +172,14 @@ public class ONetworkProtocolBinary extends ONetworkProtocol {
     channel.close();
   }
 
+  @Override
+  public void sendShutdown() {
+    super.sendShutdown();
+    if (eventLoop != null)
+      // THERE IS NO THREAD TO INTERRUPT: CLOSING THE CHANNEL STOPS THE WORKER OR REMOVES THE CONNECTION FROM THE SELECTOR
+      channel.close();
+  }
+
   private boolean isHandshaking(int requestType) {
     return requestType == OChannelBinaryProtocol.REQUEST_CONNECT || requestType == OChannelBinaryProtocol.REQUEST_DB_OPEN
         || requestType == OChannelBinaryProtocol.REQUEST_SHUTDOWN || requestType == OChannelBinaryProtocol.REQUEST_DB_REOPEN
@@ -0,0 +1,162 @@
+package com.orientechnologies.orient.server.network.protocol.binary;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.orient.client.remote.OServerAdmin;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol;
+import com.orientechnologies.orient.server.OServer;
+import com.orientechnologies.orient.server.network.OServerNetworkListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Serves remote clients with {@link OGlobalConfiguration#NETWORK_BINARY_NIO_ENABLED}: concurrent requests on many connections,
+ * and connections closed before a request is complete.
+ */
+public class ONetworkBinaryEventLoopTest {
+  private static final String SERVER_DIRECTORY = "./target/eventloop";
+  private static final String DB_NAME          = ONetworkBinaryEventLoopTest.class.getSimpleName();
+  private static final int    CLIENTS          = 8;
+  private static final int    ROUNDS           = 5;
+  private static final int    RECORDS          = 10;
+
+  private OServer server;
+  private Object  nioEnabled;
+  private Object  nioWorkers;
+
+  @Before
+  public void before() throws Exception {
+    nioEnabled = OGlobalConfiguration.NETWORK_BINARY_NIO_ENABLED.getValue();
+    nioWorkers = OGlobalConfiguration.NETWORK_BINARY_NIO_WORKERS.getValue();
+    OGlobalConfiguration.NETWORK_BINARY_NIO_ENABLED.setValue(true);
+    // LESS WORKERS THAN CONNECTIONS
+    OGlobalConfiguration.NETWORK_BINARY_NIO_WORKERS.setValue(CLIENTS / 2);
+
+    server = new OServer(false);
+    server.setServerRootDirectory(SERVER_DIRECTORY);
+    server.startup(getClass().getResourceAsStream("/com/orientechnologies/orient/server/network/orientdb-server-config.xml"));
+    server.activate();
+
+    OServerAdmin admin = new OServerAdmin("remote:localhost");
+    admin.connect("root", "root");
+    admin.createDatabase(DB_NAME, "document", "memory");
+    admin.close();
+  }
+
+  @After
+  public void after() {
+    server.shutdown();
+    Orient.instance().shutdown();
+    OFileUtils.deleteRecursively(new File(SERVER_DIRECTORY));
+    Orient.instance().startup();
+
+    OGlobalConfiguration.NETWORK_BINARY_NIO_ENABLED.setValue(nioEnabled);
+    OGlobalConfiguration.NETWORK_BINARY_NIO_WORKERS.setValue(nioWorkers);
+  }
+
+  @Test
+  public void testConcurrentRequestsAndDisconnects() throws Exception {
+    final OServerNetworkListener listener = server.getListenerByProtocol(ONetworkProtocolBinary.class);
+    assertNotNull(listener.getBinaryEventLoop());
+
+    ODatabaseDocument db = open();
+    db.getMetadata().getSchema().createClass("Item");
+    db.close();
+
+    final ExecutorService executor = Executors.newFixedThreadPool(CLIENTS + 1);
+    try {
+      final List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int i = 0; i < CLIENTS; i++) {
+        final int client = i;
+        futures.add(executor.submit(() -> {
+          for (int round = 0; round < ROUNDS; round++) {
+            final ODatabaseDocument clientDb = open();
+            try {
+              for (int k = 0; k < RECORDS; k++)
+                new ODocument("Item").field("client", client).field("round", round).save();
+
+              final List<ODocument> count = clientDb
+                  .query(new OSQLSynchQuery<ODocument>("select count(*) as count from Item where client = ?"), client);
+              assertEquals((round + 1) * RECORDS, ((Number) count.get(0).field("count")).intValue());
+            } finally {
+              clientDb.close();
+            }
+          }
+          return null;
+        }));
+      }
+
+      futures.add(executor.submit(() -> {
+        for (int round = 0; round < ROUNDS * 5; round++)
+          disconnect(listener.getInboundAddr().getPort(), round % 3);
+        return null;
+      }));
+
+      for (Future<?> future : futures)
+        future.get(2, TimeUnit.MINUTES);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    db = open();
+    try {
+      final List<ODocument> count = db.query(new OSQLSynchQuery<ODocument>("select count(*) as count from Item"));
+      assertEquals(CLIENTS * ROUNDS * RECORDS, ((Number) count.get(0).field("count")).intValue());
+    } finally {
+      db.close();
+    }
+
+    boolean workers = false;
+    for (Thread thread : Thread.getAllStackTraces().keySet())
+      workers |= thread.getName().startsWith("OrientDB ONetworkProtocolBinary") && thread.getName().contains(" worker ");
+    assertTrue(workers);
+  }
+
+  private ODatabaseDocument open() {
+    final ODatabaseDocument db = new ODatabaseDocumentTx("remote:localhost/" + DB_NAME);
+    db.open("admin", "admin");
+    return db;
+  }
+
+  /**
+   * Connects and closes the socket right after the handshake, after the request type, or after the session id of a request.
+   */
+  private static void disconnect(final int port, final int mode) throws Exception {
+    final Socket socket = new Socket("localhost", port);
+    try {
+      final DataInputStream in = new DataInputStream(socket.getInputStream());
+      final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+      assertTrue(in.readShort() > 0);
+
+      if (mode > 0) {
+        out.writeByte(OChannelBinaryProtocol.REQUEST_DB_OPEN);
+        if (mode > 1)
+          out.writeInt(-1);
+        out.flush();
+      }
+    } finally {
+      socket.close();
+    }
+  }
+}